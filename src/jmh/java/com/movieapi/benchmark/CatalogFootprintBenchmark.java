@@ -0,0 +1,73 @@
+package com.movieapi.benchmark;
+
+import com.movieapi.service.MovieService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap used per movie by the object and columnar store layouts.
+ * The score is the time to fill a MovieService; the footprint is printed
+ * after each iteration, as the heap retained after a full GC divided by
+ * the catalog size, in total and without the secondary and full-text
+ * indexes (which both layouts share). 10M movies need a large heap:
+ * -Djmh.args="CatalogFootprintBenchmark -p size=10000000 -jvmArgsAppend -Xmx24g".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class CatalogFootprintBenchmark {
+
+    @Param({"objects", "columnar"})
+    public String layout;
+
+    @Param({"1000000", "10000000"})
+    public int size;
+
+    private MovieService service;
+    private long baseline;
+
+    @Setup(Level.Iteration)
+    public void measureBaseline() {
+        service = null;
+        baseline = retainedHeap();
+    }
+
+    @Benchmark
+    public MovieService fill() {
+        service = new MovieService("columnar".equals(layout));
+        service.importMovies(Movies.iterate(size), size + 1L);
+        return service;
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportFootprint() {
+        long total = retainedHeap() - baseline;
+        long indexes = service.estimateAttributeIndexBytes() + service.estimateFullTextIndexBytes();
+        System.out.printf("%n%s, %,d movies: %d bytes/movie, %d without indexes%n",
+                layout, size, total / size, (total - indexes) / size);
+    }
+
+    private static long retainedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
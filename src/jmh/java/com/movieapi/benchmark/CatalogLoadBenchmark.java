@@ -0,0 +1,118 @@
+package com.movieapi.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movieapi.model.Movie;
+import com.movieapi.persistence.CatalogFormat;
+import com.movieapi.persistence.MappedCatalog;
+import com.movieapi.service.MovieService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold-load cost of a catalog: the binary catalog format against JSON.
+ * mapOnly is the time until the first read can be answered from the mapped
+ * file; decode* isolate the format cost; load* fill a MovieService
+ * completely, which includes building every index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class CatalogLoadBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private Path catalogFile;
+    private Path jsonFile;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Setup(Level.Trial)
+    public void writeFiles() throws IOException {
+        List<Movie> movies = Movies.generate(size);
+        catalogFile = Files.createTempFile("bench", ".catalog");
+        jsonFile = Files.createTempFile("bench", ".json");
+        try (OutputStream out = Files.newOutputStream(catalogFile)) {
+            CatalogFormat.write(out, movies, size + 1L, 0);
+        }
+        objectMapper.writeValue(jsonFile.toFile(), movies);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFiles() throws IOException {
+        Files.deleteIfExists(catalogFile);
+        Files.deleteIfExists(jsonFile);
+    }
+
+    @Benchmark
+    public Movie mapOnly() throws IOException {
+        MappedCatalog catalog = MappedCatalog.open(catalogFile);
+        return catalog.findById(size / 2);
+    }
+
+    @Benchmark
+    public int decodeBinary() throws IOException {
+        int titles = 0;
+        for (Movie movie : MappedCatalog.open(catalogFile)) {
+            titles += movie.getTitle().length();
+        }
+        return titles;
+    }
+
+    @Benchmark
+    public int decodeJson() throws IOException {
+        int titles = 0;
+        for (Movie movie : objectMapper.readValue(jsonFile.toFile(), new TypeReference<List<Movie>>() { })) {
+            titles += movie.getTitle().length();
+        }
+        return titles;
+    }
+
+    @Benchmark
+    public MovieService loadBinary() throws IOException {
+        MappedCatalog catalog = MappedCatalog.open(catalogFile);
+        MovieService service = new MovieService();
+        service.importMovies(catalog.iterator(), catalog.getNextId());
+        return service;
+    }
+
+    @Benchmark
+    public MovieService loadJson() throws IOException {
+        List<Movie> movies = objectMapper.readValue(jsonFile.toFile(), new TypeReference<List<Movie>>() { });
+        MovieService service = new MovieService();
+        service.importMovies(movies.iterator(), size + 1L);
+        return service;
+    }
+
+    @Benchmark
+    public MovieService replayJsonThroughAddMovie() throws IOException {
+        List<Movie> movies = objectMapper.readValue(jsonFile.toFile(), new TypeReference<List<Movie>>() { });
+        MovieService service = new MovieService();
+        for (Movie movie : movies) {
+            movie.setId(null);
+            service.addMovie(movie);
+        }
+        return service;
+    }
+}
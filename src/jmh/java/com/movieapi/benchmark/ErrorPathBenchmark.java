@@ -0,0 +1,98 @@
+package com.movieapi.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.movieapi.exception.ErrorBodies;
+import com.movieapi.exception.MovieNotFoundException;
+import com.movieapi.model.ErrorResponse;
+import com.movieapi.model.Movie;
+import com.movieapi.service.MovieService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of answering a lookup for a missing id, from the service call to the
+ * encoded body. Run with the GC profiler to compare allocations per 404:
+ * -Djmh.args="ErrorPathBenchmark -prof gc" (see gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ErrorPathBenchmark {
+
+    private static final String PATH = "/api/movies/";
+
+    private MovieService service;
+    private ObjectMapper objectMapper;
+    private ErrorBodies errorBodies;
+
+    @Setup
+    public void setUp() throws Exception {
+        service = new MovieService();
+        // Same output settings as application.properties
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        errorBodies = new ErrorBodies(objectMapper);
+    }
+
+    private static long missingId() {
+        return 1_000_000 + ThreadLocalRandom.current().nextLong(1_000_000);
+    }
+
+    // The previous path: exception with a stack trace and formatted message,
+    // a fresh LocalDateTime and a full ErrorResponse serialization
+    @Benchmark
+    public byte[] throwingWithStackTrace() throws Exception {
+        long id = missingId();
+        try {
+            if (service.findMovieById(id).isEmpty()) {
+                throw new IllegalStateException(String.format("Movie not found with id: %d", id));
+            }
+            return null;
+        } catch (IllegalStateException e) {
+            ErrorResponse error = new ErrorResponse(404, "Not Found", e.getMessage(), PATH + id);
+            error.setTimestamp(LocalDateTime.now());
+            return objectMapper.writeValueAsBytes(error);
+        }
+    }
+
+    // Stackless exception handled by GlobalExceptionHandler (PUT/DELETE misses)
+    @Benchmark
+    public byte[] stacklessException() {
+        long id = missingId();
+        try {
+            service.getMovieById(id);
+            return null;
+        } catch (MovieNotFoundException e) {
+            return errorBodies.notFound(e.getMessage(), PATH + id).getBody();
+        }
+    }
+
+    // No exception at all (GET misses)
+    @Benchmark
+    public byte[] lookupWithoutThrowing() {
+        long id = missingId();
+        Movie movie = service.findMovieById(id).orElse(null);
+        ResponseEntity<byte[]> response = movie == null ? errorBodies.notFound(id, PATH + id) : null;
+        return response.getBody();
+    }
+}
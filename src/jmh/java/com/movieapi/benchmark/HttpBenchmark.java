@@ -0,0 +1,117 @@
+package com.movieapi.benchmark;
+
+import com.movieapi.MovieApiApplication;
+import com.movieapi.service.MovieService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end requests over loopback HTTP against the real application
+ * (embedded Tomcat, filters, message converters, caches).
+ * Extra application properties can be passed as system properties, e.g.
+ * -Djmh.args="HttpBenchmark -jvmArgsAppend -Dmovie.cache.enabled=false".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class HttpBenchmark {
+
+    // Movies per bulk request; the bulk benchmark reports per movie
+    private static final int BATCH_SIZE = 1000;
+
+    // One movie, as addMovie() posts it
+    private static final String MOVIE =
+            "{\"title\":\"Benchmark\",\"genre\":\"Drama\",\"releaseYear\":2000,\"rating\":7.5}";
+
+    @Param({"10000"})
+    public int catalogSize;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(MovieApiApplication.class)
+                .run("--server.port=0", "--logging.level.root=WARN", "--logging.level.com.movieapi=WARN",
+                        "--movie.rate-limit.enabled=false");
+        context.getBean(MovieService.class).importMovies(Movies.generate(catalogSize).iterator(), catalogSize + 1L);
+        int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://127.0.0.1:" + port + "/api/movies";
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    private String send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 500) {
+            throw new IllegalStateException("HTTP " + response.statusCode());
+        }
+        return response.body();
+    }
+
+    @Benchmark
+    public String getById() throws Exception {
+        long id = 1 + ThreadLocalRandom.current().nextLong(catalogSize);
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/" + id)).build());
+    }
+
+    @Benchmark
+    public String getMissing() throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/0")).build());
+    }
+
+    @Benchmark
+    public String listPage() throws Exception {
+        long cursor = ThreadLocalRandom.current().nextLong(catalogSize);
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "?limit=100&cursor=" + cursor)).build());
+    }
+
+    @Benchmark
+    public String addMovie() throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(MOVIE))
+                .build());
+    }
+
+    // Compare with addMovie(): both report movies added per millisecond
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public String addMoviesInBulk() throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/bulk"))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString((MOVIE + "\n").repeat(BATCH_SIZE)))
+                .build());
+    }
+}
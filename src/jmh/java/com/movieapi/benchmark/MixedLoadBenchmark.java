@@ -0,0 +1,131 @@
+package com.movieapi.benchmark;
+
+import com.movieapi.MovieApiApplication;
+import com.movieapi.service.MovieService;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test comparing platform-thread, virtual-thread and reactive (Netty)
+ * request handling under mixed read/write HTTP traffic from many concurrent
+ * keep-alive clients. Use -t to change the number of clients/connections and
+ * the sample-time mode for p99 latency.
+ * With persistence on, every write waits for a WAL fsync, which is the
+ * blocking I/O that ties up platform threads.
+ *
+ * The virtual mode needs JDK 21 and a -Pjava21 build:
+ * mvn -Pjmh,java21 test-compile exec:exec -Djmh.args="MixedLoadBenchmark -t 2000"
+ * Shed requests (503) are reported as the "shed" counter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(400)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class MixedLoadBenchmark {
+
+    @Param({"platform", "virtual", "reactive"})
+    public String mode;
+
+    @Param({"false", "true"})
+    public boolean persistence;
+
+    @Param({"10"})
+    public int writePercent;
+
+    @Param({"10000"})
+    public int catalogSize;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+    private Path dataDirectory;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        if (mode.equals("virtual") && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("Virtual threads need JDK 21; run with -p mode=platform,reactive on this JDK");
+        }
+        dataDirectory = Files.createTempDirectory("movie-load");
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--logging.level.root=WARN",
+                "--logging.level.com.movieapi=WARN",
+                "--movie.persistence.enabled=" + persistence,
+                "--movie.persistence.directory=" + dataDirectory,
+                // Every simulated client shares one address
+                "--movie.rate-limit.enabled=false"));
+        if (!mode.equals("platform")) {
+            args.add("--spring.profiles.active=" + mode);
+        }
+        context = new SpringApplicationBuilder(MovieApiApplication.class).run(args.toArray(String[]::new));
+        context.getBean(MovieService.class).importMovies(Movies.generate(catalogSize).iterator(), catalogSize + 1L);
+        String port = context.getEnvironment().getProperty("local.server.port");
+        baseUrl = "http://127.0.0.1:" + port + "/api/movies/";
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+        FileSystemUtils.deleteRecursively(dataDirectory.toFile());
+    }
+
+    /**
+     * Per-thread outcome counts, reported next to the throughput
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outcomes {
+        public long shed;
+        public long failed;
+    }
+
+    @Benchmark
+    public int mixed(Outcomes outcomes) throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long id = 1 + random.nextLong(catalogSize);
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + id));
+        if (random.nextInt(100) < writePercent) {
+            request.header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(
+                            "{\"title\":\"Load " + id + "\",\"genre\":\"Drama\",\"releaseYear\":2000,\"rating\":7.5}"));
+        }
+        int status = client.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status == 503) {
+            outcomes.shed++;
+        } else if (status >= 400) {
+            outcomes.failed++;
+        }
+        return status;
+    }
+}
@@ -0,0 +1,107 @@
+package com.movieapi.benchmark;
+
+import com.movieapi.model.Movie;
+import com.movieapi.model.MovieFilter;
+import com.movieapi.model.PageResponse;
+import com.movieapi.service.MovieService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MovieService operations against a pre-filled catalog.
+ * Thread count comes from the JMH command line (-t), e.g.
+ * -Djmh.args="MovieServiceBenchmark.mixed -t 8 -p writePercent=10".
+ * Catalogs of 10M movies need a large heap:
+ * -Djmh.args="MovieServiceBenchmark -p catalogSize=10000000 -jvmArgsAppend -Xmx24g".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class MovieServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int catalogSize;
+
+    // Share of writes in the mixed benchmark, in percent
+    @Param({"0", "5", "50"})
+    public int writePercent;
+
+    // Store layout; compare with -p layout=objects,columnar
+    @Param({"objects"})
+    public String layout;
+
+    private static final MovieFilter ALL = MovieFilter.NONE;
+    private static final MovieFilter DRAMA = new MovieFilter("Drama", null, null, null, null);
+
+    private MovieService service;
+    private long maxId;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        service = new MovieService("columnar".equals(layout));
+        service.importMovies(Movies.generate(catalogSize).iterator(), catalogSize + 1L);
+        maxId = catalogSize;
+    }
+
+    private long randomId() {
+        return 1 + ThreadLocalRandom.current().nextLong(maxId);
+    }
+
+    private static Movie newMovie() {
+        return Movies.movie(new SplittableRandom(ThreadLocalRandom.current().nextLong()), null);
+    }
+
+    @Benchmark
+    public Movie getById() {
+        return service.getMovieById(randomId());
+    }
+
+    @Benchmark
+    public Movie update() {
+        return service.updateMovie(randomId(), newMovie());
+    }
+
+    // Add and delete in one op keeps the catalog size stable
+    @Benchmark
+    public Movie addThenDelete() {
+        Movie movie = service.addMovie(newMovie());
+        service.deleteMovie(movie.getId());
+        return movie;
+    }
+
+    @Benchmark
+    public PageResponse<Movie> listPage() {
+        return service.getMoviesPage(ALL, randomId(), 100);
+    }
+
+    @Benchmark
+    public PageResponse<Movie> filteredPage() {
+        return service.getMoviesPage(DRAMA, randomId(), 100);
+    }
+
+    // Reads by id, with writePercent of operations being updates
+    @Benchmark
+    public Movie mixed() {
+        if (ThreadLocalRandom.current().nextInt(100) < writePercent) {
+            return update();
+        }
+        return getById();
+    }
+}
@@ -0,0 +1,57 @@
+package com.movieapi.benchmark;
+
+import com.movieapi.model.Movie;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
+
+/**
+ * Deterministic synthetic catalogs for the benchmarks.
+ */
+final class Movies {
+
+    static final String[] GENRES = {"Drama", "Comedy", "Action", "Sci-Fi", "Horror", "Thriller", "Romance", "Animation"};
+
+    private static final String[] WORDS = {"lost", "night", "city", "return", "dark", "river", "king", "secret",
+            "war", "love", "last", "storm", "shadow", "golden", "silent", "journey", "empire", "dream"};
+
+    private Movies() {
+    }
+
+    /**
+     * @return The given number of movies with ids 1..count
+     */
+    static List<Movie> generate(int count) {
+        SplittableRandom random = new SplittableRandom(42);
+        List<Movie> movies = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            movies.add(movie(random, (long) i));
+        }
+        return movies;
+    }
+
+    /**
+     * Same movies as generate(), made one at a time as they are consumed
+     * @return The given number of movies with ids 1..count
+     */
+    static Iterator<Movie> iterate(int count) {
+        SplittableRandom random = new SplittableRandom(42);
+        return LongStream.rangeClosed(1, count).mapToObj(id -> movie(random, id)).iterator();
+    }
+
+    /**
+     * @return A random movie with the given id (null for a new movie)
+     */
+    static Movie movie(SplittableRandom random, Long id) {
+        String title = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+        StringBuilder description = new StringBuilder(96);
+        for (int w = 0; w < 12; w++) {
+            description.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        return new Movie(id, title, description.toString().trim(), GENRES[random.nextInt(GENRES.length)],
+                1920 + random.nextInt(105), Math.round(random.nextDouble(0, 10) * 10) / 10.0);
+    }
+}
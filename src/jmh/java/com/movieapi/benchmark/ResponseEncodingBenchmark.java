@@ -0,0 +1,82 @@
+package com.movieapi.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.movieapi.model.Movie;
+import com.movieapi.model.PageResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * CPU to encode one listing page, and the bytes it puts on the wire, for
+ * pretty JSON (the default profile), compact JSON and Smile, each with
+ * and without the gzip the "prod" profile applies. The score is the encode
+ * time; the page size on the wire is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseEncodingBenchmark {
+
+    @Param({"json-pretty", "json", "smile"})
+    public String format;
+
+    @Param({"none", "gzip"})
+    public String compression;
+
+    @Param({"100", "1000"})
+    public int pageSize;
+
+    private ObjectMapper objectMapper;
+    private PageResponse<Movie> page;
+
+    // Reused across invocations, like a pooled response buffer
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(1 << 20);
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = new ObjectMapper("smile".equals(format) ? new SmileFactory() : null)
+                .registerModule(new JavaTimeModule())
+                .configure(SerializationFeature.INDENT_OUTPUT, "json-pretty".equals(format))
+                .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        List<Movie> movies = Movies.generate(pageSize);
+        page = new PageResponse<>(movies, pageSize, (long) pageSize);
+        System.out.printf("%n%s, %s, %d movies: %,d bytes on the wire%n",
+                format, compression, pageSize, encodePage());
+    }
+
+    @Benchmark
+    public int encodePage() throws IOException {
+        buffer.reset();
+        if ("gzip".equals(compression)) {
+            // A new deflater per body, as the servlet container does
+            try (OutputStream gzip = new GZIPOutputStream(buffer, 8192)) {
+                objectMapper.writeValue(gzip, page);
+            }
+        } else {
+            objectMapper.writeValue(buffer, page);
+        }
+        return buffer.size();
+    }
+}
@@ -0,0 +1,79 @@
+package com.movieapi.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.movieapi.model.ErrorResponse;
+import com.movieapi.model.Movie;
+import com.movieapi.model.PageResponse;
+import com.movieapi.model.SuccessResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson encoding cost of the API's response models, with and without
+ * the pretty-printing enabled in application.properties.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"true", "false"})
+    public boolean indent;
+
+    private ObjectMapper objectMapper;
+    private Movie movie;
+    private SuccessResponse<Movie> success;
+    private ErrorResponse error;
+    private PageResponse<Movie> page;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .configure(SerializationFeature.INDENT_OUTPUT, indent)
+                .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        List<Movie> movies = Movies.generate(100);
+        movie = movies.get(0);
+        success = new SuccessResponse<>(201, "Movie added successfully!",
+                "The movie '" + movie.getTitle() + "' has been added to the collection.", movie);
+        error = new ErrorResponse(404, "Not Found", "Movie not found with id: 999", "/api/movies/999");
+        page = new PageResponse<>(movies, 100, 100L);
+    }
+
+    @Benchmark
+    public byte[] movie() throws Exception {
+        return objectMapper.writeValueAsBytes(movie);
+    }
+
+    @Benchmark
+    public byte[] successResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(success);
+    }
+
+    @Benchmark
+    public byte[] errorResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(error);
+    }
+
+    @Benchmark
+    public byte[] page100() throws Exception {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
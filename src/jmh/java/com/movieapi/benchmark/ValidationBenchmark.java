@@ -0,0 +1,181 @@
+package com.movieapi.benchmark;
+
+import com.movieapi.exception.MovieValidationException;
+import com.movieapi.model.Movie;
+import com.movieapi.model.MovieFields;
+import com.movieapi.validation.MovieValidator;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of validating movies three ways: the hand-written checks that threw
+ * on the first bad field, the compiled MovieValidator, and Bean Validation
+ * (Hibernate Validator) on an annotated copy of the movie. Each is run on
+ * a valid movie, on a movie with every rule broken, and over a bulk batch
+ * of 1000 movies in which every tenth is invalid. Run with the GC profiler
+ * to compare allocations: -Djmh.args="ValidationBenchmark -prof gc".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final MovieValidator validator = MovieValidator.compile(MovieValidator.MOVIE_RULES);
+    private ValidatorFactory beanValidatorFactory;
+    private Validator beanValidator;
+
+    private Movie valid;
+    private Movie invalid;
+    private List<Movie> batch;
+    private AnnotatedMovie annotatedValid;
+    private AnnotatedMovie annotatedInvalid;
+    private AnnotatedMovie[] annotatedBatch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        beanValidatorFactory = Validation.buildDefaultValidatorFactory();
+        beanValidator = beanValidatorFactory.getValidator();
+
+        valid = new Movie(1L, "Heat", "A crew of thieves and the detective after them", "Crime", 1995, 8.3);
+        invalid = new Movie(2L, "  ", null, "Crime", 1700, 11.0);
+        batch = Movies.generate(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i += 10) {
+            batch.get(i).setRating(12.0);
+        }
+        annotatedValid = new AnnotatedMovie(valid);
+        annotatedInvalid = new AnnotatedMovie(invalid);
+        annotatedBatch = batch.stream().map(AnnotatedMovie::new).toArray(AnnotatedMovie[]::new);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        beanValidatorFactory.close();
+    }
+
+    // The previous checks, exception on the first failed field
+    @Benchmark
+    public boolean handWrittenValid() {
+        return handWritten(valid);
+    }
+
+    @Benchmark
+    public boolean handWrittenInvalid() {
+        return handWritten(invalid);
+    }
+
+    @Benchmark
+    public void handWrittenBatch(Blackhole blackhole) {
+        for (Movie movie : batch) {
+            blackhole.consume(handWritten(movie));
+        }
+    }
+
+    // Compiled rule table, every failed rule in one pass, no exception
+    @Benchmark
+    public long compiledValid() {
+        return validator.check(valid, MovieFields.ALL);
+    }
+
+    @Benchmark
+    public long compiledInvalid() {
+        return validator.check(invalid, MovieFields.ALL);
+    }
+
+    @Benchmark
+    public void compiledBatch(Blackhole blackhole) {
+        for (Movie movie : batch) {
+            long failed = validator.check(movie, MovieFields.ALL);
+            // Bulk writes only build a message for movies that fail
+            blackhole.consume(failed == 0 ? null : validator.describe(failed));
+        }
+    }
+
+    // Bean Validation, every violation collected
+    @Benchmark
+    public Set<ConstraintViolation<AnnotatedMovie>> beanValidationValid() {
+        return beanValidator.validate(annotatedValid);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<AnnotatedMovie>> beanValidationInvalid() {
+        return beanValidator.validate(annotatedInvalid);
+    }
+
+    @Benchmark
+    public void beanValidationBatch(Blackhole blackhole) {
+        for (AnnotatedMovie movie : annotatedBatch) {
+            blackhole.consume(beanValidator.validate(movie));
+        }
+    }
+
+    // Returns whether the movie is valid, as the bulk path used to
+    private static boolean handWritten(Movie movie) {
+        try {
+            if (movie.getTitle() == null || movie.getTitle().trim().isEmpty()) {
+                throw new MovieValidationException("title", "Title is required and cannot be empty");
+            }
+            if (movie.getRating() != null && (movie.getRating() < 0 || movie.getRating() > 10)) {
+                throw new MovieValidationException("rating", "Rating must be between 0 and 10");
+            }
+            if (movie.getReleaseYear() != null && (movie.getReleaseYear() < 1888 || movie.getReleaseYear() > 2100)) {
+                throw new MovieValidationException("releaseYear",
+                        "Release year must be between 1888 (first movie ever made) and 2100");
+            }
+            return true;
+        } catch (MovieValidationException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * The movie rules as Bean Validation annotations
+     */
+    public static class AnnotatedMovie {
+
+        @NotBlank(message = "Title is required and cannot be empty")
+        private final String title;
+
+        @DecimalMin(value = "0", message = "Rating must be between 0 and 10")
+        @DecimalMax(value = "10", message = "Rating must be between 0 and 10")
+        private final Double rating;
+
+        @Min(value = 1888, message = "Release year must be between 1888 (first movie ever made) and 2100")
+        @Max(value = 2100, message = "Release year must be between 1888 (first movie ever made) and 2100")
+        private final Integer releaseYear;
+
+        AnnotatedMovie(Movie movie) {
+            this.title = movie.getTitle();
+            this.rating = movie.getRating();
+            this.releaseYear = movie.getReleaseYear();
+        }
+    }
+}
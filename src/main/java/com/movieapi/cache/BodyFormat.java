@@ -0,0 +1,55 @@
+package com.movieapi.cache;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+/**
+ * Encodings of a pre-serialized response body. JSON is the default; Smile
+ * is a binary encoding of the same JSON data model, smaller and cheaper to
+ * write and parse, for internal clients that ask for it by name.
+ */
+public enum BodyFormat {
+
+    JSON(MediaType.APPLICATION_JSON),
+    SMILE(MediaType.parseMediaType(BodyFormat.SMILE_VALUE));
+
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+
+    private final MediaType mediaType;
+
+    BodyFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Picks the body format for an Accept header. Smile is only chosen when
+     * the client names it, with a quality no lower than any type that
+     * covers JSON, so browsers and wildcard clients always get JSON.
+     * @param accept The Accept header value, may be null
+     * @return The format to answer in
+     */
+    public static BodyFormat negotiate(String accept) {
+        // Cheap check first: almost every request asks for JSON or anything
+        if (accept == null || !accept.contains(SMILE_VALUE)) {
+            return JSON;
+        }
+        double smileQuality = 0;
+        double jsonQuality = 0;
+        try {
+            for (MediaType type : MediaType.parseMediaTypes(accept)) {
+                if (type.equalsTypeAndSubtype(SMILE.mediaType)) {
+                    smileQuality = Math.max(smileQuality, type.getQualityValue());
+                } else if (type.includes(MediaType.APPLICATION_JSON)) {
+                    jsonQuality = Math.max(jsonQuality, type.getQualityValue());
+                }
+            }
+        } catch (InvalidMediaTypeException ex) {
+            return JSON;
+        }
+        return smileQuality > 0 && smileQuality >= jsonQuality ? SMILE : JSON;
+    }
+}
@@ -0,0 +1,272 @@
+package com.movieapi.cache;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.movieapi.config.SerializationConfig;
+import com.movieapi.model.Movie;
+import com.movieapi.model.MovieChange;
+import com.movieapi.service.MovieChangeListener;
+import com.movieapi.service.MovieService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of already-serialized response bodies, so hot movies and
+ * listing pages skip Jackson entirely. Bodies are UTF-8 JSON, or Smile for
+ * clients that ask for it; each format is cached under its own key.
+ * Caffeine provides W-TinyLFU eviction weighted by body size in bytes.
+ *
+ * Movie bodies are dropped as soon as the movie is updated or deleted, and
+ * every entry remembers the version it was built from, so a body that was
+ * serialized concurrently with a write is never served after it.
+ * Hit, miss and eviction counts are published as "cache.*" metrics with
+ * cache=movie.responses and cache=movie.listings.
+ *
+ * A listing is only held in memory while it could still be cached: one
+ * that grows past the entry size limit, or any listing while the cache is
+ * disabled, is written straight to the response as it is serialized.
+ */
+@Component
+public class MovieResponseCache implements MovieChangeListener {
+
+    /**
+     * Opens the response body for a listing that is streamed rather than
+     * returned; called at most once, before anything is written
+     */
+    @FunctionalInterface
+    public interface BodyTarget {
+        OutputStream open() throws IOException;
+    }
+
+    private final ObjectMapper objectMapper;
+
+    // Same configuration as objectMapper, writing Smile instead of JSON
+    private final ObjectMapper smileMapper;
+
+    private final boolean enabled;
+
+    // Bodies bigger than this are served but never cached
+    private final long maxEntryBytes;
+
+    // Keyed by id for JSON, by SmileKey(id) for Smile
+    private final Cache<Object, CachedBody> movies;
+    private final Cache<Object, CachedBody> listings;
+
+    // Time spent serializing bodies on a miss, per kind of body
+    private final Timer movieSerialization;
+    private final Timer listingSerialization;
+
+    public MovieResponseCache(MovieService movieService,
+                              ObjectMapper objectMapper,
+                              Jackson2ObjectMapperBuilder objectMapperBuilder,
+                              MeterRegistry meterRegistry,
+                              @Value("${movie.cache.enabled:true}") boolean enabled,
+                              @Value("${movie.cache.max-size:64MB}") DataSize maxSize) {
+        this.objectMapper = objectMapper;
+        this.smileMapper = SerializationConfig.smileMapper(objectMapperBuilder);
+        this.enabled = enabled;
+        // Listings tend to be bigger, movies hotter: split the budget evenly
+        long budget = Math.max(1, maxSize.toBytes() / 2);
+        this.maxEntryBytes = Math.max(1, budget / 8);
+        this.movies = newCache(budget);
+        this.listings = newCache(budget);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, movies, "movie.responses");
+        CaffeineCacheMetrics.monitor(meterRegistry, listings, "movie.listings");
+        Gauge.builder("movie.cache.bytes", this, cache -> cache.weightedSize(cache.movies))
+                .tag("cache", "movie.responses").baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("movie.cache.bytes", this, cache -> cache.weightedSize(cache.listings))
+                .tag("cache", "movie.listings").baseUnit("bytes").register(meterRegistry);
+
+        this.movieSerialization = serializationTimer(meterRegistry, "movie");
+        this.listingSerialization = serializationTimer(meterRegistry, "listing");
+
+        movieService.addChangeListener(this);
+    }
+
+    private static Timer serializationTimer(MeterRegistry meterRegistry, String body) {
+        return Timer.builder("movie.serialization")
+                .description("Time spent writing response bodies as JSON or Smile")
+                .tag("body", body)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    private static <K> Cache<K, CachedBody> newCache(long maxBytes) {
+        return Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((K key, CachedBody body) -> body.bytes().length)
+                .recordStats()
+                .build();
+    }
+
+    private double weightedSize(Cache<?, ?> cache) {
+        return cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L);
+    }
+
+    /**
+     * Returns the body of a movie, serializing it only on a miss
+     * @param movie The current state of the movie
+     * @param format The encoding the client asked for
+     * @return The encoded bytes, as the default message converter would write them
+     */
+    public byte[] movie(Movie movie, BodyFormat format) {
+        if (!enabled) {
+            return serialize(movie, format, movieSerialization);
+        }
+        Object key = cacheKey(movie.getId(), format);
+        CachedBody cached = movies.getIfPresent(key);
+        if (cached != null && cached.version() == movie.getVersion()) {
+            return cached.bytes();
+        }
+        byte[] bytes = serialize(movie, format, movieSerialization);
+        if (bytes.length <= maxEntryBytes) {
+            movies.put(key, new CachedBody(movie.getVersion(), bytes));
+        }
+        return bytes;
+    }
+
+    /**
+     * @param key Identifies the listing query; must implement equals/hashCode
+     * @param catalogVersion The catalog version the listing is read at
+     * @param format The encoding the client asked for
+     * @return The cached body, or null if it must be written with writeListing()
+     */
+    public byte[] cachedListing(Object key, long catalogVersion, BodyFormat format) {
+        if (!enabled) {
+            return null;
+        }
+        CachedBody cached = listings.getIfPresent(cacheKey(key, format));
+        return cached != null && cached.version() == catalogVersion ? cached.bytes() : null;
+    }
+
+    /**
+     * Serializes a listing that was not in the cache, in one pass. The body
+     * is buffered while it still fits in a cache entry; once it outgrows
+     * that, the buffered part and the rest are written to the target as they
+     * are produced, so a large listing never sits in memory whole.
+     * @param key Identifies the listing query; must implement equals/hashCode
+     * @param catalogVersion The catalog version the listing is read at
+     * @param format The encoding the client asked for
+     * @param listing The listing, e.g. a lazily walked Iterable of movies
+     * @param target Where the body goes if it is too big to return
+     * @return The body, now cached, if it fitted; null if it was written to target
+     */
+    public byte[] writeListing(Object key, long catalogVersion, BodyFormat format, Object listing,
+                               BodyTarget target) throws IOException {
+        SpillBuffer buffer = new SpillBuffer(enabled ? maxEntryBytes : 0, target);
+        long start = System.nanoTime();
+        try (JsonGenerator generator = mapper(format).createGenerator(buffer)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            mapper(format).writeValue(generator, listing);
+        } finally {
+            listingSerialization.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (buffer.spilled()) {
+            buffer.flush();
+            return null;
+        }
+        byte[] bytes = buffer.toByteArray();
+        listings.put(cacheKey(key, format), new CachedBody(catalogVersion, bytes));
+        return bytes;
+    }
+
+    // JSON, by far the common case, is keyed without a wrapper object
+    private static Object cacheKey(Object key, BodyFormat format) {
+        return format == BodyFormat.SMILE ? new SmileKey(key) : key;
+    }
+
+    @Override
+    public void onChange(MovieChange change) {
+        // Listing entries are checked against the catalog version instead:
+        // almost any write can change almost any listing
+        if (change.getType() != MovieChange.Type.CREATED) {
+            movies.invalidate(change.getId());
+            movies.invalidate(new SmileKey(change.getId()));
+        }
+    }
+
+    private ObjectMapper mapper(BodyFormat format) {
+        return format == BodyFormat.SMILE ? smileMapper : objectMapper;
+    }
+
+    private byte[] serialize(Object value, BodyFormat format, Timer timer) {
+        long start = System.nanoTime();
+        try {
+            return mapper(format).writeValueAsBytes(value);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize response body", ex);
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private record CachedBody(long version, byte[] bytes) {
+    }
+
+    // Keeps what is written in memory up to a limit; past it, sends the
+    // buffered bytes and everything after straight to the target
+    private static final class SpillBuffer extends OutputStream {
+
+        private final long limit;
+        private final BodyTarget target;
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream(8192);
+        private OutputStream out;
+
+        SpillBuffer(long limit, BodyTarget target) {
+            this.limit = limit;
+            this.target = target;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (out == null && buffer.size() + (long) length > limit) {
+                out = target.open();
+                buffer.writeTo(out);
+                buffer = null;
+            }
+            if (out != null) {
+                out.write(bytes, offset, length);
+            } else {
+                buffer.write(bytes, offset, length);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (out != null) {
+                out.flush();
+            }
+        }
+
+        boolean spilled() {
+            return out != null;
+        }
+
+        byte[] toByteArray() {
+            return buffer.toByteArray();
+        }
+    }
+
+    private record SmileKey(Object key) {
+    }
+}
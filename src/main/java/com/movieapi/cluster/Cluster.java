@@ -0,0 +1,178 @@
+package com.movieapi.cluster;
+
+import com.movieapi.service.MovieService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Membership of a statically configured cluster (movie.cluster.enabled=true).
+ * Every node is started with the same movie.cluster.nodes list of base URLs
+ * and its own movie.cluster.self, and builds the same HashRing from them, so
+ * all nodes agree on who owns each movie id without talking to each other.
+ *
+ * At startup the local MovieService is cut down to the ids this node owns,
+ * and from then on only hands out such ids, so a movie is created on the
+ * node that owns it. Requests between nodes carry the shared
+ * movie.cluster.secret in the X-Movie-Cluster header.
+ *
+ * Membership is fixed for the life of the process: changing the node list
+ * means restarting every node, and movies that change owner are not moved.
+ * Servlet stack only.
+ */
+@Component
+@ConditionalOnProperty(name = "movie.cluster.enabled", havingValue = "true")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class Cluster implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(Cluster.class);
+
+    /**
+     * Header carrying the shared secret on requests between nodes
+     */
+    public static final String SECRET_HEADER = "X-Movie-Cluster";
+
+    /**
+     * Header marking a request forwarded to the owner of a movie, which
+     * must then serve it rather than forward it again
+     */
+    public static final String FORWARDED_HEADER = "X-Movie-Forwarded";
+
+    private final MovieService movieService;
+    private final HashRing ring;
+    private final String self;
+    private final List<String> peers;
+    private final byte[] secret;
+    private final Duration timeout;
+    private final HttpClient httpClient;
+
+    public Cluster(MovieService movieService,
+                   @Value("${movie.cluster.nodes}") List<String> nodes,
+                   @Value("${movie.cluster.self}") String self,
+                   @Value("${movie.cluster.virtual-nodes:128}") int virtualNodes,
+                   @Value("${movie.cluster.secret:}") String secret,
+                   @Value("${movie.cluster.timeout:2s}") Duration timeout) {
+        List<String> normalized = new ArrayList<>(nodes.size());
+        for (String node : nodes) {
+            if (!node.isBlank()) {
+                normalized.add(normalize(node));
+            }
+        }
+        this.self = normalize(self);
+        if (!normalized.contains(this.self)) {
+            throw new IllegalArgumentException("movie.cluster.self (" + self + ") is not in movie.cluster.nodes");
+        }
+        if (secret.isBlank()) {
+            throw new IllegalArgumentException("movie.cluster.secret must be set when clustering is enabled");
+        }
+        this.movieService = movieService;
+        this.ring = new HashRing(normalized, virtualNodes);
+        this.peers = normalized.stream().filter(node -> !node.equals(this.self)).toList();
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.timeout = timeout;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .build();
+    }
+
+    // After every other bean, so movies recovered from disk are partitioned
+    // too, and before the web server takes requests
+    @Override
+    public void afterSingletonsInstantiated() {
+        int removed = movieService.partition(this::isLocal);
+        log.info("Cluster node {} of {}: owns {} movies, dropped {} owned by other nodes",
+                self, ring.getNodes().size(), movieService.getMovieCount(), removed);
+    }
+
+    /**
+     * @param id A movie id
+     * @return Whether this node owns it
+     */
+    public boolean isLocal(long id) {
+        return ring.owner(id).equals(self);
+    }
+
+    /**
+     * @param id A movie id
+     * @return Base URL of the node that owns it
+     */
+    public String owner(long id) {
+        return ring.owner(id);
+    }
+
+    /**
+     * @return Base URL of this node
+     */
+    public String getSelf() {
+        return self;
+    }
+
+    /**
+     * @return Base URLs of every node, in configured order
+     */
+    public List<String> getNodes() {
+        return ring.getNodes();
+    }
+
+    /**
+     * @return Base URLs of every other node
+     */
+    public List<String> getPeers() {
+        return peers;
+    }
+
+    /**
+     * @param request An incoming request
+     * @return Whether it comes from another node, i.e. carries the secret
+     */
+    public boolean isPeerRequest(HttpServletRequest request) {
+        return matches(request.getHeader(SECRET_HEADER), secret);
+    }
+
+    /**
+     * Compares a presented secret in constant time
+     * @param presented The header value, may be null
+     * @param secret The configured secret
+     * @return Whether they are equal
+     */
+    public static boolean matches(String presented, byte[] secret) {
+        return presented != null && secret.length > 0
+                && MessageDigest.isEqual(presented.getBytes(StandardCharsets.UTF_8), secret);
+    }
+
+    /**
+     * Starts a request to another node, authenticated as a peer
+     * @param node Base URL of the node
+     * @param pathAndQuery Path, with its query string if any
+     * @return The request builder, with the timeout for the response headers
+     */
+    HttpRequest.Builder request(String node, String pathAndQuery) {
+        return HttpRequest.newBuilder(URI.create(node + pathAndQuery))
+                .timeout(timeout)
+                .header(SECRET_HEADER, new String(secret, StandardCharsets.UTF_8));
+    }
+
+    HttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    private static String normalize(String node) {
+        String trimmed = node.trim();
+        return trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+    }
+}
@@ -0,0 +1,359 @@
+package com.movieapi.cluster;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.movieapi.controller.MovieController;
+import com.movieapi.exception.NodeUnavailableException;
+import com.movieapi.model.Movie;
+import com.movieapi.model.MovieFilter;
+import com.movieapi.model.PageResponse;
+import com.movieapi.model.SearchHit;
+import com.movieapi.model.StatsTotals;
+import com.movieapi.service.CatalogSnapshot;
+import com.movieapi.service.MovieService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLEncoder;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Scatter-gather over the cluster for the queries that span every
+ * partition: listings, search and statistics. The request goes to every
+ * peer at once; the local partition is read while they answer, and the
+ * parts are merged here.
+ * <ul>
+ *   <li>Listings: every partition streams its matches in id order, and a
+ *       k-way merge on id yields the cluster's listing in the same order,
+ *       one movie at a time; a page asks each node for limit + 1.</li>
+ *   <li>Search: each node returns its best matches with their BM25 scores,
+ *       merged by score. Each node scores against its own partition's term
+ *       statistics; with ids spread evenly these are close to the global
+ *       ones, but rankings can differ slightly from a single node's.</li>
+ *   <li>Stats: the running totals add up exactly.</li>
+ * </ul>
+ * A listing's version combines every node's catalog version, in ring
+ * order, so it changes whenever any partition does and is the same on
+ * every node; there is no cluster-wide snapshot to pin, so pages are not
+ * versioned. A peer that does not answer fails the request with 503.
+ */
+@Component
+@ConditionalOnProperty(name = "movie.cluster.enabled", havingValue = "true")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ClusterQueries {
+
+    private static final TypeReference<List<SearchHit>> SEARCH_HITS = new TypeReference<>() {
+    };
+
+    // Orders search hits as FullTextIndex does: best score, then lowest id
+    private static final Comparator<SearchHit> BY_RELEVANCE = Comparator.comparingDouble(SearchHit::getScore)
+            .reversed().thenComparing(hit -> hit.getMovie().getId());
+
+    private final Cluster cluster;
+    private final MovieService movieService;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader movieReader;
+
+    public ClusterQueries(Cluster cluster, MovieService movieService, ObjectMapper objectMapper) {
+        this.cluster = cluster;
+        this.movieService = movieService;
+        this.objectMapper = objectMapper;
+        this.movieReader = objectMapper.readerFor(Movie.class);
+    }
+
+    /**
+     * Opens a listing across the cluster. Every peer has answered with its
+     * headers when this returns, so the version is known before any movie
+     * is read; the caller must close the listing.
+     * @param filter The criteria to match
+     * @param afterId Only return movies with a greater id, or null for all
+     * @param limit Maximum number of movies to read
+     * @return The listing
+     * @throws NodeUnavailableException if a peer does not answer
+     */
+    public Listing list(MovieFilter filter, Long afterId, long limit) {
+        StringBuilder query = new StringBuilder(PartitionController.PATH).append("/movies?limit=").append(limit);
+        param(query, "genre", filter.getGenre());
+        param(query, "minYear", filter.getMinYear());
+        param(query, "maxYear", filter.getMaxYear());
+        param(query, "minRating", filter.getMinRating());
+        param(query, "maxRating", filter.getMaxRating());
+        param(query, "cursor", afterId);
+        List<HttpResponse<InputStream>> responses = scatter(query.toString());
+
+        CatalogSnapshot snapshot = movieService.snapshot();
+        List<Source> sources = new ArrayList<>(responses.size() + 1);
+        sources.add(new Source(null, movieService.streamMovies(snapshot, filter, afterId).iterator(), null, null));
+        long[] versions = new long[cluster.getNodes().size()];
+        versions[cluster.getNodes().indexOf(cluster.getSelf())] = snapshot.getVersion();
+        try {
+            for (int i = 0; i < responses.size(); i++) {
+                String peer = cluster.getPeers().get(i);
+                HttpResponse<InputStream> response = responses.get(i);
+                versions[cluster.getNodes().indexOf(peer)] = response.headers()
+                        .firstValueAsLong(MovieController.CATALOG_VERSION).orElse(0);
+                MappingIterator<Movie> movies = movieReader.readValues(response.body());
+                sources.add(new Source(peer, movies, movies, response.body()));
+            }
+        } catch (IOException ex) {
+            responses.forEach(response -> closeQuietly(response.body()));
+            throw new NodeUnavailableException(cluster.getPeers().get(sources.size() - 1), ex);
+        }
+        return new Listing(combine(versions), sources, limit);
+    }
+
+    /**
+     * Searches every partition and keeps the best matches overall
+     * @param query Free text; every word is matched case-insensitively
+     * @param limit Maximum number of results
+     * @return The best matching movies, most relevant first
+     * @throws NodeUnavailableException if a peer does not answer
+     */
+    public List<Movie> search(String query, int limit) {
+        // Local first, so an invalid query fails before any peer is asked
+        List<SearchHit> hits = new ArrayList<>(movieService.searchHits(query, limit));
+        String path = PartitionController.PATH + "/search?q=" + encode(query) + "&limit=" + limit;
+        List<HttpResponse<InputStream>> responses = scatter(path);
+        for (int i = 0; i < responses.size(); i++) {
+            hits.addAll(read(cluster.getPeers().get(i), responses.get(i), SEARCH_HITS));
+        }
+        hits.sort(BY_RELEVANCE);
+        List<Movie> movies = new ArrayList<>(Math.min(limit, hits.size()));
+        for (SearchHit hit : hits.subList(0, Math.min(limit, hits.size()))) {
+            movies.add(hit.getMovie());
+        }
+        return movies;
+    }
+
+    /**
+     * @return The running totals of every partition added up, versioned
+     *         like a listing
+     * @throws NodeUnavailableException if a peer does not answer
+     */
+    public StatsTotals totals() {
+        List<HttpResponse<InputStream>> responses = scatter(PartitionController.PATH + "/stats");
+        List<StatsTotals> parts = new ArrayList<>(responses.size() + 1);
+        long[] versions = new long[cluster.getNodes().size()];
+        StatsTotals local = movieService.getStatsTotals();
+        parts.add(local);
+        versions[cluster.getNodes().indexOf(cluster.getSelf())] = local.getVersion();
+        for (int i = 0; i < responses.size(); i++) {
+            String peer = cluster.getPeers().get(i);
+            StatsTotals part = read(peer, responses.get(i), new TypeReference<StatsTotals>() {
+            });
+            parts.add(part);
+            versions[cluster.getNodes().indexOf(peer)] = part.getVersion();
+        }
+        return StatsTotals.merge(parts, combine(versions));
+    }
+
+    // Sends a GET to every peer at once and waits for all of their headers
+    private List<HttpResponse<InputStream>> scatter(String pathAndQuery) {
+        List<String> peers = cluster.getPeers();
+        List<CompletableFuture<HttpResponse<InputStream>>> pending = new ArrayList<>(peers.size());
+        for (String peer : peers) {
+            pending.add(cluster.getHttpClient().sendAsync(cluster.request(peer, pathAndQuery).GET().build(),
+                    HttpResponse.BodyHandlers.ofInputStream()));
+        }
+        List<HttpResponse<InputStream>> responses = new ArrayList<>(peers.size());
+        try {
+            for (int i = 0; i < peers.size(); i++) {
+                HttpResponse<InputStream> response = get(peers.get(i), pending.get(i));
+                if (response.statusCode() != 200) {
+                    throw new NodeUnavailableException(peers.get(i),
+                            new IOException("Answered with status " + response.statusCode()));
+                }
+                responses.add(response);
+            }
+            return responses;
+        } catch (NodeUnavailableException ex) {
+            // Release every connection, including those still on their way
+            for (CompletableFuture<HttpResponse<InputStream>> response : pending) {
+                response.thenAccept(answer -> closeQuietly(answer.body()));
+            }
+            throw ex;
+        }
+    }
+
+    private static HttpResponse<InputStream> get(String peer, CompletableFuture<HttpResponse<InputStream>> pending) {
+        try {
+            return pending.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new NodeUnavailableException(peer, ex);
+        } catch (ExecutionException ex) {
+            throw new NodeUnavailableException(peer, ex.getCause());
+        }
+    }
+
+    private <T> T read(String peer, HttpResponse<InputStream> response, TypeReference<T> type) {
+        try (InputStream body = response.body()) {
+            return objectMapper.readValue(body, type);
+        } catch (IOException ex) {
+            throw new NodeUnavailableException(peer, ex);
+        }
+    }
+
+    // Mixes the versions of every node, in ring order, into one
+    static long combine(long[] versions) {
+        long combined = 17;
+        for (long version : versions) {
+            combined = combined * 0x9E3779B97F4A7C15L + version;
+            combined ^= combined >>> 29;
+        }
+        // Non-negative, like a single node's version
+        return combined & Long.MAX_VALUE;
+    }
+
+    private static void param(StringBuilder query, String name, Object value) {
+        if (value != null) {
+            query.append('&').append(name).append('=').append(encode(value.toString()));
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException ignored) {
+            // the connection is being dropped anyway
+        }
+    }
+
+    /**
+     * A listing across the cluster: the next movie in id order from the
+     * local partition and from each peer's stream
+     */
+    public static final class Listing implements Iterator<Movie>, AutoCloseable {
+
+        private final long version;
+        private final List<Source> sources;
+        private final PriorityQueue<Source> heap;
+        private final long limit;
+        private long remaining;
+
+        private Listing(long version, List<Source> sources, long limit) {
+            this.version = version;
+            this.sources = sources;
+            this.heap = new PriorityQueue<>(sources.size(), Comparator.comparingLong(source -> source.head.getId()));
+            this.limit = limit;
+            this.remaining = limit;
+            for (Source source : sources) {
+                if (source.advance()) {
+                    heap.add(source);
+                }
+            }
+        }
+
+        /**
+         * @return The combined catalog version of every node
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0 && !heap.isEmpty();
+        }
+
+        @Override
+        public Movie next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Source source = heap.poll();
+            Movie movie = source.head;
+            if (source.advance()) {
+                heap.add(source);
+            }
+            remaining--;
+            return movie;
+        }
+
+        /**
+         * Reads one page; the listing must have been opened with limit + 1
+         * @param limit Maximum number of movies on the page
+         * @return The page, with the cursor for the next one if there is more
+         */
+        public PageResponse<Movie> page(int limit) {
+            List<Movie> movies = new ArrayList<>(limit);
+            while (movies.size() < limit && hasNext()) {
+                movies.add(next());
+            }
+            Long nextCursor = hasNext() ? movies.get(movies.size() - 1).getId() : null;
+            return new PageResponse<>(movies, limit, nextCursor);
+        }
+
+        // A bounded listing's leftovers are read to the end, so that the
+        // connection can be reused rather than cut off mid-response
+        @Override
+        public void close() {
+            boolean drain = limit != Long.MAX_VALUE;
+            for (Source source : sources) {
+                source.close(drain);
+            }
+        }
+    }
+
+    /**
+     * One partition's movies, in id order, with the one to be merged next
+     */
+    private static final class Source {
+
+        private final String peer;
+        private final Iterator<Movie> movies;
+        private final MappingIterator<Movie> stream;
+        private final InputStream body;
+        private Movie head;
+
+        Source(String peer, Iterator<Movie> movies, MappingIterator<Movie> stream, InputStream body) {
+            this.peer = peer;
+            this.movies = movies;
+            this.stream = stream;
+            this.body = body;
+        }
+
+        boolean advance() {
+            try {
+                if (stream != null ? stream.hasNextValue() : movies.hasNext()) {
+                    head = stream != null ? stream.nextValue() : movies.next();
+                    return true;
+                }
+                return false;
+            } catch (IOException ex) {
+                throw new NodeUnavailableException(peer, ex);
+            }
+        }
+
+        void close(boolean drain) {
+            if (stream != null) {
+                try (InputStream in = body; MappingIterator<Movie> parser = stream) {
+                    if (drain) {
+                        in.transferTo(OutputStream.nullOutputStream());
+                    }
+                } catch (IOException ignored) {
+                    // the connection is being dropped anyway
+                }
+            }
+        }
+    }
+}
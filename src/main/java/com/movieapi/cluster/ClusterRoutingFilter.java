@@ -0,0 +1,123 @@
+package com.movieapi.cluster;
+
+import com.movieapi.exception.ErrorBodies;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Collections;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Sends requests for a single movie (/api/movies/{id}, any method) to the
+ * node that owns the id, and relays its answer: status, headers and body.
+ * Every node can therefore take any request, and a client or load balancer
+ * need not know the partitioning. Requests for movies this node owns, and
+ * requests already forwarded by another node, pass straight through.
+ *
+ * Runs after the rate limits, so the client is charged once, by the node it
+ * called, and before the concurrency limits, so waiting on the owner does
+ * not hold a permit here; the owner applies its own.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 95)
+@ConditionalOnProperty(name = "movie.cluster.enabled", havingValue = "true")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ClusterRoutingFilter extends OncePerRequestFilter {
+
+    private static final Pattern MOVIE_PATH = Pattern.compile("/api/movies/(\\d{1,18})");
+
+    // Managed by the HTTP client itself, or meaningful for one hop only.
+    // Origin is left out so that only this node's CorsFilter adds CORS headers.
+    private static final Set<String> HOP_HEADERS = Set.of("connection", "content-length", "expect", "host",
+            "upgrade", "keep-alive", "transfer-encoding", "te", "trailer", "proxy-authorization", "date", "origin",
+            Cluster.SECRET_HEADER.toLowerCase(), Cluster.FORWARDED_HEADER.toLowerCase());
+
+    private final Cluster cluster;
+    private final ErrorBodies errorBodies;
+
+    public ClusterRoutingFilter(Cluster cluster, ErrorBodies errorBodies) {
+        this.cluster = cluster;
+        this.errorBodies = errorBodies;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        Long id = movieId(request);
+        return id == null || cluster.isLocal(id)
+                || (request.getHeader(Cluster.FORWARDED_HEADER) != null && cluster.isPeerRequest(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String owner = cluster.owner(movieId(request));
+        String query = request.getQueryString();
+        HttpRequest.Builder forward = cluster.request(owner, request.getRequestURI() + (query != null ? "?" + query : ""))
+                .header(Cluster.FORWARDED_HEADER, cluster.getSelf());
+        for (String name : Collections.list(request.getHeaderNames())) {
+            if (!HOP_HEADERS.contains(name.toLowerCase())) {
+                for (String value : Collections.list(request.getHeaders(name))) {
+                    forward.header(name, value);
+                }
+            }
+        }
+        // Single-movie bodies are small
+        byte[] body = request.getInputStream().readAllBytes();
+        forward.method(request.getMethod(), body.length > 0
+                ? HttpRequest.BodyPublishers.ofByteArray(body) : HttpRequest.BodyPublishers.noBody());
+
+        HttpResponse<InputStream> answer;
+        try {
+            answer = cluster.getHttpClient().send(forward.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            unavailable(request, response, owner);
+            return;
+        } catch (IOException ex) {
+            unavailable(request, response, owner);
+            return;
+        }
+        try (InputStream in = answer.body()) {
+            response.setStatus(answer.statusCode());
+            answer.headers().map().forEach((name, values) -> {
+                if (!HOP_HEADERS.contains(name.toLowerCase()) && !name.startsWith(":")) {
+                    for (String value : values) {
+                        response.addHeader(name, value);
+                    }
+                }
+            });
+            in.transferTo(response.getOutputStream());
+        }
+    }
+
+    // The id of a single-movie request, or null for any other path
+    private static Long movieId(HttpServletRequest request) {
+        Matcher matcher = MOVIE_PATH.matcher(request.getRequestURI());
+        return matcher.matches() ? Long.valueOf(matcher.group(1)) : null;
+    }
+
+    private void unavailable(HttpServletRequest request, HttpServletResponse response, String owner)
+            throws IOException {
+        ResponseEntity<byte[]> error = errorBodies.serviceUnavailable(
+                "Cluster node " + owner + " is unavailable", request.getRequestURI());
+        response.setStatus(error.getStatusCode().value());
+        response.setContentType(String.valueOf(error.getHeaders().getContentType()));
+        response.setContentLength(error.getBody().length);
+        response.getOutputStream().write(error.getBody());
+    }
+}
@@ -0,0 +1,102 @@
+package com.movieapi.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Consistent-hash ring mapping movie ids to the nodes of a cluster. Each
+ * node is placed on the ring at many points (virtual nodes); an id belongs
+ * to the first point at or after its own hash, wrapping around. With enough
+ * virtual nodes the ids spread evenly, and adding or removing a node only
+ * moves the ids between it and its neighbours, about 1/N of the catalog.
+ *
+ * Points are kept in one sorted long array with a parallel array of owners,
+ * so a lookup is a binary search with no allocation. The ring never
+ * changes once built; every node builds the same ring from the same list.
+ */
+public final class HashRing {
+
+    private final List<String> nodes;
+    private final long[] points;
+    private final String[] owners;
+
+    /**
+     * @param nodes Every node of the cluster, e.g. base URLs; order does not matter
+     * @param virtualNodes Points per node on the ring
+     * @throws IllegalArgumentException if there are no nodes, duplicates, or
+     *         fewer than one virtual node
+     */
+    public HashRing(List<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty() || virtualNodes < 1) {
+            throw new IllegalArgumentException("A hash ring needs at least one node and one virtual node");
+        }
+        if (nodes.stream().distinct().count() != nodes.size()) {
+            throw new IllegalArgumentException("Cluster nodes must be distinct");
+        }
+        this.nodes = List.copyOf(nodes);
+        int size = nodes.size() * virtualNodes;
+        long[] hashes = new long[size];
+        String[] names = new String[size];
+        Integer[] order = new Integer[size];
+        for (int n = 0; n < nodes.size(); n++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                int i = n * virtualNodes + v;
+                hashes[i] = hash(nodes.get(n) + "#" + v);
+                names[i] = nodes.get(n);
+                order[i] = i;
+            }
+        }
+        // Ties (vanishingly rare) go to the smaller node name, the same on every node
+        Arrays.sort(order, (a, b) -> hashes[a] != hashes[b]
+                ? Long.compare(hashes[a], hashes[b]) : names[a].compareTo(names[b]));
+        this.points = new long[size];
+        this.owners = new String[size];
+        for (int i = 0; i < size; i++) {
+            points[i] = hashes[order[i]];
+            owners[i] = names[order[i]];
+        }
+    }
+
+    /**
+     * @param id A movie id
+     * @return The node that owns it
+     */
+    public String owner(long id) {
+        int index = Arrays.binarySearch(points, hash(id));
+        if (index < 0) {
+            // Insertion point: the first point after the hash
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    /**
+     * @return Every node, in the order given
+     */
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    // Ids are often sequential; mixing spreads neighbours across the ring
+    static long hash(long id) {
+        return mix(id);
+    }
+
+    static long hash(String point) {
+        // FNV-1a, then mixed so that similar names land far apart
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : point.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    // Finalizer of SplitMix64: every input bit affects every output bit
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
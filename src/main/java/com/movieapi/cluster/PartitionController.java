@@ -0,0 +1,101 @@
+package com.movieapi.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movieapi.controller.MovieController;
+import com.movieapi.controller.NdjsonWriter;
+import com.movieapi.model.Movie;
+import com.movieapi.model.MovieFilter;
+import com.movieapi.model.SearchHit;
+import com.movieapi.model.StatsTotals;
+import com.movieapi.service.CatalogSnapshot;
+import com.movieapi.service.MovieService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * What one node answers for the others: its own partition of the catalog,
+ * in forms that merge. ClusterQueries calls these on every peer and
+ * combines the results. Only peers, which send the cluster secret, may
+ * call them; they sit outside /api/movies, so no rate or concurrency limit
+ * applies: the client's request was already counted where it arrived.
+ */
+@RestController
+@RequestMapping(PartitionController.PATH)
+@ConditionalOnProperty(name = "movie.cluster.enabled", havingValue = "true")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class PartitionController {
+
+    static final String PATH = "/cluster/partition";
+
+    private final MovieService movieService;
+    private final Cluster cluster;
+
+    // Movies as newline-delimited JSON
+    private final NdjsonWriter<Movie> ndjsonWriter;
+
+    public PartitionController(MovieService movieService, Cluster cluster, ObjectMapper objectMapper) {
+        this.movieService = movieService;
+        this.cluster = cluster;
+        this.ndjsonWriter = new NdjsonWriter<>(objectMapper, Movie.class);
+    }
+
+    // This node's movies matching a filter, in id order, as newline-delimited
+    // JSON, with the version of the snapshot they come from
+    @GetMapping(value = "/movies", produces = MovieController.NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamMovies(
+            @RequestParam(required = false) String genre,
+            @RequestParam(required = false) Integer minYear,
+            @RequestParam(required = false) Integer maxYear,
+            @RequestParam(required = false) Double minRating,
+            @RequestParam(required = false) Double maxRating,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Long limit,
+            HttpServletRequest request) {
+        if (!cluster.isPeerRequest(request)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        MovieFilter filter = new MovieFilter(genre, minYear, maxYear, minRating, maxRating);
+        long max = limit != null ? Math.max(0, limit) : Long.MAX_VALUE;
+        CatalogSnapshot snapshot = movieService.snapshot();
+
+        StreamingResponseBody body = outputStream -> {
+            try (Stream<Movie> movies = movieService.streamMovies(snapshot, filter, cursor).limit(max)) {
+                ndjsonWriter.write(movies.iterator(), outputStream, false);
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(MovieController.NDJSON_VALUE))
+                .header(MovieController.CATALOG_VERSION, Long.toString(snapshot.getVersion()))
+                .body(body);
+    }
+
+    // This node's best search matches, with their scores
+    @GetMapping("/search")
+    public ResponseEntity<List<SearchHit>> search(@RequestParam String q, @RequestParam int limit,
+                                                  HttpServletRequest request) {
+        if (!cluster.isPeerRequest(request)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(movieService.searchHits(q, limit));
+    }
+
+    // This node's running totals
+    @GetMapping("/stats")
+    public ResponseEntity<StatsTotals> stats(HttpServletRequest request) {
+        if (!cluster.isPeerRequest(request)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(movieService.getStatsTotals());
+    }
+}
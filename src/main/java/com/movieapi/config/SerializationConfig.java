@@ -0,0 +1,67 @@
+package com.movieapi.config;
+
+import com.fasterxml.jackson.core.util.BufferRecycler;
+import com.fasterxml.jackson.core.util.JsonRecyclerPools;
+import com.fasterxml.jackson.core.util.RecyclerPool;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Jackson setup for response bodies: the pool of encoding buffers, and
+ * Smile converters built from the same configuration as the JSON ones, so
+ * a Smile body carries exactly the fields and formats of its JSON twin.
+ * Compact output and compression are switched on by the "prod" profile.
+ */
+@Configuration
+public class SerializationConfig {
+
+    // Jackson reuses its encoding buffers through a pool kept per thread by
+    // default. That is cheapest on Tomcat's fixed worker threads, but with
+    // virtual threads (one per request) nothing would ever be reused, so
+    // "shared" switches to one bounded pool for all threads
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer jsonBufferPool(
+            @Value("${movie.json.buffer-pool:thread-local}") String pool) {
+        RecyclerPool<BufferRecycler> recyclerPool = switch (pool) {
+            case "thread-local" -> JsonRecyclerPools.threadLocalPool();
+            case "shared" -> JsonRecyclerPools.sharedBoundedPool();
+            default -> throw new IllegalArgumentException("movie.json.buffer-pool must be thread-local or shared");
+        };
+        return builder -> builder.postConfigurer(mapper -> mapper.getFactory().setRecyclerPool(recyclerPool));
+    }
+
+    // Replaces Spring's default Smile converter, which ignores the spring.jackson.* settings
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(smileMapper(builder));
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    public CodecCustomizer smileCodecCustomizer(Jackson2ObjectMapperBuilder builder) {
+        ObjectMapper smileMapper = smileMapper(builder);
+        return configurer -> {
+            configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper));
+            configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper));
+        };
+    }
+
+    /**
+     * @param builder A fresh builder carrying the application's Jackson settings
+     * @return An ObjectMapper with those settings that reads and writes Smile
+     */
+    public static ObjectMapper smileMapper(Jackson2ObjectMapperBuilder builder) {
+        return builder.factory(new SmileFactory()).build();
+    }
+}
@@ -1,9 +1,14 @@
 package com.movieapi.config;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+import org.springframework.web.cors.reactive.CorsWebFilter;
 import org.springframework.web.filter.CorsFilter;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -11,14 +16,46 @@ import java.util.Arrays;
 
 /**
  * CORS Configuration to allow frontend applications to access the API.
- * Uses CorsFilter bean for more reliable CORS handling in production.
+ * Also picks the Netty server for the reactive profile.
+ * Uses a CorsFilter for more reliable CORS handling in production,
+ * or CorsWebFilter when running on the reactive stack.
  */
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    // Registered with an order ahead of the rate and concurrency limits, so
+    // their 429 and 503 answers carry CORS headers and browsers can read them
     @Bean
-    public CorsFilter corsFilter() {
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public FilterRegistrationBean<CorsFilter> corsFilter() {
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+
+        // Register CORS configuration for all paths
+        source.registerCorsConfiguration("/**", corsConfiguration());
+
+        FilterRegistrationBean<CorsFilter> registration = new FilterRegistrationBean<>(new CorsFilter(source));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 50);
+        return registration;
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    public CorsWebFilter corsWebFilter() {
+        org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource source =
+                new org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource();
+        source.registerCorsConfiguration("/**", corsConfiguration());
+        return new CorsWebFilter(source);
+    }
+
+    // Tomcat is on the classpath for the servlet stack and would otherwise
+    // be picked for the reactive one too; the reactive profile runs on Netty
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    private static CorsConfiguration corsConfiguration() {
         CorsConfiguration config = new CorsConfiguration();
 
         // Allow credentials
@@ -34,14 +71,12 @@ public class WebConfig implements WebMvcConfigurer {
         config.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "HEAD", "PATCH"));
 
         // Expose headers
-        config.setExposedHeaders(Arrays.asList("Authorization", "Content-Type"));
+        config.setExposedHeaders(Arrays.asList("Authorization", "Content-Type", "ETag", "Catalog-Version",
+                "Replicated-Catalog-Version", "Location", "Retry-After", "RateLimit-Limit", "RateLimit-Remaining", "RateLimit-Reset"));
 
         // Max age for preflight requests
         config.setMaxAge(3600L);
 
-        // Register CORS configuration for all paths
-        source.registerCorsConfiguration("/**", config);
-
-        return new CorsFilter(source);
+        return config;
     }
-}
\ No newline at end of file
+}
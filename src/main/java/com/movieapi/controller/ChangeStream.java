@@ -0,0 +1,93 @@
+package com.movieapi.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.movieapi.service.ChangeFeed;
+import com.movieapi.service.MovieService;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+
+/**
+ * Turns the change feed into Server-Sent Events, shared by the servlet and
+ * reactive controllers. Each event's id is its sequence number, so a client
+ * reconnecting with Last-Event-ID resumes where it left off.
+ */
+@Component
+class ChangeStream {
+
+    // Comment lines keep idle connections open through proxies
+    private static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(15);
+
+    private static final String RESYNC = "resync";
+
+    private final ChangeFeed changeFeed;
+
+    // Compact JSON; event data is one line
+    private final ObjectWriter writer;
+
+    // Recently encoded events by sequence, so a change fanned out to many
+    // subscribers is serialized once. Races only cost a second encoding.
+    private final Encoded[] encoded = new Encoded[1024];
+
+    private record Encoded(long sequence, String json) {}
+
+    ChangeStream(MovieService movieService, ObjectMapper objectMapper) {
+        this.changeFeed = movieService.getChangeFeed();
+        this.writer = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    /**
+     * @param lastEventId The Last-Event-ID header, or null to start with new changes
+     * @return An endless stream of change events and heartbeats
+     */
+    Flux<ServerSentEvent<String>> events(String lastEventId) {
+        Flux<ServerSentEvent<String>> changes = changeFeed.subscribe(parse(lastEventId)).map(this::toEvent);
+        Flux<ServerSentEvent<String>> heartbeats = Flux.interval(HEARTBEAT_INTERVAL)
+                .onBackpressureDrop()
+                .map(tick -> ServerSentEvent.<String>builder().comment("keep-alive").build());
+        return Flux.merge(changes, heartbeats);
+    }
+
+    private ServerSentEvent<String> toEvent(ChangeFeed.Event event) {
+        String id = Long.toString(event.sequence());
+        if (event.isResync()) {
+            return ServerSentEvent.builder("{\"sequence\":" + id + "}").id(id).event(RESYNC).build();
+        }
+        return ServerSentEvent.builder(json(event))
+                .id(id)
+                .event(event.change().getType().name().toLowerCase())
+                .build();
+    }
+
+    private String json(ChangeFeed.Event event) {
+        int slot = (int) (event.sequence() & (encoded.length - 1));
+        Encoded cached = encoded[slot];
+        if (cached != null && cached.sequence() == event.sequence()) {
+            return cached.json();
+        }
+        try {
+            String json = writer.writeValueAsString(event.change());
+            encoded[slot] = new Encoded(event.sequence(), json);
+            return json;
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    // A malformed id cannot be resumed from; the feed answers it with a resync
+    private static Long parse(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException ex) {
+            return Long.MAX_VALUE;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.movieapi.controller;
+
+/**
+ * Response cache key for one listing query
+ */
+record ListingKey(String genre, Integer minYear, Integer maxYear, Double minRating, Double maxRating,
+                  boolean paged, Long cursor, int limit) {
+}
@@ -1,43 +1,325 @@
 package com.movieapi.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movieapi.cache.BodyFormat;
+import com.movieapi.cache.MovieResponseCache;
+import com.movieapi.cluster.ClusterQueries;
+import com.movieapi.exception.ErrorBodies;
+import com.movieapi.metrics.MovieMetrics;
+import com.movieapi.model.BulkItemResult;
+import com.movieapi.model.BulkResponse;
 import com.movieapi.model.Movie;
+import com.movieapi.model.MovieFilter;
+import com.movieapi.model.MoviePatch;
+import com.movieapi.model.StatsResponse;
 import com.movieapi.model.SuccessResponse;
+import com.movieapi.model.SyncResponse;
+import com.movieapi.persistence.CatalogFormat;
+import com.movieapi.persistence.MappedCatalog;
+import com.movieapi.service.CatalogSnapshot;
 import com.movieapi.service.MovieService;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import reactor.core.publisher.Flux;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * Controller for Movie API.
  * Handles CRUD operations for movies with success messages.
+ * Serves the servlet (Tomcat) stack; ReactiveMovieController serves the
+ * same contract when the app runs with the "reactive" profile.
+ * In a cluster, listings, search and stats span every node through
+ * ClusterQueries; requests for one movie reach its owner through
+ * ClusterRoutingFilter before they get here.
  */
 @RestController
 @RequestMapping("/api/movies")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class MovieController {
 
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+
+    /**
+     * Media type of a JSON Merge Patch (RFC 7396) body
+     */
+    public static final String MERGE_PATCH_VALUE = "application/merge-patch+json";
+
+    /**
+     * Response header naming the catalog version a listing was read from,
+     * or the one a write produced; a replica given it as
+     * Min-Catalog-Version serves reads that include the write
+     */
+    public static final String CATALOG_VERSION = "Catalog-Version";
+
+    static final int DEFAULT_PAGE_LIMIT = 100;
+    static final int MAX_PAGE_LIMIT = 1000;
+    static final int DEFAULT_SEARCH_LIMIT = 10;
+
+    // Bulk requests are handed to the service this many items at a time
+    static final int BULK_CHUNK_SIZE = 1000;
+
     private final MovieService movieService;
 
+    // Movie ETags, in the catalog's epoch
+    private final MovieETags etags;
+
+    // Movies as newline-delimited JSON
+    private final NdjsonWriter<Movie> ndjsonWriter;
+
+    private final ObjectMapper objectMapper;
+
+    // Pre-serialized bodies for hot movies and listing pages
+    private final MovieResponseCache responseCache;
+
+    // Pre-encoded 404 bodies for missed lookups
+    private final ErrorBodies errorBodies;
+
+    // Server-Sent Events view of the change feed
+    private final ChangeStream changeStream;
+
+    // Counts lookups of missing movies
+    private final MovieMetrics movieMetrics;
+
+    // Scatter-gather across the cluster, or null on a single node
+    private final ClusterQueries clusterQueries;
+
     // Constructor injection
     @Autowired
-    public MovieController(MovieService movieService) {
+    public MovieController(MovieService movieService, ObjectMapper objectMapper, MovieResponseCache responseCache,
+                           ErrorBodies errorBodies, ChangeStream changeStream, MovieMetrics movieMetrics,
+                           ObjectProvider<ClusterQueries> clusterQueries) {
         this.movieService = movieService;
+        this.etags = new MovieETags(movieService);
+        this.objectMapper = objectMapper;
+        this.responseCache = responseCache;
+        this.errorBodies = errorBodies;
+        this.changeStream = changeStream;
+        this.movieMetrics = movieMetrics;
+        this.clusterQueries = clusterQueries.getIfAvailable();
+        this.ndjsonWriter = new NdjsonWriter<>(objectMapper, Movie.class);
     }
 
-    // Get all movies
+    // Get all movies, optionally filtered by genre, year range and rating range.
+    // Passing cursor and/or limit switches to a paginated response; passing
+    // the version of the first page reads the following ones from it too.
     @GetMapping
-    public ResponseEntity<List<Movie>> getAllMovies() {
-        List<Movie> movies = movieService.getAllMovies();
-        return ResponseEntity.ok(movies);
+    public ResponseEntity<byte[]> getAllMovies(
+            @RequestParam(required = false) String genre,
+            @RequestParam(required = false) Integer minYear,
+            @RequestParam(required = false) Integer maxYear,
+            @RequestParam(required = false) Double minRating,
+            @RequestParam(required = false) Double maxRating,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Long version,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest request,
+            HttpServletResponse response) throws IOException {
+        MovieFilter filter = new MovieFilter(genre, minYear, maxYear, minRating, maxRating);
+        BodyFormat format = BodyFormat.negotiate(accept);
+        boolean paged = cursor != null || limit != null;
+        int pageLimit = paged ? checkLimit(limit) : 0;
+        ListingKey key = new ListingKey(filter.getGenreKey(), minYear, maxYear, minRating, maxRating,
+                paged, cursor, pageLimit);
+
+        if (clusterQueries != null) {
+            // No cluster-wide snapshot to pin, so version is not used here
+            try (ClusterQueries.Listing listing = clusterQueries.list(filter, cursor,
+                    paged ? pageLimit + 1L : Long.MAX_VALUE)) {
+                return listingResponse(key, listing.getVersion(), paged, format, request, response,
+                        () -> paged ? listing.page(pageLimit) : (Iterable<Movie>) () -> listing);
+            }
+        }
+        // The tag, the cache entry and the body all come from one snapshot
+        CatalogSnapshot snapshot = movieService.snapshot(version);
+        return listingResponse(key, snapshot.getVersion(), paged, format, request, response, () -> paged
+                ? movieService.getMoviesPage(snapshot, filter, cursor, pageLimit)
+                : movieService.listMovies(snapshot, filter));
+    }
+
+    // A cached or small body is returned as bytes; one too big to cache is
+    // written to the response as the listing is walked, and null returned
+    private ResponseEntity<byte[]> listingResponse(ListingKey key, long catalogVersion, boolean paged,
+                                                   BodyFormat format, WebRequest request,
+                                                   HttpServletResponse response,
+                                                   Supplier<Object> listing) throws IOException {
+        if (request.checkNotModified(MovieETags.forCatalog(listingVariant(paged, format), catalogVersion))) {
+            return null;
+        }
+        byte[] body = responseCache.cachedListing(key, catalogVersion, format);
+        if (body == null) {
+            body = responseCache.writeListing(key, catalogVersion, format, listing.get(), () -> {
+                response.setStatus(HttpStatus.OK.value());
+                response.setContentType(format.mediaType().toString());
+                response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+                response.setHeader(CATALOG_VERSION, Long.toString(catalogVersion));
+                return response.getOutputStream();
+            });
+            if (body == null) {
+                return null;
+            }
+        }
+        return ResponseEntity.ok().contentType(format.mediaType()).header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .header(CATALOG_VERSION, Long.toString(catalogVersion))
+                .body(body);
+    }
+
+    // Stream movies as newline-delimited JSON, written as the snapshot is walked
+    @GetMapping(produces = NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamMovies(
+            @RequestParam(required = false) String genre,
+            @RequestParam(required = false) Integer minYear,
+            @RequestParam(required = false) Integer maxYear,
+            @RequestParam(required = false) Double minRating,
+            @RequestParam(required = false) Double maxRating,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Long version,
+            WebRequest request) {
+        MovieFilter filter = new MovieFilter(genre, minYear, maxYear, minRating, maxRating);
+        long max = limit != null ? checkLimit(limit) : Long.MAX_VALUE;
+        if (clusterQueries != null) {
+            ClusterQueries.Listing listing = clusterQueries.list(filter, cursor, max);
+            if (request.checkNotModified(MovieETags.forCatalog("ndjson", listing.getVersion()))) {
+                listing.close();
+                return null;
+            }
+            return ndjsonResponse(listing.getVersion(), outputStream -> {
+                try (listing) {
+                    ndjsonWriter.write(listing, outputStream, false);
+                }
+            });
+        }
+        CatalogSnapshot snapshot = movieService.snapshot(version);
+        String etag = MovieETags.forCatalog("ndjson", snapshot.getVersion());
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+
+        return ndjsonResponse(snapshot.getVersion(), outputStream -> {
+            try (Stream<Movie> movies = movieService.streamMovies(snapshot, filter, cursor).limit(max)) {
+                ndjsonWriter.write(movies.iterator(), outputStream, false);
+            }
+        });
+    }
+
+    private static ResponseEntity<StreamingResponseBody> ndjsonResponse(long catalogVersion,
+                                                                        StreamingResponseBody body) {
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON_VALUE))
+                .header(CATALOG_VERSION, Long.toString(catalogVersion))
+                .body(body);
+    }
+
+    // Server-Sent Events feed of every add, update and delete; reconnecting
+    // clients send Last-Event-ID to resume, or get a "resync" event if the
+    // changes they missed are no longer retained
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> streamChanges(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return changeStream.events(lastEventId);
+    }
+
+    // Delta sync: every movie added, updated or deleted since a version, as
+    // its latest state or a tombstone; without since, or when the version
+    // is too old, the client is told to reload the catalog and sync from
+    // the returned version
+    @GetMapping(value = "/changes", produces = {MediaType.APPLICATION_JSON_VALUE, BodyFormat.SMILE_VALUE})
+    public ResponseEntity<SyncResponse> getChangesSince(
+            @RequestParam(required = false) Long since,
+            @RequestParam(required = false) Integer limit) {
+        int max = limit != null ? checkLimit(limit) : MAX_PAGE_LIMIT;
+        return ResponseEntity.ok(movieService.getChangesSince(since, max));
+    }
+
+    // Full-text search over title and description, best match first
+    @GetMapping("/search")
+    public ResponseEntity<List<Movie>> searchMovies(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer limit) {
+        int max = limit != null ? checkLimit(limit) : DEFAULT_SEARCH_LIMIT;
+        return ResponseEntity.ok(clusterQueries != null
+                ? clusterQueries.search(q, max)
+                : movieService.searchMovies(q, max));
+    }
+
+    // Catalog statistics from running summaries, never a scan: counts per
+    // genre and release decade, and the rating distribution with percentiles
+    @GetMapping("/stats")
+    public ResponseEntity<StatsResponse> getStats(@RequestParam(required = false) List<Double> percentiles) {
+        return ResponseEntity.ok(clusterQueries != null
+                ? movieService.getStats(clusterQueries.totals(), percentiles)
+                : movieService.getStats(percentiles));
+    }
+
+    // Movie count and average rating per genre
+    @GetMapping("/stats/genres")
+    public ResponseEntity<List<StatsResponse.GenreStats>> getGenreStats() {
+        return ResponseEntity.ok(clusterQueries != null
+                ? movieService.getStats(clusterQueries.totals(), null).getGenres()
+                : movieService.getGenreStats());
+    }
+
+    // Rating count, average, percentiles (e.g. ?percentiles=0.5,0.99) and histogram
+    @GetMapping("/stats/ratings")
+    public ResponseEntity<StatsResponse.RatingStats> getRatingStats(
+            @RequestParam(required = false) List<Double> percentiles) {
+        return ResponseEntity.ok(clusterQueries != null
+                ? movieService.getStats(clusterQueries.totals(), percentiles).getRatings()
+                : movieService.getRatingStats(percentiles));
+    }
+
+    // Movie count per release decade
+    @GetMapping("/stats/decades")
+    public ResponseEntity<List<StatsResponse.DecadeStats>> getDecadeStats() {
+        return ResponseEntity.ok(clusterQueries != null
+                ? movieService.getStats(clusterQueries.totals(), null).getDecades()
+                : movieService.getDecadeStats());
     }
 
     // Get movie by ID
     @GetMapping("/{id}")
-    public ResponseEntity<Movie> getMovieById(@PathVariable Long id) {
-        Movie movie = movieService.getMovieById(id);
-        return ResponseEntity.ok(movie);
+    public ResponseEntity<byte[]> getMovieById(@PathVariable Long id,
+                                               @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                               ServletWebRequest request) {
+        Movie movie = movieService.findMovieById(id).orElse(null);
+        if (movie == null) {
+            // Misses are common, so answer them without throwing
+            movieMetrics.notFound("GET", "/api/movies/{id}");
+            return errorBodies.notFound(id, request.getRequest().getRequestURI());
+        }
+        // checkNotModified also sets the ETag header on the response
+        if (request.checkNotModified(etags.forMovie(movie))) {
+            return null;
+        }
+        BodyFormat format = BodyFormat.negotiate(accept);
+        return ResponseEntity.ok().contentType(format.mediaType()).header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .body(responseCache.movie(movie, format));
     }
 
     // Add new movie with success message
@@ -52,13 +334,17 @@ public class MovieController {
             createdMovie
         );
         
-        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(etags.forMovie(createdMovie))
+                .header(CATALOG_VERSION, catalogVersion()).body(response);
     }
 
-    // Update movie by ID with success message
+    // Update movie by ID with success message; honors If-Match
     @PutMapping("/{id}")
-    public ResponseEntity<SuccessResponse<Movie>> updateMovie(@PathVariable Long id, @RequestBody Movie movie) {
-        Movie updatedMovie = movieService.updateMovie(id, movie);
+    public ResponseEntity<SuccessResponse<Movie>> updateMovie(
+            @PathVariable Long id,
+            @RequestBody Movie movie,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Movie updatedMovie = movieService.updateMovie(id, movie, etags.expectedVersion(ifMatch, id));
         
         SuccessResponse<Movie> response = new SuccessResponse<>(
             HttpStatus.OK.value(),
@@ -67,23 +353,187 @@ public class MovieController {
             updatedMovie
         );
         
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().eTag(etags.forMovie(updatedMovie))
+                .header(CATALOG_VERSION, catalogVersion()).body(response);
     }
 
-    // Delete movie by ID with success message
+    // Change only the fields present in the body (JSON Merge Patch); a field
+    // set to null is cleared. Honors If-Match
+    @PatchMapping(value = "/{id}", consumes = {MERGE_PATCH_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<SuccessResponse<Movie>> patchMovie(
+            @PathVariable Long id,
+            @RequestBody MoviePatch patch,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Movie patchedMovie = movieService.patchMovie(id, patch, etags.expectedVersion(ifMatch, id));
+
+        SuccessResponse<Movie> response = new SuccessResponse<>(
+            HttpStatus.OK.value(),
+            "Movie updated successfully!",
+            "The movie '" + patchedMovie.getTitle() + "' has been updated.",
+            patchedMovie
+        );
+
+        return ResponseEntity.ok().eTag(etags.forMovie(patchedMovie))
+                .header(CATALOG_VERSION, catalogVersion()).body(response);
+    }
+
+    // Delete movie by ID with success message; honors If-Match
     @DeleteMapping("/{id}")
-    public ResponseEntity<SuccessResponse<Void>> deleteMovie(@PathVariable Long id) {
-        Movie movie = movieService.getMovieById(id); // Get movie before deleting to show title
-        String movieTitle = movie.getTitle();
-        movieService.deleteMovie(id);
+    public ResponseEntity<SuccessResponse<Void>> deleteMovie(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Movie deletedMovie = movieService.deleteMovie(id, etags.expectedVersion(ifMatch, id));
         
         SuccessResponse<Void> response = new SuccessResponse<>(
             HttpStatus.OK.value(),
             "Movie deleted successfully!",
-            "The movie '" + movieTitle + "' has been removed from the collection.",
+            "The movie '" + deletedMovie.getTitle() + "' has been removed from the collection.",
             null
         );
         
-        return ResponseEntity.ok(response);
+        return written(response);
+    }
+
+    // Bulk add from a JSON array
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkResponse> addMovies(@RequestBody List<Movie> movies) {
+        return written(processInChunks(movies, movieService::addMovies));
+    }
+
+    // Bulk add from newline-delimited JSON, read and applied chunk by chunk
+    @PostMapping(value = "/bulk", consumes = NDJSON_VALUE)
+    public ResponseEntity<BulkResponse> addMoviesNdjson(HttpServletRequest request) throws IOException {
+        return written(processNdjson(request.getInputStream(), Movie.class, movieService::addMovies));
+    }
+
+    // Bulk update from a JSON array; every movie carries its own id
+    @PutMapping("/bulk")
+    public ResponseEntity<BulkResponse> updateMovies(@RequestBody List<Movie> movies) {
+        return written(processInChunks(movies, movieService::updateMovies));
+    }
+
+    // Bulk update from newline-delimited JSON
+    @PutMapping(value = "/bulk", consumes = NDJSON_VALUE)
+    public ResponseEntity<BulkResponse> updateMoviesNdjson(HttpServletRequest request) throws IOException {
+        return written(processNdjson(request.getInputStream(), Movie.class, movieService::updateMovies));
+    }
+
+    // Bulk delete from a JSON array of ids
+    @DeleteMapping("/bulk")
+    public ResponseEntity<BulkResponse> deleteMovies(@RequestBody List<Long> ids) {
+        return written(processInChunks(ids, movieService::deleteMovies));
+    }
+
+    // Bulk delete from newline-delimited ids
+    @DeleteMapping(value = "/bulk", consumes = NDJSON_VALUE)
+    public ResponseEntity<BulkResponse> deleteMoviesNdjson(HttpServletRequest request) throws IOException {
+        return written(processNdjson(request.getInputStream(), Long.class, movieService::deleteMovies));
+    }
+
+    // Export the whole catalog in the binary catalog format
+    @GetMapping(value = "/export", produces = CatalogFormat.CONTENT_TYPE)
+    public ResponseEntity<StreamingResponseBody> exportMovies() {
+        // Capture the id counter first so it is never behind the exported ids
+        long nextId = movieService.getNextId();
+        CatalogSnapshot catalog = movieService.snapshot();
+        StreamingResponseBody body = outputStream ->
+                CatalogFormat.write(outputStream, catalog.size(), catalog.rows(), nextId, 0);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"movies.catalog\"")
+                .contentType(MediaType.parseMediaType(CatalogFormat.CONTENT_TYPE))
+                .body(body);
+    }
+
+    // Import a binary catalog; movies keep their ids and replace existing ones
+    @PostMapping(value = "/import", consumes = {CatalogFormat.CONTENT_TYPE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<SuccessResponse<Void>> importMovies(HttpServletRequest request) throws IOException {
+        // The body is spooled to a file so it can be memory-mapped
+        Path file = Files.createTempFile("movies-import", ".catalog");
+        try {
+            Files.copy(request.getInputStream(), file, StandardCopyOption.REPLACE_EXISTING);
+            MappedCatalog catalog;
+            try {
+                catalog = MappedCatalog.open(file);
+            } catch (IOException ex) {
+                throw new IllegalArgumentException("Request body is not a valid movie catalog");
+            }
+            int imported = movieService.importMovies(catalog.iterator(), catalog.getNextId());
+
+            SuccessResponse<Void> response = new SuccessResponse<>(
+                HttpStatus.OK.value(),
+                "Movies imported successfully!",
+                imported + " of " + catalog.size() + " movies have been imported.",
+                null
+            );
+            return written(response);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static <T> BulkResponse processInChunks(
+            List<T> items, BiFunction<List<T>, Integer, List<BulkItemResult>> operation) {
+        BulkResponse response = new BulkResponse();
+        for (int from = 0; from < items.size(); from += BULK_CHUNK_SIZE) {
+            List<T> chunk = items.subList(from, Math.min(from + BULK_CHUNK_SIZE, items.size()));
+            response.addAll(operation.apply(chunk, from));
+        }
+        return response;
+    }
+
+    private <T> BulkResponse processNdjson(
+            InputStream body, Class<T> type, BiFunction<List<T>, Integer, List<BulkItemResult>> operation)
+            throws IOException {
+        BulkResponse response = new BulkResponse();
+        List<T> chunk = new ArrayList<>(BULK_CHUNK_SIZE);
+        int firstIndex = 0;
+        try (MappingIterator<T> lines = objectMapper.readerFor(type).readValues(body)) {
+            while (lines.hasNextValue()) {
+                chunk.add(lines.nextValue());
+                if (chunk.size() == BULK_CHUNK_SIZE) {
+                    response.addAll(operation.apply(chunk, firstIndex));
+                    firstIndex += chunk.size();
+                    chunk.clear();
+                }
+            }
+        } catch (JsonProcessingException ex) {
+            // Everything before the bad line is still applied; stop at it
+            if (!chunk.isEmpty()) {
+                response.addAll(operation.apply(chunk, firstIndex));
+                firstIndex += chunk.size();
+            }
+            response.addAll(List.of(BulkItemResult.failure(
+                    firstIndex, null, HttpStatus.BAD_REQUEST.value(), "Malformed JSON")));
+            return response;
+        }
+        if (!chunk.isEmpty()) {
+            response.addAll(operation.apply(chunk, firstIndex));
+        }
+        return response;
+    }
+
+    // 200 for a completed write, with the catalog version that includes it
+    private <T> ResponseEntity<T> written(T body) {
+        return ResponseEntity.ok().header(CATALOG_VERSION, catalogVersion()).body(body);
+    }
+
+    private String catalogVersion() {
+        return Long.toString(movieService.getCatalogVersion());
+    }
+
+    static int checkLimit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_PAGE_LIMIT;
+        }
+        if (limit < 1 || limit > MAX_PAGE_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_LIMIT);
+        }
+        return limit;
+    }
+
+    // Each body format of a listing is a separate representation with its own ETag
+    static String listingVariant(boolean paged, BodyFormat format) {
+        String variant = paged ? "page" : "list";
+        return format == BodyFormat.JSON ? variant : variant + "-" + format.name().toLowerCase();
     }
 }
\ No newline at end of file
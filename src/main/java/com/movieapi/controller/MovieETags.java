@@ -0,0 +1,72 @@
+package com.movieapi.controller;
+
+import com.movieapi.model.Movie;
+import com.movieapi.service.MovieService;
+
+/**
+ * Builds and parses ETags from version counters, so an ETag costs a few
+ * string operations instead of hashing a serialized body.
+ * Versions restart when the application does, so every tag also carries
+ * an epoch; tags from another epoch never match. Movie tags carry the
+ * catalog's epoch (MovieService.getEpoch()), which a replica shares with
+ * its leader along with the movie versions, so a tag read from either
+ * matches on the other. Listing tags carry this node's startup epoch, as
+ * catalog versions are this node's own.
+ */
+final class MovieETags {
+
+    private static final String NODE_EPOCH = Long.toString(System.currentTimeMillis(), 36);
+
+    private final MovieService movieService;
+
+    MovieETags(MovieService movieService) {
+        this.movieService = movieService;
+    }
+
+    /**
+     * @return The ETag of one movie: "epoch-m-id-version"
+     */
+    String forMovie(Movie movie) {
+        return "\"" + movieService.getEpoch() + "-m-" + movie.getId() + "-" + movie.getVersion() + "\"";
+    }
+
+    /**
+     * Listing tags are weak: they only ever serve If-None-Match, which
+     * compares weakly anyway, and Tomcat refuses to gzip a body that has a
+     * strong ETag. Movie tags stay strong, as If-Match needs.
+     * @param variant Distinguishes representations of the same listing URL
+     * @return The ETag of a listing: W/"epoch-variant-catalogVersion"
+     */
+    static String forCatalog(String variant, long catalogVersion) {
+        return "W/\"" + NODE_EPOCH + "-" + variant + "-" + catalogVersion + "\"";
+    }
+
+    /**
+     * Turns an If-Match header into the version a write must find; every
+     * write handler goes through here. A missing header or "*" matches any
+     * version. Tags that are weak, from another run or for another movie
+     * can never match.
+     * @param ifMatch The If-Match header value, may be null
+     * @param id The id of the movie being written; null matches any version,
+     *           and the write then fails on the missing movie instead
+     * @return The expected version, or MovieService.ANY_VERSION
+     */
+    long expectedVersion(String ifMatch, Long id) {
+        if (id == null || ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return MovieService.ANY_VERSION;
+        }
+        String prefix = "\"" + movieService.getEpoch() + "-m-" + id + "-";
+        for (String tag : ifMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith(prefix) && tag.endsWith("\"") && tag.length() > prefix.length() + 1) {
+                try {
+                    return Long.parseLong(tag.substring(prefix.length(), tag.length() - 1));
+                } catch (NumberFormatException ignored) {
+                    // not one of ours
+                }
+            }
+        }
+        // Versions start at 1, so this never matches
+        return 0;
+    }
+}
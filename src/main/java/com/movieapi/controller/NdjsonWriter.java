@@ -0,0 +1,54 @@
+package com.movieapi.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+/**
+ * Writes values as newline-delimited JSON (MovieController.NDJSON_VALUE),
+ * one value per line, through a single generator over the whole stream.
+ * Every NDJSON body on the servlet stack goes through here.
+ * @param <T> The type of the values
+ */
+public final class NdjsonWriter<T> {
+
+    // One value per line, never pretty-printed
+    private final ObjectWriter writer;
+
+    /**
+     * @param objectMapper The application's mapper, for its serializers
+     * @param type The type of the values
+     */
+    public NdjsonWriter(ObjectMapper objectMapper, Class<T> type) {
+        this.writer = objectMapper.writerFor(type).without(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    /**
+     * Writes every value the iterator yields
+     * @param values The values, one line each
+     * @param outputStream Where to write; flushed but not closed
+     * @param flushEachLine Whether each line is flushed as soon as it is
+     *                      written, for streams that stay open, like the
+     *                      replication log; otherwise lines are buffered
+     */
+    public void write(Iterator<? extends T> values, OutputStream outputStream, boolean flushEachLine)
+            throws IOException {
+        try (JsonGenerator generator = writer.createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Lines are separated by '\n' below, not Jackson's default space
+            generator.setRootValueSeparator(null);
+            while (values.hasNext()) {
+                writer.writeValue(generator, values.next());
+                generator.writeRaw('\n');
+                if (flushEachLine) {
+                    generator.flush();
+                }
+            }
+        }
+    }
+}
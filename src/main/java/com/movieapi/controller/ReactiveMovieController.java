@@ -0,0 +1,425 @@
+package com.movieapi.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.movieapi.cache.BodyFormat;
+import com.movieapi.cache.MovieResponseCache;
+import com.movieapi.exception.ErrorBodies;
+import com.movieapi.metrics.MovieMetrics;
+import com.movieapi.model.BulkItemResult;
+import com.movieapi.model.BulkResponse;
+import com.movieapi.model.Movie;
+import com.movieapi.model.MovieFilter;
+import com.movieapi.model.MoviePatch;
+import com.movieapi.model.StatsResponse;
+import com.movieapi.model.SuccessResponse;
+import com.movieapi.model.SyncResponse;
+import com.movieapi.persistence.CatalogFormat;
+import com.movieapi.persistence.MappedCatalog;
+import com.movieapi.service.CatalogSnapshot;
+import com.movieapi.service.MovieService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.BiFunction;
+
+import static com.movieapi.controller.MovieController.BULK_CHUNK_SIZE;
+import static com.movieapi.controller.MovieController.CATALOG_VERSION;
+import static com.movieapi.controller.MovieController.DEFAULT_SEARCH_LIMIT;
+import static com.movieapi.controller.MovieController.MAX_PAGE_LIMIT;
+import static com.movieapi.controller.MovieController.NDJSON_VALUE;
+import static com.movieapi.controller.MovieController.checkLimit;
+import static com.movieapi.controller.MovieController.listingVariant;
+
+/**
+ * Non-blocking variant of MovieController for the WebFlux/Netty stack,
+ * active with the "reactive" profile. Serves the same /api/movies contract.
+ *
+ * Reads come straight from the in-memory store on the event loop. Writes
+ * may wait on a write-ahead log fsync, so they run on the bounded elastic
+ * scheduler. Streamed listings pull movies from a catalog snapshot only as
+ * fast as the client reads them.
+ */
+@RestController
+@RequestMapping("/api/movies")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveMovieController {
+
+    private final MovieService movieService;
+
+    // Movie ETags, in the catalog's epoch
+    private final MovieETags etags;
+
+    // One movie per line, never pretty-printed
+    private final ObjectWriter ndjsonWriter;
+
+    // Pre-serialized bodies for hot movies and listing pages
+    private final MovieResponseCache responseCache;
+
+    // Pre-encoded 404 bodies for missed lookups
+    private final ErrorBodies errorBodies;
+
+    // Server-Sent Events view of the change feed
+    private final ChangeStream changeStream;
+
+    // Counts lookups of missing movies
+    private final MovieMetrics movieMetrics;
+
+    // Constructor injection
+    public ReactiveMovieController(MovieService movieService, ObjectMapper objectMapper,
+                                   MovieResponseCache responseCache, ErrorBodies errorBodies,
+                                   ChangeStream changeStream, MovieMetrics movieMetrics) {
+        this.movieService = movieService;
+        this.etags = new MovieETags(movieService);
+        this.responseCache = responseCache;
+        this.errorBodies = errorBodies;
+        this.changeStream = changeStream;
+        this.movieMetrics = movieMetrics;
+        this.ndjsonWriter = objectMapper.writerFor(Movie.class).without(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    // Get all movies, optionally filtered; cursor and/or limit switch to a
+    // paginated response, read from the given version's snapshot if kept.
+    // A cached body is sent as is; anything else is serialized off the
+    // event loop and streamed as it is written.
+    @GetMapping
+    public Mono<ResponseEntity<Flux<DataBuffer>>> getAllMovies(
+            @RequestParam(required = false) String genre,
+            @RequestParam(required = false) Integer minYear,
+            @RequestParam(required = false) Integer maxYear,
+            @RequestParam(required = false) Double minRating,
+            @RequestParam(required = false) Double maxRating,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Long version,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            ServerWebExchange exchange) {
+        MovieFilter filter = new MovieFilter(genre, minYear, maxYear, minRating, maxRating);
+        BodyFormat format = BodyFormat.negotiate(accept);
+        boolean paged = cursor != null || limit != null;
+        int pageLimit = paged ? checkLimit(limit) : 0;
+
+        CatalogSnapshot snapshot = movieService.snapshot(version);
+        long catalogVersion = snapshot.getVersion();
+        if (exchange.checkNotModified(MovieETags.forCatalog(listingVariant(paged, format), catalogVersion))) {
+            return Mono.empty();
+        }
+        ListingKey key = new ListingKey(filter.getGenreKey(), minYear, maxYear, minRating, maxRating,
+                paged, cursor, pageLimit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(format.mediaType())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .header(CATALOG_VERSION, Long.toString(catalogVersion));
+        DataBufferFactory bufferFactory = exchange.getResponse().bufferFactory();
+        byte[] cached = responseCache.cachedListing(key, catalogVersion, format);
+        if (cached != null) {
+            return Mono.just(response.contentLength(cached.length).body(Flux.just(bufferFactory.wrap(cached))));
+        }
+        Flux<DataBuffer> body = Flux.from(DataBufferUtils.outputStreamPublisher(outputStream -> {
+            Object listing = paged
+                    ? movieService.getMoviesPage(snapshot, filter, cursor, pageLimit)
+                    : movieService.listMovies(snapshot, filter);
+            try {
+                byte[] bytes = responseCache.writeListing(key, catalogVersion, format, listing, () -> outputStream);
+                if (bytes != null) {
+                    outputStream.write(bytes);
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }, bufferFactory, Schedulers.boundedElastic()::schedule));
+        return Mono.just(response.body(body));
+    }
+
+    // Stream movies as newline-delimited JSON with backpressure
+    @GetMapping(produces = NDJSON_VALUE)
+    public Mono<ResponseEntity<Flux<DataBuffer>>> streamMovies(
+            @RequestParam(required = false) String genre,
+            @RequestParam(required = false) Integer minYear,
+            @RequestParam(required = false) Integer maxYear,
+            @RequestParam(required = false) Double minRating,
+            @RequestParam(required = false) Double maxRating,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Long version,
+            ServerWebExchange exchange) {
+        MovieFilter filter = new MovieFilter(genre, minYear, maxYear, minRating, maxRating);
+        long max = limit != null ? checkLimit(limit) : Long.MAX_VALUE;
+        CatalogSnapshot snapshot = movieService.snapshot(version);
+        if (exchange.checkNotModified(MovieETags.forCatalog("ndjson", snapshot.getVersion()))) {
+            return Mono.empty();
+        }
+
+        DataBufferFactory bufferFactory = exchange.getResponse().bufferFactory();
+        Flux<DataBuffer> body = movieService.movies(snapshot, filter, cursor)
+                .take(max)
+                .map(movie -> ndjsonLine(bufferFactory, movie));
+        return Mono.just(ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON_VALUE))
+                .header(CATALOG_VERSION, Long.toString(snapshot.getVersion()))
+                .body(body));
+    }
+
+    // Server-Sent Events feed of every add, update and delete; reconnecting
+    // clients send Last-Event-ID to resume, or get a "resync" event if the
+    // changes they missed are no longer retained
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> streamChanges(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return changeStream.events(lastEventId);
+    }
+
+    // Delta sync: every movie added, updated or deleted since a version, as
+    // its latest state or a tombstone; without since, or when the version
+    // is too old, the client is told to reload the catalog and sync from
+    // the returned version
+    @GetMapping(value = "/changes", produces = {MediaType.APPLICATION_JSON_VALUE, BodyFormat.SMILE_VALUE})
+    public Mono<ResponseEntity<SyncResponse>> getChangesSince(
+            @RequestParam(required = false) Long since,
+            @RequestParam(required = false) Integer limit) {
+        int max = limit != null ? checkLimit(limit) : MAX_PAGE_LIMIT;
+        return Mono.fromSupplier(() -> ResponseEntity.ok(movieService.getChangesSince(since, max)));
+    }
+
+    // Full-text search over title and description, best match first
+    @GetMapping("/search")
+    public Mono<ResponseEntity<List<Movie>>> searchMovies(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer limit) {
+        int max = limit != null ? checkLimit(limit) : DEFAULT_SEARCH_LIMIT;
+        return Mono.fromSupplier(() -> ResponseEntity.ok(movieService.searchMovies(q, max)));
+    }
+
+    // Catalog statistics from running summaries, never a scan: counts per
+    // genre and release decade, and the rating distribution with percentiles
+    @GetMapping("/stats")
+    public Mono<ResponseEntity<StatsResponse>> getStats(@RequestParam(required = false) List<Double> percentiles) {
+        return Mono.fromSupplier(() -> ResponseEntity.ok(movieService.getStats(percentiles)));
+    }
+
+    // Movie count and average rating per genre
+    @GetMapping("/stats/genres")
+    public Mono<ResponseEntity<List<StatsResponse.GenreStats>>> getGenreStats() {
+        return Mono.fromSupplier(() -> ResponseEntity.ok(movieService.getGenreStats()));
+    }
+
+    // Rating count, average, percentiles (e.g. ?percentiles=0.5,0.99) and histogram
+    @GetMapping("/stats/ratings")
+    public Mono<ResponseEntity<StatsResponse.RatingStats>> getRatingStats(
+            @RequestParam(required = false) List<Double> percentiles) {
+        return Mono.fromSupplier(() -> ResponseEntity.ok(movieService.getRatingStats(percentiles)));
+    }
+
+    // Movie count per release decade
+    @GetMapping("/stats/decades")
+    public Mono<ResponseEntity<List<StatsResponse.DecadeStats>>> getDecadeStats() {
+        return Mono.fromSupplier(() -> ResponseEntity.ok(movieService.getDecadeStats()));
+    }
+
+    // Get movie by ID
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<byte[]>> getMovieById(@PathVariable Long id, ServerWebExchange exchange) {
+        BodyFormat format = BodyFormat.negotiate(exchange.getRequest().getHeaders().getFirst(HttpHeaders.ACCEPT));
+        return movieService.movieById(id)
+                .map(movie -> exchange.checkNotModified(etags.forMovie(movie))
+                        ? ResponseEntity.status(HttpStatus.NOT_MODIFIED).<byte[]>build()
+                        : ResponseEntity.ok().contentType(format.mediaType()).header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                                .body(responseCache.movie(movie, format)))
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    movieMetrics.notFound("GET", "/api/movies/{id}");
+                    return errorBodies.notFound(id, exchange.getRequest().getPath().value());
+                }));
+    }
+
+    // Add new movie with success message
+    @PostMapping
+    public Mono<ResponseEntity<SuccessResponse<Movie>>> addMovie(@RequestBody Movie movie) {
+        return write(() -> movieService.addMovie(movie)).map(createdMovie -> {
+            SuccessResponse<Movie> response = new SuccessResponse<>(
+                HttpStatus.CREATED.value(),
+                "Movie added successfully!",
+                "The movie '" + createdMovie.getTitle() + "' has been added to the collection.",
+                createdMovie
+            );
+            return ResponseEntity.status(HttpStatus.CREATED).eTag(etags.forMovie(createdMovie))
+                    .header(CATALOG_VERSION, catalogVersion()).body(response);
+        });
+    }
+
+    // Update movie by ID with success message; honors If-Match
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<SuccessResponse<Movie>>> updateMovie(
+            @PathVariable Long id,
+            @RequestBody Movie movie,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        long expectedVersion = etags.expectedVersion(ifMatch, id);
+        return write(() -> movieService.updateMovie(id, movie, expectedVersion)).map(updatedMovie -> {
+            SuccessResponse<Movie> response = new SuccessResponse<>(
+                HttpStatus.OK.value(),
+                "Movie updated successfully!",
+                "The movie '" + updatedMovie.getTitle() + "' has been updated.",
+                updatedMovie
+            );
+            return ResponseEntity.ok().eTag(etags.forMovie(updatedMovie))
+                    .header(CATALOG_VERSION, catalogVersion()).body(response);
+        });
+    }
+
+    // Change only the fields present in the body (JSON Merge Patch); a field
+    // set to null is cleared. Honors If-Match
+    @PatchMapping(value = "/{id}", consumes = {MovieController.MERGE_PATCH_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Mono<ResponseEntity<SuccessResponse<Movie>>> patchMovie(
+            @PathVariable Long id,
+            @RequestBody MoviePatch patch,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        long expectedVersion = etags.expectedVersion(ifMatch, id);
+        return write(() -> movieService.patchMovie(id, patch, expectedVersion)).map(patchedMovie -> {
+            SuccessResponse<Movie> response = new SuccessResponse<>(
+                HttpStatus.OK.value(),
+                "Movie updated successfully!",
+                "The movie '" + patchedMovie.getTitle() + "' has been updated.",
+                patchedMovie
+            );
+            return ResponseEntity.ok().eTag(etags.forMovie(patchedMovie))
+                    .header(CATALOG_VERSION, catalogVersion()).body(response);
+        });
+    }
+
+    // Delete movie by ID with success message; honors If-Match
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<SuccessResponse<Void>>> deleteMovie(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        long expectedVersion = etags.expectedVersion(ifMatch, id);
+        return write(() -> movieService.deleteMovie(id, expectedVersion)).map(deletedMovie -> {
+            SuccessResponse<Void> response = new SuccessResponse<>(
+                HttpStatus.OK.value(),
+                "Movie deleted successfully!",
+                "The movie '" + deletedMovie.getTitle() + "' has been removed from the collection.",
+                null
+            );
+            return written(response);
+        });
+    }
+
+    // Bulk add from a JSON array or newline-delimited JSON, applied chunk by
+    // chunk as the body arrives. Malformed JSON fails the request with 400;
+    // chunks applied before the bad item stay applied.
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON_VALUE})
+    public Mono<ResponseEntity<BulkResponse>> addMovies(@RequestBody Flux<Movie> movies) {
+        return processInChunks(movies, movieService::addMovies).map(this::written);
+    }
+
+    // Bulk update; every movie carries its own id
+    @PutMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON_VALUE})
+    public Mono<ResponseEntity<BulkResponse>> updateMovies(@RequestBody Flux<Movie> movies) {
+        return processInChunks(movies, movieService::updateMovies).map(this::written);
+    }
+
+    // Bulk delete by id
+    @DeleteMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON_VALUE})
+    public Mono<ResponseEntity<BulkResponse>> deleteMovies(@RequestBody Flux<Long> ids) {
+        return processInChunks(ids, movieService::deleteMovies).map(this::written);
+    }
+
+    // Export the whole catalog in the binary catalog format
+    @GetMapping(value = "/export", produces = CatalogFormat.CONTENT_TYPE)
+    public ResponseEntity<Flux<DataBuffer>> exportMovies(ServerWebExchange exchange) {
+        // Capture the id counter first so it is never behind the exported ids
+        long nextId = movieService.getNextId();
+        CatalogSnapshot catalog = movieService.snapshot();
+        Flux<DataBuffer> body = Flux.from(DataBufferUtils.outputStreamPublisher(outputStream -> {
+            try {
+                CatalogFormat.write(outputStream, catalog.size(), catalog.rows(), nextId, 0);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }, exchange.getResponse().bufferFactory(), Schedulers.boundedElastic()::schedule));
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"movies.catalog\"")
+                .contentType(MediaType.parseMediaType(CatalogFormat.CONTENT_TYPE))
+                .body(body);
+    }
+
+    // Import a binary catalog; movies keep their ids and replace existing ones
+    @PostMapping(value = "/import", consumes = {CatalogFormat.CONTENT_TYPE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public Mono<ResponseEntity<SuccessResponse<Void>>> importMovies(@RequestBody Flux<DataBuffer> body) {
+        // The body is spooled to a file so it can be memory-mapped
+        return Mono.usingWhen(
+                write(() -> Files.createTempFile("movies-import", ".catalog")),
+                file -> DataBufferUtils.write(body, file).then(write(() -> importCatalog(file))),
+                file -> write(() -> Files.deleteIfExists(file)));
+    }
+
+    private ResponseEntity<SuccessResponse<Void>> importCatalog(Path file) throws IOException {
+        MappedCatalog catalog;
+        try {
+            catalog = MappedCatalog.open(file);
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Request body is not a valid movie catalog");
+        }
+        int imported = movieService.importMovies(catalog.iterator(), catalog.getNextId());
+
+        SuccessResponse<Void> response = new SuccessResponse<>(
+            HttpStatus.OK.value(),
+            "Movies imported successfully!",
+            imported + " of " + catalog.size() + " movies have been imported.",
+            null
+        );
+        return written(response);
+    }
+
+    // 200 for a completed write, with the catalog version that includes it
+    private <T> ResponseEntity<T> written(T body) {
+        return ResponseEntity.ok().header(CATALOG_VERSION, catalogVersion()).body(body);
+    }
+
+    private String catalogVersion() {
+        return Long.toString(movieService.getCatalogVersion());
+    }
+
+    // Runs a store write (which may wait on an fsync) off the event loop
+    private static <T> Mono<T> write(Callable<T> operation) {
+        return Mono.fromCallable(operation).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static <T> Mono<BulkResponse> processInChunks(
+            Flux<T> items, BiFunction<List<T>, Integer, List<BulkItemResult>> operation) {
+        return items.buffer(BULK_CHUNK_SIZE)
+                .index()
+                .concatMap(chunk -> write(() -> operation.apply(chunk.getT2(), (int) (chunk.getT1() * BULK_CHUNK_SIZE))))
+                .reduceWith(BulkResponse::new, (response, results) -> {
+                    response.addAll(results);
+                    return response;
+                });
+    }
+
+    private DataBuffer ndjsonLine(DataBufferFactory bufferFactory, Movie movie) {
+        DataBuffer buffer = bufferFactory.allocateBuffer(256);
+        try {
+            ndjsonWriter.writeValue(buffer.asOutputStream(), movie);
+            buffer.write((byte) '\n');
+            return buffer;
+        } catch (IOException ex) {
+            DataBufferUtils.release(buffer);
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.movieapi.exception;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movieapi.model.ErrorResponse;
+import com.movieapi.util.CachedClock;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * Pre-encoded JSON bodies for the frequent errors (404, 412, 400, 429, 503).
+ * Each body is rendered once at startup through the application's
+ * ObjectMapper, so it looks exactly like a serialized ErrorResponse; per
+ * request only the timestamp, message, path and field are spliced in.
+ */
+@Component
+public class ErrorBodies {
+
+    // Placeholders used when rendering the templates
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(1970, 1, 1, 0, 0, 0, 1);
+    private static final String MESSAGE = "{{message}}";
+    private static final String PATH = "{{path}}";
+    private static final String FIELD = "{{field}}";
+    private static final String FIELD_MESSAGE = "{{fieldMessage}}";
+
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.UTF_8);
+
+    // Timestamp already encoded, shared by errors within one clock tick
+    private record Stamp(LocalDateTime time, byte[] json) {}
+
+    private final ObjectMapper objectMapper;
+    private final Template notFound;
+    private final Template preconditionFailed;
+    private final Template validationFailed;
+    private final Template fieldValidationFailed;
+    private final Template serviceUnavailable;
+    private final Template tooManyRequests;
+    private volatile Stamp stamp = new Stamp(null, null);
+
+    public ErrorBodies(ObjectMapper objectMapper) throws JsonProcessingException {
+        this.objectMapper = objectMapper;
+        this.notFound = template(HttpStatus.NOT_FOUND, "Not Found", false);
+        this.preconditionFailed = template(HttpStatus.PRECONDITION_FAILED, "Precondition Failed", false);
+        this.validationFailed = template(HttpStatus.BAD_REQUEST, "Validation Error", false);
+        this.fieldValidationFailed = template(HttpStatus.BAD_REQUEST, "Validation Error", true);
+        this.serviceUnavailable = template(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable", false);
+        this.tooManyRequests = template(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", false);
+    }
+
+    /**
+     * 404 for a movie id that does not exist
+     * @param id The requested id
+     * @param path The request URI
+     * @return The error response
+     */
+    public ResponseEntity<byte[]> notFound(Long id, String path) {
+        return notFound("Movie not found with id: " + id, path);
+    }
+
+    /**
+     * 404 with a custom message
+     * @param message The error message
+     * @param path The request URI
+     * @return The error response
+     */
+    public ResponseEntity<byte[]> notFound(String message, String path) {
+        return render(notFound, message, path, null);
+    }
+
+    /**
+     * 412 for a conditional write whose If-Match did not match
+     * @param message The error message
+     * @param path The request URI
+     * @return The error response
+     */
+    public ResponseEntity<byte[]> preconditionFailed(String message, String path) {
+        return render(preconditionFailed, message, path, null);
+    }
+
+    /**
+     * 400 for a movie that failed validation
+     * @param field The offending field, or null if not tied to one field
+     * @param message The error message
+     * @param path The request URI
+     * @return The error response
+     */
+    public ResponseEntity<byte[]> validationFailed(String field, String message, String path) {
+        return render(field != null ? fieldValidationFailed : validationFailed, message, path, field);
+    }
+
+    /**
+     * 400 for a movie that failed several validation rules at once. A
+     * single error uses the pre-encoded body; several are rare enough to
+     * serialize an ErrorResponse for.
+     * @param fields The offending fields
+     * @param messages The error message for each of fields, same order;
+     *        the first is also the response message
+     * @param path The request URI
+     * @return The error response
+     */
+    public ResponseEntity<byte[]> validationFailed(String[] fields, String[] messages, String path) {
+        if (fields.length == 1) {
+            return validationFailed(fields[0], messages[0], path);
+        }
+        ErrorResponse response = new ErrorResponse(HttpStatus.BAD_REQUEST.value(), "Validation Error", messages[0], path);
+        for (int i = 0; i < fields.length; i++) {
+            response.addValidationError(fields[i], messages[i]);
+        }
+        try {
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+                    .body(objectMapper.writeValueAsBytes(response));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 503 for a request shed under load
+     * @param message The error message
+     * @param path The request URI
+     * @return The error response
+     */
+    public ResponseEntity<byte[]> serviceUnavailable(String message, String path) {
+        return render(serviceUnavailable, message, path, null);
+    }
+
+    /**
+     * 429 for a client over its rate limit
+     * @param message The error message
+     * @param path The request URI
+     * @return The error response
+     */
+    public ResponseEntity<byte[]> tooManyRequests(String message, String path) {
+        return render(tooManyRequests, message, path, null);
+    }
+
+    private ResponseEntity<byte[]> render(Template template, String message, String path, String field) {
+        byte[] encodedMessage = quote(message);
+        byte[] body = template.render(timestamp(), encodedMessage, quote(path), quote(field), encodedMessage);
+        return ResponseEntity.status(template.status).contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    private byte[] timestamp() {
+        LocalDateTime now = CachedClock.now();
+        Stamp current = stamp;
+        if (current.time() != now) {
+            try {
+                current = new Stamp(now, objectMapper.writeValueAsBytes(now));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+            stamp = current;
+        }
+        return current.json();
+    }
+
+    private static byte[] quote(String value) {
+        if (value == null) {
+            return NULL;
+        }
+        if (isPlainAscii(value)) {
+            byte[] quoted = new byte[value.length() + 2];
+            quoted[0] = '"';
+            for (int i = 0; i < value.length(); i++) {
+                quoted[i + 1] = (byte) value.charAt(i);
+            }
+            quoted[quoted.length - 1] = '"';
+            return quoted;
+        }
+        byte[] escaped = JsonStringEncoder.getInstance().quoteAsUTF8(value);
+        byte[] quoted = new byte[escaped.length + 2];
+        quoted[0] = '"';
+        System.arraycopy(escaped, 0, quoted, 1, escaped.length);
+        quoted[quoted.length - 1] = '"';
+        return quoted;
+    }
+
+    // Messages and paths are almost always ASCII with nothing to escape
+    private static boolean isPlainAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x20 || c > 0x7e || c == '"' || c == '\\') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Template template(HttpStatus status, String error, boolean withField) throws JsonProcessingException {
+        ErrorResponse sample = new ErrorResponse(status.value(), error, MESSAGE, PATH);
+        sample.setTimestamp(TIMESTAMP);
+        if (withField) {
+            sample.addValidationError(FIELD, FIELD_MESSAGE);
+        }
+        String json = objectMapper.writeValueAsString(sample);
+        // Holes in the order render() passes their values
+        Object[] holes = {TIMESTAMP, MESSAGE, PATH, FIELD, FIELD_MESSAGE};
+        int[] positions = new int[holes.length];
+        int[] lengths = new int[holes.length];
+        for (int i = 0; i < holes.length; i++) {
+            String token = objectMapper.writeValueAsString(holes[i]);
+            int position = json.indexOf(token);
+            boolean required = i < 3 || withField;
+            if ((position < 0 && required) || (position >= 0 && json.indexOf(token, position + 1) >= 0)) {
+                throw new IllegalStateException("Cannot build error template around placeholder " + token);
+            }
+            positions[i] = position;
+            lengths[i] = token.length();
+        }
+        return new Template(status, json, positions, lengths);
+    }
+
+    /**
+     * A serialized ErrorResponse cut into constant byte segments around the
+     * holes that change per request.
+     */
+    private static final class Template {
+
+        private final HttpStatus status;
+        private final byte[][] segments;
+        // Hole index for each gap between segments, in document order
+        private final int[] holes;
+
+        Template(HttpStatus status, String json, int[] positions, int[] lengths) {
+            this.status = status;
+            this.holes = IntStream.range(0, positions.length)
+                    .filter(i -> positions[i] >= 0)
+                    .boxed()
+                    .sorted(Comparator.comparingInt(i -> positions[i]))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            this.segments = new byte[holes.length + 1][];
+            int start = 0;
+            for (int i = 0; i < holes.length; i++) {
+                segments[i] = json.substring(start, positions[holes[i]]).getBytes(StandardCharsets.UTF_8);
+                start = positions[holes[i]] + lengths[holes[i]];
+            }
+            segments[holes.length] = json.substring(start).getBytes(StandardCharsets.UTF_8);
+        }
+
+        byte[] render(byte[]... values) {
+            int length = 0;
+            for (byte[] segment : segments) {
+                length += segment.length;
+            }
+            for (int hole : holes) {
+                length += values[hole].length;
+            }
+            byte[] body = new byte[length];
+            int offset = 0;
+            for (int i = 0; i < holes.length; i++) {
+                System.arraycopy(segments[i], 0, body, offset, segments[i].length);
+                offset += segments[i].length;
+                byte[] value = values[holes[i]];
+                System.arraycopy(value, 0, body, offset, value.length);
+                offset += value.length;
+            }
+            System.arraycopy(segments[holes.length], 0, body, offset, segments[holes.length].length);
+            return body;
+        }
+    }
+}
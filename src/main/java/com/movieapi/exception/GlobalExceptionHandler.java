@@ -1,6 +1,8 @@
 package com.movieapi.exception;
 
+import com.movieapi.metrics.MovieMetrics;
 import com.movieapi.model.ErrorResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -9,51 +11,68 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.AsyncRequestNotUsableException;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.servlet.HandlerMapping;
 
 import jakarta.servlet.http.HttpServletRequest;
 
 
 /**
  * Handles all exceptions in one place.
+ * Servlet stack only; ReactiveExceptionHandler covers the reactive profile.
  */
 @ControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class GlobalExceptionHandler {
 
+    // Pre-encoded bodies for the frequent client errors
+    private final ErrorBodies errorBodies;
+
+    // Counts not-found and validation errors per endpoint
+    private final MovieMetrics movieMetrics;
+
+    public GlobalExceptionHandler(ErrorBodies errorBodies, MovieMetrics movieMetrics) {
+        this.errorBodies = errorBodies;
+        this.movieMetrics = movieMetrics;
+    }
+
     // Handle movie not found (404)
     @ExceptionHandler(MovieNotFoundException.class)
-    public ResponseEntity<ErrorResponse> handleMovieNotFoundException(
+    public ResponseEntity<byte[]> handleMovieNotFoundException(
             MovieNotFoundException ex, 
             HttpServletRequest request) {
         
-        ErrorResponse errorResponse = new ErrorResponse(
-            HttpStatus.NOT_FOUND.value(),
-            "Not Found",
-            ex.getMessage(),
-            request.getRequestURI()
-        );
-        
-        return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
+        movieMetrics.notFound(request.getMethod(), endpoint(request));
+        return errorBodies.notFound(ex.getMessage(), request.getRequestURI());
+    }
+
+    // Handle failed If-Match precondition (412)
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<byte[]> handlePreconditionFailedException(
+            PreconditionFailedException ex,
+            HttpServletRequest request) {
+
+        return errorBodies.preconditionFailed(ex.getMessage(), request.getRequestURI());
+    }
+
+    // Handle another cluster node not answering (503)
+    @ExceptionHandler(NodeUnavailableException.class)
+    public ResponseEntity<byte[]> handleNodeUnavailableException(
+            NodeUnavailableException ex,
+            HttpServletRequest request) {
+
+        return errorBodies.serviceUnavailable(ex.getMessage(), request.getRequestURI());
     }
 
     // Handle custom validation error (400)
     @ExceptionHandler(MovieValidationException.class)
-    public ResponseEntity<ErrorResponse> handleMovieValidationException(
+    public ResponseEntity<byte[]> handleMovieValidationException(
             MovieValidationException ex, 
             HttpServletRequest request) {
         
-        ErrorResponse errorResponse = new ErrorResponse(
-            HttpStatus.BAD_REQUEST.value(),
-            "Validation Error",
-            ex.getMessage(),
-            request.getRequestURI()
-        );
-        
-        if (ex.getField() != null) {
-            errorResponse.addValidationError(ex.getField(), ex.getMessage());
-        }
-        
-        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+        movieMetrics.validationFailed(request.getMethod(), endpoint(request));
+        return errorBodies.validationFailed(ex.getFields(), ex.getMessages(), request.getRequestURI());
     }
 
     // Handle @Valid validation errors (400)
@@ -62,6 +81,7 @@ public class GlobalExceptionHandler {
             MethodArgumentNotValidException ex,
             HttpServletRequest request) {
         
+        movieMetrics.validationFailed(request.getMethod(), endpoint(request));
         ErrorResponse errorResponse = new ErrorResponse(
             HttpStatus.BAD_REQUEST.value(),
             "Validation Failed",
@@ -132,6 +152,12 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
     }
 
+    // Handle a client that disconnected from a streaming response: there
+    // is nobody left to answer, e.g. a follower leaving the replication log
+    @ExceptionHandler(AsyncRequestNotUsableException.class)
+    public void handleDisconnectedClient() {
+    }
+
     // Handle all other errors (500)
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGlobalException(
@@ -151,4 +177,9 @@ public class GlobalExceptionHandler {
         
         return new ResponseEntity<>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
     }
+
+    // The matched path pattern, e.g. /api/movies/{id}, or null if none matched
+    private static String endpoint(HttpServletRequest request) {
+        return (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    }
 }
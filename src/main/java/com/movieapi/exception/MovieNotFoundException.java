@@ -3,6 +3,8 @@ package com.movieapi.exception;
 /**
  * Thrown when a movie is not found.
  * Handled by GlobalExceptionHandler.
+ * Misses are routine for clients probing ids, so the exception records no
+ * stack trace and builds its message only when asked.
  */
 
 public class MovieNotFoundException extends RuntimeException {
@@ -10,16 +12,22 @@ public class MovieNotFoundException extends RuntimeException {
     private final Long movieId;
 
     public MovieNotFoundException(Long movieId) {
-        super(String.format("Movie not found with id: %d", movieId));
+        super(null, null, false, false);
         this.movieId = movieId;
     }
     
     public MovieNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
         this.movieId = null;
     }
 
+    @Override
+    public String getMessage() {
+        String message = super.getMessage();
+        return message != null ? message : "Movie not found with id: " + movieId;
+    }
+
     public Long getMovieId() {
         return movieId;
     }
-}
\ No newline at end of file
+}
@@ -3,22 +3,42 @@ package com.movieapi.exception;
 /**
  * Custom exception thrown when movie validation fails.
  * This exception is handled globally by the GlobalExceptionHandler.
+ * It is an expected client error, so no stack trace is recorded.
+ * It may carry several field errors, found in one validation pass;
+ * getField() and getMessage() describe the first.
  */
 public class MovieValidationException extends RuntimeException {
     
-    private final String field;
+    private final String[] fields;
+    private final String[] messages;
 
     public MovieValidationException(String message) {
-        super(message);
-        this.field = null;
+        this(new String[] {null}, new String[] {message});
     }
 
     public MovieValidationException(String field, String message) {
-        super(message);
-        this.field = field;
+        this(new String[] {field}, new String[] {message});
+    }
+
+    /**
+     * @param fields The offending fields
+     * @param messages The error message for each of fields, same order
+     */
+    public MovieValidationException(String[] fields, String[] messages) {
+        super(messages[0], null, false, false);
+        this.fields = fields;
+        this.messages = messages;
     }
 
     public String getField() {
-        return field;
+        return fields[0];
+    }
+
+    public String[] getFields() {
+        return fields.clone();
+    }
+
+    public String[] getMessages() {
+        return messages.clone();
     }
-}
\ No newline at end of file
+}
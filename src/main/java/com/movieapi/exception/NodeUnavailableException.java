@@ -0,0 +1,19 @@
+package com.movieapi.exception;
+
+/**
+ * Thrown when another node of the cluster does not answer a request this
+ * node depends on. Handled by GlobalExceptionHandler as 503.
+ */
+public class NodeUnavailableException extends RuntimeException {
+
+    private final String node;
+
+    public NodeUnavailableException(String node, Throwable cause) {
+        super("Cluster node " + node + " is unavailable", cause);
+        this.node = node;
+    }
+
+    public String getNode() {
+        return node;
+    }
+}
@@ -0,0 +1,20 @@
+package com.movieapi.exception;
+
+/**
+ * Thrown when a conditional write (If-Match) does not match the current
+ * version of a movie. Handled by GlobalExceptionHandler as 412.
+ * Like the other client errors it records no stack trace.
+ */
+public class PreconditionFailedException extends RuntimeException {
+
+    private final Long movieId;
+
+    public PreconditionFailedException(Long movieId) {
+        super("Movie " + movieId + " has been modified since it was read", null, false, false);
+        this.movieId = movieId;
+    }
+
+    public Long getMovieId() {
+        return movieId;
+    }
+}
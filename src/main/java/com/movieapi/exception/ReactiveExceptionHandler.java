@@ -0,0 +1,133 @@
+package com.movieapi.exception;
+
+import com.movieapi.metrics.MovieMetrics;
+import com.movieapi.model.ErrorResponse;
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebInputException;
+import org.springframework.web.util.pattern.PathPattern;
+
+/**
+ * Counterpart of GlobalExceptionHandler for the reactive profile, producing
+ * the same error bodies from WebFlux's exceptions.
+ */
+@ControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveExceptionHandler {
+
+    // Pre-encoded bodies for the frequent client errors
+    private final ErrorBodies errorBodies;
+
+    // Counts not-found and validation errors per endpoint
+    private final MovieMetrics movieMetrics;
+
+    public ReactiveExceptionHandler(ErrorBodies errorBodies, MovieMetrics movieMetrics) {
+        this.errorBodies = errorBodies;
+        this.movieMetrics = movieMetrics;
+    }
+
+    // Handle movie not found (404)
+    @ExceptionHandler(MovieNotFoundException.class)
+    public ResponseEntity<byte[]> handleMovieNotFoundException(
+            MovieNotFoundException ex,
+            ServerWebExchange exchange) {
+
+        ServerHttpRequest request = exchange.getRequest();
+        movieMetrics.notFound(request.getMethod().name(), endpoint(exchange));
+        return errorBodies.notFound(ex.getMessage(), request.getPath().value());
+    }
+
+    // Handle failed If-Match precondition (412)
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<byte[]> handlePreconditionFailedException(
+            PreconditionFailedException ex,
+            ServerHttpRequest request) {
+
+        return errorBodies.preconditionFailed(ex.getMessage(), request.getPath().value());
+    }
+
+    // Handle custom validation error (400)
+    @ExceptionHandler(MovieValidationException.class)
+    public ResponseEntity<byte[]> handleMovieValidationException(
+            MovieValidationException ex,
+            ServerWebExchange exchange) {
+
+        ServerHttpRequest request = exchange.getRequest();
+        movieMetrics.validationFailed(request.getMethod().name(), endpoint(exchange));
+        return errorBodies.validationFailed(ex.getFields(), ex.getMessages(), request.getPath().value());
+    }
+
+    // Handle unreadable bodies and wrongly typed parameters (400)
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<ErrorResponse> handleServerWebInputException(
+            ServerWebInputException ex,
+            ServerHttpRequest request) {
+
+        if (ex.getCause() instanceof TypeMismatchException mismatch) {
+            String message = String.format("Invalid value '%s' for parameter '%s'. Expected type: %s",
+                    mismatch.getValue(),
+                    ex.getMethodParameter() != null ? ex.getMethodParameter().getParameterName() : "unknown",
+                    mismatch.getRequiredType() != null ? mismatch.getRequiredType().getSimpleName() : "unknown");
+            return error(HttpStatus.BAD_REQUEST, "Type Mismatch", message, request);
+        }
+        if (ex.getCause() instanceof DecodingException) {
+            return error(HttpStatus.BAD_REQUEST, "Malformed JSON", "Invalid JSON format.", request);
+        }
+        return error(HttpStatus.BAD_REQUEST, "Invalid Argument", ex.getReason(), request);
+    }
+
+    // Handle illegal arguments (400)
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ErrorResponse> handleIllegalArgumentException(
+            IllegalArgumentException ex,
+            ServerHttpRequest request) {
+
+        return error(HttpStatus.BAD_REQUEST, "Invalid Argument", ex.getMessage(), request);
+    }
+
+    // Handle framework errors that carry their own status (404 route, 405, 415, ...)
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<ErrorResponse> handleResponseStatusException(
+            ResponseStatusException ex,
+            ServerHttpRequest request) {
+
+        HttpStatusCode status = ex.getStatusCode();
+        HttpStatus known = HttpStatus.resolve(status.value());
+        return error(status, known != null ? known.getReasonPhrase() : "Error", ex.getReason(), request);
+    }
+
+    // Handle all other errors (500)
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ErrorResponse> handleGlobalException(
+            Exception ex,
+            ServerHttpRequest request) {
+
+        // Print error for debugging
+        System.err.println("Unexpected error: " + ex.getMessage());
+        ex.printStackTrace();
+
+        return error(HttpStatus.INTERNAL_SERVER_ERROR, "Server Error", "Something went wrong.", request);
+    }
+
+    // The matched path pattern, e.g. /api/movies/{id}, or null if none matched
+    private static String endpoint(ServerWebExchange exchange) {
+        PathPattern pattern = exchange.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.getPatternString() : null;
+    }
+
+    private static ResponseEntity<ErrorResponse> error(
+            HttpStatusCode status, String error, String message, ServerHttpRequest request) {
+        ErrorResponse errorResponse = new ErrorResponse(status.value(), error, message, request.getPath().value());
+        return new ResponseEntity<>(errorResponse, status);
+    }
+}
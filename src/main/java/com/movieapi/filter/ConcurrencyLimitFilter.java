@@ -0,0 +1,192 @@
+package com.movieapi.filter;
+
+import com.movieapi.exception.ErrorBodies;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounds how many requests of each kind (reads, single writes, bulk
+ * transfers) run at once. A request that finds no free permit waits in a
+ * short bounded queue; when the queue is full or the wait times out it is
+ * shed with 503 and a Retry-After header instead of piling up.
+ *
+ * This matters most with virtual threads, where the server no longer runs
+ * out of threads and the permits are the only limit on concurrent work.
+ * The reactive stack does not tie up a thread per request and relies on
+ * backpressure instead, so this filter is servlet-only.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 100)
+@ConditionalOnProperty(name = "movie.concurrency.enabled", havingValue = "true", matchIfMissing = true)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final String API_PATH = "/api/movies";
+
+    enum Group { READ, WRITE, BULK }
+
+    private final Map<Group, Limit> limits = new EnumMap<>(Group.class);
+    private final ErrorBodies errorBodies;
+    private final long maxWaitNanos;
+    private final String retryAfter;
+
+    public ConcurrencyLimitFilter(
+            ErrorBodies errorBodies,
+            MeterRegistry meterRegistry,
+            @Value("${movie.concurrency.read-limit:256}") int readLimit,
+            @Value("${movie.concurrency.write-limit:64}") int writeLimit,
+            @Value("${movie.concurrency.bulk-limit:4}") int bulkLimit,
+            @Value("${movie.concurrency.queue-size:100}") int queueSize,
+            @Value("${movie.concurrency.max-wait:100ms}") Duration maxWait,
+            @Value("${movie.concurrency.retry-after:1s}") Duration retryAfter) {
+        this.errorBodies = errorBodies;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.retryAfter = Long.toString(Math.max(1, retryAfter.toSeconds()));
+        limits.put(Group.READ, new Limit(readLimit, queueSize, meterRegistry, Group.READ));
+        limits.put(Group.WRITE, new Limit(writeLimit, queueSize, meterRegistry, Group.WRITE));
+        limits.put(Group.BULK, new Limit(bulkLimit, queueSize, meterRegistry, Group.BULK));
+    }
+
+    // Event streams are long-lived but idle most of the time and hold no
+    // thread, so they are not counted against the request limits
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!request.getRequestURI().startsWith(API_PATH)) {
+            return true;
+        }
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Limit limit = limits.get(groupOf(request));
+        if (!limit.acquire(maxWaitNanos)) {
+            limit.rejected.increment();
+            shed(request, response);
+            return;
+        }
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                // Streaming responses keep their permit until the stream ends
+                request.getAsyncContext().addListener(new ReleasingListener(limit));
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                limit.permits.release();
+            }
+        }
+    }
+
+    static Group groupOf(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        if (path.startsWith(API_PATH + "/bulk") || path.equals(API_PATH + "/export")
+                || path.equals(API_PATH + "/import")) {
+            return Group.BULK;
+        }
+        String method = request.getMethod();
+        return "GET".equals(method) || "HEAD".equals(method) ? Group.READ : Group.WRITE;
+    }
+
+    private void shed(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ResponseEntity<byte[]> error = errorBodies.serviceUnavailable(
+                "Server is busy, please retry later.", request.getRequestURI());
+        response.setStatus(error.getStatusCode().value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+        response.setContentType(String.valueOf(error.getHeaders().getContentType()));
+        response.setContentLength(error.getBody().length);
+        response.getOutputStream().write(error.getBody());
+    }
+
+    /**
+     * Permits for one group plus the number of requests queued for them
+     */
+    private static final class Limit {
+
+        final Semaphore permits;
+        final int queueSize;
+        final AtomicInteger waiting = new AtomicInteger();
+        final Counter rejected;
+
+        Limit(int permits, int queueSize, MeterRegistry meterRegistry, Group group) {
+            this.permits = new Semaphore(permits);
+            this.queueSize = queueSize;
+            this.rejected = Counter.builder("movie.requests.rejected")
+                    .description("Requests shed with 503 because the concurrency limit was reached")
+                    .tag("group", group.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+
+        boolean acquire(long maxWaitNanos) {
+            if (permits.tryAcquire()) {
+                return true;
+            }
+            if (waiting.incrementAndGet() > queueSize) {
+                waiting.decrementAndGet();
+                return false;
+            }
+            try {
+                return permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                waiting.decrementAndGet();
+            }
+        }
+    }
+
+    private static final class ReleasingListener implements AsyncListener {
+
+        private final Limit limit;
+
+        ReleasingListener(Limit limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            limit.permits.release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.movieapi.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.movieapi.cluster.Cluster;
+import com.movieapi.exception.ErrorBodies;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-client rate limits, with separate budgets for reads and writes.
+ * A client is a configured API key sent in movie.rate-limit.api-key-header,
+ * or else the remote address. Each budget is a token bucket: up to burst
+ * requests at once, refilled at rate per second. A client over its budget
+ * gets 429 with Retry-After; every answer carries RateLimit-Limit,
+ * RateLimit-Remaining and RateLimit-Reset headers.
+ *
+ * Buckets use the generic cell rate algorithm, which keeps a whole bucket
+ * in one long (the time at which it will be full again), so taking a token
+ * is a single compare-and-set with no lock. Client state lives in a
+ * bounded Caffeine cache and expires once idle long enough for its buckets
+ * to refill; forgetting a full bucket changes nothing.
+ *
+ * Runs after CORS, so browsers can read the 429, and before the
+ * concurrency limits, so a throttled client never takes a permit.
+ * Servlet stack only, like ConcurrencyLimitFilter.
+ *
+ * Requests from other nodes of a cluster, which carry the cluster secret,
+ * are not limited: the client they act for was charged by the node it called.
+ *
+ * Off unless movie.rate-limit.enabled is true: the budgets suit a public
+ * API with many clients, not one client loading a catalog.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 90)
+@ConditionalOnProperty(name = "movie.rate-limit.enabled", havingValue = "true")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String API_PATH = "/api/movies";
+
+    static final String LIMIT_HEADER = "RateLimit-Limit";
+    static final String REMAINING_HEADER = "RateLimit-Remaining";
+    static final String RESET_HEADER = "RateLimit-Reset";
+
+    enum Group { READ, WRITE }
+
+    private final Budget[] budgets = new Budget[Group.values().length];
+    private final Counter[] throttled = new Counter[Group.values().length];
+    private final Cache<String, AtomicLongArray> clients;
+    private final String apiKeyHeader;
+    private final Set<String> apiKeys;
+    private final ErrorBodies errorBodies;
+    private final byte[] clusterSecret;
+
+    public RateLimitFilter(
+            ErrorBodies errorBodies,
+            MeterRegistry meterRegistry,
+            @Value("${movie.rate-limit.read-rate:50}") int readRate,
+            @Value("${movie.rate-limit.read-burst:100}") int readBurst,
+            @Value("${movie.rate-limit.write-rate:5}") int writeRate,
+            @Value("${movie.rate-limit.write-burst:20}") int writeBurst,
+            @Value("${movie.rate-limit.max-clients:100000}") long maxClients,
+            @Value("${movie.rate-limit.api-key-header:X-API-Key}") String apiKeyHeader,
+            @Value("${movie.rate-limit.api-keys:}") List<String> apiKeys,
+            @Value("${movie.cluster.secret:}") String clusterSecret) {
+        this.errorBodies = errorBodies;
+        this.clusterSecret = clusterSecret.getBytes(StandardCharsets.UTF_8);
+        this.apiKeyHeader = apiKeyHeader;
+        this.apiKeys = new HashSet<>(apiKeys);
+        this.apiKeys.remove("");
+        budgets[Group.READ.ordinal()] = new Budget(readRate, readBurst);
+        budgets[Group.WRITE.ordinal()] = new Budget(writeRate, writeBurst);
+        long idleNanos = 0;
+        for (Group group : Group.values()) {
+            idleNanos = Math.max(idleNanos, budgets[group.ordinal()].capacityNanos);
+            throttled[group.ordinal()] = Counter.builder("movie.requests.throttled")
+                    .description("Requests rejected with 429 because the client was over its rate limit")
+                    .tag("group", group.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+        this.clients = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(Duration.ofNanos(idleNanos))
+                .build();
+    }
+
+    // CORS preflights carry no credentials and must not use up the budget
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(API_PATH) || "OPTIONS".equals(request.getMethod())
+                || Cluster.matches(request.getHeader(Cluster.SECRET_HEADER), clusterSecret);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Group group = groupOf(request);
+        Budget budget = budgets[group.ordinal()];
+        AtomicLongArray buckets = clients.get(clientOf(request), RateLimitFilter::newBuckets);
+        long result = budget.take(buckets, group.ordinal(), System.nanoTime());
+
+        response.setHeader(LIMIT_HEADER, budget.limitHeader);
+        if (result < 0) {
+            throttled[group.ordinal()].increment();
+            long waitSeconds = seconds(-result);
+            response.setHeader(REMAINING_HEADER, "0");
+            response.setHeader(RESET_HEADER, Long.toString(waitSeconds));
+            reject(request, response, waitSeconds);
+            return;
+        }
+        response.setHeader(REMAINING_HEADER, Long.toString(budget.remaining(result)));
+        response.setHeader(RESET_HEADER, Long.toString(seconds(result)));
+        chain.doFilter(request, response);
+    }
+
+    static Group groupOf(HttpServletRequest request) {
+        String method = request.getMethod();
+        return "GET".equals(method) || "HEAD".equals(method) ? Group.READ : Group.WRITE;
+    }
+
+    private String clientOf(HttpServletRequest request) {
+        String key = request.getHeader(apiKeyHeader);
+        // Unknown keys are ignored, or a client could dodge its limit by
+        // sending a new key with every request
+        if (key != null && apiKeys.contains(key)) {
+            return key;
+        }
+        return request.getRemoteAddr();
+    }
+
+    private static AtomicLongArray newBuckets(String client) {
+        AtomicLongArray buckets = new AtomicLongArray(Group.values().length);
+        for (int i = 0; i < buckets.length(); i++) {
+            // Long ago, so every bucket starts full
+            buckets.set(i, Long.MIN_VALUE);
+        }
+        return buckets;
+    }
+
+    private static long seconds(long nanos) {
+        return Math.max(0, (nanos + 999_999_999) / 1_000_000_000);
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, long waitSeconds)
+            throws IOException {
+        ResponseEntity<byte[]> error = errorBodies.tooManyRequests(
+                "Rate limit exceeded, please retry later.", request.getRequestURI());
+        response.setStatus(error.getStatusCode().value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, waitSeconds)));
+        response.setContentType(String.valueOf(error.getHeaders().getContentType()));
+        response.setContentLength(error.getBody().length);
+        response.getOutputStream().write(error.getBody());
+    }
+
+    /**
+     * Rate and burst of one group. A bucket is stored as the time at which
+     * it will be full again; each request pushes that time one interval
+     * further, and is refused if it would end up more than a full bucket
+     * (burst intervals) ahead of now.
+     */
+    static final class Budget {
+
+        final long intervalNanos;
+        final long capacityNanos;
+        final String limitHeader;
+
+        Budget(int ratePerSecond, int burst) {
+            if (ratePerSecond < 1 || burst < 1) {
+                throw new IllegalArgumentException("Rate limit rate and burst must be at least 1");
+            }
+            this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+            this.capacityNanos = intervalNanos * burst;
+            this.limitHeader = Integer.toString(burst);
+        }
+
+        /**
+         * Takes one token from a bucket
+         * @param buckets The client's buckets
+         * @param index This budget's bucket
+         * @param now The current System.nanoTime()
+         * @return The nanoseconds until the bucket is full again if a token
+         *         was taken, or minus the nanoseconds to wait for one if not
+         */
+        long take(AtomicLongArray buckets, int index, long now) {
+            while (true) {
+                long full = buckets.get(index);
+                long next = Math.max(full, now) + intervalNanos;
+                long wait = next - now - capacityNanos;
+                if (wait > 0) {
+                    return -wait;
+                }
+                if (buckets.compareAndSet(index, full, next)) {
+                    return next - now;
+                }
+            }
+        }
+
+        /**
+         * @param untilFull What take() returned for a granted request
+         * @return Tokens left in the bucket
+         */
+        long remaining(long untilFull) {
+            return (capacityNanos - untilFull) / intervalNanos;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.movieapi.metrics;
+
+import com.movieapi.service.MovieService;
+import com.movieapi.service.OperationTimer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters for the movie catalog:
+ * movie.operations - timer per MovieService operation, with percentiles
+ *                    and a histogram
+ * movie.store.size - number of movies
+ * movie.index.bytes - estimated heap footprint per index
+ * movie.errors - not-found and validation errors per endpoint
+ *
+ * Every meter on the request path is looked up once and kept, so recording
+ * is a field read plus the meter's own lock-free update, with no tag or id
+ * objects built per request.
+ */
+@Component
+public class MovieMetrics {
+
+    /**
+     * Endpoint tag when the request matched no handler
+     */
+    public static final String UNKNOWN_ENDPOINT = "UNKNOWN";
+
+    private final MeterRegistry meterRegistry;
+
+    // Indexed by Operation.ordinal()
+    private final Timer[] operationTimers;
+
+    // method -> endpoint pattern -> counter, one pair of maps per error type
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, Counter>> notFound = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, Counter>> validationFailed = new ConcurrentHashMap<>();
+
+    public MovieMetrics(MovieService movieService, MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+
+        OperationTimer.Operation[] operations = OperationTimer.Operation.values();
+        this.operationTimers = new Timer[operations.length];
+        for (OperationTimer.Operation operation : operations) {
+            operationTimers[operation.ordinal()] = Timer.builder("movie.operations")
+                    .description("Time spent in MovieService, per operation")
+                    .tag("operation", operation.name().toLowerCase(Locale.ROOT))
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+
+        Gauge.builder("movie.store.size", movieService, MovieService::getMovieCount)
+                .description("Number of movies in the catalog")
+                .register(meterRegistry);
+        Gauge.builder("movie.index.bytes", movieService, MovieService::estimateAttributeIndexBytes)
+                .description("Estimated heap used by an index")
+                .tag("index", "attributes").baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("movie.index.bytes", movieService, MovieService::estimateFullTextIndexBytes)
+                .description("Estimated heap used by an index")
+                .tag("index", "fulltext").baseUnit("bytes").register(meterRegistry);
+
+        movieService.setOperationTimer(this::recordOperation);
+    }
+
+    private void recordOperation(OperationTimer.Operation operation, long nanos) {
+        operationTimers[operation.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counts a lookup of a movie that does not exist
+     * @param method The HTTP method
+     * @param endpoint The matched path pattern, e.g. /api/movies/{id}
+     */
+    public void notFound(String method, String endpoint) {
+        counter(notFound, "not_found", method, endpoint).increment();
+    }
+
+    /**
+     * Counts a request rejected because the movie in it was invalid
+     * @param method The HTTP method
+     * @param endpoint The matched path pattern
+     */
+    public void validationFailed(String method, String endpoint) {
+        counter(validationFailed, "validation", method, endpoint).increment();
+    }
+
+    private Counter counter(ConcurrentHashMap<String, ConcurrentHashMap<String, Counter>> counters,
+                            String type, String method, String endpoint) {
+        String pattern = endpoint != null ? endpoint : UNKNOWN_ENDPOINT;
+        // Plain gets first: computeIfAbsent would allocate a capturing lambda
+        ConcurrentHashMap<String, Counter> byEndpoint = counters.get(method);
+        if (byEndpoint == null) {
+            byEndpoint = counters.computeIfAbsent(method, key -> new ConcurrentHashMap<>());
+        }
+        Counter counter = byEndpoint.get(pattern);
+        if (counter == null) {
+            counter = byEndpoint.computeIfAbsent(pattern, key -> Counter.builder("movie.errors")
+                    .description("Client errors, per endpoint")
+                    .tag("type", type)
+                    .tag("method", method)
+                    .tag("endpoint", key)
+                    .register(meterRegistry));
+        }
+        return counter;
+    }
+}
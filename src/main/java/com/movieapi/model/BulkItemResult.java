@@ -0,0 +1,69 @@
+package com.movieapi.model;
+
+/**
+ * Outcome of one item in a bulk request.
+ * The index is the item's position in the request body, the status is the
+ * HTTP status the item would have received as a single request.
+ */
+public class BulkItemResult {
+
+    private int index;
+    private Long id;
+    private int status;
+    private String error;
+
+    public BulkItemResult() {
+    }
+
+    public BulkItemResult(int index, Long id, int status, String error) {
+        this.index = index;
+        this.id = id;
+        this.status = status;
+        this.error = error;
+    }
+
+    public static BulkItemResult success(int index, Long id, int status) {
+        return new BulkItemResult(index, id, status, null);
+    }
+
+    public static BulkItemResult failure(int index, Long id, int status, String error) {
+        return new BulkItemResult(index, id, status, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    // Getters and Setters
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,80 @@
+package com.movieapi.model;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Response for bulk create, update and delete requests.
+ * Carries totals plus one BulkItemResult per item, in request order.
+ */
+public class BulkResponse {
+
+    private LocalDateTime timestamp;
+    private int total;
+    private int succeeded;
+    private int failed;
+    private List<BulkItemResult> items;
+
+    public BulkResponse() {
+        this.timestamp = LocalDateTime.now();
+        this.items = new ArrayList<>();
+    }
+
+    /**
+     * Appends the results of one processed chunk and updates the totals
+     * @param results The per-item results of the chunk
+     */
+    public void addAll(List<BulkItemResult> results) {
+        for (BulkItemResult result : results) {
+            items.add(result);
+            total++;
+            if (result.isSuccess()) {
+                succeeded++;
+            } else {
+                failed++;
+            }
+        }
+    }
+
+    // Getters and Setters
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(LocalDateTime timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public void setSucceeded(int succeeded) {
+        this.succeeded = succeeded;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public List<BulkItemResult> getItems() {
+        return items;
+    }
+
+    public void setItems(List<BulkItemResult> items) {
+        this.items = items;
+    }
+}
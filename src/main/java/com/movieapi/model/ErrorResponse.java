@@ -1,5 +1,7 @@
 package com.movieapi.model;
 
+import com.movieapi.util.CachedClock;
+
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -18,7 +20,7 @@ public class ErrorResponse {
     private List<ValidationError> validationErrors;
 
     public ErrorResponse() {
-        this.timestamp = LocalDateTime.now();
+        this.timestamp = CachedClock.now();
         this.validationErrors = new ArrayList<>();
     }
 
@@ -1,5 +1,7 @@
 package com.movieapi.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.util.Objects;
 
 /**
@@ -14,6 +16,10 @@ public class Movie {
     private Integer releaseYear;
     private Double rating; // this is rating out of 10
 
+    // Bumped on every update; drives ETags, not part of the JSON body
+    @JsonIgnore
+    private long version;
+
     // Default constructor
     public Movie() {
     }
@@ -77,6 +83,16 @@ public class Movie {
         this.rating = rating;
     }
 
+    @JsonIgnore
+    public long getVersion() {
+        return version;
+    }
+
+    @JsonIgnore
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,38 @@
+package com.movieapi.model;
+
+/**
+ * A single mutation of the movie catalog.
+ * For CREATED and UPDATED the movie is the new state; for DELETED it is the
+ * movie as it was just before removal.
+ */
+public class MovieChange {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    private final Type type;
+    private final long id;
+    private final Movie movie;
+
+    public MovieChange(Type type, long id, Movie movie) {
+        this.type = type;
+        this.id = id;
+        this.movie = movie;
+    }
+
+    // Getters
+    public Type getType() {
+        return type;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public Movie getMovie() {
+        return movie;
+    }
+}
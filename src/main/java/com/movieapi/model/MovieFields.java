@@ -0,0 +1,23 @@
+package com.movieapi.model;
+
+/**
+ * Bits naming the fields of a Movie, combined into masks, e.g. the
+ * fields a patch sets or the fields to validate.
+ */
+public final class MovieFields {
+
+    public static final int ID = 1;
+    public static final int TITLE = 1 << 1;
+    public static final int DESCRIPTION = 1 << 2;
+    public static final int GENRE = 1 << 3;
+    public static final int RELEASE_YEAR = 1 << 4;
+    public static final int RATING = 1 << 5;
+
+    /**
+     * Every field
+     */
+    public static final int ALL = ID | TITLE | DESCRIPTION | GENRE | RELEASE_YEAR | RATING;
+
+    private MovieFields() {
+    }
+}
@@ -0,0 +1,112 @@
+package com.movieapi.model;
+
+import java.util.Locale;
+
+/**
+ * Filter criteria for listing movies.
+ * Every criterion is optional; a null value means "no restriction".
+ * Year and rating bounds are inclusive.
+ */
+public class MovieFilter {
+
+    /**
+     * The filter that matches every movie
+     */
+    public static final MovieFilter NONE = new MovieFilter(null, null, null, null, null);
+
+    private final String genre;
+    private final String genreKey;
+    private final Integer minYear;
+    private final Integer maxYear;
+    private final Double minRating;
+    private final Double maxRating;
+
+    public MovieFilter(String genre, Integer minYear, Integer maxYear, Double minRating, Double maxRating) {
+        if (minYear != null && maxYear != null && minYear > maxYear) {
+            throw new IllegalArgumentException("minYear cannot be greater than maxYear");
+        }
+        if (minRating != null && maxRating != null && minRating > maxRating) {
+            throw new IllegalArgumentException("minRating cannot be greater than maxRating");
+        }
+        this.genre = genre != null && !genre.isBlank() ? genre.trim() : null;
+        this.genreKey = this.genre != null ? normalizeGenre(this.genre) : null;
+        this.minYear = minYear;
+        this.maxYear = maxYear;
+        this.minRating = minRating;
+        this.maxRating = maxRating;
+    }
+
+    /**
+     * @return true if no criterion is set, i.e. the filter matches every movie
+     */
+    public boolean isEmpty() {
+        return genre == null && !hasYearRange() && !hasRatingRange();
+    }
+
+    public boolean hasYearRange() {
+        return minYear != null || maxYear != null;
+    }
+
+    public boolean hasRatingRange() {
+        return minRating != null || maxRating != null;
+    }
+
+    /**
+     * Checks a movie against every criterion of this filter
+     * @param movie The movie to check
+     * @return true if the movie satisfies all criteria
+     */
+    public boolean matches(Movie movie) {
+        if (genreKey != null && (movie.getGenre() == null || !normalizeGenre(movie.getGenre()).equals(genreKey))) {
+            return false;
+        }
+        if (hasYearRange()) {
+            Integer year = movie.getReleaseYear();
+            if (year == null || (minYear != null && year < minYear) || (maxYear != null && year > maxYear)) {
+                return false;
+            }
+        }
+        if (hasRatingRange()) {
+            Double rating = movie.getRating();
+            if (rating == null || (minRating != null && rating < minRating) || (maxRating != null && rating > maxRating)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Genres are matched case-insensitively, ignoring surrounding whitespace
+     */
+    public static String normalizeGenre(String genre) {
+        return genre.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Getters
+    public String getGenre() {
+        return genre;
+    }
+
+    /**
+     * @return the genre in its normalized, index-key form
+     */
+    public String getGenreKey() {
+        return genreKey;
+    }
+
+    public Integer getMinYear() {
+        return minYear;
+    }
+
+    public Integer getMaxYear() {
+        return maxYear;
+    }
+
+    public Double getMinRating() {
+        return minRating;
+    }
+
+    public Double getMaxRating() {
+        return maxRating;
+    }
+}
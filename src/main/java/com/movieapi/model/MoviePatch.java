@@ -0,0 +1,110 @@
+package com.movieapi.model;
+
+/**
+ * A JSON Merge Patch (RFC 7396) of a movie: only the members present in
+ * the request body change. A member set to null clears that field; a
+ * member left out keeps its value. Jackson calls a setter for every
+ * member present, explicit nulls included, which is how the two are told
+ * apart.
+ */
+public class MoviePatch {
+
+    // MovieFields bits of the members present
+    private int fields;
+
+    // The patched values; fields not in the patch stay null
+    private final Movie values = new Movie();
+
+    /**
+     * @param field A MovieFields bit, e.g. MovieFields.RATING
+     * @return Whether the patch sets that field, possibly to null
+     */
+    public boolean has(int field) {
+        return (fields & field) != 0;
+    }
+
+    /**
+     * @return The MovieFields bits of every field the patch sets
+     */
+    public int fields() {
+        return fields;
+    }
+
+    /**
+     * @return The patched values as a movie, e.g. to validate them; only
+     *         the fields in fields() are meaningful
+     */
+    public Movie values() {
+        return values;
+    }
+
+    /**
+     * Applies the patch to a copy of a movie
+     * @param movie The movie as it is
+     * @return A new movie with the patched fields changed and the rest
+     *         shared with movie; movie itself is unchanged
+     */
+    public Movie applyTo(Movie movie) {
+        return new Movie(movie.getId(),
+                has(MovieFields.TITLE) ? values.getTitle() : movie.getTitle(),
+                has(MovieFields.DESCRIPTION) ? values.getDescription() : movie.getDescription(),
+                has(MovieFields.GENRE) ? values.getGenre() : movie.getGenre(),
+                has(MovieFields.RELEASE_YEAR) ? values.getReleaseYear() : movie.getReleaseYear(),
+                has(MovieFields.RATING) ? values.getRating() : movie.getRating());
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return values.getId();
+    }
+
+    public void setId(Long id) {
+        values.setId(id);
+        fields |= MovieFields.ID;
+    }
+
+    public String getTitle() {
+        return values.getTitle();
+    }
+
+    public void setTitle(String title) {
+        values.setTitle(title);
+        fields |= MovieFields.TITLE;
+    }
+
+    public String getDescription() {
+        return values.getDescription();
+    }
+
+    public void setDescription(String description) {
+        values.setDescription(description);
+        fields |= MovieFields.DESCRIPTION;
+    }
+
+    public String getGenre() {
+        return values.getGenre();
+    }
+
+    public void setGenre(String genre) {
+        values.setGenre(genre);
+        fields |= MovieFields.GENRE;
+    }
+
+    public Integer getReleaseYear() {
+        return values.getReleaseYear();
+    }
+
+    public void setReleaseYear(Integer releaseYear) {
+        values.setReleaseYear(releaseYear);
+        fields |= MovieFields.RELEASE_YEAR;
+    }
+
+    public Double getRating() {
+        return values.getRating();
+    }
+
+    public void setRating(Double rating) {
+        values.setRating(rating);
+        fields |= MovieFields.RATING;
+    }
+}
@@ -0,0 +1,69 @@
+package com.movieapi.model;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing.
+ * Pass nextCursor back as the cursor parameter to fetch the following page;
+ * it is null on the last page. version is the catalog version the page was
+ * read from; pass it back too and the next page comes from that same version
+ * while the server still keeps it.
+ */
+public class PageResponse<T> {
+
+    private List<T> data;
+    private int limit;
+    private Long nextCursor;
+    private Long version;
+
+    public PageResponse() {
+    }
+
+    public PageResponse(List<T> data, int limit, Long nextCursor) {
+        this.data = data;
+        this.limit = limit;
+        this.nextCursor = nextCursor;
+    }
+
+    public PageResponse(List<T> data, int limit, Long nextCursor, Long version) {
+        this(data, limit, nextCursor);
+        this.version = version;
+    }
+
+    // Getters and Setters
+    public List<T> getData() {
+        return data;
+    }
+
+    public void setData(List<T> data) {
+        this.data = data;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(Long nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public boolean isHasMore() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,141 @@
+package com.movieapi.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One line of a leader's replication log: a batch of consecutive changes,
+ * oldest first, each with its sequence number on the leader. A frame with
+ * no changes is a heartbeat. A resync frame tells the follower that the
+ * changes it asked for are no longer retained and it must reload the
+ * catalog from a snapshot. Every frame names the leader's epoch (see
+ * MovieService.getEpoch()): movie versions from another epoch are not the
+ * leader's, so a follower that sees the epoch change reloads too.
+ */
+public class ReplicationFrame {
+
+    private String epoch;
+    private long leaderVersion;
+    private boolean resync;
+    private List<Entry> changes = new ArrayList<>();
+
+    public ReplicationFrame() {
+    }
+
+    public ReplicationFrame(String epoch, long leaderVersion, boolean resync, List<Entry> changes) {
+        this.epoch = epoch;
+        this.leaderVersion = leaderVersion;
+        this.resync = resync;
+        this.changes = changes;
+    }
+
+    /**
+     * One change with its sequence number on the leader, and the version
+     * the changed movie has there
+     */
+    public static class Entry {
+
+        private long sequence;
+        private MovieChange.Type type;
+        private long id;
+        private Movie movie;
+        // Movie versions are left out of movie JSON, so carried here
+        private long version;
+
+        public Entry() {
+        }
+
+        public Entry(long sequence, MovieChange change) {
+            this.sequence = sequence;
+            this.type = change.getType();
+            this.id = change.getId();
+            // A deleted movie is identified by its id alone
+            this.movie = change.getType() != MovieChange.Type.DELETED ? change.getMovie() : null;
+            this.version = movie != null ? movie.getVersion() : 0;
+        }
+
+        /**
+         * @return The change this entry carries, its movie at the leader's version
+         */
+        public MovieChange toChange() {
+            if (movie != null) {
+                movie.setVersion(version);
+            }
+            return new MovieChange(type, id, movie);
+        }
+
+        // Getters and Setters
+        public long getSequence() {
+            return sequence;
+        }
+
+        public void setSequence(long sequence) {
+            this.sequence = sequence;
+        }
+
+        public MovieChange.Type getType() {
+            return type;
+        }
+
+        public void setType(MovieChange.Type type) {
+            this.type = type;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public Movie getMovie() {
+            return movie;
+        }
+
+        public void setMovie(Movie movie) {
+            this.movie = movie;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public void setVersion(long version) {
+            this.version = version;
+        }
+    }
+
+    // Getters and Setters
+    public String getEpoch() {
+        return epoch;
+    }
+
+    public void setEpoch(String epoch) {
+        this.epoch = epoch;
+    }
+
+    public long getLeaderVersion() {
+        return leaderVersion;
+    }
+
+    public void setLeaderVersion(long leaderVersion) {
+        this.leaderVersion = leaderVersion;
+    }
+
+    public boolean isResync() {
+        return resync;
+    }
+
+    public void setResync(boolean resync) {
+        this.resync = resync;
+    }
+
+    public List<Entry> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(List<Entry> changes) {
+        this.changes = changes;
+    }
+}
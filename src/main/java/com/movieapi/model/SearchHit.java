@@ -0,0 +1,36 @@
+package com.movieapi.model;
+
+/**
+ * One full-text search result with its relevance score. Nodes of a cluster
+ * exchange these so that a search across partitions can merge by score.
+ */
+public class SearchHit {
+
+    private Movie movie;
+    private double score;
+
+    public SearchHit() {
+    }
+
+    public SearchHit(Movie movie, double score) {
+        this.movie = movie;
+        this.score = score;
+    }
+
+    // Getters and Setters
+    public Movie getMovie() {
+        return movie;
+    }
+
+    public void setMovie(Movie movie) {
+        this.movie = movie;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+}
@@ -0,0 +1,270 @@
+package com.movieapi.model;
+
+import java.util.List;
+
+/**
+ * Catalog statistics for dashboards: movie counts per genre and per
+ * release decade, and the distribution of ratings. Built from summaries
+ * maintained on every write, never by scanning the catalog. version is
+ * the catalog version the statistics were read at.
+ */
+public class StatsResponse {
+
+    private long version;
+    private long count;
+    private List<GenreStats> genres;
+    private RatingStats ratings;
+    private List<DecadeStats> decades;
+
+    public StatsResponse() {
+    }
+
+    public StatsResponse(long version, long count, List<GenreStats> genres, RatingStats ratings, List<DecadeStats> decades) {
+        this.version = version;
+        this.count = count;
+        this.genres = genres;
+        this.ratings = ratings;
+        this.decades = decades;
+    }
+
+    // Getters and Setters
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public List<GenreStats> getGenres() {
+        return genres;
+    }
+
+    public void setGenres(List<GenreStats> genres) {
+        this.genres = genres;
+    }
+
+    public RatingStats getRatings() {
+        return ratings;
+    }
+
+    public void setRatings(RatingStats ratings) {
+        this.ratings = ratings;
+    }
+
+    public List<DecadeStats> getDecades() {
+        return decades;
+    }
+
+    public void setDecades(List<DecadeStats> decades) {
+        this.decades = decades;
+    }
+
+    /**
+     * Movies of one genre, and their average rating (null if none is rated)
+     */
+    public static class GenreStats {
+        private String genre;
+        private long count;
+        private Double averageRating;
+
+        public GenreStats() {
+        }
+
+        public GenreStats(String genre, long count, Double averageRating) {
+            this.genre = genre;
+            this.count = count;
+            this.averageRating = averageRating;
+        }
+
+        public String getGenre() {
+            return genre;
+        }
+
+        public void setGenre(String genre) {
+            this.genre = genre;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+
+        public Double getAverageRating() {
+            return averageRating;
+        }
+
+        public void setAverageRating(Double averageRating) {
+            this.averageRating = averageRating;
+        }
+    }
+
+    /**
+     * Movies released in one decade, named by its first year; null for movies without a year
+     */
+    public static class DecadeStats {
+        private Integer decade;
+        private long count;
+
+        public DecadeStats() {
+        }
+
+        public DecadeStats(Integer decade, long count) {
+            this.decade = decade;
+            this.count = count;
+        }
+
+        public Integer getDecade() {
+            return decade;
+        }
+
+        public void setDecade(Integer decade) {
+            this.decade = decade;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+    }
+
+    /**
+     * Distribution of the ratings of all rated movies
+     */
+    public static class RatingStats {
+        private long count;
+        private Double average;
+        private List<Percentile> percentiles;
+        private List<Bucket> histogram;
+
+        public RatingStats() {
+        }
+
+        public RatingStats(long count, Double average, List<Percentile> percentiles, List<Bucket> histogram) {
+            this.count = count;
+            this.average = average;
+            this.percentiles = percentiles;
+            this.histogram = histogram;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+
+        public Double getAverage() {
+            return average;
+        }
+
+        public void setAverage(Double average) {
+            this.average = average;
+        }
+
+        public List<Percentile> getPercentiles() {
+            return percentiles;
+        }
+
+        public void setPercentiles(List<Percentile> percentiles) {
+            this.percentiles = percentiles;
+        }
+
+        public List<Bucket> getHistogram() {
+            return histogram;
+        }
+
+        public void setHistogram(List<Bucket> histogram) {
+            this.histogram = histogram;
+        }
+    }
+
+    /**
+     * The rating at or below which the given fraction of ratings fall
+     */
+    public static class Percentile {
+        private double quantile;
+        private Double value;
+
+        public Percentile() {
+        }
+
+        public Percentile(double quantile, Double value) {
+            this.quantile = quantile;
+            this.value = value;
+        }
+
+        public double getQuantile() {
+            return quantile;
+        }
+
+        public void setQuantile(double quantile) {
+            this.quantile = quantile;
+        }
+
+        public Double getValue() {
+            return value;
+        }
+
+        public void setValue(Double value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * Ratings from "from" up to, but not including, "to" (the last bucket includes 10)
+     */
+    public static class Bucket {
+        private double from;
+        private double to;
+        private long count;
+
+        public Bucket() {
+        }
+
+        public Bucket(double from, double to, long count) {
+            this.from = from;
+            this.to = to;
+            this.count = count;
+        }
+
+        public double getFrom() {
+            return from;
+        }
+
+        public void setFrom(double from) {
+            this.from = from;
+        }
+
+        public double getTo() {
+            return to;
+        }
+
+        public void setTo(double to) {
+            this.to = to;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.movieapi.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The running totals behind the stats endpoints, in a form that adds up:
+ * counts and rating sums rather than averages, and the rating sketch's
+ * count per bin rather than percentiles. Each node of a cluster reports
+ * its partition's totals; merged, they give exactly the statistics one
+ * node holding the whole catalog would.
+ */
+public class StatsTotals {
+
+    private long version;
+    private Group all;
+    private List<Group> genres;
+    private Map<Integer, Long> decades;
+    private long undated;
+    private long[] ratingCounts;
+
+    public StatsTotals() {
+    }
+
+    public StatsTotals(long version, Group all, List<Group> genres, Map<Integer, Long> decades, long undated,
+                       long[] ratingCounts) {
+        this.version = version;
+        this.all = all;
+        this.genres = genres;
+        this.decades = decades;
+        this.undated = undated;
+        this.ratingCounts = ratingCounts;
+    }
+
+    /**
+     * Adds up the totals of several partitions. A genre is matched
+     * case-insensitively and keeps the name of the first partition that has it.
+     * @param parts Totals of each partition, all from the same rating sketch layout
+     * @param version Version to give the result
+     * @return The combined totals
+     */
+    public static StatsTotals merge(List<StatsTotals> parts, long version) {
+        Group all = new Group(null, 0, 0, 0);
+        Map<String, Group> genres = new LinkedHashMap<>();
+        Map<Integer, Long> decades = new TreeMap<>();
+        long undated = 0;
+        long[] ratingCounts = null;
+        for (StatsTotals part : parts) {
+            all.add(part.all);
+            for (Group genre : part.genres) {
+                genres.computeIfAbsent(MovieFilter.normalizeGenre(genre.name),
+                        key -> new Group(genre.name, 0, 0, 0)).add(genre);
+            }
+            part.decades.forEach((decade, count) -> decades.merge(decade, count, Long::sum));
+            undated += part.undated;
+            if (ratingCounts == null) {
+                ratingCounts = part.ratingCounts.clone();
+            } else {
+                for (int i = 0; i < ratingCounts.length; i++) {
+                    ratingCounts[i] += part.ratingCounts[i];
+                }
+            }
+        }
+        return new StatsTotals(version, all, new ArrayList<>(genres.values()), decades, undated,
+                ratingCounts != null ? ratingCounts : new long[0]);
+    }
+
+    // Getters and Setters
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public Group getAll() {
+        return all;
+    }
+
+    public void setAll(Group all) {
+        this.all = all;
+    }
+
+    public List<Group> getGenres() {
+        return genres;
+    }
+
+    public void setGenres(List<Group> genres) {
+        this.genres = genres;
+    }
+
+    public Map<Integer, Long> getDecades() {
+        return decades;
+    }
+
+    public void setDecades(Map<Integer, Long> decades) {
+        this.decades = decades;
+    }
+
+    public long getUndated() {
+        return undated;
+    }
+
+    public void setUndated(long undated) {
+        this.undated = undated;
+    }
+
+    public long[] getRatingCounts() {
+        return ratingCounts;
+    }
+
+    public void setRatingCounts(long[] ratingCounts) {
+        this.ratingCounts = ratingCounts;
+    }
+
+    /**
+     * Totals of a group of movies: all of them, or one genre. Rating sums
+     * are in thousandths of a point.
+     */
+    public static class Group {
+        private String name;
+        private long movies;
+        private long rated;
+        private long ratingSum;
+
+        public Group() {
+        }
+
+        public Group(String name, long movies, long rated, long ratingSum) {
+            this.name = name;
+            this.movies = movies;
+            this.rated = rated;
+            this.ratingSum = ratingSum;
+        }
+
+        void add(Group other) {
+            movies += other.movies;
+            rated += other.rated;
+            ratingSum += other.ratingSum;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public long getMovies() {
+            return movies;
+        }
+
+        public void setMovies(long movies) {
+            this.movies = movies;
+        }
+
+        public long getRated() {
+            return rated;
+        }
+
+        public void setRated(long rated) {
+            this.rated = rated;
+        }
+
+        public long getRatingSum() {
+            return ratingSum;
+        }
+
+        public void setRatingSum(long ratingSum) {
+            this.ratingSum = ratingSum;
+        }
+    }
+}
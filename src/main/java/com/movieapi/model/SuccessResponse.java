@@ -1,5 +1,7 @@
 package com.movieapi.model;
 
+import com.movieapi.util.CachedClock;
+
 import java.time.LocalDateTime;
 
 /**
@@ -15,7 +17,7 @@ public class SuccessResponse<T> {
     private T data;
 
     public SuccessResponse() {
-        this.timestamp = LocalDateTime.now();
+        this.timestamp = CachedClock.now();
     }
 
     public SuccessResponse(int status, String message, String details, T data) {
@@ -0,0 +1,118 @@
+package com.movieapi.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Changes to the catalog since a client's last sync.
+ * Each movie appears with its latest state, or as a tombstone if it was
+ * deleted. Pass version back as since on the next sync. When resync is
+ * true the client must reload the full catalog instead, then sync from the
+ * returned version.
+ */
+public class SyncResponse {
+
+    private long since;
+    private long version;
+    private boolean resync;
+    private boolean hasMore;
+    private List<Change> changes;
+
+    public SyncResponse() {
+        this.changes = new ArrayList<>();
+    }
+
+    public SyncResponse(long since, long version, boolean resync, boolean hasMore, List<Change> changes) {
+        this.since = since;
+        this.version = version;
+        this.resync = resync;
+        this.hasMore = hasMore;
+        this.changes = changes;
+    }
+
+    // Getters and Setters
+    public long getSince() {
+        return since;
+    }
+
+    public void setSince(long since) {
+        this.since = since;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public boolean isResync() {
+        return resync;
+    }
+
+    public void setResync(boolean resync) {
+        this.resync = resync;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public List<Change> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(List<Change> changes) {
+        this.changes = changes;
+    }
+
+    /**
+     * The current state of one changed movie
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Change {
+        private long id;
+        private boolean deleted;
+        private Movie movie;
+
+        public Change() {
+        }
+
+        public Change(long id, boolean deleted, Movie movie) {
+            this.id = id;
+            this.deleted = deleted;
+            this.movie = movie;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public boolean isDeleted() {
+            return deleted;
+        }
+
+        public void setDeleted(boolean deleted) {
+            this.deleted = deleted;
+        }
+
+        public Movie getMovie() {
+            return movie;
+        }
+
+        public void setMovie(Movie movie) {
+            this.movie = movie;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.movieapi.persistence;
+
+import com.movieapi.model.Movie;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Versioned, columnar binary catalog format.
+ *
+ * <pre>
+ * header   magic (int) | version (int) | count (int) | reserved (int) | nextId (long) | marker (long)
+ * ids      long[count]    ascending
+ * versions long[count]    movie versions, 0 if unknown; not in format 1
+ * years    int[count]     Integer.MIN_VALUE for null
+ * ratings  double[count]  NaN for null
+ * nulls    byte[count]    bit 0 title, bit 1 description, bit 2 genre; padded to 8 bytes
+ * heap     UTF-8 bytes of title, description, genre for every row, in row order
+ * offsets  long[3 * count + 1]  start of each string in the heap, plus the end
+ * </pre>
+ *
+ * All fixed-width columns sit at offsets computed from the count, so a
+ * reader can memory-map the file and fetch any field of any row directly
+ * (see MappedCatalog). The string offsets come last so the file can be
+ * written in one pass to a plain output stream. All values are big-endian.
+ * Readers check the ids are ascending and the string offsets stay
+ * within the heap, so a corrupt file is refused before any row is read.
+ * Format 2 added the versions column, so a replica keeps its leader's
+ * movie versions; readers still accept format 1.
+ */
+public final class CatalogFormat {
+
+    static final int MAGIC = 0x4D56_4354; // "MVCT"
+    static final int VERSION = 2;
+    static final int FIRST_VERSION = 1;
+    static final int HEADER_SIZE = 32;
+
+    static final int NULL_YEAR = Integer.MIN_VALUE;
+    static final int TITLE_NULL = 1;
+    static final int DESCRIPTION_NULL = 2;
+    static final int GENRE_NULL = 4;
+
+    public static final String CONTENT_TYPE = "application/vnd.movieapi.catalog";
+
+    private CatalogFormat() {
+    }
+
+    /**
+     * Writes a catalog in one pass
+     * @param output Where to write; flushed but not closed
+     * @param movies The movies, in ascending id order
+     * @param nextId The next id the source would hand out
+     * @param marker Free for the caller (snapshots store the first log segment)
+     */
+    public static void write(OutputStream output, List<Movie> movies, long nextId, long marker) throws IOException {
+        write(output, movies.size(), movies, nextId, marker);
+    }
+
+    /**
+     * Writes a catalog in one pass over the output, going over the movies
+     * once per column, so they need not be copied into a list first
+     * @param output Where to write; flushed but not closed
+     * @param count The number of movies
+     * @param movies The movies, in ascending id order; every iterator()
+     *               must yield the same count rows, e.g. CatalogSnapshot.rows()
+     * @param nextId The next id the source would hand out
+     * @param marker Free for the caller (snapshots store the first log segment)
+     * @throws IllegalArgumentException if the movies are not count rows
+     */
+    public static void write(OutputStream output, int count, Iterable<Movie> movies, long nextId, long marker)
+            throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output, 64 * 1024));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(count);
+        out.writeInt(0);
+        out.writeLong(nextId);
+        out.writeLong(marker);
+
+        int rows = 0;
+        for (Movie movie : movies) {
+            out.writeLong(movie.getId());
+            rows++;
+        }
+        if (rows != count) {
+            throw new IllegalArgumentException("Expected " + count + " movies but got " + rows);
+        }
+        for (Movie movie : movies) {
+            out.writeLong(movie.getVersion());
+        }
+        for (Movie movie : movies) {
+            out.writeInt(movie.getReleaseYear() != null ? movie.getReleaseYear() : NULL_YEAR);
+        }
+        for (Movie movie : movies) {
+            out.writeDouble(movie.getRating() != null ? movie.getRating() : Double.NaN);
+        }
+        for (Movie movie : movies) {
+            out.writeByte((movie.getTitle() == null ? TITLE_NULL : 0)
+                    | (movie.getDescription() == null ? DESCRIPTION_NULL : 0)
+                    | (movie.getGenre() == null ? GENRE_NULL : 0));
+        }
+        for (int i = count; i < padded(count); i++) {
+            out.writeByte(0);
+        }
+
+        long[] offsets = new long[3 * count + 1];
+        long position = 0;
+        int field = 0;
+        for (Movie movie : movies) {
+            offsets[field++] = position;
+            position += writeString(out, movie.getTitle());
+            offsets[field++] = position;
+            position += writeString(out, movie.getDescription());
+            offsets[field++] = position;
+            position += writeString(out, movie.getGenre());
+        }
+        offsets[field] = position;
+        for (long offset : offsets) {
+            out.writeLong(offset);
+        }
+        out.flush();
+    }
+
+    private static int writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            return 0;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.write(bytes);
+        return bytes.length;
+    }
+
+    // Column positions in a file of the given format, shared with MappedCatalog
+
+    static long idsOffset() {
+        return HEADER_SIZE;
+    }
+
+    static long versionsOffset(int count) {
+        return idsOffset() + 8L * count;
+    }
+
+    static long yearsOffset(int format, int count) {
+        return versionsOffset(count) + (format >= 2 ? 8L * count : 0);
+    }
+
+    static long ratingsOffset(int format, int count) {
+        return yearsOffset(format, count) + 4L * count;
+    }
+
+    static long nullsOffset(int format, int count) {
+        return ratingsOffset(format, count) + 8L * count;
+    }
+
+    static long heapOffset(int format, int count) {
+        return nullsOffset(format, count) + padded(count);
+    }
+
+    private static long padded(int length) {
+        return (length + 7L) & ~7L;
+    }
+}
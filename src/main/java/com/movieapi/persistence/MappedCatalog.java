@@ -0,0 +1,226 @@
+package com.movieapi.persistence;
+
+import com.movieapi.model.Movie;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Read-only, memory-mapped view of a file in CatalogFormat.
+ * Opening maps the file and checks its structure in one pass over the ids
+ * and string offsets, so no row of a corrupt file is ever read. Movie
+ * objects are built one at a time, on demand, straight from the mapped
+ * columns.
+ */
+public final class MappedCatalog implements Iterable<Movie> {
+
+    // The most rows whose 3 * count + 1 string offsets fit one mapped buffer
+    private static final int MAX_COUNT = (Integer.MAX_VALUE / 8 - 1) / 3;
+
+    private final int count;
+    private final long nextId;
+    private final long marker;
+
+    private final ByteBuffer ids;
+    // Null in format 1 files, which have no versions
+    private final ByteBuffer versions;
+    private final ByteBuffer years;
+    private final ByteBuffer ratings;
+    private final ByteBuffer nulls;
+    private final ByteBuffer heap;
+    private final ByteBuffer offsets;
+
+    private MappedCatalog(int count, long nextId, long marker, ByteBuffer ids, ByteBuffer versions,
+                          ByteBuffer years, ByteBuffer ratings, ByteBuffer nulls, ByteBuffer heap,
+                          ByteBuffer offsets) {
+        this.count = count;
+        this.nextId = nextId;
+        this.marker = marker;
+        this.ids = ids;
+        this.versions = versions;
+        this.years = years;
+        this.ratings = ratings;
+        this.nulls = nulls;
+        this.heap = heap;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Maps a catalog file. The mapping stays valid after this returns and
+     * is released when the catalog is garbage collected.
+     * @param file The catalog file
+     * @return The mapped catalog
+     * @throws IOException if the file cannot be read or is not a valid catalog
+     */
+    public static MappedCatalog open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < CatalogFormat.HEADER_SIZE) {
+                throw new IOException("Not a movie catalog: " + file);
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, CatalogFormat.HEADER_SIZE);
+            if (header.getInt(0) != CatalogFormat.MAGIC) {
+                throw new IOException("Not a movie catalog: " + file);
+            }
+            int format = header.getInt(4);
+            if (format < CatalogFormat.FIRST_VERSION || format > CatalogFormat.VERSION) {
+                throw new IOException("Unsupported catalog version " + format + ": " + file);
+            }
+            int count = header.getInt(8);
+            if (count < 0) {
+                throw new IOException("Not a movie catalog: " + file);
+            }
+            // Every column, the string offsets included, must fit one mapping
+            if (count > MAX_COUNT) {
+                throw new IOException("Catalog of more than " + MAX_COUNT + " movies is not supported: " + file);
+            }
+            long offsetsStart = size - 8L * (3L * count + 1);
+            long heapStart = CatalogFormat.heapOffset(format, count);
+            if (offsetsStart < heapStart) {
+                throw new IOException("Truncated movie catalog: " + file);
+            }
+            if (offsetsStart - heapStart > Integer.MAX_VALUE) {
+                throw new IOException("Catalog string heap larger than 2 GB is not supported: " + file);
+            }
+            ByteBuffer ids = map(channel, CatalogFormat.idsOffset(), 8L * count);
+            ByteBuffer offsets = map(channel, offsetsStart, size - offsetsStart);
+            checkIds(ids, count, file);
+            checkOffsets(offsets, count, offsetsStart - heapStart, file);
+            return new MappedCatalog(count, header.getLong(16), header.getLong(24), ids,
+                    format >= 2 ? map(channel, CatalogFormat.versionsOffset(count), 8L * count) : null,
+                    map(channel, CatalogFormat.yearsOffset(format, count), 4L * count),
+                    map(channel, CatalogFormat.ratingsOffset(format, count), 8L * count),
+                    map(channel, CatalogFormat.nullsOffset(format, count), count),
+                    map(channel, heapStart, offsetsStart - heapStart),
+                    offsets);
+        }
+    }
+
+    // findById() and imports rely on ids being positive, unique and ascending
+    private static void checkIds(ByteBuffer ids, int count, Path file) throws IOException {
+        if (count > 0 && ids.getLong(0) <= 0) {
+            throw new IOException("Movie catalog ids must be positive: " + file);
+        }
+        for (int row = 1; row < count; row++) {
+            if (ids.getLong(row * 8) <= ids.getLong(row * 8 - 8)) {
+                throw new IOException("Movie catalog ids are not ascending at row " + row + ": " + file);
+            }
+        }
+    }
+
+    // Every string must lie within the heap, so string() never reads past it
+    private static void checkOffsets(ByteBuffer offsets, int count, long heapSize, Path file) throws IOException {
+        int fields = 3 * count;
+        if (offsets.getLong(0) != 0 || offsets.getLong(fields * 8) != heapSize) {
+            throw new IOException("Movie catalog string offsets do not span the heap: " + file);
+        }
+        for (int field = 1; field <= fields; field++) {
+            if (offsets.getLong(field * 8) < offsets.getLong(field * 8 - 8)) {
+                throw new IOException("Movie catalog string offsets go backwards at field " + field + ": " + file);
+            }
+        }
+    }
+
+    private static ByteBuffer map(FileChannel channel, long position, long length) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public long getNextId() {
+        return nextId;
+    }
+
+    public long getMarker() {
+        return marker;
+    }
+
+    public long idAt(int row) {
+        return ids.getLong(row * 8);
+    }
+
+    /**
+     * Materializes one row
+     * @param row Row number, 0 to size() - 1
+     * @return A new Movie holding the row's values, at version 0 if the
+     *         file has no versions
+     */
+    public Movie movieAt(int row) {
+        int year = years.getInt(row * 4);
+        double rating = ratings.getDouble(row * 8);
+        int nullFlags = nulls.get(row);
+        Movie movie = new Movie(idAt(row),
+                (nullFlags & CatalogFormat.TITLE_NULL) != 0 ? null : string(3 * row),
+                (nullFlags & CatalogFormat.DESCRIPTION_NULL) != 0 ? null : string(3 * row + 1),
+                (nullFlags & CatalogFormat.GENRE_NULL) != 0 ? null : string(3 * row + 2),
+                year != CatalogFormat.NULL_YEAR ? year : null,
+                Double.isNaN(rating) ? null : rating);
+        if (versions != null) {
+            movie.setVersion(versions.getLong(row * 8));
+        }
+        return movie;
+    }
+
+    /**
+     * Looks up a movie by binary search over the sorted id column
+     * @param id The id to find
+     * @return The materialized movie, or null if the catalog does not hold it
+     */
+    public Movie findById(long id) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midId = idAt(mid);
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return movieAt(mid);
+            }
+        }
+        return null;
+    }
+
+    private String string(int field) {
+        // The heap is capped at 2 GB and the offsets checked when opening,
+        // so they fit in an int and lie within the heap
+        int start = (int) offsets.getLong(field * 8);
+        int end = (int) offsets.getLong(field * 8 + 8);
+        byte[] bytes = new byte[end - start];
+        heap.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Iterates the rows in id order, materializing each as it is reached
+     */
+    @Override
+    public Iterator<Movie> iterator() {
+        return new Iterator<>() {
+            private int row;
+
+            @Override
+            public boolean hasNext() {
+                return row < count;
+            }
+
+            @Override
+            public Movie next() {
+                if (row >= count) {
+                    throw new NoSuchElementException();
+                }
+                return movieAt(row++);
+            }
+        };
+    }
+}
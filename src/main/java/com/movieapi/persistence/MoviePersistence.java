@@ -0,0 +1,252 @@
+package com.movieapi.persistence;
+
+import com.movieapi.model.Movie;
+import com.movieapi.model.MovieChange;
+import com.movieapi.service.MovieChangeListener;
+import com.movieapi.service.MovieService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional local persistence for MovieService (movie.persistence.enabled=true).
+ * Every mutation is appended to a write-ahead log before it is applied, and
+ * fsynced before the request returns; a background job periodically writes
+ * a full snapshot and drops the log segments it covers. On startup the
+ * snapshot is loaded and the remaining log is replayed on top of it.
+ *
+ * Log records carry their change's sequence number and the movie's
+ * version, and each segment starts with the highest number before it.
+ * Recovery puts every movie back at its version, so ETags stay valid, and
+ * records only the changes logged since the snapshot for delta sync, so a
+ * client synced to a version since then gets just what changed after it.
+ * The catalog version carries on above every number handed out before,
+ * persisted or not; a since from before the snapshot, a Last-Event-ID from
+ * before the restart, or a number that was never persisted asks for a
+ * resync instead of silently skipping changes.
+ *
+ * A change that cannot be appended is refused and changes nothing. After
+ * any I/O error the log may be incomplete or end in a torn record, so every
+ * later write is refused up front, before it changes anything, until the
+ * service is restarted. A failed fsync fails its own request, although that
+ * write is already visible and may be lost on restart.
+ */
+@Component
+@ConditionalOnProperty(prefix = "movie.persistence", name = "enabled", havingValue = "true")
+public class MoviePersistence implements MovieChangeListener {
+
+    private static final Logger log = LoggerFactory.getLogger(MoviePersistence.class);
+
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+
+    private final MovieService movieService;
+    private final Path directory;
+    private final Duration snapshotInterval;
+
+    // Log position of the last record appended by each writing thread
+    private final ThreadLocal<long[]> pendingPosition = ThreadLocal.withInitial(() -> new long[1]);
+
+    private ScheduledExecutorService scheduler;
+    private WriteAheadLog writeAheadLog;
+    private volatile IOException failure;
+
+    public MoviePersistence(MovieService movieService,
+                            @Value("${movie.persistence.directory:data}") String directory,
+                            @Value("${movie.persistence.snapshot-interval:5m}") Duration snapshotInterval) {
+        this.movieService = movieService;
+        this.directory = Paths.get(directory);
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    /**
+     * Recovers the catalog from disk, then starts logging and snapshotting
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        recover();
+        // Only now, so the recovered movies loaded above are not logged again
+        movieService.addChangeListener(this);
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "movie-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = snapshotInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                snapshot();
+            } catch (IOException | RuntimeException ex) {
+                log.error("Movie snapshot failed", ex);
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Takes a final snapshot so the next startup has no log to replay
+     */
+    @PreDestroy
+    public void stop() throws IOException {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        if (failure == null) {
+            snapshot();
+        }
+        writeAheadLog.close();
+    }
+
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        Path snapshotFile = directory.resolve(SNAPSHOT_FILE);
+        List<Long> segments = WriteAheadLog.segments(directory);
+
+        if (!Files.exists(snapshotFile) && segments.isEmpty()) {
+            // First start: persist whatever the service was seeded with
+            writeAheadLog = new WriteAheadLog(directory, 1, movieService.getCatalogVersion());
+            writeSnapshot(snapshotFile, 1);
+            log.info("Initialized movie data directory {}", directory.toAbsolutePath());
+            return;
+        }
+
+        long start = System.nanoTime();
+        Map<Long, Movie> movies = new LinkedHashMap<>();
+        long nextId = 1;
+        long firstSegment = 1;
+        if (Files.exists(snapshotFile)) {
+            SnapshotStore.Snapshot snapshot = SnapshotStore.read(snapshotFile);
+            movies = snapshot.movies();
+            nextId = snapshot.nextId();
+            firstSegment = snapshot.firstSegment();
+        }
+
+        Map<Long, Movie> state = movies;
+        // For delta sync: what the log adds to the snapshot, by sequence number
+        NavigableMap<Long, MovieChange> logged = new TreeMap<>();
+        long lastSegment = firstSegment - 1;
+        long horizon = 0;
+        long lastSequence = 0;
+        int replayed = 0;
+        for (long segment : segments) {
+            Path file = WriteAheadLog.segmentPath(directory, segment);
+            if (segment < firstSegment) {
+                // Already covered by the snapshot
+                Files.delete(file);
+                continue;
+            }
+            int[] count = new int[1];
+            WriteAheadLog.Replay replay = WriteAheadLog.replay(file, (change, sequence) -> {
+                if (change.getType() == MovieChange.Type.DELETED) {
+                    state.remove(change.getId());
+                } else {
+                    state.put(change.getId(), change.getMovie());
+                }
+                logged.put(sequence, change);
+                count[0]++;
+            });
+            if (lastSegment < firstSegment) {
+                // The snapshot holds every change up to this segment's checkpoint
+                horizon = replay.checkpoint();
+            }
+            replayed += count[0];
+            lastSegment = segment;
+            lastSequence = Math.max(lastSequence, replay.lastSequence());
+        }
+
+        // Versions carry on above the ones clients may hold from before
+        movieService.loadMovies(state.values(), nextId, horizon, logged, lastSequence);
+        // Never append to a segment that may have had a torn tail cut off
+        writeAheadLog = new WriteAheadLog(directory, lastSegment + 1, movieService.getCatalogVersion());
+        log.info("Recovered {} movies ({} log records) from {} in {} ms",
+                state.size(), replayed, directory.toAbsolutePath(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Writes a snapshot of the current catalog and deletes the log segments
+     * it makes redundant
+     */
+    public synchronized void snapshot() throws IOException {
+        // Changes are logged just before they are applied. Once the log has
+        // rotated and the writes already under way are applied, every record
+        // in the older segments is visible to the iteration below. Newer
+        // changes may also be seen; replaying them again at recovery is
+        // harmless.
+        long firstSegment = writeAheadLog.rotate();
+        movieService.awaitPendingWrites();
+        writeSnapshot(directory.resolve(SNAPSHOT_FILE), firstSegment);
+        for (long segment : WriteAheadLog.segments(directory)) {
+            if (segment < firstSegment) {
+                Files.deleteIfExists(WriteAheadLog.segmentPath(directory, segment));
+            }
+        }
+    }
+
+    // Writes straight from the current catalog version, without copying it
+    private void writeSnapshot(Path file, long firstSegment) throws IOException {
+        // Capture the id counter first so it is never behind the snapshot's ids
+        long nextId = movieService.getNextId();
+        SnapshotStore.write(file, movieService.snapshot(), nextId, firstSegment);
+    }
+
+    @Override
+    public void beforeChange(long sequence, MovieChange change) {
+        IOException failed = failure;
+        if (failed != null) {
+            throw unavailable(failed);
+        }
+        try {
+            pendingPosition.get()[0] = writeAheadLog.append(sequence, change);
+        } catch (IOException ex) {
+            fail(ex);
+            throw unavailable(ex);
+        }
+    }
+
+    @Override
+    public void afterWrite() {
+        long[] position = pendingPosition.get();
+        if (position[0] == 0) {
+            return;
+        }
+        try {
+            writeAheadLog.sync(position[0]);
+        } catch (IOException ex) {
+            fail(ex);
+            throw unavailable(ex);
+        } finally {
+            position[0] = 0;
+        }
+    }
+
+    // Refuses every later write; see the class comment
+    void fail(IOException ex) {
+        if (failure == null) {
+            log.error("Movie write-ahead log failed; refusing writes until restart", ex);
+        }
+        failure = ex;
+    }
+
+    private static UncheckedIOException unavailable(IOException cause) {
+        return new UncheckedIOException("Movie persistence is unavailable", cause);
+    }
+}
@@ -0,0 +1,63 @@
+package com.movieapi.persistence;
+
+import com.movieapi.model.Movie;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Row-oriented binary encoding of a Movie, used by write-ahead log records.
+ * Layout: id (long), title, description, genre (each an int byte length,
+ * -1 for null, followed by UTF-8 bytes), releaseYear (int, MIN_VALUE for
+ * null), rating (double, NaN for null).
+ */
+final class MovieRecordCodec {
+
+    private static final int NULL_YEAR = Integer.MIN_VALUE;
+
+    private MovieRecordCodec() {
+    }
+
+    static void write(DataOutput out, Movie movie) throws IOException {
+        out.writeLong(movie.getId());
+        writeString(out, movie.getTitle());
+        writeString(out, movie.getDescription());
+        writeString(out, movie.getGenre());
+        out.writeInt(movie.getReleaseYear() != null ? movie.getReleaseYear() : NULL_YEAR);
+        out.writeDouble(movie.getRating() != null ? movie.getRating() : Double.NaN);
+    }
+
+    static Movie read(ByteBuffer in) {
+        long id = in.getLong();
+        String title = readString(in);
+        String description = readString(in);
+        String genre = readString(in);
+        int year = in.getInt();
+        double rating = in.getDouble();
+        return new Movie(id, title, description, genre,
+                year != NULL_YEAR ? year : null,
+                Double.isNaN(rating) ? null : rating);
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,61 @@
+package com.movieapi.persistence;
+
+import com.movieapi.model.Movie;
+import com.movieapi.service.CatalogSnapshot;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads and writes full catalog snapshots in CatalogFormat.
+ * The format's marker field holds the first write-ahead log segment not
+ * covered by the snapshot. A snapshot is written to a temporary file, forced
+ * to disk and atomically renamed, so a crash never leaves a partial
+ * snapshot in place.
+ */
+public final class SnapshotStore {
+
+    private SnapshotStore() {
+    }
+
+    /**
+     * Contents of a snapshot file
+     */
+    public record Snapshot(Map<Long, Movie> movies, long nextId, long firstSegment) {
+    }
+
+    /**
+     * Writes a snapshot, replacing any existing one
+     * @param file The snapshot file
+     * @param catalog The catalog version to write
+     * @param nextId The next id to hand out
+     * @param firstSegment The first log segment to replay on top of it
+     */
+    public static void write(Path file, CatalogSnapshot catalog, long nextId, long firstSegment) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp.toFile())) {
+            CatalogFormat.write(out, catalog.size(), catalog.rows(), nextId, firstSegment);
+            out.getChannel().force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a snapshot through a memory mapping of the file
+     * @param file The snapshot file
+     * @return Its contents, movies in id order
+     */
+    public static Snapshot read(Path file) throws IOException {
+        MappedCatalog catalog = MappedCatalog.open(file);
+        Map<Long, Movie> movies = new LinkedHashMap<>(catalog.size() * 4 / 3 + 1);
+        for (Movie movie : catalog) {
+            movies.put(movie.getId(), movie);
+        }
+        return new Snapshot(movies, catalog.getNextId(), catalog.getMarker());
+    }
+}
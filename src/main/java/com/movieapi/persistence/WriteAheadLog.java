@@ -0,0 +1,326 @@
+package com.movieapi.persistence;
+
+import com.movieapi.model.Movie;
+import com.movieapi.model.MovieChange;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ObjLongConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary log of catalog mutations, split into numbered segment
+ * files (wal-000001.log, wal-000002.log, ...).
+ * Each record is: payload length (int), CRC32 of the payload (int), payload.
+ * The payload is the change type (byte), the change's sequence number
+ * (long), then either the movie's version (long) and the full movie
+ * (CREATED, UPDATED) or just its id (DELETED).
+ *
+ * Every segment starts with a checkpoint record (type -1, no body) holding
+ * the highest sequence number logged before it, so the sequence numbers a
+ * run has handed out can be recovered even once older segments are gone.
+ *
+ * Appends only write to the OS; durability comes from sync(), which uses
+ * group commit: one fsync covers every record appended before it started,
+ * so concurrent writers waiting on the same fsync share its cost.
+ */
+public class WriteAheadLog implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    // Replay reads through a buffer of this size; a larger record gets a
+    // buffer of its own
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    // Record type of the checkpoint that starts every segment
+    private static final int CHECKPOINT = -1;
+
+    /**
+     * What replaying a segment found
+     * @param checkpoint The highest sequence number logged before the
+     *                   segment, or 0 if not even its checkpoint is intact
+     * @param lastSequence The highest sequence number logged up to the
+     *                     end of the segment, or 0 likewise
+     */
+    public record Replay(long checkpoint, long lastSequence) {
+    }
+
+    private final Path directory;
+
+    // Guarded by appendLock. Both locks are ReentrantLocks rather than
+    // monitors so virtual threads waiting on a write or fsync do not pin
+    // their carrier thread.
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private FileChannel channel;
+    private long segment;
+    private long appendedPosition;
+    private long lastSequence;
+
+    // Serializes fsyncs; lock order is syncLock, then appendLock
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private volatile long durablePosition;
+
+    /**
+     * Opens a new, empty segment for appending
+     * @param directory The directory holding the segments
+     * @param segment The number of the segment to start
+     * @param lastSequence The highest sequence number handed out so far
+     */
+    public WriteAheadLog(Path directory, long segment, long lastSequence) throws IOException {
+        this.directory = directory;
+        this.segment = segment;
+        this.lastSequence = lastSequence;
+        openSegment(segment);
+    }
+
+    /**
+     * Appends a change to the current segment
+     * @param sequence The change's sequence number
+     * @param change The change to log
+     * @return The logical log position after this record, for sync()
+     */
+    public long append(long sequence, MovieChange change) throws IOException {
+        ByteBuffer record = encode(change.getType().ordinal(), sequence, change);
+        appendLock.lock();
+        try {
+            write(record);
+            lastSequence = Math.max(lastSequence, sequence);
+            return appendedPosition;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    // Guarded by appendLock
+    private void write(ByteBuffer record) throws IOException {
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+        appendedPosition += record.limit();
+    }
+
+    /**
+     * Blocks until every record up to the given position is on disk
+     * @param position A position returned by append()
+     */
+    public void sync(long position) throws IOException {
+        if (durablePosition >= position) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            // Whoever held the lock before us may already have covered us
+            if (durablePosition >= position) {
+                return;
+            }
+            long target;
+            FileChannel current;
+            appendLock.lock();
+            try {
+                target = appendedPosition;
+                current = channel;
+            } finally {
+                appendLock.unlock();
+            }
+            current.force(false);
+            durablePosition = target;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Makes the current segment durable and starts the next one, with a
+     * checkpoint of the highest sequence number appended so far.
+     * Every change appended before this call is in an older segment.
+     * @return The number of the new segment
+     */
+    public long rotate() throws IOException {
+        syncLock.lock();
+        appendLock.lock();
+        try {
+            channel.force(false);
+            channel.close();
+            segment++;
+            openSegment(segment);
+            durablePosition = appendedPosition;
+            return segment;
+        } finally {
+            appendLock.unlock();
+            syncLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        syncLock.lock();
+        appendLock.lock();
+        try {
+            channel.force(false);
+            channel.close();
+        } finally {
+            appendLock.unlock();
+            syncLock.unlock();
+        }
+    }
+
+    // Starts appending to a new segment, beginning with a durable
+    // checkpoint; guarded by appendLock except in the constructor
+    private void openSegment(long number) throws IOException {
+        channel = FileChannel.open(segmentPath(directory, number),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        write(encode(CHECKPOINT, lastSequence, null));
+        channel.force(false);
+    }
+
+    // A change record, or a checkpoint when change is null
+    private static ByteBuffer encode(int type, long sequence, MovieChange change) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0); // length, filled in below
+        out.writeInt(0); // checksum, filled in below
+        out.writeByte(type);
+        out.writeLong(sequence);
+        if (change == null) {
+            // checkpoint, no body
+        } else if (change.getType() == MovieChange.Type.DELETED) {
+            out.writeLong(change.getId());
+        } else {
+            out.writeLong(change.getMovie().getVersion());
+            MovieRecordCodec.write(out, change.getMovie());
+        }
+        ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+        int payloadLength = record.limit() - 8;
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 8, payloadLength);
+        record.putInt(0, payloadLength);
+        record.putInt(4, (int) crc.getValue());
+        return record;
+    }
+
+    /**
+     * Reads every intact record of a segment in order. A torn or corrupt
+     * tail (e.g. from a crash mid-write) ends the replay and is cut off.
+     * The segment is streamed through a small buffer, so its size does not
+     * bound what can be replayed.
+     * @param file The segment to read
+     * @param consumer Receives each change, in log order, with its sequence
+     *                 number; DELETED changes carry no movie, the others
+     *                 carry the movie at its logged version
+     * @return The segment's checkpoint and highest sequence number
+     */
+    public static Replay replay(Path file, ObjLongConsumer<MovieChange> consumer) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = in.size();
+            ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE).flip();
+            // Offset just past the last intact record
+            long validEnd = 0;
+            long checkpoint = 0;
+            long lastSequence = 0;
+            CRC32 crc = new CRC32();
+            while (fill(in, buffer, 8)) {
+                int length = buffer.getInt(buffer.position());
+                int checksum = buffer.getInt(buffer.position() + 4);
+                if (length <= 0 || length > size - validEnd - 8) {
+                    break;
+                }
+                if (8 + length > buffer.capacity()) {
+                    buffer = ByteBuffer.allocate(8 + length).put(buffer).flip();
+                }
+                if (!fill(in, buffer, 8 + length)) {
+                    break;
+                }
+                int start = buffer.position() + 8;
+                crc.reset();
+                crc.update(buffer.array(), start, length);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                ByteBuffer payload = buffer.slice(start, length);
+                buffer.position(start + length);
+                try {
+                    int type = payload.get();
+                    long sequence = payload.getLong();
+                    if (type != CHECKPOINT) {
+                        consumer.accept(decode(type, payload), sequence);
+                    } else if (validEnd == 0) {
+                        checkpoint = sequence;
+                    }
+                    lastSequence = Math.max(lastSequence, sequence);
+                } catch (BufferUnderflowException | IllegalArgumentException ex) {
+                    break;
+                }
+                validEnd += 8 + length;
+            }
+            if (validEnd < size) {
+                in.truncate(validEnd);
+            }
+            return new Replay(checkpoint, lastSequence);
+        }
+    }
+
+    // Makes at least count bytes, no more than the buffer's capacity,
+    // readable from the buffer, reading on through the file as needed;
+    // false if the file ends first
+    private static boolean fill(FileChannel in, ByteBuffer buffer, int count) throws IOException {
+        if (buffer.remaining() >= count) {
+            return true;
+        }
+        buffer.compact();
+        try {
+            while (buffer.position() < count) {
+                if (in.read(buffer) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            buffer.flip();
+        }
+    }
+
+    private static MovieChange decode(int typeOrdinal, ByteBuffer payload) {
+        MovieChange.Type[] types = MovieChange.Type.values();
+        if (typeOrdinal < 0 || typeOrdinal >= types.length) {
+            throw new IllegalArgumentException("Unknown change type " + typeOrdinal);
+        }
+        MovieChange.Type type = types[typeOrdinal];
+        if (type == MovieChange.Type.DELETED) {
+            return new MovieChange(type, payload.getLong(), null);
+        }
+        long version = payload.getLong();
+        Movie movie = MovieRecordCodec.read(payload);
+        movie.setVersion(version);
+        return new MovieChange(type, movie.getId(), movie);
+    }
+
+    /**
+     * Lists the segment numbers present in a directory, ascending
+     */
+    public static List<Long> segments(Path directory) throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> numbers.add(Long.parseLong(
+                            name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()))));
+        }
+        numbers.sort(null);
+        return numbers;
+    }
+
+    public static Path segmentPath(Path directory, long number) {
+        return directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+}
@@ -0,0 +1,114 @@
+package com.movieapi.replication;
+
+import com.movieapi.exception.ErrorBodies;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Makes a follower read-only and lets clients read their own writes.
+ * Writes to /api/movies are redirected to the leader with 307, which
+ * keeps the method and body. A read carrying Min-Catalog-Version (the
+ * Catalog-Version a write to the leader returned) waits until this
+ * follower has applied that version, up to movie.replication.max-read-wait,
+ * and gets 503 with Retry-After if it has not. Every answer carries
+ * Replicated-Catalog-Version, the leader version this catalog is at.
+ *
+ * Runs after the rate limits, so redirected writes are charged here too,
+ * and before the concurrency limits, so waiting for a version does not
+ * hold a permit.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 92)
+@ConditionalOnProperty(name = "movie.replication.role", havingValue = "follower")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ReplicaFilter extends OncePerRequestFilter {
+
+    /**
+     * Request header: the leader version a read must reflect
+     */
+    public static final String MIN_CATALOG_VERSION = "Min-Catalog-Version";
+
+    /**
+     * Response header: the leader version this follower has applied
+     */
+    public static final String REPLICATED_CATALOG_VERSION = "Replicated-Catalog-Version";
+
+    private static final String API_PATH = "/api/movies";
+
+    private final ReplicaFollower follower;
+    private final ErrorBodies errorBodies;
+    private final String leader;
+    private final Duration maxReadWait;
+
+    public ReplicaFilter(ReplicaFollower follower, ErrorBodies errorBodies,
+                         @Value("${movie.replication.leader}") String leader,
+                         @Value("${movie.replication.max-read-wait:1s}") Duration maxReadWait) {
+        String trimmed = leader.trim();
+        this.follower = follower;
+        this.errorBodies = errorBodies;
+        this.leader = trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+        this.maxReadWait = maxReadWait;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return !path.equals(API_PATH) && !path.startsWith(API_PATH + "/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method) && !"OPTIONS".equals(method)) {
+            String query = request.getQueryString();
+            response.setStatus(HttpStatus.TEMPORARY_REDIRECT.value());
+            response.setHeader(HttpHeaders.LOCATION,
+                    leader + request.getRequestURI() + (query != null ? "?" + query : ""));
+            return;
+        }
+
+        String minVersion = request.getHeader(MIN_CATALOG_VERSION);
+        if (minVersion != null) {
+            long version;
+            try {
+                version = Long.parseLong(minVersion.trim());
+            } catch (NumberFormatException ex) {
+                send(response, errorBodies.validationFailed(null,
+                        MIN_CATALOG_VERSION + " must be a catalog version", request.getRequestURI()));
+                return;
+            }
+            if (!follower.awaitVersion(version, maxReadWait)) {
+                response.setHeader(REPLICATED_CATALOG_VERSION, Long.toString(follower.getAppliedVersion()));
+                response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                send(response, errorBodies.serviceUnavailable(
+                        "Replica has not caught up with catalog version " + version + " yet", request.getRequestURI()));
+                return;
+            }
+        }
+        response.setHeader(REPLICATED_CATALOG_VERSION, Long.toString(follower.getAppliedVersion()));
+        chain.doFilter(request, response);
+    }
+
+    private static void send(HttpServletResponse response, ResponseEntity<byte[]> error) throws IOException {
+        response.setStatus(error.getStatusCode().value());
+        response.setContentType(String.valueOf(error.getHeaders().getContentType()));
+        response.setContentLength(error.getBody().length);
+        response.getOutputStream().write(error.getBody());
+    }
+}
@@ -0,0 +1,346 @@
+package com.movieapi.replication;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.movieapi.model.MovieChange;
+import com.movieapi.model.ReplicationFrame;
+import com.movieapi.persistence.MappedCatalog;
+import com.movieapi.service.MovieService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The follower's side of replication (movie.replication.role=follower).
+ * A background thread loads the leader's snapshot into the local
+ * MovieService, then tails the leader's log and applies each frame of
+ * changes as it arrives, so reads served here trail the leader by about
+ * the batch delay. On a resync frame it reloads the snapshot; when the
+ * connection drops, or no frame (not even a heartbeat) arrives for three
+ * heartbeat intervals, it reconnects from the last version it applied.
+ *
+ * Applied versions are the leader's, so a client that wrote to the leader
+ * can wait here for the Catalog-Version its write returned. Movies keep
+ * the leader's versions and this catalog takes the leader's epoch, so an
+ * ETag read here is valid in an If-Match sent to the leader; a frame from
+ * another epoch (the leader restarted) makes it reload the snapshot.
+ */
+@Component
+@ConditionalOnProperty(name = "movie.replication.role", havingValue = "follower")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ReplicaFollower {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaFollower.class);
+
+    // Applied version before the first snapshot is loaded
+    private static final long NONE = -1;
+
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(1);
+
+    private final MovieService movieService;
+    private final String leader;
+    private final Duration heartbeat;
+    private final ObjectReader frameReader;
+    private final HttpClient httpClient;
+
+    private final Counter frames;
+    private final Counter changes;
+    private final Counter snapshots;
+
+    // Guards appliedVersion and leaderVersion changes; waiters for a version wait on it
+    private final Object progress = new Object();
+    private volatile long appliedVersion = NONE;
+    private volatile long leaderVersion = NONE;
+    private volatile long caughtUpAt = System.nanoTime();
+
+    private volatile boolean running;
+    // Whether the follower thread is blocked reading the log
+    private volatile boolean streaming;
+    private volatile long lastFrameAt;
+    private Thread thread;
+    private ScheduledExecutorService watchdog;
+
+    public ReplicaFollower(MovieService movieService, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                           @Value("${movie.replication.leader}") String leader,
+                           @Value("${movie.replication.heartbeat:5s}") Duration heartbeat) {
+        String trimmed = leader.trim();
+        this.movieService = movieService;
+        this.leader = trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+        this.heartbeat = heartbeat;
+        this.frameReader = objectMapper.readerFor(ReplicationFrame.class);
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(RETRY_DELAY.multipliedBy(2))
+                .build();
+
+        Gauge.builder("movie.replication.lag", this, ReplicaFollower::getLag)
+                .description("Leader changes not yet applied by this follower")
+                .baseUnit("changes").register(meterRegistry);
+        Gauge.builder("movie.replication.lag.seconds", this, ReplicaFollower::getLagSeconds)
+                .description("Time since this follower was last caught up with the leader")
+                .baseUnit("seconds").register(meterRegistry);
+        this.frames = Counter.builder("movie.replication.frames")
+                .description("Replication frames received, heartbeats included")
+                .register(meterRegistry);
+        this.changes = Counter.builder("movie.replication.changes")
+                .description("Leader changes applied")
+                .register(meterRegistry);
+        this.snapshots = Counter.builder("movie.replication.snapshots")
+                .description("Snapshots loaded from the leader")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts following the leader in the background
+     */
+    @PostConstruct
+    public void start() {
+        running = true;
+        thread = new Thread(this::run, "movie-replica");
+        thread.setDaemon(true);
+        thread.start();
+
+        watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread watchdogThread = new Thread(runnable, "movie-replica-watchdog");
+            watchdogThread.setDaemon(true);
+            return watchdogThread;
+        });
+        long period = heartbeat.toMillis();
+        watchdog.scheduleWithFixedDelay(() -> {
+            // A silent leader or network: reading the log blocks forever
+            // unless the reader is interrupted
+            if (streaming && System.nanoTime() - lastFrameAt > 3 * heartbeat.toNanos()) {
+                log.warn("No frame from leader {} for {}; reconnecting", leader, heartbeat.multipliedBy(3));
+                thread.interrupt();
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops following the leader
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        watchdog.shutdownNow();
+        thread.interrupt();
+        thread.join(RETRY_DELAY.toMillis());
+    }
+
+    /**
+     * @return The leader version this catalog is at, or -1 before the
+     *         first snapshot has been loaded
+     */
+    public long getAppliedVersion() {
+        return appliedVersion;
+    }
+
+    /**
+     * @return How many leader changes, as last reported by the leader,
+     *         are not applied here yet; 0 while no snapshot is loaded,
+     *         when only getLagSeconds tells how far behind this catalog is
+     */
+    public long getLag() {
+        long applied = appliedVersion;
+        return applied == NONE ? 0 : Math.max(0, leaderVersion - applied);
+    }
+
+    /**
+     * @return Seconds since this follower was last caught up, 0 if it is
+     */
+    public double getLagSeconds() {
+        if (appliedVersion != NONE && getLag() == 0) {
+            return 0;
+        }
+        return (System.nanoTime() - caughtUpAt) / 1e9;
+    }
+
+    /**
+     * Waits until this catalog has applied a leader version, e.g. one a
+     * write to the leader returned, so a read here sees that write
+     * @param version The leader version
+     * @param timeout How long to wait at most
+     * @return Whether the version was applied in time
+     */
+    public boolean awaitVersion(long version, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (progress) {
+            while (appliedVersion < version) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(progress, remaining);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                if (appliedVersion == NONE) {
+                    catchUp();
+                }
+                follow();
+                continue;
+            } catch (IOException | RuntimeException ex) {
+                if (running) {
+                    log.warn("Replication from leader {} failed: {}", leader, ex.toString());
+                }
+            } catch (InterruptedException ex) {
+                // Stopping, or the watchdog gave up on the connection
+            }
+            Thread.interrupted();
+            try {
+                Thread.sleep(RETRY_DELAY.toMillis());
+            } catch (InterruptedException ex) {
+                // Stopping
+            }
+        }
+    }
+
+    // Replaces the catalog with the leader's snapshot
+    private void catchUp() throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = send(ReplicationController.PATH + "/snapshot");
+        String epoch = response.headers().firstValue(ReplicationController.CATALOG_EPOCH).orElse(null);
+        if (epoch == null) {
+            response.body().close();
+            throw new IOException("Leader sent a snapshot without " + ReplicationController.CATALOG_EPOCH);
+        }
+        // The body is spooled to a file so it can be memory-mapped
+        Path file = Files.createTempFile("movies-replica", ".catalog");
+        try {
+            try (InputStream in = response.body()) {
+                Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            MappedCatalog catalog = MappedCatalog.open(file);
+            int deleted = movieService.replaceCatalog(catalog.iterator(), catalog.getNextId());
+            // Only once every movie is at the leader's version
+            movieService.setEpoch(epoch);
+            snapshots.increment();
+            advance(catalog.getMarker(), catalog.getMarker());
+            log.info("Loaded snapshot of {} movies at version {} from leader {}, dropped {} local movies",
+                    catalog.size(), catalog.getMarker(), leader, deleted);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // Tails the log until it ends, fails, or asks for a resync
+    private void follow() throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = send(ReplicationController.PATH + "/log?after=" + appliedVersion);
+        lastFrameAt = System.nanoTime();
+        try (InputStream in = response.body();
+             MappingIterator<ReplicationFrame> lines = frameReader.readValues(in)) {
+            ReplicationFrame frame;
+            while (running && (frame = next(lines)) != null) {
+                frames.increment();
+                if (frame.isResync()) {
+                    log.info("Leader {} no longer has the changes after version {}; reloading", leader, appliedVersion);
+                    reload();
+                    return;
+                }
+                if (!movieService.getEpoch().equals(frame.getEpoch())) {
+                    log.info("Leader {} is at epoch {}, this catalog at {}; reloading",
+                            leader, frame.getEpoch(), movieService.getEpoch());
+                    reload();
+                    return;
+                }
+                apply(frame);
+            }
+        }
+    }
+
+    // Makes run() load a snapshot before following the log again
+    private void reload() {
+        synchronized (progress) {
+            appliedVersion = NONE;
+        }
+    }
+
+    // The next frame, or null at the end of the log. Only a thread blocked
+    // here may be interrupted by the watchdog: interrupting a write could
+    // close the files of MoviePersistence.
+    private ReplicationFrame next(MappingIterator<ReplicationFrame> lines) throws IOException {
+        streaming = true;
+        try {
+            return lines.hasNextValue() ? lines.nextValue() : null;
+        } finally {
+            streaming = false;
+            lastFrameAt = System.nanoTime();
+            // An interrupt that came too late to stop the read is dropped
+            Thread.interrupted();
+        }
+    }
+
+    private void apply(ReplicationFrame frame) {
+        long last = appliedVersion;
+        List<MovieChange> batch = new ArrayList<>(frame.getChanges().size());
+        for (ReplicationFrame.Entry entry : frame.getChanges()) {
+            // Already in the snapshot, or sent again after a reconnect
+            if (entry.getSequence() > last) {
+                batch.add(entry.toChange());
+                last = entry.getSequence();
+            }
+        }
+        if (!batch.isEmpty()) {
+            movieService.applyChanges(batch);
+            changes.increment(batch.size());
+        }
+        advance(last, frame.getLeaderVersion());
+    }
+
+    private void advance(long applied, long latest) {
+        synchronized (progress) {
+            appliedVersion = applied;
+            leaderVersion = Math.max(leaderVersion, latest);
+            if (applied >= leaderVersion) {
+                caughtUpAt = System.nanoTime();
+            }
+            progress.notifyAll();
+        }
+    }
+
+    private HttpResponse<InputStream> send(String pathAndQuery) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(leader + pathAndQuery))
+                .timeout(heartbeat.multipliedBy(3))
+                .build();
+        HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() != 200) {
+            response.body().close();
+            throw new IOException("Leader answered " + pathAndQuery + " with " + response.statusCode());
+        }
+        return response;
+    }
+}
@@ -0,0 +1,145 @@
+package com.movieapi.replication;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movieapi.controller.MovieController;
+import com.movieapi.controller.NdjsonWriter;
+import com.movieapi.model.ReplicationFrame;
+import com.movieapi.persistence.CatalogFormat;
+import com.movieapi.service.CatalogSnapshot;
+import com.movieapi.service.ChangeFeed;
+import com.movieapi.service.MovieService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * The leader's side of replication (movie.replication.role=leader): a
+ * snapshot of the catalog for followers to start from, and the log of
+ * every change after a version, which followers tail to stay current.
+ *
+ * Versions are the leader's catalog versions, i.e. change feed sequence
+ * numbers: the snapshot is tagged with the version it was read at, and a
+ * follower asks for the log after the last version it applied. Both
+ * carry the leader's epoch, which followers serve their movie versions
+ * under, so an ETag read from a follower matches on the leader.
+ */
+@RestController
+@RequestMapping(ReplicationController.PATH)
+@ConditionalOnProperty(name = "movie.replication.role", havingValue = "leader")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ReplicationController {
+
+    static final String PATH = "/replication";
+
+    // Snapshot response header: the epoch of the movie versions in it
+    static final String CATALOG_EPOCH = "Catalog-Epoch";
+
+    private final MovieService movieService;
+    private final int batchSize;
+    private final Duration batchDelay;
+    private final Duration heartbeat;
+
+    // Frames as newline-delimited JSON, flushed one by one
+    private final NdjsonWriter<ReplicationFrame> frameWriter;
+
+    // Followers currently tailing the log
+    private final AtomicInteger followers = new AtomicInteger();
+
+    public ReplicationController(MovieService movieService, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                 @Value("${movie.replication.batch-size:256}") int batchSize,
+                                 @Value("${movie.replication.batch-delay:5ms}") Duration batchDelay,
+                                 @Value("${movie.replication.heartbeat:5s}") Duration heartbeat) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("movie.replication.batch-size must be at least 1");
+        }
+        this.movieService = movieService;
+        this.batchSize = batchSize;
+        this.batchDelay = batchDelay;
+        this.heartbeat = heartbeat;
+        this.frameWriter = new NdjsonWriter<>(objectMapper, ReplicationFrame.class);
+        Gauge.builder("movie.replication.followers", followers, AtomicInteger::get)
+                .description("Followers tailing the replication log")
+                .register(meterRegistry);
+    }
+
+    // The whole catalog in the binary catalog format; its marker is the
+    // version it was read at, which the follower then tails the log from.
+    // Movies keep their versions; the epoch they count in is a header.
+    @GetMapping(value = "/snapshot", produces = CatalogFormat.CONTENT_TYPE)
+    public ResponseEntity<StreamingResponseBody> snapshot() {
+        // Capture the id counter first so it is never behind the snapshot's ids
+        long nextId = movieService.getNextId();
+        String epoch = movieService.getEpoch();
+        CatalogSnapshot snapshot = movieService.snapshot();
+        StreamingResponseBody body = outputStream ->
+                CatalogFormat.write(outputStream, snapshot.size(), snapshot.rows(), nextId, snapshot.getVersion());
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(CatalogFormat.CONTENT_TYPE))
+                .header(MovieController.CATALOG_VERSION, Long.toString(snapshot.getVersion()))
+                .header(CATALOG_EPOCH, epoch)
+                .body(body);
+    }
+
+    // Every change after a version as newline-delimited frames, batched by
+    // count and time, with heartbeats while idle; endless until the
+    // follower disconnects or the async request times out
+    @GetMapping(value = "/log", produces = MovieController.NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> log(@RequestParam long after) {
+        ChangeFeed changeFeed = movieService.getChangeFeed();
+        // Fair backpressure: a slow follower holds batches back instead of
+        // failing the stream, and falls behind until the feed resyncs it
+        Flux<ReplicationFrame> changes = changeFeed.subscribe(after)
+                .bufferTimeout(batchSize, batchDelay, true)
+                .map(this::frame);
+        Flux<ReplicationFrame> heartbeats = Flux.interval(heartbeat)
+                .onBackpressureDrop()
+                .map(tick -> new ReplicationFrame(movieService.getEpoch(), movieService.getCatalogVersion(),
+                        false, List.of()));
+        Flux<ReplicationFrame> frames = Flux.merge(changes, heartbeats);
+
+        StreamingResponseBody body = outputStream -> {
+            followers.incrementAndGet();
+            // Closing the stream cancels the subscription to the feed
+            try (Stream<ReplicationFrame> stream = frames.toStream(1)) {
+                frameWriter.write(stream.iterator(), outputStream, true);
+            } catch (IOException ex) {
+                // The follower disconnected, which is how the log normally ends
+            } finally {
+                followers.decrementAndGet();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(MovieController.NDJSON_VALUE)).body(body);
+    }
+
+    private ReplicationFrame frame(List<ChangeFeed.Event> events) {
+        List<ReplicationFrame.Entry> entries = new ArrayList<>(events.size());
+        long last = 0;
+        for (ChangeFeed.Event event : events) {
+            if (event.isResync()) {
+                // The follower reloads a snapshot; the rest of the batch is in it
+                return new ReplicationFrame(movieService.getEpoch(), movieService.getCatalogVersion(), true, List.of());
+            }
+            entries.add(new ReplicationFrame.Entry(event.sequence(), event.change()));
+            last = event.sequence();
+        }
+        return new ReplicationFrame(movieService.getEpoch(), Math.max(last, movieService.getCatalogVersion()),
+                false, entries);
+    }
+}
@@ -0,0 +1,318 @@
+package com.movieapi.service;
+
+import com.movieapi.model.Movie;
+import com.movieapi.model.MovieFilter;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * One immutable version of the catalog: every movie by id, plus indexes
+ * on genre, release year and rating, all held in LongTries. MovieService
+ * derives a new snapshot from the previous one on every write, as it
+ * applies changes in sequence order, and publishes it with a single
+ * volatile write. The snapshot's version is that change's sequence number, the same
+ * number the change feed and delta sync use.
+ *
+ * A reader takes the current snapshot once and can then list, filter and
+ * page through it for as long as it likes: no locks, no copying, and never
+ * half of a concurrent write. A writer copies O(log n) trie nodes per index
+ * it touches; everything else is shared with the previous version.
+ *
+ * Each index maps a key (genre code, year, rating in hundredths) to an
+ * id-ordered trie of the movies with that key, so a filtered listing walks
+ * only candidates and comes out in id order; a range merges the tries of
+ * the keys inside it.
+ *
+ * When movies are held in columns, keeping Movie objects alive here would
+ * undo the saving, so the tries record only which movies exist and fields
+ * are read from the store as each movie is listed. The set of movies is
+ * still the snapshot's, but one updated since may show its newer fields.
+ */
+public final class CatalogSnapshot {
+
+    // Value in the tries when movies are read from the store
+    private static final Object PRESENT = Boolean.TRUE;
+
+    // Index key of a movie without the indexed field
+    private static final long NO_KEY = -1;
+
+    private final long version;
+    private final LongTrie<Object> movies;
+    private final LongTrie<LongTrie<Object>> byGenre;
+    private final LongTrie<LongTrie<Object>> byYear;
+    private final LongTrie<LongTrie<Object>> byRating;
+    private final Catalog catalog;
+
+    private CatalogSnapshot(long version, LongTrie<Object> movies, LongTrie<LongTrie<Object>> byGenre,
+                            LongTrie<LongTrie<Object>> byYear, LongTrie<LongTrie<Object>> byRating, Catalog catalog) {
+        this.version = version;
+        this.movies = movies;
+        this.byGenre = byGenre;
+        this.byYear = byYear;
+        this.byRating = byRating;
+        this.catalog = catalog;
+    }
+
+    /**
+     * @param version Version of the empty catalog
+     * @param store Where to read movies from, or null to keep Movie objects
+     *              in the snapshot itself
+     * @return A snapshot with no movies
+     */
+    static CatalogSnapshot empty(long version, LongFunction<Movie> store) {
+        return new CatalogSnapshot(version, LongTrie.empty(), LongTrie.empty(), LongTrie.empty(), LongTrie.empty(),
+                new Catalog(store));
+    }
+
+    /**
+     * Derives the next version. Callers must serialize calls, and apply
+     * every change of one movie in order.
+     * @param version Version of the new snapshot
+     * @param previous The movie as this snapshot has it, or null if added
+     * @param current The movie as it now is, or null if deleted
+     * @return The new snapshot; this one is unchanged
+     */
+    CatalogSnapshot apply(long version, Movie previous, Movie current) {
+        long id = (current != null ? current : previous).getId();
+        Object value = current == null ? null : catalog.store != null ? PRESENT : current;
+        return new CatalogSnapshot(version,
+                value != null ? movies.put(id, value) : movies.remove(id),
+                reindex(byGenre, genreKey(previous), genreKey(current), id, value),
+                reindex(byYear, yearKey(previous), yearKey(current), id, value),
+                reindex(byRating, ratingKey(previous), ratingKey(current), id, value),
+                catalog);
+    }
+
+    /**
+     * @param version Another version
+     * @return The same catalog under that version, e.g. when numbering
+     *         resumes from an earlier run's
+     */
+    CatalogSnapshot atVersion(long version) {
+        return new CatalogSnapshot(version, movies, byGenre, byYear, byRating, catalog);
+    }
+
+    /**
+     * @return The version of the catalog this snapshot shows
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return The number of movies in this snapshot
+     */
+    public int size() {
+        return movies.size();
+    }
+
+    /**
+     * Lazily walks the movies matching a filter in id order. The most
+     * selective index available drives the walk: genre first, then year
+     * range, then rating range; other criteria are checked per movie.
+     * @param filter The criteria to match
+     * @param afterId Only return movies with a greater id, or null for all
+     * @return A sequential stream of matching movies
+     */
+    Stream<Movie> movies(MovieFilter filter, Long afterId) {
+        if (afterId != null && afterId == Long.MAX_VALUE) {
+            return Stream.empty();
+        }
+        long from = afterId != null ? afterId + 1 : 0;
+        return StreamSupport.stream(new MovieSpliterator(candidates(filter, from), filter), false);
+    }
+
+    /**
+     * Every movie of this snapshot in id order, exactly size() of them, for
+     * writers that go over the catalog several times (see CatalogFormat).
+     * When movies are read from the store, one deleted since comes back with
+     * only its id set, so that every pass still yields the same rows; it
+     * fails validation and so is skipped on import.
+     * @return The movies; each iterator() walks them again from the start
+     */
+    public Iterable<Movie> rows() {
+        return () -> new Iterator<>() {
+            private final LongTrie.Cursor<Object> cursor = movies.cursor(0);
+            private boolean advanced;
+            private boolean present;
+
+            @Override
+            public boolean hasNext() {
+                if (!advanced) {
+                    present = cursor.next();
+                    advanced = true;
+                }
+                return present;
+            }
+
+            @Override
+            public Movie next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                advanced = false;
+                if (cursor.value() instanceof Movie held) {
+                    return held;
+                }
+                Movie movie = catalog.store.apply(cursor.key());
+                return movie != null ? movie : new Movie(cursor.key(), null, null, null, null, null);
+            }
+        };
+    }
+
+    private LongTrie.Cursor<Object> candidates(MovieFilter filter, long from) {
+        if (filter.isEmpty()) {
+            return movies.cursor(from);
+        }
+        if (filter.getGenreKey() != null) {
+            Integer code = catalog.genreCodes.get(filter.getGenreKey());
+            LongTrie<Object> ids = code != null ? byGenre.get(code) : null;
+            return (ids != null ? ids : LongTrie.empty()).cursor(from);
+        }
+        if (filter.hasYearRange()) {
+            return union(byYear,
+                    filter.getMinYear() != null ? yearKey(filter.getMinYear()) : 0,
+                    filter.getMaxYear() != null ? yearKey(filter.getMaxYear()) : Long.MAX_VALUE,
+                    from);
+        }
+        return union(byRating,
+                filter.getMinRating() != null ? ratingKey(filter.getMinRating()) : 0,
+                filter.getMaxRating() != null ? ratingKey(filter.getMaxRating()) : Long.MAX_VALUE,
+                from);
+    }
+
+    // Merges the id tries of every index key in [low, high]
+    private static LongTrie.Cursor<Object> union(LongTrie<LongTrie<Object>> index, long low, long high, long from) {
+        List<LongTrie.Cursor<Object>> cursors = new ArrayList<>();
+        LongTrie.Cursor<LongTrie<Object>> keys = index.cursor(low);
+        while (keys.next() && keys.key() <= high) {
+            cursors.add(keys.value().cursor(from));
+        }
+        return cursors.isEmpty() ? LongTrie.empty().cursor(from) : LongTrie.merge(cursors);
+    }
+
+    /**
+     * Rough heap footprint of the genre, year and rating indexes
+     * @return Estimated bytes
+     */
+    long estimateIndexBytes() {
+        return estimateBytes(byGenre) + estimateBytes(byYear) + estimateBytes(byRating);
+    }
+
+    private static long estimateBytes(LongTrie<LongTrie<Object>> index) {
+        long bytes = index.estimateBytes();
+        LongTrie.Cursor<LongTrie<Object>> keys = index.cursor(0);
+        while (keys.next()) {
+            bytes += keys.value().estimateBytes();
+        }
+        return bytes;
+    }
+
+    private static LongTrie<LongTrie<Object>> reindex(LongTrie<LongTrie<Object>> index, long oldKey, long newKey,
+                                                      long id, Object value) {
+        // Unchanged key: only a trie holding Movie objects needs the new one
+        if (oldKey == newKey && (newKey == NO_KEY || value == PRESENT)) {
+            return index;
+        }
+        if (oldKey != NO_KEY && oldKey != newKey) {
+            LongTrie<Object> ids = index.get(oldKey);
+            if (ids != null) {
+                ids = ids.remove(id);
+                index = ids.isEmpty() ? index.remove(oldKey) : index.put(oldKey, ids);
+            }
+        }
+        if (newKey != NO_KEY) {
+            LongTrie<Object> ids = index.get(newKey);
+            index = index.put(newKey, (ids != null ? ids : LongTrie.empty()).put(id, value));
+        }
+        return index;
+    }
+
+    private long genreKey(Movie movie) {
+        return movie != null && movie.getGenre() != null
+                ? catalog.genreCode(MovieFilter.normalizeGenre(movie.getGenre())) : NO_KEY;
+    }
+
+    private static long yearKey(Movie movie) {
+        return movie != null && movie.getReleaseYear() != null ? yearKey(movie.getReleaseYear()) : NO_KEY;
+    }
+
+    private static long ratingKey(Movie movie) {
+        return movie != null && movie.getRating() != null ? ratingKey(movie.getRating()) : NO_KEY;
+    }
+
+    private static long yearKey(int year) {
+        return Math.max(0, year);
+    }
+
+    // Floor of hundredths is monotonic, so a range of ratings maps to a
+    // range of keys that holds every match; filter.matches() trims the rest
+    private static long ratingKey(double rating) {
+        return Math.max(0, (long) Math.floor(rating * 100));
+    }
+
+    /**
+     * State shared by every version of one catalog
+     */
+    private static final class Catalog {
+
+        private final LongFunction<Movie> store;
+
+        // Normalized genre -> code; codes are never reused, so a snapshot
+        // simply has no entries under codes added after it
+        private final ConcurrentHashMap<String, Integer> genreCodes = new ConcurrentHashMap<>();
+
+        Catalog(LongFunction<Movie> store) {
+            this.store = store;
+        }
+
+        // Only called by writers, which are serialized
+        int genreCode(String genre) {
+            Integer code = genreCodes.get(genre);
+            if (code == null) {
+                code = genreCodes.size();
+                genreCodes.put(genre, code);
+            }
+            return code;
+        }
+    }
+
+    /**
+     * Turns a cursor over trie entries into matching movies
+     */
+    private final class MovieSpliterator extends Spliterators.AbstractSpliterator<Movie> {
+
+        private final LongTrie.Cursor<Object> cursor;
+        private final MovieFilter filter;
+
+        MovieSpliterator(LongTrie.Cursor<Object> cursor, MovieFilter filter) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.cursor = cursor;
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Movie> action) {
+            while (cursor.next()) {
+                Object value = cursor.value();
+                Movie movie = value instanceof Movie held ? held : catalog.store.apply(cursor.key());
+                // Null when read from the store after a later delete
+                if (movie != null && (filter.isEmpty() || filter.matches(movie))) {
+                    action.accept(movie);
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.movieapi.service;
+
+import com.movieapi.model.Movie;
+import com.movieapi.model.MovieFilter;
+import com.movieapi.model.StatsResponse;
+import com.movieapi.model.StatsTotals;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running totals behind the stats endpoints: movie counts and rating sums
+ * per genre and overall, counts per release decade, and a sketch of all
+ * ratings for percentiles and the rating histogram. MovieService updates
+ * them on every add, update and delete, as it applies changes in sequence
+ * order, so a query costs O(groups) and never walks the catalog.
+ *
+ * Rating sums are kept in thousandths of a point as longs: unlike a
+ * floating-point sum, adding and later subtracting a rating leaves no
+ * rounding residue. A query reads each counter separately; a write in
+ * progress may show in some totals and not yet in others.
+ *
+ * The queries work on StatsTotals, the plain sums, so that the totals of
+ * several partitions can be added up and reported the same way.
+ */
+class CatalogSummary {
+
+    static final double MIN_RATING = 0;
+    static final double MAX_RATING = 10;
+
+    // Width of the rating histogram's buckets
+    private static final double RATING_BUCKET = 0.5;
+
+    // Resolution of the rating sketch
+    private static final double RATING_BIN = 0.01;
+
+    // Rating sums are kept in units of 1/RATING_SCALE
+    private static final long RATING_SCALE = 1000;
+
+    private final Group all = new Group(null);
+
+    // Normalized genre -> totals of the movies with that genre
+    private final ConcurrentHashMap<String, Group> genres = new ConcurrentHashMap<>();
+
+    // First year of the decade -> movies released in it
+    private final ConcurrentHashMap<Integer, LongAdder> decades = new ConcurrentHashMap<>();
+    private final LongAdder undated = new LongAdder();
+
+    // Every rating, to two decimals
+    private final HistogramSketch ratings = new HistogramSketch(MIN_RATING, MAX_RATING, RATING_BIN);
+
+    void add(Movie movie) {
+        update(movie, 1);
+    }
+
+    void remove(Movie movie) {
+        update(movie, -1);
+    }
+
+    /**
+     * Moves a movie's contribution from its old values to its new ones.
+     * Nothing is touched if no summarized field changed.
+     * @param previous The movie as it was summarized
+     * @param updated The new version of the movie
+     */
+    void replace(Movie previous, Movie updated) {
+        if (Objects.equals(previous.getGenre(), updated.getGenre())
+                && Objects.equals(previous.getRating(), updated.getRating())
+                && Objects.equals(decade(previous.getReleaseYear()), decade(updated.getReleaseYear()))) {
+            return;
+        }
+        update(updated, 1);
+        update(previous, -1);
+    }
+
+    private void update(Movie movie, int delta) {
+        all.update(movie.getRating(), delta);
+        if (movie.getGenre() != null) {
+            genres.computeIfAbsent(MovieFilter.normalizeGenre(movie.getGenre()),
+                    key -> new Group(movie.getGenre().trim())).update(movie.getRating(), delta);
+        }
+        Integer decade = decade(movie.getReleaseYear());
+        (decade != null ? decades.computeIfAbsent(decade, key -> new LongAdder()) : undated).add(delta);
+        if (movie.getRating() != null) {
+            if (delta > 0) {
+                ratings.add(movie.getRating());
+            } else {
+                ratings.remove(movie.getRating());
+            }
+        }
+    }
+
+    private static Integer decade(Integer year) {
+        return year != null ? Math.floorDiv(year, 10) * 10 : null;
+    }
+
+    /**
+     * Reads every total. Like the other queries, not atomic with respect
+     * to writes in progress.
+     * @param version Catalog version to label the totals with
+     * @return The totals, in a form that can be added to another partition's
+     */
+    StatsTotals totals(long version) {
+        List<StatsTotals.Group> genreTotals = new ArrayList<>(genres.size());
+        for (Group group : genres.values()) {
+            genreTotals.add(group.totals());
+        }
+        Map<Integer, Long> decadeCounts = new TreeMap<>();
+        decades.forEach((decade, movies) -> decadeCounts.put(decade, movies.sum()));
+        return new StatsTotals(version, all.totals(), genreTotals, decadeCounts, undated.sum(),
+                ratings.snapshot().counts());
+    }
+
+    /**
+     * @param totals Totals of this summary or of several added together
+     * @param percentiles Rating quantiles to report, each between 0 and 1
+     * @return Everything the stats endpoint reports
+     */
+    static StatsResponse stats(StatsTotals totals, List<Double> percentiles) {
+        return new StatsResponse(totals.getVersion(), Math.max(0, totals.getAll().getMovies()), genres(totals),
+                ratings(totals, percentiles), decades(totals));
+    }
+
+    /**
+     * @return Movie count and average rating per genre, largest genre first;
+     *         genres whose movies are all gone are left out
+     */
+    static List<StatsResponse.GenreStats> genres(StatsTotals totals) {
+        List<StatsResponse.GenreStats> result = new ArrayList<>();
+        for (StatsTotals.Group group : totals.getGenres()) {
+            if (group.getMovies() > 0) {
+                result.add(new StatsResponse.GenreStats(group.getName(), group.getMovies(), averageRating(group)));
+            }
+        }
+        result.sort(Comparator.comparingLong(StatsResponse.GenreStats::getCount).reversed()
+                .thenComparing(StatsResponse.GenreStats::getGenre));
+        return result;
+    }
+
+    /**
+     * @return Movie count per release decade, oldest first, then movies
+     *         without a year under a null decade
+     */
+    static List<StatsResponse.DecadeStats> decades(StatsTotals totals) {
+        List<StatsResponse.DecadeStats> result = new ArrayList<>();
+        for (Map.Entry<Integer, Long> entry : totals.getDecades().entrySet()) {
+            if (entry.getValue() > 0) {
+                result.add(new StatsResponse.DecadeStats(entry.getKey(), entry.getValue()));
+            }
+        }
+        result.sort(Comparator.comparing(StatsResponse.DecadeStats::getDecade));
+        if (totals.getUndated() > 0) {
+            result.add(new StatsResponse.DecadeStats(null, totals.getUndated()));
+        }
+        return result;
+    }
+
+    /**
+     * @param percentiles Quantiles to report, each between 0 and 1
+     * @return Count, average, requested percentiles and histogram of ratings
+     */
+    static StatsResponse.RatingStats ratings(StatsTotals totals, List<Double> percentiles) {
+        HistogramSketch.Snapshot snapshot = HistogramSketch.Snapshot.of(MIN_RATING, RATING_BIN, totals.getRatingCounts());
+        List<StatsResponse.Percentile> quantiles = new ArrayList<>(percentiles.size());
+        for (double q : percentiles) {
+            quantiles.add(new StatsResponse.Percentile(q, snapshot.quantile(q)));
+        }
+        List<StatsResponse.Bucket> histogram = new ArrayList<>();
+        for (double from = MIN_RATING; from < MAX_RATING; from += RATING_BUCKET) {
+            double to = from + RATING_BUCKET;
+            // The last bucket takes in the top rating
+            histogram.add(new StatsResponse.Bucket(from, to, snapshot.count(from, to, to >= MAX_RATING)));
+        }
+        return new StatsResponse.RatingStats(snapshot.total(), averageRating(totals.getAll()), quantiles, histogram);
+    }
+
+    private static Double averageRating(StatsTotals.Group group) {
+        if (group.getRated() <= 0) {
+            return null;
+        }
+        double average = (double) group.getRatingSum() / RATING_SCALE / group.getRated();
+        return Math.round(average * 100) / 100.0;
+    }
+
+    /**
+     * Totals of one group of movies: all of them, or one genre
+     */
+    private static final class Group {
+
+        private final String name;
+        private final LongAdder movies = new LongAdder();
+        private final LongAdder rated = new LongAdder();
+        private final LongAdder ratingSum = new LongAdder();
+
+        Group(String name) {
+            this.name = name;
+        }
+
+        void update(Double rating, int delta) {
+            movies.add(delta);
+            if (rating != null) {
+                rated.add(delta);
+                ratingSum.add(delta * Math.round(rating * RATING_SCALE));
+            }
+        }
+
+        StatsTotals.Group totals() {
+            return new StatsTotals.Group(name, movies.sum(), rated.sum(), ratingSum.sum());
+        }
+    }
+}
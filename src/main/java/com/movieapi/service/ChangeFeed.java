@@ -0,0 +1,209 @@
+package com.movieapi.service;
+
+import com.movieapi.model.MovieChange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded, sequence-numbered ring buffer of the most recent catalog changes,
+ * with a push feed for any number of subscribers.
+ *
+ * MovieService appends changes in sequence order, one at a time; it only
+ * stores the change and, at most once per burst, schedules a dispatch, so
+ * it never waits for subscribers. A single dispatcher thread
+ * hands each subscriber as many changes as it has requested. A subscriber
+ * that falls so far behind that its next change has been overwritten gets a
+ * resync event instead, and continues with live changes after it.
+ *
+ * Sequence numbers start from the boot time in seconds shifted left by 20
+ * bits, so they keep growing across restarts (unless a run averaged over a
+ * million changes per second) and stay below 2^53 for JavaScript clients.
+ * A position from an earlier run is therefore always "too old"; when
+ * persistence knows a run's last number, the feed also skips past it. A number
+ * given back by a failed write is skipped: the feed has a gap there that
+ * subscribers step over.
+ */
+public class ChangeFeed {
+
+    /**
+     * One delivered item: a change, or a resync marker (change is null)
+     * telling the subscriber it missed changes up to and including sequence
+     */
+    public record Event(long sequence, MovieChange change) {
+
+        public boolean isResync() {
+            return change == null;
+        }
+    }
+
+    private final Event[] slots;
+    private final int mask;
+    private volatile long baseSequence;
+
+    // Written by one appending thread at a time
+    private volatile long lastSequence;
+
+    // Stored in the slot of a skipped sequence number
+    private static final MovieChange GAP = new MovieChange(MovieChange.Type.DELETED, -1, null);
+
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean dispatchScheduled = new AtomicBoolean();
+    private final Scheduler dispatcher = Schedulers.newSingle("change-feed", true);
+
+    /**
+     * @param capacity How many recent changes to keep; rounded up to a power of two
+     */
+    public ChangeFeed(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new Event[size];
+        this.mask = size - 1;
+        this.baseSequence = (System.currentTimeMillis() / 1000) << 20;
+        this.lastSequence = baseSequence;
+    }
+
+    /**
+     * Stores a change and wakes subscribers. Calls must come one at a
+     * time, in sequence order.
+     * @param sequence The change's sequence number, above any stored before
+     * @param change The change that was applied
+     */
+    void append(long sequence, MovieChange change) {
+        slots[(int) (sequence & mask)] = new Event(sequence, change);
+        lastSequence = sequence;
+        if (!subscriptions.isEmpty() && dispatchScheduled.compareAndSet(false, true)) {
+            dispatcher.schedule(this::dispatch);
+        }
+    }
+
+    /**
+     * Leaves a gap for a sequence number that will never carry a change.
+     * The last sequence stays where it is, so a caught-up subscriber is not
+     * told about a change it cannot get.
+     * @param sequence The sequence number, above any stored before
+     */
+    void skip(long sequence) {
+        slots[(int) (sequence & mask)] = new Event(sequence, GAP);
+    }
+
+    /**
+     * Starts the feed over, empty, so the next change follows the given
+     * sequence number and every earlier position gets a resync. Only
+     * while nothing is appended or read, e.g. at startup, and only
+     * forward, past every number handed out so far.
+     * @param sequence The sequence number to carry on from
+     */
+    void resumeFrom(long sequence) {
+        Arrays.fill(slots, null);
+        baseSequence = sequence;
+        lastSequence = sequence;
+    }
+
+    /**
+     * @return The sequence number of the latest change, or of the start of
+     *         this run if there has been none
+     */
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * @return The oldest sequence number that can still be read
+     */
+    public long getOldestSequence() {
+        return Math.max(baseSequence + 1, lastSequence - slots.length + 1);
+    }
+
+    /**
+     * Subscribes to changes. The feed respects demand: a subscriber only
+     * receives what it has requested, and one that stops requesting falls
+     * behind (and later gets a resync) without holding anything up.
+     * @param afterSequence Resume after this sequence (e.g. Last-Event-ID),
+     *                      or null to receive only new changes
+     * @return An endless stream of events
+     */
+    public Flux<Event> subscribe(Long afterSequence) {
+        return Flux.create(sink -> {
+            Subscription subscription = new Subscription(sink, afterSequence);
+            subscriptions.add(subscription);
+            sink.onRequest(n -> subscription.drain());
+            sink.onDispose(() -> subscriptions.remove(subscription));
+        });
+    }
+
+    private void dispatch() {
+        dispatchScheduled.set(false);
+        for (Subscription subscription : subscriptions) {
+            subscription.drain();
+        }
+    }
+
+    /**
+     * One subscriber's position in the feed. drain() may be called from the
+     * dispatcher and from the subscriber's request() at the same time; the
+     * work-in-progress counter lets only one of them run the loop.
+     */
+    private final class Subscription {
+
+        private final FluxSink<Event> sink;
+        private final AtomicInteger wip = new AtomicInteger();
+        // Guarded by wip
+        private long next;
+        private boolean resync;
+
+        Subscription(FluxSink<Event> sink, Long afterSequence) {
+            this.sink = sink;
+            long last = lastSequence;
+            if (afterSequence == null) {
+                next = last + 1;
+            } else if (afterSequence > last || afterSequence < baseSequence) {
+                // Unknown position, e.g. from an earlier run
+                resync = true;
+                next = last + 1;
+            } else {
+                next = afterSequence + 1;
+            }
+        }
+
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                long demand = sink.requestedFromDownstream();
+                while (demand > 0 && !sink.isCancelled()) {
+                    long last = lastSequence;
+                    if (resync) {
+                        resync = false;
+                        sink.next(new Event(next - 1, null));
+                    } else if (next <= last) {
+                        Event event = slots[(int) (next & mask)];
+                        if (event == null || event.sequence() != next) {
+                            // Overwritten before we got to it: skip to live
+                            sink.next(new Event(last, null));
+                            next = last + 1;
+                        } else if (event.change() == GAP) {
+                            next++;
+                            continue;
+                        } else {
+                            sink.next(event);
+                            next++;
+                        }
+                    } else {
+                        break;
+                    }
+                    demand--;
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.movieapi.service;
+
+import com.movieapi.model.Movie;
+import com.movieapi.model.MovieChange;
+import com.movieapi.model.SyncResponse;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongFunction;
+
+/**
+ * Latest change per movie, ordered by sequence number, for delta sync.
+ * Each id has exactly one entry: when a movie changes again its old entry
+ * is dropped, so the index holds one entry per live movie plus a bounded
+ * number of tombstones, and a sync walks only what changed since the
+ * client's version, however large the catalog is.
+ *
+ * record() must be called in sequence order by one thread at a time
+ * (MovieService's ChangeSequencer), so entries appear in the index in the
+ * same order as their sequence numbers; readers need no lock.
+ *
+ * Entries hold the id and version only, not the movie: a sync returns
+ * each movie's current state read from the store. The change is recorded
+ * just after the store has it, so a movie may already be newer than its
+ * entry; one missing from the store has a deletion about to be recorded,
+ * and the sync stops just before it and tells the client to come back
+ * for more.
+ *
+ * Tombstones beyond the retention limit are compacted away, oldest first.
+ * The horizon then moves past them, and a client syncing from before the
+ * horizon is told to resync, since it may have missed a deletion.
+ */
+class ChangeIndex {
+
+    private final ConcurrentSkipListMap<Long, Entry> bySequence = new ConcurrentSkipListMap<>();
+
+    // Reads the current state of a movie
+    private final LongFunction<Movie> lookup;
+
+    // Guarded by the caller's lock
+    private final Map<Long, Long> sequenceById = new HashMap<>();
+    private final ArrayDeque<Long> tombstones = new ArrayDeque<>();
+    private final int maxTombstones;
+
+    // Written last in record(), so every entry up to it is in the index
+    private volatile long lastSequence;
+    private volatile long horizon;
+    // Positions strictly between these were never recorded, e.g. numbers a
+    // crashed run handed out but did not persist; see skipTo()
+    private volatile long unknownAfter;
+    private volatile long unknownBefore;
+
+    /**
+     * @param startSequence The sequence before the first one that will be recorded
+     * @param maxTombstones How many deletions to remember
+     * @param lookup Reads the current state of a movie, or null if there is none
+     */
+    ChangeIndex(long startSequence, int maxTombstones, LongFunction<Movie> lookup) {
+        this.lookup = lookup;
+        this.lastSequence = startSequence;
+        this.horizon = startSequence;
+        this.maxTombstones = maxTombstones;
+    }
+
+    void record(long sequence, MovieChange change) {
+        boolean deleted = change.getType() == MovieChange.Type.DELETED;
+        bySequence.put(sequence, new Entry(change.getId(), deleted ? 0 : change.getMovie().getVersion()));
+        // Added before the old entry goes, so a concurrent reader sees at least one
+        Long previous = sequenceById.put(change.getId(), sequence);
+        if (previous != null) {
+            bySequence.remove(previous);
+        }
+        if (deleted) {
+            tombstones.add(sequence);
+            compact();
+        }
+        lastSequence = sequence;
+    }
+
+    private void compact() {
+        while (tombstones.size() > maxTombstones) {
+            long sequence = tombstones.poll();
+            Entry entry = bySequence.get(sequence);
+            // Skip tombstones already replaced by a re-created movie
+            if (entry != null) {
+                // Moved before the removal, so a reader that misses the entry sees the new horizon
+                horizon = sequence;
+                bySequence.remove(sequence);
+                sequenceById.remove(entry.id());
+            }
+        }
+    }
+
+    /**
+     * Starts the index over, empty, so every earlier position gets a
+     * resync. Changes from the given position on can then be recorded
+     * again, e.g. from a log. Only while nothing is read, e.g. at startup.
+     * @param sequence The position the index starts from
+     */
+    void resumeFrom(long sequence) {
+        bySequence.clear();
+        sequenceById.clear();
+        tombstones.clear();
+        horizon = sequence;
+        lastSequence = sequence;
+    }
+
+    /**
+     * Moves the index on past positions it knows nothing about: a client
+     * at one of them is told to resync. Only while nothing is recorded,
+     * e.g. at startup.
+     * @param known The last position whose changes are all recorded
+     * @param sequence The sequence number to carry on from
+     */
+    void skipTo(long known, long sequence) {
+        if (sequence > lastSequence) {
+            unknownAfter = known;
+            unknownBefore = sequence;
+            lastSequence = sequence;
+        }
+    }
+
+    long getLastSequence() {
+        return lastSequence;
+    }
+
+    SyncResponse changesSince(long since, int limit) {
+        long last = lastSequence;
+        if (since < horizon || since > last || (since > unknownAfter && since < unknownBefore)) {
+            return resync(since, last);
+        }
+        List<SyncResponse.Change> changes = new ArrayList<>(Math.min(limit, 64));
+        long version = since;
+        boolean hasMore = false;
+        for (Map.Entry<Long, Entry> indexed : bySequence.tailMap(since, false).entrySet()) {
+            if (changes.size() == limit) {
+                hasMore = true;
+                break;
+            }
+            Entry entry = indexed.getValue();
+            if (entry.isTombstone()) {
+                changes.add(new SyncResponse.Change(entry.id(), true, null));
+            } else {
+                Movie movie = lookup.apply(entry.id());
+                if (movie == null || movie.getVersion() < entry.version()) {
+                    // Still being written (or deleted): stop before it
+                    hasMore = true;
+                    break;
+                }
+                changes.add(new SyncResponse.Change(entry.id(), false, movie));
+            }
+            version = indexed.getKey();
+        }
+        // A tombstone compacted while we walked may have been missed
+        if (since < horizon) {
+            return resync(since, lastSequence);
+        }
+        // Everything up to last was in the index before we started
+        if (!hasMore) {
+            version = Math.max(version, last);
+        }
+        return new SyncResponse(since, version, false, hasMore, changes);
+    }
+
+    /**
+     * The latest change to one movie: its version, or 0 for a tombstone
+     */
+    private record Entry(long id, long version) {
+        boolean isTombstone() {
+            return version == 0;
+        }
+    }
+
+    private static SyncResponse resync(long since, long version) {
+        return new SyncResponse(since, version, true, false, List.of());
+    }
+}
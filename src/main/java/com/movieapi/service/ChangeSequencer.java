@@ -0,0 +1,164 @@
+package com.movieapi.service;
+
+import com.movieapi.model.Movie;
+import com.movieapi.model.MovieChange;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Orders catalog changes without a lock shared by all writers.
+ *
+ * A writer takes the next sequence number inside the per-id lock of the
+ * movie it changes (next()), so changes to one movie are numbered in the
+ * order they are applied. Once the store has the change and the lock is
+ * released, the writer hands it over (publish()). Whichever writer finds
+ * the applier idle applies every handed-over change whose predecessors are
+ * all in, in sequence order, to the derived state (indexes, feed, snapshot,
+ * listeners); the others only wait until their own change is applied, so
+ * a write still returns only once it is visible everywhere.
+ *
+ * A number taken by a write that then failed is cancel()ed, so the
+ * changes after it are not held up.
+ */
+final class ChangeSequencer {
+
+    /**
+     * Applies changes to the derived state, one at a time, in sequence order
+     */
+    interface Applier {
+
+        /**
+         * @param sequence The change's sequence number
+         * @param change The change, already in the store
+         * @param previous The movie before the change, or null if it was added
+         */
+        void apply(long sequence, MovieChange change, Movie previous);
+
+        /**
+         * A sequence number that will never carry a change
+         */
+        void skip(long sequence);
+    }
+
+    private record Pending(MovieChange change, Movie previous) {
+    }
+
+    // Marks a cancelled sequence number
+    private static final Pending CANCELLED = new Pending(null, null);
+
+    // Spins before parking while waiting for another writer's change
+    private static final int SPINS = 64;
+    private static final long PARK_NANOS = 20_000;
+
+    private final Applier applier;
+    private final AtomicLong assigned;
+    private final ConcurrentHashMap<Long, Pending> pending = new ConcurrentHashMap<>();
+    // Lets one thread at a time apply changes; see drain()
+    private final AtomicInteger wip = new AtomicInteger();
+    // Written only by the thread that holds wip
+    private volatile long applied;
+
+    /**
+     * @param start The sequence number before the first one to hand out
+     * @param applier Applies changes in sequence order
+     */
+    ChangeSequencer(long start, Applier applier) {
+        this.applier = applier;
+        this.assigned = new AtomicLong(start);
+        this.applied = start;
+    }
+
+    /**
+     * Takes the next sequence number. Call inside the per-id lock, then
+     * either publish() or cancel() the number.
+     * @return The sequence number
+     */
+    long next() {
+        return assigned.incrementAndGet();
+    }
+
+    /**
+     * Hands over a stored change and waits until it has been applied
+     * @param sequence The number next() returned for it
+     * @param change The change
+     * @param previous The movie before the change, or null if it was added
+     */
+    void publish(long sequence, MovieChange change, Movie previous) {
+        pending.put(sequence, new Pending(change, previous));
+        await(sequence);
+    }
+
+    /**
+     * Gives back a sequence number whose write failed
+     * @param sequence The number next() returned
+     */
+    void cancel(long sequence) {
+        pending.put(sequence, CANCELLED);
+        drain();
+    }
+
+    /**
+     * Moves numbering on, so the next number follows the given one. Only
+     * while no write is under way, e.g. at startup.
+     * @param sequence The sequence number to carry on from
+     */
+    void skipTo(long sequence) {
+        if (sequence > assigned.get()) {
+            assigned.set(sequence);
+            applied = sequence;
+        }
+    }
+
+    /**
+     * @return The last sequence number handed out
+     */
+    long getAssigned() {
+        return assigned.get();
+    }
+
+    /**
+     * Waits until every change up to a sequence number has been applied
+     * or cancelled
+     * @param sequence The sequence number
+     */
+    void await(long sequence) {
+        for (int spins = 0; applied < sequence; spins++) {
+            drain();
+            if (applied >= sequence) {
+                return;
+            }
+            // The missing change is still inside another writer's lock
+            if (spins < SPINS) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+    }
+
+    // Applies every pending change that follows the last one applied. Any
+    // thread may call it; the work-in-progress counter lets one of them run
+    // the loop, and makes it go round again if a change came in meanwhile.
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            long next = applied + 1;
+            Pending change;
+            while ((change = pending.remove(next)) != null) {
+                if (change == CANCELLED) {
+                    applier.skip(next);
+                } else {
+                    applier.apply(next, change.change(), change.previous());
+                }
+                applied = next++;
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+}
@@ -0,0 +1,304 @@
+package com.movieapi.service;
+
+import com.movieapi.model.Movie;
+
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+
+/**
+ * MovieStore for very large catalogs, holding movies in columns instead of
+ * one object graph per movie: primitive arrays for version, year and
+ * rating, a dictionary code per genre, and title plus description together
+ * in one UTF-8 byte array. That is about 42 bytes per movie plus its text,
+ * against several hundred for a Movie with its boxed fields, Strings and
+ * map entries. Movie objects are built only when a movie is read.
+ *
+ * The id is the row number, so there is no id map at all. Rows live in
+ * chunks allocated on first use; a sparse range of ids costs only the
+ * chunks it touches, but ids must fit in an int.
+ *
+ * Writers to an id are serialized by a lock striped over ids. Readers take
+ * no lock: each row has a seqlock stamp that is odd while the row is being
+ * written, and a reader that sees the stamp change retries.
+ */
+class ColumnarMovieStore implements MovieStore {
+
+    /**
+     * Highest id this store can hold
+     */
+    static final long MAX_ID = Integer.MAX_VALUE;
+
+    private static final int CHUNK_BITS = 14;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private static final int LOCK_STRIPES = 256;
+
+    // Column values standing for a null field
+    private static final int NO_YEAR = Integer.MIN_VALUE;
+    private static final short NO_GENRE = 0;
+
+    // Directory of chunks by id >>> CHUNK_BITS; replaced, never mutated, when it grows
+    private volatile Chunk[] chunks = new Chunk[16];
+    private final ReentrantLock growLock = new ReentrantLock();
+
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final AtomicInteger size = new AtomicInteger();
+    private final GenreDictionary genres = new GenreDictionary();
+
+    ColumnarMovieStore() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public Movie get(long id) {
+        Chunk chunk = chunk(id);
+        return chunk != null ? chunk.read(id, (int) id & CHUNK_MASK, genres) : null;
+    }
+
+    @Override
+    public Movie compute(long id, BiFunction<Long, Movie, Movie> remapping) {
+        if (id < 0 || id > MAX_ID) {
+            throw new IllegalArgumentException("Movie ids must be between 0 and " + MAX_ID + " in the columnar store");
+        }
+        ReentrantLock lock = locks[(int) id & (LOCK_STRIPES - 1)];
+        lock.lock();
+        try {
+            Movie existing = get(id);
+            Movie result = remapping.apply(id, existing);
+            if (result != null) {
+                // Encoded before the row is touched, so a bad value changes nothing
+                short genre = genres.code(result.getGenre());
+                byte[] text = encodeText(result.getTitle(), result.getDescription());
+                chunkForWrite(id).write((int) id & CHUNK_MASK, result, genre, text);
+                if (existing == null) {
+                    size.incrementAndGet();
+                }
+            } else if (existing != null) {
+                chunk(id).clear((int) id & CHUNK_MASK);
+                size.decrementAndGet();
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void checkStorable(Movie movie) {
+        // Registers a new genre now; compute() then finds its code
+        genres.code(movie.getGenre());
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    private Chunk chunk(long id) {
+        Chunk[] directory = chunks;
+        long index = id >>> CHUNK_BITS;
+        return id >= 0 && index < directory.length ? directory[(int) index] : null;
+    }
+
+    private Chunk chunkForWrite(long id) {
+        Chunk chunk = chunk(id);
+        if (chunk != null) {
+            return chunk;
+        }
+        growLock.lock();
+        try {
+            int index = (int) (id >>> CHUNK_BITS);
+            Chunk[] directory = chunks;
+            if (index >= directory.length) {
+                directory = Arrays.copyOf(directory, Math.max(index + 1, directory.length * 2));
+            } else if (directory[index] != null) {
+                return directory[index];
+            } else {
+                directory = directory.clone();
+            }
+            chunk = new Chunk();
+            directory[index] = chunk;
+            chunks = directory;
+            return chunk;
+        } finally {
+            growLock.unlock();
+        }
+    }
+
+    /**
+     * Title and description as [title length + 1][title][description length + 1][description],
+     * lengths as unsigned varints, 0 meaning null
+     */
+    static byte[] encodeText(String title, String description) {
+        byte[] titleBytes = title != null ? title.getBytes(StandardCharsets.UTF_8) : null;
+        byte[] descriptionBytes = description != null ? description.getBytes(StandardCharsets.UTF_8) : null;
+        int titleLength = titleBytes != null ? titleBytes.length : 0;
+        int descriptionLength = descriptionBytes != null ? descriptionBytes.length : 0;
+        int titleHeader = titleBytes != null ? titleLength + 1 : 0;
+        int descriptionHeader = descriptionBytes != null ? descriptionLength + 1 : 0;
+        byte[] text = new byte[varintSize(titleHeader) + titleLength + varintSize(descriptionHeader) + descriptionLength];
+        int position = writeVarint(text, 0, titleHeader);
+        if (titleBytes != null) {
+            System.arraycopy(titleBytes, 0, text, position, titleLength);
+            position += titleLength;
+        }
+        position = writeVarint(text, position, descriptionHeader);
+        if (descriptionBytes != null) {
+            System.arraycopy(descriptionBytes, 0, text, position, descriptionLength);
+        }
+        return text;
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value >>>= 7) != 0) {
+            size++;
+        }
+        return size;
+    }
+
+    private static int writeVarint(byte[] target, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            target[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        target[position++] = (byte) value;
+        return position;
+    }
+
+    /**
+     * One block of rows. Columns are plain arrays guarded by the per-row
+     * stamps; the byte array of a row's text is never modified once written.
+     */
+    private static final class Chunk {
+
+        // Seqlock per row: odd while a writer is changing the row
+        private final AtomicIntegerArray stamps = new AtomicIntegerArray(CHUNK_SIZE);
+
+        // Movie version; 0 marks an empty row, since versions start at 1
+        private final int[] versions = new int[CHUNK_SIZE];
+        private final int[] years = new int[CHUNK_SIZE];
+        private final double[] ratings = new double[CHUNK_SIZE];
+        private final short[] genres = new short[CHUNK_SIZE];
+        private final byte[][] texts = new byte[CHUNK_SIZE][];
+
+        Movie read(long id, int row, GenreDictionary dictionary) {
+            while (true) {
+                int stamp = stamps.get(row);
+                if ((stamp & 1) == 0) {
+                    int version = versions[row];
+                    int year = years[row];
+                    double rating = ratings[row];
+                    short genre = genres[row];
+                    byte[] text = texts[row];
+                    // Keep the column reads above from moving below the re-check
+                    VarHandle.acquireFence();
+                    if (stamps.get(row) == stamp) {
+                        return version == 0 ? null : materialize(id, version, year, rating, dictionary.name(genre), text);
+                    }
+                }
+                Thread.onSpinWait();
+            }
+        }
+
+        void write(int row, Movie movie, short genre, byte[] text) {
+            stamps.incrementAndGet(row);
+            // Keep the column writes below from moving above the odd stamp
+            VarHandle.storeStoreFence();
+            versions[row] = (int) movie.getVersion();
+            years[row] = movie.getReleaseYear() != null ? movie.getReleaseYear() : NO_YEAR;
+            ratings[row] = movie.getRating() != null ? movie.getRating() : Double.NaN;
+            genres[row] = genre;
+            texts[row] = text;
+            stamps.incrementAndGet(row);
+        }
+
+        void clear(int row) {
+            stamps.incrementAndGet(row);
+            VarHandle.storeStoreFence();
+            versions[row] = 0;
+            texts[row] = null;
+            stamps.incrementAndGet(row);
+        }
+
+        private static Movie materialize(long id, int version, int year, double rating, String genre, byte[] text) {
+            int[] position = {0};
+            String title = readString(text, position);
+            String description = readString(text, position);
+            Movie movie = new Movie(id, title, description, genre,
+                    year != NO_YEAR ? year : null, Double.isNaN(rating) ? null : rating);
+            movie.setVersion(version);
+            return movie;
+        }
+
+        private static String readString(byte[] text, int[] position) {
+            int header = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = text[position[0]++];
+                header |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            if (header == 0) {
+                return null;
+            }
+            String value = new String(text, position[0], header - 1, StandardCharsets.UTF_8);
+            position[0] += header - 1;
+            return value;
+        }
+    }
+
+    /**
+     * Genre names by code. There are few distinct genres, so each row
+     * stores a two-byte code instead of a reference to a String.
+     */
+    private static final class GenreDictionary {
+
+        private static final int MAX_CODES = 0xFFFF;
+
+        private final ConcurrentHashMap<String, Short> codes = new ConcurrentHashMap<>();
+
+        // Indexed by code; replaced, never mutated, when a genre is added
+        private volatile String[] names = new String[1];
+
+        short code(String genre) {
+            if (genre == null) {
+                return NO_GENRE;
+            }
+            Short code = codes.get(genre);
+            return code != null ? code : add(genre);
+        }
+
+        private synchronized short add(String genre) {
+            Short code = codes.get(genre);
+            if (code != null) {
+                return code;
+            }
+            String[] current = names;
+            if (current.length > MAX_CODES) {
+                throw new IllegalArgumentException("The columnar store holds at most " + MAX_CODES + " distinct genres");
+            }
+            String[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = genre;
+            // Published before the code, so every reader of a code can resolve it
+            names = grown;
+            short added = (short) current.length;
+            codes.put(genre, added);
+            return added;
+        }
+
+        String name(short code) {
+            return code == NO_GENRE ? null : names[Short.toUnsignedInt(code)];
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.movieapi.service;
+
+import com.movieapi.model.Movie;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Incremental inverted index over movie titles and descriptions.
+ * Text is split on anything that is not a letter or digit and lowercased.
+ * Each term maps to a posting list of (movie id, term frequency) pairs held
+ * in primitive arrays. Queries are ranked with BM25 and only the best k hits
+ * are kept, in a bounded heap, instead of sorting every match.
+ * Like CatalogSummary, this is written by one thread at a time, as
+ * MovieService applies changes in sequence order.
+ */
+class FullTextIndex {
+
+    // BM25 tuning constants (the usual defaults)
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Title words count this many times, so a title match outranks a
+    // description match of the same word
+    private static final int TITLE_WEIGHT = 2;
+
+    private final ConcurrentHashMap<String, Postings> postings = new ConcurrentHashMap<>();
+
+    // Indexed length (in weighted tokens) of every document
+    private final ConcurrentHashMap<Long, Integer> docLengths = new ConcurrentHashMap<>();
+
+    private final AtomicLong totalLength = new AtomicLong();
+
+    // Approximate heap cost of a map entry with its boxed key and value,
+    // and of a term's posting list before its arrays
+    private static final long DOC_LENGTH_BYTES = 64;
+    private static final long TERM_BYTES = 120;
+
+    /**
+     * Indexes the title and description of a movie
+     * @param movie The movie to index, its id must be set
+     */
+    void add(Movie movie) {
+        long id = movie.getId();
+        Map<String, Integer> terms = termFrequencies(movie);
+        int length = 0;
+        for (Map.Entry<String, Integer> term : terms.entrySet()) {
+            // compute keeps this atomic with a concurrent remove dropping the list
+            postings.compute(term.getKey(), (key, list) -> {
+                Postings target = list != null ? list : new Postings();
+                target.put(id, term.getValue());
+                return target;
+            });
+            length += term.getValue();
+        }
+        docLengths.put(id, length);
+        totalLength.addAndGet(length);
+    }
+
+    /**
+     * Removes a movie from the index
+     * @param movie The movie as it was indexed
+     */
+    void remove(Movie movie) {
+        long id = movie.getId();
+        for (String term : termFrequencies(movie).keySet()) {
+            // Drop the posting list with the last id, atomically for this term
+            postings.computeIfPresent(term, (key, list) -> list.remove(id) ? null : list);
+        }
+        Integer length = docLengths.remove(id);
+        if (length != null) {
+            totalLength.addAndGet(-length);
+        }
+    }
+
+    /**
+     * Re-indexes a movie after an update. Nothing is touched if neither the
+     * title nor the description changed.
+     * @param previous The movie as it was indexed
+     * @param updated The new version of the movie, with the same id
+     */
+    void replace(Movie previous, Movie updated) {
+        if (Objects.equals(previous.getTitle(), updated.getTitle())
+                && Objects.equals(previous.getDescription(), updated.getDescription())) {
+            return;
+        }
+        remove(previous);
+        add(updated);
+    }
+
+    /**
+     * A matching movie and its BM25 score
+     */
+    record Hit(long id, double score) {
+    }
+
+    /**
+     * Finds the best matching movie ids for a free-text query
+     * @param query The query text
+     * @param k Maximum number of hits to return
+     * @return Matching ids with their scores, best score first
+     */
+    List<Hit> search(String query, int k) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        int docCount = docLengths.size();
+        if (terms.isEmpty() || docCount == 0 || k <= 0) {
+            return Collections.emptyList();
+        }
+        double avgLength = Math.max(1.0, (double) totalLength.get() / docCount);
+
+        // Accumulate BM25 scores term at a time
+        Map<Long, double[]> scores = new HashMap<>();
+        for (String term : terms) {
+            Postings list = postings.get(term);
+            if (list == null) {
+                continue;
+            }
+            double idf = list.idf(docCount);
+            list.forEach((id, tf) -> {
+                // Ids that are mid-update may not have a length yet; skip them
+                Integer length = docLengths.get(id);
+                if (length == null) {
+                    return;
+                }
+                scores.computeIfAbsent(id, key -> new double[1])[0] += idf * tf * (K1 + 1)
+                        / (tf + K1 * (1 - B + B * length / avgLength));
+            });
+        }
+
+        // Keep only the k best in a min-heap: O(matches * log k)
+        PriorityQueue<Map.Entry<Long, double[]>> best = new PriorityQueue<>(k + 1,
+                (a, b) -> a.getValue()[0] != b.getValue()[0]
+                        ? Double.compare(a.getValue()[0], b.getValue()[0])
+                        : Long.compare(b.getKey(), a.getKey()));
+        for (Map.Entry<Long, double[]> entry : scores.entrySet()) {
+            best.offer(entry);
+            if (best.size() > k) {
+                best.poll();
+            }
+        }
+        Hit[] hits = new Hit[best.size()];
+        for (int i = hits.length - 1; i >= 0; i--) {
+            Map.Entry<Long, double[]> entry = best.poll();
+            hits[i] = new Hit(entry.getKey(), entry.getValue()[0]);
+        }
+        return Arrays.asList(hits);
+    }
+
+    /**
+     * Rough heap footprint; walks every posting list, so metrics only
+     * @return Estimated bytes
+     */
+    long estimateBytes() {
+        long bytes = (long) docLengths.size() * DOC_LENGTH_BYTES;
+        for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+            bytes += TERM_BYTES + 2L * entry.getKey().length() + entry.getValue().arrayBytes();
+        }
+        return bytes;
+    }
+
+    private static Map<String, Integer> termFrequencies(Movie movie) {
+        Map<String, Integer> terms = new HashMap<>();
+        for (String token : tokenize(movie.getTitle())) {
+            terms.merge(token, TITLE_WEIGHT, Integer::sum);
+        }
+        for (String token : tokenize(movie.getDescription())) {
+            terms.merge(token, 1, Integer::sum);
+        }
+        return terms;
+    }
+
+    /**
+     * Splits text into lowercase terms of letters and digits
+     * @param text The text to split, may be null
+     * @return The terms, in order of appearance
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Posting list for one term: ids sorted ascending with their term
+     * frequencies in a parallel array. Ids are mostly handed out in
+     * increasing order, so adding is usually an append.
+     */
+    private static final class Postings {
+
+        private long[] ids = new long[4];
+        private int[] frequencies = new int[4];
+        private int size;
+
+        synchronized void put(long id, int frequency) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                frequencies[index] = frequency;
+                return;
+            }
+            index = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            System.arraycopy(frequencies, index, frequencies, index + 1, size - index);
+            ids[index] = id;
+            frequencies[index] = frequency;
+            size++;
+        }
+
+        /**
+         * @return true if the list is now empty
+         */
+        synchronized boolean remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+                System.arraycopy(frequencies, index + 1, frequencies, index, size - index - 1);
+                size--;
+            }
+            return size == 0;
+        }
+
+        synchronized long arrayBytes() {
+            // Capacity, not size: the arrays only grow
+            return 12L * ids.length + 32;
+        }
+
+        synchronized double idf(int docCount) {
+            return Math.log(1 + (docCount - size + 0.5) / (size + 0.5));
+        }
+
+        synchronized void forEach(PostingConsumer consumer) {
+            for (int i = 0; i < size; i++) {
+                consumer.accept(ids[i], frequencies[i]);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface PostingConsumer {
+        void accept(long id, int frequency);
+    }
+}
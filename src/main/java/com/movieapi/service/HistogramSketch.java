@@ -0,0 +1,161 @@
+package com.movieapi.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Quantile sketch over a bounded range of values, kept as a count per
+ * fixed-width bin. Unlike sampling sketches it takes removals as easily
+ * as additions, which an update or delete needs, and two sketches merge by
+ * adding their counts. Quantiles are exact in rank and at most half a bin
+ * off in value; values that are multiples of the bin width are exact.
+ *
+ * Writers are spread over striped count arrays by thread, so concurrent
+ * writes seldom touch the same cache line; a query merges the stripes.
+ * Memory and query time depend on the number of bins, never on how many
+ * values were added.
+ */
+class HistogramSketch {
+
+    private static final int MAX_STRIPES = 64;
+
+    private final double min;
+    private final double binWidth;
+    private final int bins;
+    private final AtomicLongArray[] stripes;
+
+    /**
+     * @param min Lowest value; anything below is counted here
+     * @param max Highest value; anything above is counted here
+     * @param binWidth Resolution of the sketch
+     */
+    HistogramSketch(double min, double max, double binWidth) {
+        if (!(max > min) || !(binWidth > 0)) {
+            throw new IllegalArgumentException("Sketch range and bin width must be positive");
+        }
+        this.min = min;
+        this.binWidth = binWidth;
+        this.bins = (int) Math.round((max - min) / binWidth) + 1;
+        int stripeCount = Math.min(MAX_STRIPES, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+        this.stripes = new AtomicLongArray[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new AtomicLongArray(bins);
+        }
+    }
+
+    void add(double value) {
+        stripe().incrementAndGet(bin(value));
+    }
+
+    void remove(double value) {
+        // May leave one stripe negative; only the merged counts are meaningful
+        stripe().decrementAndGet(bin(value));
+    }
+
+    /**
+     * Merges the stripes into one set of counts. Not atomic with respect to
+     * concurrent writers: a write in progress may be half counted.
+     * @return The merged counts
+     */
+    Snapshot snapshot() {
+        long[] counts = new long[bins];
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < bins; i++) {
+                counts[i] += stripe.get(i);
+            }
+        }
+        return new Snapshot(min, binWidth, counts);
+    }
+
+    private int bin(double value) {
+        long bin = Math.round((value - min) / binWidth);
+        return (int) Math.max(0, Math.min(bins - 1, bin));
+    }
+
+    private AtomicLongArray stripe() {
+        int hash = System.identityHashCode(Thread.currentThread());
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    /**
+     * Counts of a sketch at one point in time
+     */
+    static final class Snapshot {
+
+        private final double min;
+        private final double binWidth;
+        private final long[] counts;
+        private final long total;
+
+        /**
+         * Rebuilds a snapshot from counts taken out of another one, e.g.
+         * the sum of several sketches with the same range and bin width
+         */
+        static Snapshot of(double min, double binWidth, long[] counts) {
+            return new Snapshot(min, binWidth, counts.clone());
+        }
+
+        private Snapshot(double min, double binWidth, long[] counts) {
+            this.min = min;
+            this.binWidth = binWidth;
+            this.counts = counts;
+            long sum = 0;
+            for (int i = 0; i < counts.length; i++) {
+                // A removal can be seen before the addition it undoes
+                counts[i] = Math.max(0, counts[i]);
+                sum += counts[i];
+            }
+            this.total = sum;
+        }
+
+        long total() {
+            return total;
+        }
+
+        /**
+         * @return A copy of the count of each bin
+         */
+        long[] counts() {
+            return counts.clone();
+        }
+
+        /**
+         * @param q A quantile between 0 and 1
+         * @return The smallest value with at least q of all values at or
+         *         below it, or null if the sketch is empty
+         */
+        Double quantile(double q) {
+            if (total == 0) {
+                return null;
+            }
+            long rank = Math.max(1, (long) Math.ceil(q * total));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return value(i);
+                }
+            }
+            return value(counts.length - 1);
+        }
+
+        /**
+         * @return How many values fall in [from, to), or [from, to] when
+         *         inclusive is set
+         */
+        long count(double from, double to, boolean inclusive) {
+            long count = 0;
+            for (int i = 0; i < counts.length; i++) {
+                double value = value(i);
+                if (value >= from && (value < to || (inclusive && value == to))) {
+                    count += counts[i];
+                }
+            }
+            return count;
+        }
+
+        // Rounded, so bin 730 of 0.01 reads 7.3 rather than 7.300000000000001
+        private double value(int bin) {
+            return Math.round((min + bin * binWidth) * 1e9) / 1e9;
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package com.movieapi.service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+/**
+ * Persistent (immutable) map from non-negative long keys to values: a
+ * hash array mapped trie whose hash is the key itself, read five bits at a
+ * time from the most significant end, so entries are walked in key order.
+ *
+ * put() and remove() leave this trie untouched and return a new one that
+ * shares every node off the changed path, copying one node per level:
+ * O(log32 n), about four nodes for a million keys. Any number of readers
+ * can keep walking an older trie while writers build newer ones, without
+ * locks and without copying. A node stores only the children it has,
+ * packed behind a 32-bit bitmap, so sparse key sets stay small.
+ *
+ * The trie is only as tall as its largest key needs, and grows a level at
+ * a time when a larger key is put.
+ * @param <V> Value type; null values are not allowed
+ */
+final class LongTrie<V> {
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private static final Node EMPTY_NODE = new Node(0, new Object[0]);
+    private static final LongTrie<?> EMPTY = new LongTrie<>(null, 0, 0);
+
+    // Rough heap cost of a node (header, bitmap, array header) and of each slot
+    private static final long NODE_BYTES = 40;
+    private static final long SLOT_BYTES = 4;
+
+    private final Node root;
+    // Bit position of the root's digit; leaves are at shift 0
+    private final int shift;
+    private final int size;
+
+    private LongTrie(Node root, int shift, int size) {
+        this.root = root;
+        this.shift = shift;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <V> LongTrie<V> empty() {
+        return (LongTrie<V>) EMPTY;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param key The key
+     * @return The value under key, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        if (root == null || !fits(key, shift)) {
+            return null;
+        }
+        Node node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Node) node.child(digit(key, level));
+            if (node == null) {
+                return null;
+            }
+        }
+        return (V) node.child(digit(key, 0));
+    }
+
+    /**
+     * @param key A non-negative key
+     * @param value The value to store under it
+     * @return A trie with the value under key, sharing all other nodes with this one
+     */
+    LongTrie<V> put(long key, V value) {
+        Objects.requireNonNull(value);
+        if (key < 0) {
+            throw new IllegalArgumentException("Trie keys must not be negative");
+        }
+        boolean replacing = get(key) != null;
+        Node top = root != null ? root : EMPTY_NODE;
+        int level = root != null ? shift : 0;
+        while (!fits(key, level)) {
+            if (root != null) {
+                // Add a level above: everything so far has a leading digit of 0
+                top = new Node(1, new Object[] {top});
+            }
+            level += BITS;
+        }
+        return new LongTrie<>(put(top, level, key, value), level, replacing ? size : size + 1);
+    }
+
+    /**
+     * @param key The key to remove
+     * @return A trie without key, or this trie if key was not in it
+     */
+    LongTrie<V> remove(long key) {
+        if (get(key) == null) {
+            return this;
+        }
+        Node top = remove(root, shift, key);
+        return top != null ? new LongTrie<>(top, shift, size - 1) : empty();
+    }
+
+    /**
+     * @param from The smallest key to visit
+     * @return A cursor over the entries with keys at or above from, in key order
+     */
+    Cursor<V> cursor(long from) {
+        return new PathCursor<>(root, shift, Math.max(0, from));
+    }
+
+    /**
+     * Walks several cursors as one, in key order. Meant for tries with
+     * disjoint keys; a key found in more than one is visited once per cursor.
+     * @param cursors Cursors that have not been moved yet
+     * @return A cursor over the union of their entries
+     */
+    static <V> Cursor<V> merge(List<Cursor<V>> cursors) {
+        return cursors.size() == 1 ? cursors.get(0) : new MergedCursor<>(cursors);
+    }
+
+    /**
+     * Rough heap footprint of the trie's own nodes, not counting values.
+     * Walks every node, so it is meant for metrics only.
+     * @return Estimated bytes
+     */
+    long estimateBytes() {
+        return root != null ? estimateBytes(root, shift) : 0;
+    }
+
+    private static long estimateBytes(Node node, int level) {
+        long bytes = NODE_BYTES + SLOT_BYTES * node.slots.length;
+        if (level > 0) {
+            for (Object child : node.slots) {
+                bytes += estimateBytes((Node) child, level - BITS);
+            }
+        }
+        return bytes;
+    }
+
+    private static Node put(Node node, int level, long key, Object value) {
+        int digit = digit(key, level);
+        if (level == 0) {
+            return node.with(digit, value);
+        }
+        Node child = (Node) node.child(digit);
+        return node.with(digit, put(child != null ? child : EMPTY_NODE, level - BITS, key, value));
+    }
+
+    // The key must be present
+    private static Node remove(Node node, int level, long key) {
+        int digit = digit(key, level);
+        if (level == 0) {
+            return node.without(digit);
+        }
+        Node child = remove((Node) node.child(digit), level - BITS, key);
+        return child != null ? node.with(digit, child) : node.without(digit);
+    }
+
+    private static int digit(long key, int level) {
+        return (int) (key >>> level) & MASK;
+    }
+
+    // Whether a trie with its root at level can hold key
+    private static boolean fits(long key, int level) {
+        return key >= 0 && (key >>> level) >>> BITS == 0;
+    }
+
+    /**
+     * Trie node: children (or values, at the leaves) for the digits set in
+     * bitmap, in digit order. Never changed once built.
+     */
+    private static final class Node {
+
+        private final int bitmap;
+        private final Object[] slots;
+
+        Node(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        Object child(int digit) {
+            int bit = 1 << digit;
+            return (bitmap & bit) != 0 ? slots[Integer.bitCount(bitmap & (bit - 1))] : null;
+        }
+
+        Node with(int digit, Object child) {
+            int bit = 1 << digit;
+            int position = Integer.bitCount(bitmap & (bit - 1));
+            if ((bitmap & bit) != 0) {
+                Object[] copy = slots.clone();
+                copy[position] = child;
+                return new Node(bitmap, copy);
+            }
+            Object[] grown = new Object[slots.length + 1];
+            System.arraycopy(slots, 0, grown, 0, position);
+            grown[position] = child;
+            System.arraycopy(slots, position, grown, position + 1, slots.length - position);
+            return new Node(bitmap | bit, grown);
+        }
+
+        // Null when the last child goes, so empty nodes are pruned
+        Node without(int digit) {
+            int bit = 1 << digit;
+            if (bitmap == bit) {
+                return null;
+            }
+            int position = Integer.bitCount(bitmap & (bit - 1));
+            Object[] shrunk = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, shrunk, 0, position);
+            System.arraycopy(slots, position + 1, shrunk, position, slots.length - position - 1);
+            return new Node(bitmap & ~bit, shrunk);
+        }
+    }
+
+    /**
+     * Position in an ordered walk over trie entries
+     * @param <V> Value type
+     */
+    interface Cursor<V> {
+
+        /**
+         * Moves to the next entry; the first call moves to the first one
+         * @return Whether there is an entry
+         */
+        boolean next();
+
+        long key();
+
+        V value();
+    }
+
+    /**
+     * Walks a trie's entries in key order, keeping the path from the root
+     * to the current leaf, so each step costs O(1) amortized
+     */
+    private static final class PathCursor<V> implements Cursor<V> {
+
+        private final Node[] path;
+        private final int[] digits;
+        private final int rootShift;
+        private boolean started;
+        private boolean positioned;
+        private V value;
+
+        PathCursor(Node root, int rootShift, long from) {
+            int depth = rootShift / BITS + 1;
+            this.path = new Node[depth];
+            this.digits = new int[depth];
+            this.rootShift = rootShift;
+            if (root != null && fits(from, rootShift)) {
+                path[0] = root;
+                this.positioned = seek(from);
+            }
+        }
+
+        @Override
+        public boolean next() {
+            if (!started) {
+                started = true;
+            } else if (positioned) {
+                int leaf = path.length - 1;
+                positioned = find(leaf, digits[leaf] + 1);
+            }
+            return positioned;
+        }
+
+        @Override
+        public long key() {
+            long key = 0;
+            for (int depth = 0; depth < digits.length; depth++) {
+                key |= (long) digits[depth] << (rootShift - depth * BITS);
+            }
+            return key;
+        }
+
+        @Override
+        public V value() {
+            return value;
+        }
+
+        // Follows from's digits while the nodes have them, then takes the
+        // first entry above wherever the path breaks off
+        private boolean seek(long from) {
+            int leaf = path.length - 1;
+            for (int depth = 0; ; depth++) {
+                int digit = digit(from, rootShift - depth * BITS);
+                Object child = path[depth].child(digit);
+                if (child == null || depth == leaf) {
+                    return find(depth, digit);
+                }
+                digits[depth] = digit;
+                path[depth + 1] = (Node) child;
+            }
+        }
+
+        // Finds the first entry at or after digit start of the node at depth,
+        // backing up to the parent when that node has nothing left
+        @SuppressWarnings("unchecked")
+        private boolean find(int depth, int start) {
+            int leaf = path.length - 1;
+            while (depth >= 0) {
+                Node node = path[depth];
+                int candidates = start < WIDTH ? node.bitmap & (-1 << start) : 0;
+                if (candidates == 0) {
+                    depth--;
+                    if (depth >= 0) {
+                        start = digits[depth] + 1;
+                    }
+                    continue;
+                }
+                int digit = Integer.numberOfTrailingZeros(candidates);
+                digits[depth] = digit;
+                Object child = node.child(digit);
+                if (depth == leaf) {
+                    value = (V) child;
+                    return true;
+                }
+                path[++depth] = (Node) child;
+                start = 0;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Union of cursors: a heap ordered by each cursor's current key
+     */
+    private static final class MergedCursor<V> implements Cursor<V> {
+
+        private final PriorityQueue<Cursor<V>> heap;
+        private Cursor<V> current;
+
+        MergedCursor(List<Cursor<V>> cursors) {
+            this.heap = new PriorityQueue<>(Math.max(1, cursors.size()), Comparator.comparingLong(Cursor::key));
+            for (Cursor<V> cursor : cursors) {
+                if (cursor.next()) {
+                    heap.add(cursor);
+                }
+            }
+        }
+
+        @Override
+        public boolean next() {
+            if (current != null && current.next()) {
+                heap.add(current);
+            }
+            current = heap.poll();
+            return current != null;
+        }
+
+        @Override
+        public long key() {
+            return current.key();
+        }
+
+        @Override
+        public V value() {
+            return current.value();
+        }
+    }
+}
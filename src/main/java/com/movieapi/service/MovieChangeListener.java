@@ -0,0 +1,42 @@
+package com.movieapi.service;
+
+import com.movieapi.model.MovieChange;
+
+/**
+ * Receives every mutation applied by MovieService.
+ * Register with MovieService.addChangeListener().
+ */
+public interface MovieChangeListener {
+
+    /**
+     * Called while the per-id lock of the changed movie is held, before the
+     * change is stored or visible anywhere, e.g. to log it ahead of the
+     * write. Changes to the same movie arrive in the order they are made.
+     * Throwing refuses the write: nothing is changed and the caller gets
+     * the exception. The default does nothing.
+     * @param sequence The change's sequence number, which becomes the
+     *                 catalog version once it is applied
+     * @param change The change about to be applied
+     */
+    default void beforeChange(long sequence, MovieChange change) {
+    }
+
+    /**
+     * Called once the change is stored, in the order of the change feed,
+     * after the indexes and snapshot have it and before the write returns
+     * to its caller. It may run on another writing thread. The change can
+     * no longer be undone, so exceptions are logged and otherwise ignored.
+     * Must return quickly. The default does nothing.
+     * @param change The change that was applied
+     */
+    default void onChange(MovieChange change) {
+    }
+
+    /**
+     * Called on the writing thread once a write (or a whole bulk chunk) has
+     * released its locks, before the result is returned to the caller.
+     * The default does nothing.
+     */
+    default void afterWrite() {
+    }
+}
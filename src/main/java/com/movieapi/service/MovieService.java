@@ -2,30 +2,169 @@ package com.movieapi.service;
 
 import com.movieapi.exception.MovieNotFoundException;
 import com.movieapi.exception.MovieValidationException;
+import com.movieapi.exception.PreconditionFailedException;
+import com.movieapi.model.BulkItemResult;
 import com.movieapi.model.Movie;
+import com.movieapi.model.MovieChange;
+import com.movieapi.model.MovieFields;
+import com.movieapi.model.MovieFilter;
+import com.movieapi.model.MoviePatch;
+import com.movieapi.model.PageResponse;
+import com.movieapi.model.SearchHit;
+import com.movieapi.model.StatsResponse;
+import com.movieapi.model.StatsTotals;
+import com.movieapi.model.SyncResponse;
+import com.movieapi.validation.MovieValidator;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.LongPredicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
 
 /**
  * Service class that manages the in-memory data store for movies.
- * Uses ArrayList to store movie objects and provides CRUD operations.
+ * Movies are kept in a MovieStore keyed by id, so lookups, updates and
+ * deletes are O(1) and safe to call from many request threads at once. The
+ * default store holds Movie objects; movie.store.columnar=true switches to
+ * a column layout that needs far less heap for very large catalogs.
+ * Listings read an immutable CatalogSnapshot, which every write replaces
+ * with a new version sharing all but O(log n) of its structure; it holds
+ * the movies in id order (ids only grow, so that is insertion order) and
+ * indexes on genre, year and rating for filtered listings.
+ * A full-text index over title and description serves ranked search.
+ * Running counts, rating sums and a rating sketch serve the stats endpoints.
+ * Every movie carries a version bumped on each update, and the catalog as a
+ * whole is versioned by its snapshots; both back HTTP ETags. Movie versions
+ * are counted afresh by every run, so they belong to an epoch; a replica
+ * takes over its leader's versions and epoch.
+ * Every write is checked by one MovieValidator, compiled at startup.
  */
 @Service
 public class MovieService {
+
+    private static final Logger log = LoggerFactory.getLogger(MovieService.class);
     
-    // In-memory data store using ArrayList
-    private final List<Movie> movieStore = new ArrayList<>();
+    // Rules for every movie written, single, bulk, patched or imported
+    private static final MovieValidator VALIDATOR = MovieValidator.compile(MovieValidator.MOVIE_RULES);
+
+    // Primary in-memory data store, keyed by movie id
+    private final MovieStore movieStore;
+
+    // Latest version of the catalog for listings. Replaced, never changed,
+    // by the sequencer's applier, so snapshots follow the change feed's order.
+    private volatile CatalogSnapshot snapshot;
+
+    // Snapshots that paged listings are still walking, by version, so
+    // later pages come from the same version as the first
+    private static final Duration SNAPSHOT_RETENTION = Duration.ofMinutes(1);
+    private static final int MAX_PINNED_SNAPSHOTS = 64;
+    private final Cache<Long, CatalogSnapshot> pinnedSnapshots = Caffeine.newBuilder()
+            .maximumSize(MAX_PINNED_SNAPSHOTS)
+            .expireAfterAccess(SNAPSHOT_RETENTION)
+            .build();
+
+    private final FullTextIndex fullTextIndex = new FullTextIndex();
+
+    // Counts and rating distribution for the stats endpoints, maintained
+    // like the indexes
+    private final CatalogSummary catalogSummary = new CatalogSummary();
     
     // Auto-incrementing ID generator
     private final AtomicLong idCounter = new AtomicLong(1);
 
+    // Names the run that counted the movie versions; see getEpoch()
+    private volatile String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    // Ids this instance may hand out; set when the catalog is partitioned
+    // across a cluster, so that new movies land on the node that owns them
+    private volatile LongPredicate ownedIds;
+
+    /**
+     * Expected version meaning "whatever the current version is"
+     */
+    public static final long ANY_VERSION = -1;
+
+    /**
+     * Rating percentiles reported when the caller asks for none
+     */
+    public static final List<Double> DEFAULT_PERCENTILES = List.of(0.5, 0.9, 0.99);
+
+    private static final int MAX_PERCENTILES = 20;
+
+    // Imports notify listeners' afterWrite() once per this many movies
+    private static final int IMPORT_CHUNK_SIZE = 1000;
+
+    // Notified of every mutation, e.g. for persistence
+    private final List<MovieChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+
+    // Recent changes, in order, for change-data-capture subscribers. The
+    // feed's sequence number is the global version of each mutation.
+    private static final int CHANGE_FEED_CAPACITY = 1 << 16;
+    private final ChangeFeed changeFeed = new ChangeFeed(CHANGE_FEED_CAPACITY);
+
+    // Latest change per movie for delta sync, with this many tombstones kept
+    private static final int TOMBSTONE_RETENTION = 100_000;
+    private final ChangeIndex changeIndex;
+
+    // Numbers changes inside the per-id locks and applies them to the
+    // indexes, feed and snapshot afterwards, in that order
+    private final ChangeSequencer sequencer;
+
+    // Told how long each public operation took
+    private volatile OperationTimer operationTimer = OperationTimer.NONE;
+
     /**
      * Constructor that initializes the store with some sample movies
      */
     public MovieService() {
+        this(false);
+    }
+
+    /**
+     * Constructor that initializes the store with some sample movies
+     * @param columnar Whether to keep movies in the compact column layout
+     */
+    @Autowired
+    public MovieService(@Value("${movie.store.columnar:false}") boolean columnar) {
+        this.movieStore = columnar ? new ColumnarMovieStore() : new ObjectMovieStore();
+        this.changeIndex = new ChangeIndex(changeFeed.getLastSequence(), TOMBSTONE_RETENTION, movieStore::get);
+        // Column mode reads movies back from the store rather than keeping objects alive
+        this.snapshot = CatalogSnapshot.empty(changeFeed.getLastSequence(), columnar ? movieStore::get : null);
+        this.sequencer = new ChangeSequencer(changeFeed.getLastSequence(), new ChangeSequencer.Applier() {
+            @Override
+            public void apply(long sequence, MovieChange change, Movie previous) {
+                applyChange(sequence, change, previous);
+            }
+
+            @Override
+            public void skip(long sequence) {
+                changeFeed.skip(sequence);
+            }
+        });
+
         // Pre-populate with sample data
         addMovie(new Movie(null, "The Shawshank Redemption", 
             "Two imprisoned men bond over a number of years, finding solace and eventual redemption through acts of common decency.",
@@ -47,10 +186,61 @@ public class MovieService {
      * @throws MovieValidationException if validation fails
      */
     public Movie addMovie(Movie movie) {
-        validateMovie(movie);
-        movie.setId(idCounter.getAndIncrement());
-        movieStore.add(movie);
-        return movie;
+        long start = System.nanoTime();
+        try {
+            validateMovie(movie);
+            movie.setId(nextId());
+            upsert(movie);
+            afterWrite();
+            return movie;
+        } finally {
+            time(OperationTimer.Operation.CREATE, start);
+        }
+    }
+
+    /**
+     * Adds a batch of movies. Every movie is validated first, then ids for
+     * all valid movies are reserved with a single counter update and the
+     * movies are written. Invalid movies are reported and skipped.
+     * The batch is not atomic: each movie is written on its own, as by
+     * addMovie(), and listeners' afterWrite() runs once for the batch.
+     * @param movies The movies to add (ids will be auto-generated)
+     * @param firstIndex Position of the first movie within the whole request
+     * @return One result per movie, in input order
+     */
+    public List<BulkItemResult> addMovies(List<Movie> movies, int firstIndex) {
+        long start = System.nanoTime();
+        List<BulkItemResult> results = new ArrayList<>(movies.size());
+        boolean[] valid = new boolean[movies.size()];
+        int validCount = 0;
+        for (int i = 0; i < movies.size(); i++) {
+            BulkItemResult failure = checkMovie(movies.get(i), firstIndex + i);
+            results.add(failure);
+            if (failure == null) {
+                valid[i] = true;
+                validCount++;
+            }
+        }
+
+        // A partitioned catalog cannot take a contiguous block of ids
+        LongPredicate owned = ownedIds;
+        long nextId = owned == null ? idCounter.getAndAdd(validCount) : 0;
+        // Movies written before a failure are already published, so they
+        // are still made durable
+        try {
+            for (int i = 0; i < movies.size(); i++) {
+                if (valid[i]) {
+                    Movie movie = movies.get(i);
+                    movie.setId(owned == null ? nextId++ : nextId());
+                    upsert(movie);
+                    results.set(i, BulkItemResult.success(firstIndex + i, movie.getId(), HttpStatus.CREATED.value()));
+                }
+            }
+        } finally {
+            afterWrite();
+            time(OperationTimer.Operation.BULK_CREATE, start);
+        }
+        return results;
     }
 
     /**
@@ -60,18 +250,201 @@ public class MovieService {
      * @throws MovieNotFoundException if movie is not found
      */
     public Movie getMovieById(Long id) {
-        return movieStore.stream()
-                .filter(movie -> movie.getId().equals(id))
-                .findFirst()
-                .orElseThrow(() -> new MovieNotFoundException(id));
+        return findMovieById(id).orElseThrow(() -> new MovieNotFoundException(id));
+    }
+
+    /**
+     * Looks up a movie without treating a miss as an error
+     * @param id The ID of the movie to look up
+     * @return The movie, or empty if there is none with that id
+     */
+    public Optional<Movie> findMovieById(Long id) {
+        long start = System.nanoTime();
+        Movie movie = id != null ? movieStore.get(id) : null;
+        time(OperationTimer.Operation.READ, start);
+        return Optional.ofNullable(movie);
     }
 
     /**
      * Retrieves all movies in the collection
-     * @return List of all movies
+     * @return List of all movies, in insertion order
      */
     public List<Movie> getAllMovies() {
-        return new ArrayList<>(movieStore);
+        return snapshot.movies(MovieFilter.NONE, null).toList();
+    }
+
+    /**
+     * Retrieves the movies matching a filter, using the snapshot's indexes
+     * so the cost follows the size of the matching set, not the catalog
+     * @param filter The criteria to match
+     * @return Matching movies, in insertion order
+     */
+    public List<Movie> findMovies(MovieFilter filter) {
+        long start = System.nanoTime();
+        List<Movie> movies = snapshot.movies(filter, null).toList();
+        time(OperationTimer.Operation.LIST, start);
+        return movies;
+    }
+
+    /**
+     * The movies matching a filter in one snapshot, walked afresh each time
+     * the result is iterated. Nothing is copied, so a listing of the whole
+     * catalog can be written out without first collecting it in a list.
+     * @param snapshot The catalog version to list
+     * @param filter The criteria to match
+     * @return Matching movies, in insertion order
+     */
+    public Iterable<Movie> listMovies(CatalogSnapshot snapshot, MovieFilter filter) {
+        return () -> snapshot.movies(filter, null).iterator();
+    }
+
+    /**
+     * Retrieves one page of movies using keyset pagination, from the
+     * current snapshot
+     * @see #getMoviesPage(CatalogSnapshot, MovieFilter, Long, int)
+     */
+    public PageResponse<Movie> getMoviesPage(MovieFilter filter, Long afterId, int limit) {
+        return getMoviesPage(snapshot, filter, afterId, limit);
+    }
+
+    /**
+     * Retrieves one page of movies using keyset pagination.
+     * The cursor is the id of the last movie on the previous page, so a page
+     * costs the same no matter how deep into the catalog it is. When there
+     * are more pages, the snapshot is kept for a while so that the client
+     * can read them from the same version by passing it to snapshot(Long).
+     * @param snapshot The catalog version to read
+     * @param filter The criteria to match
+     * @param afterId Cursor from the previous page, or null for the first page
+     * @param limit Maximum number of movies on the page
+     * @return The page, with the cursor for the next one if there is more
+     */
+    public PageResponse<Movie> getMoviesPage(CatalogSnapshot snapshot, MovieFilter filter, Long afterId, int limit) {
+        long start = System.nanoTime();
+        // Fetch one extra movie to find out whether there is a next page
+        List<Movie> movies = snapshot.movies(filter, afterId).limit(limit + 1L).toList();
+        boolean hasMore = movies.size() > limit;
+        List<Movie> page = hasMore ? movies.subList(0, limit) : movies;
+        Long nextCursor = hasMore ? page.get(page.size() - 1).getId() : null;
+        if (hasMore) {
+            pinnedSnapshots.asMap().putIfAbsent(snapshot.getVersion(), snapshot);
+        }
+        time(OperationTimer.Operation.LIST, start);
+        return new PageResponse<>(page, limit, nextCursor, snapshot.getVersion());
+    }
+
+    /**
+     * Lazily walks the movies matching a filter in insertion order, in
+     * the current snapshot. Nothing is copied up front, so callers can
+     * write movies out one at a time, and writes made meanwhile are not seen.
+     * @param filter The criteria to match
+     * @param afterId Only return movies with a greater id, or null for all
+     * @return A sequential stream of matching movies
+     */
+    public Stream<Movie> streamMovies(MovieFilter filter, Long afterId) {
+        return snapshot.movies(filter, afterId);
+    }
+
+    /**
+     * Like streamMovies(), over a given snapshot
+     * @param snapshot The catalog version to read
+     * @param filter The criteria to match
+     * @param afterId Only return movies with a greater id, or null for all
+     * @return A sequential stream of matching movies
+     */
+    public Stream<Movie> streamMovies(CatalogSnapshot snapshot, MovieFilter filter, Long afterId) {
+        return snapshot.movies(filter, afterId);
+    }
+
+    /**
+     * @return The current version of the catalog. Reading from it never
+     *         blocks writers or is disturbed by them.
+     */
+    public CatalogSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @param version A version returned with an earlier page, or null
+     * @return That version of the catalog if it is still kept, otherwise
+     *         the current one
+     */
+    public CatalogSnapshot snapshot(Long version) {
+        CatalogSnapshot current = snapshot;
+        if (version == null || version == current.getVersion()) {
+            return current;
+        }
+        CatalogSnapshot pinned = pinnedSnapshots.getIfPresent(version);
+        return pinned != null ? pinned : current;
+    }
+
+    /**
+     * Reactive form of streamMovies(). Movies are read from the store only
+     * as the subscriber requests them, so a slow consumer holds neither a
+     * thread nor a buffered copy of the catalog.
+     * @param filter The criteria to match
+     * @param afterId Only return movies with a greater id, or null for all
+     * @return The matching movies in insertion order
+     */
+    public Flux<Movie> movies(MovieFilter filter, Long afterId) {
+        return Flux.defer(() -> movies(snapshot, filter, afterId));
+    }
+
+    /**
+     * Like movies(), over a given snapshot
+     * @param snapshot The catalog version to read
+     * @param filter The criteria to match
+     * @param afterId Only return movies with a greater id, or null for all
+     * @return The matching movies in insertion order
+     */
+    public Flux<Movie> movies(CatalogSnapshot snapshot, MovieFilter filter, Long afterId) {
+        return Flux.fromStream(() -> snapshot.movies(filter, afterId));
+    }
+
+    /**
+     * Reactive form of findMovieById(); the store is read on subscription
+     * @param id The ID of the movie to look up
+     * @return The movie, or an empty Mono if there is none with that id
+     */
+    public Mono<Movie> movieById(Long id) {
+        return Mono.defer(() -> Mono.justOrEmpty(findMovieById(id)));
+    }
+
+    /**
+     * Searches titles and descriptions, ranked by BM25 relevance
+     * @param query Free text; every word is matched case-insensitively
+     * @param limit Maximum number of results
+     * @return The best matching movies, most relevant first
+     */
+    public List<Movie> searchMovies(String query, int limit) {
+        List<Movie> result = new ArrayList<>();
+        for (SearchHit hit : searchHits(query, limit)) {
+            result.add(hit.getMovie());
+        }
+        return result;
+    }
+
+    /**
+     * Like searchMovies(), keeping each movie's BM25 score so that results
+     * from several partitions can be merged
+     * @param query Free text; every word is matched case-insensitively
+     * @param limit Maximum number of results
+     * @return The best matching movies with their scores, most relevant first
+     */
+    public List<SearchHit> searchHits(String query, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query cannot be empty");
+        }
+        long start = System.nanoTime();
+        List<SearchHit> result = new ArrayList<>();
+        for (FullTextIndex.Hit hit : fullTextIndex.search(query, limit)) {
+            Movie movie = movieStore.get(hit.id());
+            if (movie != null) {
+                result.add(new SearchHit(movie, hit.score()));
+            }
+        }
+        time(OperationTimer.Operation.SEARCH, start);
+        return result;
     }
 
     /**
@@ -83,50 +456,756 @@ public class MovieService {
      * @throws MovieValidationException if validation fails
      */
     public Movie updateMovie(Long id, Movie updatedMovie) {
-        validateMovie(updatedMovie);
-        
-        for (int i = 0; i < movieStore.size(); i++) {
-            if (movieStore.get(i).getId().equals(id)) {
-                updatedMovie.setId(id);
-                movieStore.set(i, updatedMovie);
-                return updatedMovie;
+        return updateMovie(id, updatedMovie, ANY_VERSION);
+    }
+
+    /**
+     * Updates an existing movie only if it is still at the expected version
+     * (optimistic concurrency). The check and the write are one atomic step.
+     * @param id The ID of the movie to update
+     * @param updatedMovie The movie object with updated information
+     * @param expectedVersion The version the caller last saw, or ANY_VERSION
+     * @return The updated movie, with its new version
+     * @throws MovieNotFoundException if movie is not found
+     * @throws MovieValidationException if validation fails
+     * @throws PreconditionFailedException if the movie is at another version
+     */
+    public Movie updateMovie(Long id, Movie updatedMovie, long expectedVersion) {
+        long start = System.nanoTime();
+        try {
+            validateMovie(updatedMovie);
+            updatedMovie.setId(id);
+            if (id == null || replace(id, updatedMovie, expectedVersion) == null) {
+                throw new MovieNotFoundException(id);
+            }
+            afterWrite();
+            return updatedMovie;
+        } finally {
+            time(OperationTimer.Operation.UPDATE, start);
+        }
+    }
+
+    /**
+     * Changes only the fields a patch sets. Only those fields are
+     * validated, and only the index entries of changed fields are touched,
+     * so patching the rating of a movie leaves its text and genre indexes
+     * alone. The patch is applied to the movie as it is at that moment,
+     * under the same lock as a full update.
+     * @param id The ID of the movie to patch
+     * @param patch The fields to change
+     * @param expectedVersion The version the caller last saw, or ANY_VERSION
+     * @return The patched movie, with its new version
+     * @throws MovieNotFoundException if movie is not found
+     * @throws MovieValidationException if a patched field is invalid
+     * @throws PreconditionFailedException if the movie is at another version
+     */
+    public Movie patchMovie(Long id, MoviePatch patch, long expectedVersion) {
+        long start = System.nanoTime();
+        try {
+            if (patch.has(MovieFields.ID) && !Objects.equals(patch.getId(), id)) {
+                throw new MovieValidationException("id", "The id of a movie cannot be changed");
+            }
+            long failed = VALIDATOR.check(patch.values(), patch.fields());
+            if (failed != 0) {
+                throw VALIDATOR.exception(failed);
+            }
+            Movie patched = id != null ? replace(id, patch::applyTo, expectedVersion) : null;
+            if (patched == null) {
+                throw new MovieNotFoundException(id);
             }
+            afterWrite();
+            return patched;
+        } finally {
+            time(OperationTimer.Operation.PATCH, start);
         }
-        throw new MovieNotFoundException(id);
+    }
+
+    /**
+     * Updates a batch of movies, each identified by its own id field.
+     * The whole batch is validated before any movie is written. As with
+     * addMovies(), each movie is then written on its own, and movies that
+     * are invalid or missing are reported without holding up the rest.
+     * @param movies The replacement movies, each with the id to update
+     * @param firstIndex Position of the first movie within the whole request
+     * @return One result per movie, in input order
+     */
+    public List<BulkItemResult> updateMovies(List<Movie> movies, int firstIndex) {
+        long start = System.nanoTime();
+        List<BulkItemResult> results = new ArrayList<>(movies.size());
+        for (int i = 0; i < movies.size(); i++) {
+            Movie movie = movies.get(i);
+            results.add(movie.getId() == null
+                    ? BulkItemResult.failure(firstIndex + i, null, HttpStatus.BAD_REQUEST.value(), "Movie id is required")
+                    : checkMovie(movie, firstIndex + i));
+        }
+        try {
+            for (int i = 0; i < movies.size(); i++) {
+                if (results.get(i) == null) {
+                    Movie movie = movies.get(i);
+                    results.set(i, replace(movie.getId(), movie, ANY_VERSION) != null
+                            ? BulkItemResult.success(firstIndex + i, movie.getId(), HttpStatus.OK.value())
+                            : notFound(firstIndex + i, movie.getId()));
+                }
+            }
+        } finally {
+            afterWrite();
+            time(OperationTimer.Operation.BULK_UPDATE, start);
+        }
+        return results;
     }
 
     /**
      * Deletes a movie by its ID
      * @param id The ID of the movie to delete
+     * @return The movie that was removed
+     * @throws MovieNotFoundException if movie is not found
+     */
+    public Movie deleteMovie(Long id) {
+        return deleteMovie(id, ANY_VERSION);
+    }
+
+    /**
+     * Deletes a movie only if it is still at the expected version
+     * @param id The ID of the movie to delete
+     * @param expectedVersion The version the caller last saw, or ANY_VERSION
+     * @return The movie that was removed
      * @throws MovieNotFoundException if movie is not found
+     * @throws PreconditionFailedException if the movie is at another version
      */
-    public void deleteMovie(Long id) {
-        boolean deleted = movieStore.removeIf(movie -> movie.getId().equals(id));
-        if (!deleted) {
-            throw new MovieNotFoundException(id);
+    public Movie deleteMovie(Long id, long expectedVersion) {
+        long start = System.nanoTime();
+        try {
+            Movie removed = id != null ? remove(id, expectedVersion) : null;
+            if (removed == null) {
+                throw new MovieNotFoundException(id);
+            }
+            afterWrite();
+            return removed;
+        } finally {
+            time(OperationTimer.Operation.DELETE, start);
         }
     }
 
     /**
-     * Validates movie data
-     * @param movie The movie to validate
-     * @throws MovieValidationException if validation fails
+     * Deletes a batch of movies, each on its own; missing ids are reported
+     * @param ids The ids to delete
+     * @param firstIndex Position of the first id within the whole request
+     * @return One result per id, in input order
      */
-    private void validateMovie(Movie movie) {
-        // Validate title
-        if (movie.getTitle() == null || movie.getTitle().trim().isEmpty()) {
-            throw new MovieValidationException("title", "Title is required and cannot be empty");
+    public List<BulkItemResult> deleteMovies(List<Long> ids, int firstIndex) {
+        long start = System.nanoTime();
+        List<BulkItemResult> results = new ArrayList<>(ids.size());
+        try {
+            for (int i = 0; i < ids.size(); i++) {
+                Long id = ids.get(i);
+                results.add(id != null && remove(id, ANY_VERSION) != null
+                        ? BulkItemResult.success(firstIndex + i, id, HttpStatus.OK.value())
+                        : notFound(firstIndex + i, id));
+            }
+        } finally {
+            afterWrite();
+            time(OperationTimer.Operation.BULK_DELETE, start);
         }
+        return results;
+    }
 
-        // Validate rating
-        if (movie.getRating() != null && (movie.getRating() < 0 || movie.getRating() > 10)) {
-            throw new MovieValidationException("rating", "Rating must be between 0 and 10");
+    /**
+     * Writes a validated movie whose id is already assigned, adding it or
+     * replacing whatever has that id
+     */
+    private void upsert(Movie movie) {
+        upsert(movie, false);
+    }
+
+    /**
+     * @param keepVersion Whether a version the movie already carries, e.g.
+     *                    its leader's, is kept instead of counting on from
+     *                    the one it replaces
+     */
+    private void upsert(Movie movie, boolean keepVersion) {
+        write(movie.getId(), false, (key, existing) -> {
+            if (!keepVersion || movie.getVersion() <= 0) {
+                movie.setVersion(existing != null ? existing.getVersion() + 1 : 1);
+            }
+            return movie;
+        });
+    }
+
+    /**
+     * @return The updated movie, or null if there was none to replace
+     * @throws PreconditionFailedException if the movie is not at expectedVersion
+     */
+    private Movie replace(long id, Movie updatedMovie, long expectedVersion) {
+        return replace(id, existing -> updatedMovie, expectedVersion);
+    }
+
+    /**
+     * Replaces a movie with what update makes of it. The indexes compare
+     * old and new values and skip every field that did not change.
+     * @return The updated movie, or null if there was none to replace
+     * @throws PreconditionFailedException if the movie is not at expectedVersion
+     */
+    private Movie replace(long id, UnaryOperator<Movie> update, long expectedVersion) {
+        MovieChange change = write(id, true, (key, existing) -> {
+            checkVersion(existing, expectedVersion);
+            Movie updatedMovie = update.apply(existing);
+            updatedMovie.setId(key);
+            updatedMovie.setVersion(existing.getVersion() + 1);
+            return updatedMovie;
+        });
+        return change != null ? change.getMovie() : null;
+    }
+
+    /**
+     * @return The movie that was removed, or null if there was none
+     * @throws PreconditionFailedException if the movie is not at expectedVersion
+     */
+    private Movie remove(long id, long expectedVersion) {
+        MovieChange change = write(id, true, (key, existing) -> {
+            checkVersion(existing, expectedVersion);
+            return null;
+        });
+        return change != null ? change.getMovie() : null;
+    }
+
+    private static void checkVersion(Movie existing, long expectedVersion) {
+        if (expectedVersion != ANY_VERSION && existing.getVersion() != expectedVersion) {
+            throw new PreconditionFailedException(existing.getId());
+        }
+    }
+
+    // What a write did inside the store's lock
+    private static final class PendingWrite {
+        long sequence;
+        MovieChange change;
+        Movie previous;
+    }
+
+    /**
+     * Writes one movie. All writes for one id go through the store's
+     * per-key lock; writers to other movies are never blocked. Inside the
+     * lock, remapping works out the new movie from the current one (null to
+     * delete) and the store and every listener's beforeChange() may still
+     * refuse it; only then is the change numbered and stored. The indexes,
+     * change feed, snapshot and listeners' onChange() follow once the lock
+     * is released, in sequence order, before this returns. A refused write
+     * changes nothing anywhere.
+     * @param id The movie id
+     * @param onlyIfPresent Whether to do nothing if there is no such movie
+     * @param remapping Given the id and current movie (or null), the new movie,
+     *                  or null to delete it; may throw to refuse the write
+     * @return The change made, or null if there was nothing to change
+     */
+    private MovieChange write(long id, boolean onlyIfPresent, BiFunction<Long, Movie, Movie> remapping) {
+        PendingWrite write = new PendingWrite();
+        try {
+            movieStore.compute(id, (key, existing) -> {
+                if (existing == null && onlyIfPresent) {
+                    return null;
+                }
+                Movie movie = remapping.apply(key, existing);
+                if (movie == null && existing == null) {
+                    return null;
+                }
+                MovieChange change = movie == null
+                        ? new MovieChange(MovieChange.Type.DELETED, key, existing)
+                        : new MovieChange(existing == null ? MovieChange.Type.CREATED : MovieChange.Type.UPDATED,
+                                key, movie);
+                if (movie != null) {
+                    movieStore.checkStorable(movie);
+                }
+                write.sequence = sequencer.next();
+                for (MovieChangeListener listener : changeListeners) {
+                    listener.beforeChange(write.sequence, change);
+                }
+                write.change = change;
+                write.previous = existing;
+                return movie;
+            });
+        } catch (RuntimeException | Error ex) {
+            if (write.sequence != 0) {
+                sequencer.cancel(write.sequence);
+            }
+            throw ex;
+        }
+        if (write.change == null) {
+            return null;
+        }
+        sequencer.publish(write.sequence, write.change, write.previous);
+        return write.change;
+    }
+
+    // Brings everything derived from the store up to date with one stored
+    // change. The sequencer calls it one change at a time, in sequence
+    // order, so changes to one movie arrive in the order they were made and
+    // the snapshot published here is versioned by the change's number.
+    // The change cannot be undone any more, so a failing listener is logged
+    // and the others are still told.
+    private void applyChange(long sequence, MovieChange change, Movie previous) {
+        Movie current = change.getType() != MovieChange.Type.DELETED ? change.getMovie() : null;
+        index(previous, current);
+        changeFeed.append(sequence, change);
+        changeIndex.record(sequence, change);
+        snapshot = snapshot.apply(sequence, previous, current);
+        for (MovieChangeListener listener : changeListeners) {
+            try {
+                listener.onChange(change);
+            } catch (RuntimeException ex) {
+                log.error("Change listener {} failed on change {} to movie {}",
+                        listener.getClass().getSimpleName(), sequence, change.getId(), ex);
+            }
+        }
+    }
+
+    // Brings the search index and the running summary up to date with
+    // one movie; previous or current is null when it is added or removed
+    private void index(Movie previous, Movie current) {
+        if (previous == null) {
+            fullTextIndex.add(current);
+            catalogSummary.add(current);
+        } else if (current == null) {
+            fullTextIndex.remove(previous);
+            catalogSummary.remove(previous);
+        } else {
+            fullTextIndex.replace(previous, current);
+            catalogSummary.replace(previous, current);
+        }
+    }
+
+    private void afterWrite() {
+        for (MovieChangeListener listener : changeListeners) {
+            listener.afterWrite();
+        }
+    }
+
+    /**
+     * Delta sync: the latest state of every movie changed after a version,
+     * with deleted movies as tombstones, oldest change first
+     * @param since The version returned by the client's previous sync
+     * @param limit Maximum number of changes to return
+     * @return The changes, or a resync instruction if since is unknown or
+     *         older than the retained tombstones
+     */
+    public SyncResponse getChangesSince(Long since, int limit) {
+        long start = System.nanoTime();
+        // Without since, the client loads the catalog, then syncs from here
+        SyncResponse response = changeIndex.changesSince(since != null ? since : Long.MIN_VALUE, limit);
+        time(OperationTimer.Operation.SYNC, start);
+        return response;
+    }
+
+    /**
+     * All catalog statistics at once, read from the running summaries
+     * @param percentiles Rating quantiles to report, or null for the defaults
+     * @return Counts per genre and decade, and the rating distribution
+     * @throws IllegalArgumentException if a percentile is outside 0..1
+     */
+    public StatsResponse getStats(List<Double> percentiles) {
+        return getStats(getStatsTotals(), percentiles);
+    }
+
+    /**
+     * Reports statistics from totals, e.g. those of every partition of a
+     * cluster added up with StatsTotals.merge()
+     * @param totals The totals to report
+     * @param percentiles Rating quantiles to report, or null for the defaults
+     * @return Counts per genre and decade, and the rating distribution
+     * @throws IllegalArgumentException if a percentile is outside 0..1
+     */
+    public StatsResponse getStats(StatsTotals totals, List<Double> percentiles) {
+        long start = System.nanoTime();
+        StatsResponse stats = CatalogSummary.stats(totals, checkPercentiles(percentiles));
+        time(OperationTimer.Operation.STATS, start);
+        return stats;
+    }
+
+    /**
+     * @return The raw running totals, which unlike the statistics derived
+     *         from them can be added to another partition's
+     */
+    public StatsTotals getStatsTotals() {
+        // Read first: the running totals may be newer than the version, never older
+        long version = getCatalogVersion();
+        return catalogSummary.totals(version);
+    }
+
+    /**
+     * @return Movie count and average rating per genre, largest genre first
+     */
+    public List<StatsResponse.GenreStats> getGenreStats() {
+        long start = System.nanoTime();
+        List<StatsResponse.GenreStats> genres = CatalogSummary.genres(getStatsTotals());
+        time(OperationTimer.Operation.STATS, start);
+        return genres;
+    }
+
+    /**
+     * @param percentiles Rating quantiles to report, or null for the defaults
+     * @return Count, average, percentiles and histogram of ratings
+     * @throws IllegalArgumentException if a percentile is outside 0..1
+     */
+    public StatsResponse.RatingStats getRatingStats(List<Double> percentiles) {
+        long start = System.nanoTime();
+        StatsResponse.RatingStats ratings = CatalogSummary.ratings(getStatsTotals(), checkPercentiles(percentiles));
+        time(OperationTimer.Operation.STATS, start);
+        return ratings;
+    }
+
+    /**
+     * @return Movie count per release decade, oldest first
+     */
+    public List<StatsResponse.DecadeStats> getDecadeStats() {
+        long start = System.nanoTime();
+        List<StatsResponse.DecadeStats> decades = CatalogSummary.decades(getStatsTotals());
+        time(OperationTimer.Operation.STATS, start);
+        return decades;
+    }
+
+    private static List<Double> checkPercentiles(List<Double> percentiles) {
+        if (percentiles == null || percentiles.isEmpty()) {
+            return DEFAULT_PERCENTILES;
+        }
+        if (percentiles.size() > MAX_PERCENTILES) {
+            throw new IllegalArgumentException("At most " + MAX_PERCENTILES + " percentiles can be requested");
+        }
+        for (Double q : percentiles) {
+            if (q == null || !(q >= 0 && q <= 1)) {
+                throw new IllegalArgumentException("percentiles must be between 0 and 1");
+            }
+        }
+        return percentiles;
+    }
+
+    private void time(OperationTimer.Operation operation, long start) {
+        operationTimer.record(operation, System.nanoTime() - start);
+    }
+
+    /**
+     * Sets where the duration of every public operation is reported
+     * @param operationTimer The timer, or OperationTimer.NONE
+     */
+    public void setOperationTimer(OperationTimer operationTimer) {
+        this.operationTimer = operationTimer;
+    }
+
+    /**
+     * @return The number of movies in the catalog
+     */
+    public int getMovieCount() {
+        return movieStore.size();
+    }
+
+    /**
+     * Rough heap footprint of the current snapshot's genre, year and rating
+     * indexes. Walks every trie node, so it is meant for metrics, not
+     * request paths.
+     * @return Estimated bytes
+     */
+    public long estimateAttributeIndexBytes() {
+        return snapshot.estimateIndexBytes();
+    }
+
+    /**
+     * Rough heap footprint of the full-text index; walks every posting list
+     * @return Estimated bytes
+     */
+    public long estimateFullTextIndexBytes() {
+        return fullTextIndex.estimateBytes();
+    }
+
+    /**
+     * @return The feed of recent changes, for change-data-capture consumers
+     */
+    public ChangeFeed getChangeFeed() {
+        return changeFeed;
+    }
+
+    /**
+     * Waits until every write already under way has been applied or
+     * refused, e.g. so that a snapshot taken next holds every change a
+     * listener has seen in beforeChange()
+     */
+    public void awaitPendingWrites() {
+        sequencer.await(sequencer.getAssigned());
+    }
+
+    /**
+     * Registers a listener for every subsequent mutation
+     * @param listener The listener to add
+     */
+    public void addChangeListener(MovieChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Replaces the whole catalog with state recovered from disk. Meant to
+     * run at startup, before any request is served. Movies are put in
+     * place at the versions they carry, without a change each: listeners
+     * are not told, and neither the change feed nor delta sync lists them.
+     * Only the changes logged since the saved snapshot are recorded for
+     * delta sync, under their own sequence numbers.
+     *
+     * Numbering never moves back: the catalog carries on above both
+     * lastSequence and every number this run handed out, since a change
+     * published but lost before it reached the disk may have had a number
+     * above lastSequence. A client that synced to horizon or later, up to
+     * lastSequence, is brought up to date; one at an older or a lost number
+     * is told to resync.
+     * @param movies The movies to load, each with its id and version set
+     * @param nextId The next id to hand out; raised if a loaded id needs it
+     * @param horizon The sequence number the saved snapshot covers, or 0
+     * @param logged The changes logged after the snapshot, by sequence
+     *               number, movies at their versions
+     * @param lastSequence The highest sequence number logged, or 0
+     */
+    public void loadMovies(Collection<Movie> movies, long nextId, long horizon,
+                           NavigableMap<Long, MovieChange> logged, long lastSequence) {
+        for (Movie existing : snapshot.movies(MovieFilter.NONE, null).toList()) {
+            load(existing.getId(), null);
+        }
+        long maxId = 0;
+        for (Movie movie : movies) {
+            load(movie.getId(), movie);
+            maxId = Math.max(maxId, movie.getId());
+        }
+        idCounter.set(Math.max(nextId, maxId + 1));
+
+        // The load takes a number of its own, so the catalog version moves on
+        long start = Math.max(lastSequence, sequencer.getAssigned()) + 1;
+        sequencer.skipTo(start);
+        changeFeed.resumeFrom(start);
+        changeIndex.resumeFrom(horizon);
+        for (Map.Entry<Long, MovieChange> change : logged.tailMap(horizon, false).entrySet()) {
+            changeIndex.record(change.getKey(), change.getValue());
+        }
+        changeIndex.skipTo(lastSequence, start);
+        snapshot = snapshot.atVersion(start);
+    }
+
+    // Puts a movie in place, or removes it if movie is null, with no
+    // change: no sequence number, listener, feed or delta-sync entry
+    private void load(long id, Movie movie) {
+        if (movie != null) {
+            movieStore.checkStorable(movie);
+        }
+        Movie[] previous = new Movie[1];
+        movieStore.compute(id, (key, existing) -> {
+            previous[0] = existing;
+            return movie;
+        });
+        if (previous[0] != null || movie != null) {
+            index(previous[0], movie);
+            snapshot = snapshot.apply(snapshot.getVersion(), previous[0], movie);
+        }
+    }
+
+    /**
+     * Makes this instance one partition of a larger catalog: movies whose
+     * ids it does not own are removed, and from then on it only hands out
+     * ids it owns. Listeners are notified of the removals like any delete.
+     * Meant to run at startup, before requests are served.
+     * @param owned Whether an id belongs to this instance
+     * @return The number of movies removed
+     */
+    public int partition(LongPredicate owned) {
+        this.ownedIds = owned;
+        int removed = 0;
+        try {
+            for (Movie movie : snapshot.movies(MovieFilter.NONE, null).toList()) {
+                if (!owned.test(movie.getId()) && remove(movie.getId(), ANY_VERSION) != null) {
+                    removed++;
+                }
+            }
+        } finally {
+            afterWrite();
+        }
+        return removed;
+    }
+
+    // The next id this instance may hand out
+    private long nextId() {
+        LongPredicate owned = ownedIds;
+        long id = idCounter.getAndIncrement();
+        while (owned != null && !owned.test(id)) {
+            id = idCounter.getAndIncrement();
         }
+        return id;
+    }
+
+    /**
+     * @return The version of the current snapshot, which moves on with
+     *         every add, update and delete
+     */
+    public long getCatalogVersion() {
+        return snapshot.getVersion();
+    }
+
+    /**
+     * Movie versions are only comparable within one epoch: a new run counts
+     * them again from 1, so clients must not match a version from another
+     * epoch. A replica serves its leader's versions under its leader's epoch.
+     * @return The epoch of the movie versions
+     */
+    public String getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Takes over another catalog's epoch, once this catalog holds that
+     * catalog's movies at their versions, e.g. after replaceCatalog()
+     * @param epoch The epoch, from the other catalog's getEpoch()
+     */
+    public void setEpoch(String epoch) {
+        this.epoch = epoch;
+    }
 
-        // Validate release year
-        if (movie.getReleaseYear() != null && (movie.getReleaseYear() < 1888 || movie.getReleaseYear() > 2100)) {
-            throw new MovieValidationException("releaseYear", 
-                "Release year must be between 1888 (first movie ever made) and 2100");
+    /**
+     * @return The id the next added movie will get
+     */
+    public long getNextId() {
+        return idCounter.get();
+    }
+
+    /**
+     * Imports movies keeping their ids: a movie whose id already exists
+     * replaces it, any other is added. Invalid movies are skipped. Writes
+     * go through the normal path (indexes, listeners) one chunk at a time.
+     * @param movies The movies to import, each with its id set
+     * @param nextId The next id of the source catalog; idCounter is raised to it
+     * @return The number of movies imported
+     */
+    public int importMovies(Iterator<Movie> movies, long nextId) {
+        return importMovies(movies, nextId, false);
+    }
+
+    // keepVersion as for upsert()
+    private int importMovies(Iterator<Movie> movies, long nextId, boolean keepVersion) {
+        long start = System.nanoTime();
+        int imported = 0;
+        int inChunk = 0;
+        long maxId = 0;
+        boolean complete = false;
+        // Movies imported before a failure are already published: their
+        // ids are still reserved and they are still made durable
+        try {
+            while (movies.hasNext()) {
+                Movie movie = movies.next();
+                if (movie.getId() == null || VALIDATOR.check(movie, MovieFields.ALL) != 0) {
+                    continue;
+                }
+                upsert(movie, keepVersion);
+                maxId = Math.max(maxId, movie.getId());
+                imported++;
+                if (++inChunk == IMPORT_CHUNK_SIZE) {
+                    afterWrite();
+                    inChunk = 0;
+                }
+            }
+            complete = true;
+        } finally {
+            long floor = complete ? Math.max(nextId, maxId + 1) : maxId + 1;
+            idCounter.accumulateAndGet(floor, Math::max);
+            afterWrite();
+            time(OperationTimer.Operation.IMPORT, start);
+        }
+        return imported;
+    }
+
+    /**
+     * Makes the catalog hold exactly the given movies, e.g. a replica
+     * catching up from its leader's snapshot. Movies are upserted first and
+     * the ones left over deleted afterwards, so readers never see the
+     * catalog empty or half loaded, only old and new movies side by side.
+     * Movies that carry a version keep it.
+     * @param movies The movies to hold, each with its id set
+     * @param nextId The next id of the source catalog; idCounter is raised to it
+     * @return The number of movies deleted because they were not in movies
+     */
+    public int replaceCatalog(Iterator<Movie> movies, long nextId) {
+        Set<Long> kept = new HashSet<>();
+        importMovies(new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return movies.hasNext();
+            }
+
+            @Override
+            public Movie next() {
+                Movie movie = movies.next();
+                if (movie.getId() != null) {
+                    kept.add(movie.getId());
+                }
+                return movie;
+            }
+        }, nextId, true);
+        int deleted = 0;
+        try {
+            for (Movie movie : snapshot.movies(MovieFilter.NONE, null).toList()) {
+                if (!kept.contains(movie.getId()) && remove(movie.getId(), ANY_VERSION) != null) {
+                    deleted++;
+                }
+            }
+        } finally {
+            afterWrite();
+        }
+        return deleted;
+    }
+
+    /**
+     * Applies changes made elsewhere, in order, e.g. a replica following
+     * its leader's log. A created or updated movie replaces whatever this
+     * catalog has under its id; deleting a missing movie does nothing, so
+     * a change applied twice leaves the same state. Movies that carry a
+     * version keep it.
+     * @param changes The changes, oldest first
+     */
+    public void applyChanges(List<MovieChange> changes) {
+        long start = System.nanoTime();
+        long maxId = 0;
+        try {
+            for (MovieChange change : changes) {
+                if (change.getType() == MovieChange.Type.DELETED) {
+                    remove(change.getId(), ANY_VERSION);
+                } else {
+                    Movie movie = change.getMovie();
+                    movie.setId(change.getId());
+                    upsert(movie, true);
+                }
+                maxId = Math.max(maxId, change.getId());
+            }
+        } finally {
+            idCounter.accumulateAndGet(maxId + 1, Math::max);
+            afterWrite();
+            time(OperationTimer.Operation.IMPORT, start);
+        }
+    }
+
+    /**
+     * Validates one movie of a batch
+     * @return null if the movie is valid, otherwise its failure result
+     */
+    private BulkItemResult checkMovie(Movie movie, int index) {
+        if (movie == null) {
+            return BulkItemResult.failure(index, null, HttpStatus.BAD_REQUEST.value(), "Movie cannot be null");
+        }
+        long failed = VALIDATOR.check(movie, MovieFields.ALL);
+        return failed == 0 ? null
+                : BulkItemResult.failure(index, movie.getId(), HttpStatus.BAD_REQUEST.value(), VALIDATOR.describe(failed));
+    }
+
+    private static BulkItemResult notFound(int index, Long id) {
+        return BulkItemResult.failure(index, id, HttpStatus.NOT_FOUND.value(), "Movie not found");
+    }
+
+    /**
+     * Validates movie data
+     * @param movie The movie to validate
+     * @throws MovieValidationException with every failed rule if validation fails
+     */
+    private void validateMovie(Movie movie) {
+        long failed = VALIDATOR.check(movie, MovieFields.ALL);
+        if (failed != 0) {
+            throw VALIDATOR.exception(failed);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.movieapi.service;
+
+import com.movieapi.model.Movie;
+
+import java.util.function.BiFunction;
+
+/**
+ * Primary storage of the catalog, keyed by movie id. Listings do not walk
+ * the store; they read MovieService's CatalogSnapshot.
+ * Reads never block. Writes to one id are serialized by compute(), which
+ * runs its function under that id's lock; MovieService numbers the change
+ * inside that function and updates its indexes once compute() returns.
+ */
+interface MovieStore {
+
+    /**
+     * @param id The movie id
+     * @return The movie, or null if there is none with that id
+     */
+    Movie get(long id);
+
+    /**
+     * Atomically replaces the movie with an id, like ConcurrentHashMap.compute()
+     * @param id The movie id
+     * @param remapping Given the id and the current movie (or null), returns
+     *                  the new movie, or null to remove it. If it throws,
+     *                  nothing is changed.
+     * @return The new movie, or null
+     */
+    Movie compute(long id, BiFunction<Long, Movie, Movie> remapping);
+
+    /**
+     * Like compute(), but the function only runs if the movie exists
+     */
+    default Movie computeIfPresent(long id, BiFunction<Long, Movie, Movie> remapping) {
+        return compute(id, (key, existing) -> existing != null ? remapping.apply(key, existing) : null);
+    }
+
+    /**
+     * Throws if this store could not hold a movie, so a write can be
+     * refused before anything is logged. compute() then stores it without
+     * failing. The default accepts every movie.
+     * @param movie The movie about to be stored
+     * @throws IllegalArgumentException if the movie cannot be stored
+     */
+    default void checkStorable(Movie movie) {
+    }
+
+    /**
+     * @return The number of movies
+     */
+    int size();
+}
@@ -0,0 +1,31 @@
+package com.movieapi.service;
+
+import com.movieapi.model.Movie;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * The default MovieStore: Movie objects in a concurrent map keyed by id,
+ * so lookups, updates and deletes are O(1).
+ */
+class ObjectMovieStore implements MovieStore {
+
+    // Primary in-memory data store, keyed by movie id
+    private final ConcurrentHashMap<Long, Movie> movies = new ConcurrentHashMap<>();
+
+    @Override
+    public Movie get(long id) {
+        return movies.get(id);
+    }
+
+    @Override
+    public Movie compute(long id, BiFunction<Long, Movie, Movie> remapping) {
+        return movies.compute(id, remapping);
+    }
+
+    @Override
+    public int size() {
+        return movies.size();
+    }
+}
@@ -0,0 +1,30 @@
+package com.movieapi.service;
+
+/**
+ * Receives how long each MovieService operation took, e.g. to feed
+ * metrics. Register with MovieService.setOperationTimer().
+ */
+@FunctionalInterface
+public interface OperationTimer {
+
+    /**
+     * The timed operations
+     */
+    enum Operation {
+        CREATE, READ, LIST, SEARCH, UPDATE, PATCH, DELETE, BULK_CREATE, BULK_UPDATE, BULK_DELETE, IMPORT, SYNC, STATS
+    }
+
+    /**
+     * Discards every timing
+     */
+    OperationTimer NONE = (operation, nanos) -> {
+    };
+
+    /**
+     * Called on the calling thread once an operation returns or throws.
+     * It sits on every request's path, so it must not block or allocate.
+     * @param operation The operation that ran
+     * @param nanos How long it took, in nanoseconds
+     */
+    void record(Operation operation, long nanos);
+}
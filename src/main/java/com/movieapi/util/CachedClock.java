@@ -0,0 +1,34 @@
+package com.movieapi.util;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Wall clock with millisecond resolution for response timestamps.
+ * Requests arriving within the same millisecond share one LocalDateTime
+ * instead of each building their own.
+ */
+public final class CachedClock {
+
+    private record Tick(long millis, LocalDateTime time) {}
+
+    private static volatile Tick tick = new Tick(Long.MIN_VALUE, null);
+
+    private CachedClock() {
+    }
+
+    /**
+     * Returns the current local date-time, truncated to the millisecond
+     * @return The current time
+     */
+    public static LocalDateTime now() {
+        long millis = System.currentTimeMillis();
+        Tick current = tick;
+        if (current.millis() != millis) {
+            current = new Tick(millis, LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault()));
+            tick = current;
+        }
+        return current.time();
+    }
+}
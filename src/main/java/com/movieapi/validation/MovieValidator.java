@@ -0,0 +1,212 @@
+package com.movieapi.validation;
+
+import com.movieapi.exception.MovieValidationException;
+import com.movieapi.model.Movie;
+import com.movieapi.model.MovieFields;
+
+import java.util.List;
+
+/**
+ * Validation rules for movies, written as a table and compiled once into
+ * parallel arrays. check() walks those arrays with no reflection, no
+ * exceptions and no allocation, and reports every failed rule in one pass
+ * as a bit mask, so bulk writes can run it in a tight loop. Messages and
+ * exceptions are only built for movies that fail.
+ *
+ * The same compiled rules serve single writes, bulk writes and imports,
+ * and patches, which check only the fields they set.
+ */
+public final class MovieValidator {
+
+    /**
+     * What a rule checks
+     */
+    public enum Check {
+        // Not null and not only whitespace
+        REQUIRED_TEXT,
+        // Null, or a number within [min, max]
+        RANGE
+    }
+
+    /**
+     * One row of the rule table
+     * @param field MovieFields bit of the field checked
+     * @param name The field's name in JSON bodies and error responses
+     * @param check What is checked
+     * @param min Lower bound of a RANGE rule, inclusive
+     * @param max Upper bound of a RANGE rule, inclusive
+     * @param message The error message when the check fails
+     */
+    public record Rule(int field, String name, Check check, double min, double max, String message) {
+
+        public static Rule required(int field, String name, String message) {
+            return new Rule(field, name, Check.REQUIRED_TEXT, 0, 0, message);
+        }
+
+        public static Rule range(int field, String name, double min, double max, String message) {
+            return new Rule(field, name, Check.RANGE, min, max, message);
+        }
+    }
+
+    /**
+     * The rules every movie must pass
+     */
+    public static final List<Rule> MOVIE_RULES = List.of(
+            Rule.required(MovieFields.TITLE, "title", "Title is required and cannot be empty"),
+            Rule.range(MovieFields.RATING, "rating", 0, 10, "Rating must be between 0 and 10"),
+            Rule.range(MovieFields.RELEASE_YEAR, "releaseYear", 1888, 2100,
+                    "Release year must be between 1888 (first movie ever made) and 2100"));
+
+    private static final int REQUIRED_TEXT = 0;
+    private static final int RANGE = 1;
+
+    // Text fields and number fields, for checking rules when compiling
+    private static final int TEXT_FIELDS = MovieFields.TITLE | MovieFields.DESCRIPTION | MovieFields.GENRE;
+    private static final int NUMBER_FIELDS = MovieFields.RELEASE_YEAR | MovieFields.RATING;
+
+    // One entry per rule, in table order; bit r of a result is rule r
+    private final int[] fields;
+    private final int[] checks;
+    private final double[] mins;
+    private final double[] maxs;
+    private final String[] names;
+    private final String[] messages;
+
+    private MovieValidator(List<Rule> rules) {
+        int size = rules.size();
+        this.fields = new int[size];
+        this.checks = new int[size];
+        this.mins = new double[size];
+        this.maxs = new double[size];
+        this.names = new String[size];
+        this.messages = new String[size];
+        for (int r = 0; r < size; r++) {
+            Rule rule = rules.get(r);
+            fields[r] = rule.field();
+            checks[r] = rule.check() == Check.REQUIRED_TEXT ? REQUIRED_TEXT : RANGE;
+            mins[r] = rule.min();
+            maxs[r] = rule.max();
+            names[r] = rule.name();
+            messages[r] = rule.message();
+        }
+    }
+
+    /**
+     * Compiles a rule table
+     * @param rules The rules, in the order their errors are reported
+     * @return The validator
+     * @throws IllegalArgumentException if there are more than 64 rules or a
+     *         rule does not fit its field, e.g. a range on a text field
+     */
+    public static MovieValidator compile(List<Rule> rules) {
+        if (rules.size() > Long.SIZE) {
+            throw new IllegalArgumentException("At most " + Long.SIZE + " rules are supported");
+        }
+        for (Rule rule : rules) {
+            int allowed = rule.check() == Check.REQUIRED_TEXT ? TEXT_FIELDS : NUMBER_FIELDS;
+            if (Integer.bitCount(rule.field()) != 1 || (rule.field() & allowed) == 0) {
+                throw new IllegalArgumentException("Rule " + rule.check() + " cannot apply to field " + rule.name());
+            }
+            if (rule.check() == Check.RANGE && !(rule.min() <= rule.max())) {
+                throw new IllegalArgumentException("Rule for " + rule.name() + " has an empty range");
+            }
+        }
+        return new MovieValidator(rules);
+    }
+
+    /**
+     * Checks the given fields of a movie against every rule on them
+     * @param movie The movie
+     * @param mask MovieFields bits of the fields to check, e.g. MovieFields.ALL
+     * @return Bit r set for every rule r that failed; 0 if the movie is valid
+     */
+    public long check(Movie movie, int mask) {
+        int[] fields = this.fields;
+        int[] checks = this.checks;
+        long failed = 0;
+        for (int r = 0; r < fields.length; r++) {
+            int field = fields[r];
+            if ((mask & field) != 0 && !(checks[r] == REQUIRED_TEXT
+                    ? hasText(text(movie, field))
+                    : inRange(movie, field, mins[r], maxs[r]))) {
+                failed |= 1L << r;
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * @param failed A non-zero result of check()
+     * @return The exception to throw for it, carrying every failed rule
+     */
+    public MovieValidationException exception(long failed) {
+        int count = Long.bitCount(failed);
+        String[] failedNames = new String[count];
+        String[] failedMessages = new String[count];
+        int i = 0;
+        for (long rest = failed; rest != 0; rest &= rest - 1) {
+            int r = Long.numberOfTrailingZeros(rest);
+            failedNames[i] = names[r];
+            failedMessages[i++] = messages[r];
+        }
+        return new MovieValidationException(failedNames, failedMessages);
+    }
+
+    /**
+     * @param failed A non-zero result of check()
+     * @return The messages of every failed rule, for a bulk item result
+     */
+    public String describe(long failed) {
+        if (Long.bitCount(failed) == 1) {
+            return messages[Long.numberOfTrailingZeros(failed)];
+        }
+        StringBuilder description = new StringBuilder();
+        for (long rest = failed; rest != 0; rest &= rest - 1) {
+            if (description.length() > 0) {
+                description.append("; ");
+            }
+            description.append(messages[Long.numberOfTrailingZeros(rest)]);
+        }
+        return description.toString();
+    }
+
+    private static String text(Movie movie, int field) {
+        return switch (field) {
+            case MovieFields.TITLE -> movie.getTitle();
+            case MovieFields.DESCRIPTION -> movie.getDescription();
+            default -> movie.getGenre();
+        };
+    }
+
+    // Same as !value.trim().isEmpty(), without the copy trim() may make
+    private static boolean hasText(String value) {
+        if (value == null) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Null is allowed; NaN is never in range
+    private static boolean inRange(Movie movie, int field, double min, double max) {
+        double number;
+        if (field == MovieFields.RATING) {
+            Double rating = movie.getRating();
+            if (rating == null) {
+                return true;
+            }
+            number = rating;
+        } else {
+            Integer releaseYear = movie.getReleaseYear();
+            if (releaseYear == null) {
+                return true;
+            }
+            number = releaseYear;
+        }
+        return number >= min && number <= max;
+    }
+}
@@ -0,0 +1,61 @@
+package com.movieapi.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movieapi.model.Movie;
+import com.movieapi.service.MovieService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MovieResponseCacheTests {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private MovieResponseCache cache(boolean enabled) {
+		// 1 KB leaves 64 bytes per listing entry
+		return new MovieResponseCache(new MovieService(), objectMapper, new Jackson2ObjectMapperBuilder(),
+				new SimpleMeterRegistry(), enabled, DataSize.ofKilobytes(1));
+	}
+
+	@Test
+	void aListingTooBigToCacheIsStreamedToTheTarget() throws Exception {
+		MovieResponseCache cache = cache(true);
+		List<Movie> movies = new MovieService().getAllMovies();
+		ByteArrayOutputStream target = new ByteArrayOutputStream();
+
+		assertNull(cache.writeListing("all", 7, BodyFormat.JSON, movies, () -> target));
+		assertArrayEquals(objectMapper.writeValueAsBytes(movies), target.toByteArray());
+		assertNull(cache.cachedListing("all", 7, BodyFormat.JSON));
+	}
+
+	@Test
+	void aSmallListingIsReturnedAndCached() throws Exception {
+		MovieResponseCache cache = cache(true);
+		byte[] body = cache.writeListing("none", 7, BodyFormat.JSON, List.of(), () -> {
+			throw new AssertionError("A listing that fits is not streamed");
+		});
+
+		assertEquals("[]", new String(body));
+		assertArrayEquals(body, cache.cachedListing("none", 7, BodyFormat.JSON));
+		// Another catalog version is a miss
+		assertNull(cache.cachedListing("none", 8, BodyFormat.JSON));
+	}
+
+	@Test
+	void everyListingIsStreamedWhileTheCacheIsDisabled() throws Exception {
+		MovieResponseCache cache = cache(false);
+		ByteArrayOutputStream target = new ByteArrayOutputStream();
+
+		assertNull(cache.writeListing("none", 7, BodyFormat.JSON, List.of(), () -> target));
+		assertEquals("[]", target.toString());
+		assertNull(cache.cachedListing("none", 7, BodyFormat.JSON));
+	}
+}
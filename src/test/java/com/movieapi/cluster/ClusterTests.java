@@ -0,0 +1,137 @@
+package com.movieapi.cluster;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movieapi.MovieApiApplication;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Three nodes on localhost, each owning a third of the ids
+ */
+class ClusterTests {
+
+	private static final ObjectMapper JSON = new ObjectMapper();
+	private static final HttpClient CLIENT = HttpClient.newHttpClient();
+
+	private static final List<String> NODES = new ArrayList<>();
+	private static final List<ConfigurableApplicationContext> CONTEXTS = new ArrayList<>();
+
+	@BeforeAll
+	static void startCluster() throws IOException {
+		for (int i = 0; i < 3; i++) {
+			try (ServerSocket socket = new ServerSocket(0)) {
+				NODES.add("http://localhost:" + socket.getLocalPort());
+			}
+		}
+		for (String node : NODES) {
+			// As arguments, which override application.properties
+			CONTEXTS.add(new SpringApplicationBuilder(MovieApiApplication.class).run(
+					"--server.port=" + URI.create(node).getPort(),
+					"--movie.cluster.enabled=true",
+					"--movie.cluster.nodes=" + String.join(",", NODES),
+					"--movie.cluster.self=" + node,
+					"--movie.cluster.secret=test-secret"));
+		}
+	}
+
+	@AfterAll
+	static void stopCluster() {
+		CONTEXTS.forEach(ConfigurableApplicationContext::close);
+	}
+
+	@Test
+	void everyNodeServesTheWholeCatalog() throws Exception {
+		// The sample movies were kept by their owners only, so they appear once
+		assertEquals(List.of(1L, 2L, 3L), ids(get(NODES.get(0), "/api/movies")));
+
+		for (int i = 0; i < 12; i++) {
+			String body = "{\"title\":\"Cluster Movie " + i + "\",\"genre\":\"Drama\",\"releaseYear\":2001,\"rating\":"
+					+ (5 + i % 5) + "}";
+			HttpResponse<String> created = send(NODES.get(i % 3), "/api/movies", "POST", body);
+			assertEquals(201, created.statusCode());
+		}
+		List<Long> all = ids(get(NODES.get(2), "/api/movies"));
+		assertEquals(15, all.size());
+		for (int i = 1; i < all.size(); i++) {
+			assertTrue(all.get(i - 1) < all.get(i), "listing is in id order: " + all);
+		}
+		for (String node : NODES) {
+			assertEquals(all, ids(get(node, "/api/movies")));
+		}
+
+		// Pages merge the same way
+		List<Long> paged = new ArrayList<>();
+		String cursor = null;
+		do {
+			JsonNode page = get(NODES.get(1), "/api/movies?limit=4" + (cursor != null ? "&cursor=" + cursor : ""));
+			page.get("data").forEach(movie -> paged.add(movie.get("id").asLong()));
+			cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+		} while (cursor != null);
+		assertEquals(all, paged);
+
+		// Any node reads, updates and deletes any movie
+		for (long id : all) {
+			for (String node : NODES) {
+				assertEquals(id, get(node, "/api/movies/" + id).get("id").asLong());
+			}
+		}
+		long last = all.get(all.size() - 1);
+		for (String node : NODES) {
+			HttpResponse<String> updated = send(node, "/api/movies/" + last, "PUT",
+					"{\"title\":\"Renamed\",\"genre\":\"Comedy\",\"releaseYear\":1999,\"rating\":7.5}");
+			assertEquals(200, updated.statusCode());
+		}
+		HttpResponse<String> renamed = send(NODES.get(0), "/api/movies/" + last, "GET", null);
+		assertEquals("Renamed", JSON.readTree(renamed.body()).get("title").asText());
+		// Three updates, wherever they arrived, went to one copy of the movie
+		assertTrue(renamed.headers().firstValue("ETag").orElseThrow().endsWith("-" + last + "-4\""));
+		assertEquals(200, send(NODES.get(1), "/api/movies/" + all.get(0), "DELETE", null).statusCode());
+		assertEquals(404, send(NODES.get(2), "/api/movies/" + all.get(0), "GET", null).statusCode());
+
+		// Search and stats span every partition
+		assertEquals("Inception", get(NODES.get(2), "/api/movies/search?q=dream").get(0).get("title").asText());
+		JsonNode stats = get(NODES.get(0), "/api/movies/stats");
+		assertEquals(14, stats.get("count").asLong());
+		assertEquals(stats.get("count"), get(NODES.get(1), "/api/movies/stats").get("count"));
+		assertEquals("Drama", get(NODES.get(1), "/api/movies/stats/genres").get(0).get("genre").asText());
+
+		// Partition endpoints are for peers only
+		assertEquals(403, send(NODES.get(0), PartitionController.PATH + "/stats", "GET", null).statusCode());
+	}
+
+	private static JsonNode get(String node, String path) throws Exception {
+		HttpResponse<String> response = send(node, path, "GET", null);
+		assertEquals(200, response.statusCode(), response.body());
+		return JSON.readTree(response.body());
+	}
+
+	private static HttpResponse<String> send(String node, String path, String method, String body) throws Exception {
+		HttpRequest request = HttpRequest.newBuilder(URI.create(node + path))
+				.header("Content-Type", "application/json")
+				.method(method, body != null ? HttpRequest.BodyPublishers.ofString(body) : HttpRequest.BodyPublishers.noBody())
+				.build();
+		return CLIENT.send(request, HttpResponse.BodyHandlers.ofString());
+	}
+
+	private static List<Long> ids(JsonNode movies) {
+		List<Long> ids = new ArrayList<>();
+		movies.forEach(movie -> ids.add(movie.get("id").asLong()));
+		return ids;
+	}
+}
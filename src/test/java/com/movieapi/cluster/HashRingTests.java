@@ -0,0 +1,53 @@
+package com.movieapi.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashRingTests {
+
+	@Test
+	void spreadsIdsEvenlyAndMovesFewWhenANodeJoins() {
+		List<String> three = List.of("http://a:8080", "http://b:8080", "http://c:8080");
+		HashRing ring = new HashRing(three, 128);
+		int ids = 300_000;
+		Map<String, Integer> counts = new HashMap<>();
+		for (long id = 1; id <= ids; id++) {
+			counts.merge(ring.owner(id), 1, Integer::sum);
+		}
+		assertEquals(3, counts.size());
+		for (int count : counts.values()) {
+			// Within 15% of a third
+			assertTrue(Math.abs(count - ids / 3) < ids / 3 * 0.15, counts.toString());
+		}
+
+		// Same list in another order: same owners
+		HashRing shuffled = new HashRing(List.of("http://c:8080", "http://a:8080", "http://b:8080"), 128);
+		HashRing four = new HashRing(List.of("http://a:8080", "http://b:8080", "http://c:8080", "http://d:8080"), 128);
+		int moved = 0;
+		for (long id = 1; id <= ids; id++) {
+			String owner = ring.owner(id);
+			assertEquals(owner, shuffled.owner(id));
+			String newOwner = four.owner(id);
+			if (!newOwner.equals(owner)) {
+				// Only ever to the new node
+				assertEquals("http://d:8080", newOwner);
+				moved++;
+			}
+		}
+		// About a quarter of the ids move
+		assertTrue(Math.abs(moved - ids / 4) < ids / 4 * 0.2, "moved " + moved);
+	}
+
+	@Test
+	void rejectsEmptyOrDuplicateMembership() {
+		assertThrows(IllegalArgumentException.class, () -> new HashRing(List.of(), 128));
+		assertThrows(IllegalArgumentException.class, () -> new HashRing(List.of("http://a", "http://a"), 128));
+	}
+}
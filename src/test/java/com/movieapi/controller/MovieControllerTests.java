@@ -0,0 +1,305 @@
+package com.movieapi.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.jayway.jsonpath.JsonPath;
+import com.movieapi.cache.BodyFormat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class MovieControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void plainListingStaysAJsonArray() throws Exception {
+		mockMvc.perform(get("/api/movies"))
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+				.andExpect(jsonPath("$.length()").value(3));
+	}
+
+	@Test
+	void cursorWalksThePages() throws Exception {
+		mockMvc.perform(get("/api/movies").param("limit", "2"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data.length()").value(2))
+				.andExpect(jsonPath("$.nextCursor").value(2))
+				.andExpect(jsonPath("$.hasMore").value(true));
+
+		mockMvc.perform(get("/api/movies").param("limit", "2").param("cursor", "2"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data[0].id").value(3))
+				.andExpect(jsonPath("$.nextCursor").value(nullValue()));
+
+		mockMvc.perform(get("/api/movies").param("limit", "0"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void ndjsonStreamsOneMoviePerLine() throws Exception {
+		MvcResult result = mockMvc.perform(get("/api/movies").accept("application/x-ndjson").param("minRating", "9"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		String body = mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+
+		String[] lines = body.split("\n");
+		assertEquals(2, lines.length);
+		assertEquals('{', lines[0].charAt(0));
+		assertEquals('{', lines[1].charAt(0));
+	}
+
+	@Test
+	void bulkAddReportsEachItem() throws Exception {
+		mockMvc.perform(post("/api/movies/bulk").contentType(MediaType.APPLICATION_JSON)
+						.content("[{\"title\":\"Up\",\"rating\":8.3},{\"title\":\"\"},{\"title\":\"Coco\"}]"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.total").value(3))
+				.andExpect(jsonPath("$.succeeded").value(2))
+				.andExpect(jsonPath("$.items[0].id").value(4))
+				.andExpect(jsonPath("$.items[1].status").value(400))
+				.andExpect(jsonPath("$.items[2].id").value(5));
+
+		mockMvc.perform(post("/api/movies/bulk").contentType("application/x-ndjson")
+						.content("{\"title\":\"Soul\"}\n{\"title\":\"Cars\"}\n{oops\n"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.succeeded").value(2))
+				.andExpect(jsonPath("$.items[2].error").value("Malformed JSON"));
+
+		mockMvc.perform(delete("/api/movies/bulk").contentType(MediaType.APPLICATION_JSON).content("[1, 99]"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.items[0].status").value(200))
+				.andExpect(jsonPath("$.items[1].status").value(404));
+	}
+
+	@Test
+	void exportedCatalogImportsBack() throws Exception {
+		MvcResult export = mockMvc.perform(get("/api/movies/export"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		byte[] catalog = mockMvc.perform(asyncDispatch(export))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsByteArray();
+
+		mockMvc.perform(delete("/api/movies/2")).andExpect(status().isOk());
+		mockMvc.perform(post("/api/movies/import").contentType("application/vnd.movieapi.catalog").content(catalog))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.details").value("3 of 3 movies have been imported."));
+		mockMvc.perform(get("/api/movies/2"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.title").value("Inception"));
+
+		mockMvc.perform(post("/api/movies/import").contentType(MediaType.APPLICATION_OCTET_STREAM).content(new byte[] {1, 2, 3}))
+				.andExpect(status().isBadRequest());
+
+		// Corrupt files are refused whole, before any movie is imported
+		byte[] pastTheHeap = catalog.clone();
+		ByteBuffer.wrap(pastTheHeap).putLong(pastTheHeap.length - 8, Long.MAX_VALUE);
+		byte[] unsorted = catalog.clone();
+		ByteBuffer.wrap(unsorted).putLong(40, 1);
+		byte[] truncated = Arrays.copyOf(catalog, catalog.length - 16);
+		for (byte[] corrupt : List.of(pastTheHeap, unsorted, truncated)) {
+			mockMvc.perform(delete("/api/movies/2")).andExpect(status().isOk());
+			mockMvc.perform(post("/api/movies/import").contentType("application/vnd.movieapi.catalog").content(corrupt))
+					.andExpect(status().isBadRequest());
+			mockMvc.perform(get("/api/movies/2")).andExpect(status().isNotFound());
+			mockMvc.perform(post("/api/movies/import").contentType("application/vnd.movieapi.catalog").content(catalog))
+					.andExpect(status().isOk());
+		}
+	}
+
+	@Test
+	void etagsDriveConditionalRequests() throws Exception {
+		String etag = mockMvc.perform(get("/api/movies/1"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader("ETag");
+		mockMvc.perform(get("/api/movies/1").header("If-None-Match", etag))
+				.andExpect(status().isNotModified())
+				.andExpect(content().string(""));
+
+		String listTag = mockMvc.perform(get("/api/movies")).andReturn().getResponse().getHeader("ETag");
+		mockMvc.perform(get("/api/movies").header("If-None-Match", listTag))
+				.andExpect(status().isNotModified());
+
+		String body = "{\"title\":\"Shawshank\",\"rating\":9.3}";
+		String newTag = mockMvc.perform(put("/api/movies/1").contentType(MediaType.APPLICATION_JSON)
+						.header("If-Match", etag).content(body))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader("ETag");
+		mockMvc.perform(put("/api/movies/1").contentType(MediaType.APPLICATION_JSON)
+						.header("If-Match", etag).content(body))
+				.andExpect(status().isPreconditionFailed());
+		mockMvc.perform(delete("/api/movies/1").header("If-Match", etag))
+				.andExpect(status().isPreconditionFailed());
+
+		mockMvc.perform(get("/api/movies/1").header("If-None-Match", etag))
+				.andExpect(status().isOk())
+				.andExpect(header().string("ETag", newTag))
+				.andExpect(jsonPath("$.title").value("Shawshank"));
+		mockMvc.perform(get("/api/movies").header("If-None-Match", listTag))
+				.andExpect(status().isOk());
+		mockMvc.perform(delete("/api/movies/1").header("If-Match", newTag))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void mergePatchChangesOnlyTheGivenFields() throws Exception {
+		String etag = mockMvc.perform(get("/api/movies/2")).andReturn().getResponse().getHeader("ETag");
+		mockMvc.perform(patch("/api/movies/2").contentType(MovieController.MERGE_PATCH_VALUE)
+						.content("{\"rating\":9.1,\"genre\":null}"))
+				.andExpect(status().isOk())
+				.andExpect(header().exists(MovieController.CATALOG_VERSION))
+				.andExpect(jsonPath("$.data.title").value("Inception"))
+				.andExpect(jsonPath("$.data.rating").value(9.1))
+				.andExpect(jsonPath("$.data.genre").value(nullValue()));
+		mockMvc.perform(get("/api/movies/2"))
+				.andExpect(jsonPath("$.releaseYear").value(2010))
+				.andExpect(jsonPath("$.genre").value(nullValue()));
+		mockMvc.perform(get("/api/movies/search").param("q", "dream"))
+				.andExpect(jsonPath("$[0].rating").value(9.1));
+
+		// Only the patched fields are validated, and an old ETag no longer matches
+		mockMvc.perform(patch("/api/movies/2").contentType(MovieController.MERGE_PATCH_VALUE)
+						.content("{\"title\":null}"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.validationErrors[0].field").value("title"));
+		mockMvc.perform(patch("/api/movies/2").contentType(MovieController.MERGE_PATCH_VALUE)
+						.content("{\"id\":3}"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(patch("/api/movies/2").contentType(MovieController.MERGE_PATCH_VALUE)
+						.header("If-Match", etag).content("{\"rating\":5}"))
+				.andExpect(status().isPreconditionFailed());
+		mockMvc.perform(patch("/api/movies/999").contentType(MediaType.APPLICATION_JSON).content("{\"rating\":5}"))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void cachedBodiesFollowWritesAndReportMetrics() throws Exception {
+		mockMvc.perform(get("/api/movies/2")).andExpect(jsonPath("$.title").value("Inception"));
+		mockMvc.perform(get("/api/movies")).andExpect(jsonPath("$[1].title").value("Inception"));
+
+		mockMvc.perform(put("/api/movies/2").contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"Tenet\"}"))
+				.andExpect(status().isOk());
+
+		mockMvc.perform(get("/api/movies/2")).andExpect(jsonPath("$.title").value("Tenet"));
+		mockMvc.perform(get("/api/movies")).andExpect(jsonPath("$[1].title").value("Tenet"));
+		mockMvc.perform(get("/actuator/metrics/cache.gets").param("tag", "cache:movie.responses"))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void preEncodedErrorsMatchTheErrorResponseShape() throws Exception {
+		mockMvc.perform(get("/api/movies/999"))
+				.andExpect(status().isNotFound())
+				.andExpect(content().contentType(MediaType.APPLICATION_JSON))
+				.andExpect(jsonPath("$.status").value(404))
+				.andExpect(jsonPath("$.error").value("Not Found"))
+				.andExpect(jsonPath("$.message").value("Movie not found with id: 999"))
+				.andExpect(jsonPath("$.path").value("/api/movies/999"))
+				.andExpect(jsonPath("$.timestamp").isString());
+
+		mockMvc.perform(post("/api/movies").contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"Bad\",\"rating\":11}"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.error").value("Validation Error"))
+				.andExpect(jsonPath("$.validationErrors[0].field").value("rating"))
+				.andExpect(jsonPath("$.validationErrors[0].message").value("Rating must be between 0 and 10"));
+
+		mockMvc.perform(delete("/api/movies/1"))
+				.andExpect(jsonPath("$.details").value("The movie 'The Shawshank Redemption' has been removed from the collection."));
+		mockMvc.perform(delete("/api/movies/1")).andExpect(status().isNotFound());
+	}
+
+	@Test
+	void everyFailedRuleIsReported() throws Exception {
+		mockMvc.perform(post("/api/movies").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"title\":\" \",\"rating\":11,\"releaseYear\":1700}"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.error").value("Validation Error"))
+				.andExpect(jsonPath("$.message").value("Title is required and cannot be empty"))
+				.andExpect(jsonPath("$.validationErrors.length()").value(3))
+				.andExpect(jsonPath("$.validationErrors[1].field").value("rating"))
+				.andExpect(jsonPath("$.validationErrors[2].field").value("releaseYear"));
+		mockMvc.perform(patch("/api/movies/2").contentType(MovieController.MERGE_PATCH_VALUE)
+						.content("{\"rating\":-1,\"releaseYear\":3000}"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.validationErrors.length()").value(2));
+	}
+
+	@Test
+	void deltaSyncSharesThePathWithTheEventStream() throws Exception {
+		MvcResult bootstrap = mockMvc.perform(get("/api/movies/changes"))
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+				.andExpect(jsonPath("$.resync").value(true))
+				.andReturn();
+		String version = JsonPath.read(bootstrap.getResponse().getContentAsString(), "$.version").toString();
+
+		mockMvc.perform(delete("/api/movies/2"))
+				.andExpect(status().isOk());
+
+		mockMvc.perform(get("/api/movies/changes").param("since", version))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.resync").value(false))
+				.andExpect(jsonPath("$.changes[0].id").value(2))
+				.andExpect(jsonPath("$.changes[0].deleted").value(true));
+	}
+
+	@Test
+	void smileIsServedOnlyToClientsThatAskForIt() throws Exception {
+		ObjectMapper smile = new ObjectMapper(new SmileFactory());
+
+		byte[] movie = mockMvc.perform(get("/api/movies/1").accept(BodyFormat.SMILE_VALUE))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(BodyFormat.SMILE_VALUE))
+				.andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+				.andReturn().getResponse().getContentAsByteArray();
+		assertEquals(1, smile.readTree(movie).get("id").asInt());
+
+		byte[] listing = mockMvc.perform(get("/api/movies")
+						.header(HttpHeaders.ACCEPT, "application/x-jackson-smile, application/json;q=0.5"))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(BodyFormat.SMILE_VALUE))
+				.andReturn().getResponse().getContentAsByteArray();
+		assertEquals(3, smile.readTree(listing).size());
+
+		mockMvc.perform(get("/api/movies/1").header(HttpHeaders.ACCEPT, "application/json, application/x-jackson-smile;q=0.1"))
+				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+				.andExpect(jsonPath("$.id").value(1));
+
+		mockMvc.perform(get("/api/movies/search").param("q", "dream").accept(BodyFormat.SMILE_VALUE))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(BodyFormat.SMILE_VALUE));
+	}
+}
@@ -0,0 +1,45 @@
+package com.movieapi.controller;
+
+import com.movieapi.model.Movie;
+import com.movieapi.service.MovieService;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MovieETagsTests {
+
+	private final MovieService movieService = new MovieService();
+	private final MovieETags etags = new MovieETags(movieService);
+
+	@Test
+	void ifMatchResolvesToTheVersionItNames() {
+		Movie movie = new Movie(7L, "Heat", null, null, null, null);
+		movie.setVersion(3);
+		String etag = etags.forMovie(movie);
+
+		assertEquals(3, etags.expectedVersion(etag, 7L));
+		assertEquals(3, etags.expectedVersion("\"other\", " + etag, 7L));
+		assertEquals(MovieService.ANY_VERSION, etags.expectedVersion(null, 7L));
+		assertEquals(MovieService.ANY_VERSION, etags.expectedVersion(" * ", 7L));
+		// Another movie's tag, or a weak one, never matches
+		assertEquals(0, etags.expectedVersion(etag, 8L));
+		assertEquals(0, etags.expectedVersion("W/" + etag, 7L));
+		// No id: the write fails on the missing movie, not here
+		assertEquals(MovieService.ANY_VERSION, etags.expectedVersion(etag, null));
+	}
+
+	@Test
+	void onlyTagsOfTheSameEpochMatch() {
+		Movie movie = new Movie(7L, "Heat", null, null, null, null);
+		movie.setVersion(3);
+		MovieService replica = new MovieService();
+		replica.setEpoch(movieService.getEpoch() + "x");
+		String etag = new MovieETags(replica).forMovie(movie);
+
+		assertEquals(0, etags.expectedVersion(etag, 7L));
+		// A replica holding the leader's versions takes its epoch too
+		replica.setEpoch(movieService.getEpoch());
+		etag = new MovieETags(replica).forMovie(movie);
+		assertEquals(3, etags.expectedVersion(etag, 7L));
+	}
+}
@@ -0,0 +1,108 @@
+package com.movieapi.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("reactive")
+@AutoConfigureWebTestClient
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ReactiveMovieControllerTests {
+
+	@Autowired
+	private WebTestClient webTestClient;
+
+	@Test
+	void servesTheSameContractAsTheServletStack() {
+		String etag = webTestClient.get().uri("/api/movies/2").exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.title").isEqualTo("Inception")
+				.returnResult().getResponseHeaders().getETag();
+		webTestClient.get().uri("/api/movies/2").header("If-None-Match", etag).exchange()
+				.expectStatus().isNotModified();
+		webTestClient.get().uri("/api/movies/999").exchange()
+				.expectStatus().isNotFound()
+				.expectBody().jsonPath("$.message").isEqualTo("Movie not found with id: 999");
+
+		webTestClient.get().uri("/api/movies?limit=2").exchange()
+				.expectBody().jsonPath("$.data.length()").isEqualTo(2).jsonPath("$.nextCursor").isEqualTo(2);
+
+		webTestClient.put().uri("/api/movies/1").header("If-Match", "\"stale\"")
+				.contentType(MediaType.APPLICATION_JSON).bodyValue("{\"title\":\"Shawshank\"}").exchange()
+				.expectStatus().isEqualTo(412);
+		webTestClient.delete().uri("/api/movies/3").exchange()
+				.expectBody().jsonPath("$.details").isEqualTo("The movie 'The Dark Knight' has been removed from the collection.");
+		webTestClient.get().uri("/api/movies/abc").exchange()
+				.expectStatus().isBadRequest()
+				.expectBody().jsonPath("$.error").isEqualTo("Type Mismatch");
+	}
+
+	@Test
+	void listingsReadTheSameWrittenFreshOrFromTheCache() {
+		String fresh = webTestClient.get().uri("/api/movies").exchange()
+				.expectStatus().isOk()
+				.expectHeader().exists(MovieController.CATALOG_VERSION)
+				.expectBody(String.class).returnResult().getResponseBody();
+		String cached = webTestClient.get().uri("/api/movies").exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentLength(fresh.length())
+				.expectBody(String.class).returnResult().getResponseBody();
+		assertEquals(fresh, cached);
+		webTestClient.get().uri("/api/movies").exchange()
+				.expectBody().jsonPath("$.length()").isEqualTo(3).jsonPath("$[2].title").isEqualTo("The Dark Knight");
+	}
+
+	@Test
+	void writesReturnTheCatalogVersionThatIncludesThem() {
+		long added = catalogVersion(webTestClient.post().uri("/api/movies")
+				.contentType(MediaType.APPLICATION_JSON).bodyValue("{\"title\":\"Heat\"}").exchange()
+				.expectStatus().isCreated());
+		long updated = catalogVersion(webTestClient.put().uri("/api/movies/4")
+				.contentType(MediaType.APPLICATION_JSON).bodyValue("{\"title\":\"Heat (1995)\"}").exchange()
+				.expectStatus().isOk());
+		long patched = catalogVersion(webTestClient.patch().uri("/api/movies/4")
+				.contentType(MediaType.APPLICATION_JSON).bodyValue("{\"rating\":8.3}").exchange()
+				.expectStatus().isOk());
+		long bulk = catalogVersion(webTestClient.post().uri("/api/movies/bulk")
+				.contentType(MediaType.APPLICATION_JSON).bodyValue("[{\"title\":\"Alien\"}]").exchange()
+				.expectStatus().isOk());
+		long deleted = catalogVersion(webTestClient.delete().uri("/api/movies/4").exchange()
+				.expectStatus().isOk());
+
+		assertTrue(added < updated && updated < patched && patched < bulk && bulk < deleted);
+		webTestClient.get().uri("/api/movies").exchange()
+				.expectHeader().valueEquals(MovieController.CATALOG_VERSION, Long.toString(deleted));
+	}
+
+	private static long catalogVersion(WebTestClient.ResponseSpec response) {
+		return Long.parseLong(response.returnResult(String.class).getResponseHeaders()
+				.getFirst(MovieController.CATALOG_VERSION));
+	}
+
+	@Test
+	void streamsAndBulkLoadsNdjson() {
+		webTestClient.post().uri("/api/movies/bulk").contentType(MediaType.parseMediaType(MovieController.NDJSON_VALUE))
+				.bodyValue("{\"title\":\"Heat\"}\n{\"title\":\"\"}\n{\"title\":\"Alien\"}\n").exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.succeeded").isEqualTo(2)
+				.jsonPath("$.items[1].status").isEqualTo(400)
+				.jsonPath("$.items[2].id").isEqualTo(5);
+
+		String body = webTestClient.get().uri("/api/movies?cursor=3")
+				.accept(MediaType.parseMediaType(MovieController.NDJSON_VALUE)).exchange()
+				.expectStatus().isOk()
+				.expectBody(String.class).returnResult().getResponseBody();
+		assertEquals("{\"id\":4,\"title\":\"Heat\"}\n{\"id\":5,\"title\":\"Alien\"}\n", body.replaceAll(",\"\\w+\":null", ""));
+	}
+
+}
@@ -0,0 +1,47 @@
+package com.movieapi.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.movieapi.exception.ErrorBodies;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrencyLimitFilterTests {
+
+	@Test
+	void shedsGroupsWithoutFreePermitsAndReleasesAfterwards() throws Exception {
+		ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+				.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(new ErrorBodies(objectMapper), registry,
+				1, 0, 1, 0, Duration.ofMillis(10), Duration.ofSeconds(2));
+
+		MockHttpServletResponse write = new MockHttpServletResponse();
+		filter.doFilter(new MockHttpServletRequest("PUT", "/api/movies/1"), write, new MockFilterChain());
+		assertEquals(503, write.getStatus());
+		assertEquals("2", write.getHeader("Retry-After"));
+		assertTrue(write.getContentAsString().contains("\"status\":503"));
+		assertEquals(1.0, registry.get("movie.requests.rejected").tag("group", "write").counter().count());
+
+		// The single read permit is returned after each request
+		for (int i = 0; i < 3; i++) {
+			MockHttpServletResponse read = new MockHttpServletResponse();
+			filter.doFilter(new MockHttpServletRequest("GET", "/api/movies/1"), read, new MockFilterChain());
+			assertEquals(200, read.getStatus());
+		}
+
+		MockHttpServletResponse health = new MockHttpServletResponse();
+		filter.doFilter(new MockHttpServletRequest("POST", "/actuator/health"), health, new MockFilterChain());
+		assertEquals(200, health.getStatus());
+	}
+
+}
@@ -0,0 +1,59 @@
+package com.movieapi.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.movieapi.exception.ErrorBodies;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimitFilterTests {
+
+	@Test
+	void throttlesEachClientAndBudgetSeparately() throws Exception {
+		ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+				.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		RateLimitFilter filter = new RateLimitFilter(new ErrorBodies(objectMapper), registry,
+				1, 3, 1, 2, 100, "X-API-Key", List.of("partner-key"), "");
+
+		assertEquals(200, request(filter, "PUT", "10.0.0.1", null).getStatus());
+		MockHttpServletResponse second = request(filter, "PUT", "10.0.0.1", null);
+		assertEquals(200, second.getStatus());
+		assertEquals("2", second.getHeader("RateLimit-Limit"));
+		assertEquals("0", second.getHeader("RateLimit-Remaining"));
+
+		MockHttpServletResponse throttled = request(filter, "PUT", "10.0.0.1", null);
+		assertEquals(429, throttled.getStatus());
+		assertEquals("1", throttled.getHeader("Retry-After"));
+		assertTrue(throttled.getContentAsString().contains("\"status\":429"));
+		assertEquals(1.0, registry.get("movie.requests.throttled").tag("group", "write").counter().count());
+
+		// Reads have their own budget, and other clients their own buckets
+		assertEquals(200, request(filter, "GET", "10.0.0.1", null).getStatus());
+		assertEquals(200, request(filter, "PUT", "10.0.0.2", null).getStatus());
+		assertEquals(200, request(filter, "PUT", "10.0.0.1", "partner-key").getStatus());
+		// An unknown key counts against the address
+		assertEquals(429, request(filter, "PUT", "10.0.0.1", "made-up").getStatus());
+	}
+
+	private static MockHttpServletResponse request(RateLimitFilter filter, String method, String address,
+												   String apiKey) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest(method, "/api/movies/1");
+		request.setRemoteAddr(address);
+		if (apiKey != null) {
+			request.addHeader("X-API-Key", apiKey);
+		}
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new MockFilterChain());
+		return response;
+	}
+}
@@ -0,0 +1,39 @@
+package com.movieapi.metrics;
+
+import com.movieapi.exception.MovieNotFoundException;
+import com.movieapi.model.Movie;
+import com.movieapi.service.MovieService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MovieMetricsTests {
+
+	@Test
+	void recordsOperationsGaugesAndErrors() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		MovieService service = new MovieService();
+		MovieMetrics metrics = new MovieMetrics(service, registry);
+
+		service.findMovieById(1L);
+		service.findMovieById(1L);
+		service.addMovie(new Movie(null, "Alien", null, "Sci-Fi", 1979, 8.5));
+		// Failed operations are timed too
+		assertThrows(MovieNotFoundException.class, () -> service.deleteMovie(99L));
+
+		assertEquals(2, registry.get("movie.operations").tag("operation", "read").timer().count());
+		assertEquals(1, registry.get("movie.operations").tag("operation", "create").timer().count());
+		assertEquals(1, registry.get("movie.operations").tag("operation", "delete").timer().count());
+		assertEquals(4, registry.get("movie.store.size").gauge().value());
+		assertTrue(registry.get("movie.index.bytes").tag("index", "fulltext").gauge().value() > 0);
+
+		metrics.notFound("GET", "/api/movies/{id}");
+		metrics.notFound("GET", "/api/movies/{id}");
+		metrics.validationFailed("POST", null);
+		assertEquals(2, registry.get("movie.errors").tag("type", "not_found").tag("endpoint", "/api/movies/{id}").counter().count());
+		assertEquals(1, registry.get("movie.errors").tag("type", "validation").tag("endpoint", MovieMetrics.UNKNOWN_ENDPOINT).counter().count());
+	}
+}
@@ -0,0 +1,173 @@
+package com.movieapi.persistence;
+
+import com.movieapi.exception.MovieNotFoundException;
+import com.movieapi.model.Movie;
+import com.movieapi.model.SyncResponse;
+import com.movieapi.service.MovieService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MoviePersistenceTests {
+
+	@TempDir
+	Path directory;
+
+	private MoviePersistence open(MovieService service) throws Exception {
+		MoviePersistence persistence = new MoviePersistence(service, directory.toString(), Duration.ofHours(1));
+		persistence.start();
+		return persistence;
+	}
+
+	@Test
+	void replaysTheLogAfterACrash() throws Exception {
+		MovieService first = new MovieService();
+		open(first);
+		Movie added = first.addMovie(new Movie(null, "Alien", "In space.", "Sci-Fi", 1979, 8.5));
+		first.updateMovie(1L, new Movie(null, "Shawshank", null, "Drama", 1994, 9.3));
+		first.deleteMovie(2L);
+
+		// Garbage from a torn write must be ignored
+		Path segment = WriteAheadLog.segmentPath(directory, WriteAheadLog.segments(directory).get(0));
+		Files.write(segment, new byte[] {0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+
+		// No stop(): simulate a crash and recover into a fresh service
+		MovieService second = new MovieService();
+		open(second);
+		assertEquals("Shawshank", second.getMovieById(1L).getTitle());
+		assertThrows(MovieNotFoundException.class, () -> second.getMovieById(2L));
+		assertEquals("Alien", second.getMovieById(added.getId()).getTitle());
+		assertEquals(added.getId() + 1, second.getNextId());
+	}
+
+	@Test
+	void versionsCarryOnAcrossARestart() throws Exception {
+		MovieService first = new MovieService();
+		MoviePersistence persistence = open(first);
+		for (int i = 0; i < 50; i++) {
+			first.addMovie(new Movie(null, "Movie " + i, null, "Drama", 2000, 7.0));
+		}
+		first.updateMovie(10L, new Movie(null, "Before", null, "Drama", 2000, 7.0));
+		persistence.snapshot();
+		long before = first.getCatalogVersion();
+		first.updateMovie(10L, new Movie(null, "After", null, "Drama", 2000, 7.0));
+		first.deleteMovie(1L);
+		long last = first.getCatalogVersion();
+
+		// No stop(): the log after the snapshot must be replayed
+		MovieService second = new MovieService();
+		open(second);
+		assertTrue(second.getCatalogVersion() > last);
+		assertEquals(versions(first), versions(second));
+
+		// A client synced after the snapshot gets exactly what changed since
+		SyncResponse sync = second.getChangesSince(before, 100);
+		assertFalse(sync.isResync());
+		assertEquals(2, sync.getChanges().size());
+		assertEquals("After", sync.getChanges().get(0).getMovie().getTitle());
+		assertEquals(3, sync.getChanges().get(0).getMovie().getVersion());
+		assertTrue(sync.getChanges().get(1).isDeleted());
+		assertEquals(second.getCatalogVersion(), sync.getVersion());
+		// One synced up to the last persisted change gets nothing
+		sync = second.getChangesSince(last, 100);
+		assertFalse(sync.isResync());
+		assertEquals(0, sync.getChanges().size());
+		// Before the snapshot, the changes are no longer known
+		assertTrue(second.getChangesSince(before - 1, 100).isResync());
+	}
+
+	private static Map<Long, Long> versions(MovieService service) {
+		Map<Long, Long> versions = new HashMap<>();
+		service.getAllMovies().forEach(movie -> versions.put(movie.getId(), movie.getVersion()));
+		return versions;
+	}
+
+	@Test
+	void replaysSegmentsLargerThanItsReadBuffer() throws Exception {
+		MovieService first = new MovieService();
+		open(first);
+		for (int i = 0; i < 2000; i++) {
+			first.addMovie(new Movie(null, "Movie " + i, "Description " + i, "Drama", 2000, 7.0));
+		}
+		// A single record larger than the read buffer
+		Movie large = first.addMovie(new Movie(null, "Long", "x".repeat(200_000), "Drama", 2000, 7.0));
+		first.addMovie(new Movie(null, "After", null, null, null, null));
+
+		MovieService second = new MovieService();
+		open(second);
+		assertEquals(first.getAllMovies(), second.getAllMovies());
+		assertEquals(200_000, second.getMovieById(large.getId()).getDescription().length());
+	}
+
+	@Test
+	void snapshotCoversTheLogAndSurvivesRestart() throws Exception {
+		MovieService first = new MovieService();
+		MoviePersistence persistence = open(first);
+		first.addMovie(new Movie(null, "Heat", null, "Crime", 1995, 8.3));
+		persistence.snapshot();
+		first.addMovie(new Movie(null, "Ronin", null, "Action", 1998, 7.2));
+		first.deleteMovie(4L);
+		persistence.stop();
+
+		// stop() snapshots, so only the fresh empty segment remains
+		assertEquals(1, WriteAheadLog.segments(directory).size());
+
+		MovieService second = new MovieService();
+		open(second);
+		assertEquals(List.of(1L, 2L, 3L, 5L), second.getAllMovies().stream().map(Movie::getId).toList());
+		assertEquals(6L, second.addMovie(new Movie(null, "Up", null, null, null, null)).getId());
+	}
+
+	@Test
+	void aChangeTheLogCannotTakeIsRefusedBeforeItIsApplied() throws Exception {
+		MovieService service = new MovieService();
+		MoviePersistence persistence = open(service);
+		List<Movie> before = service.getAllMovies();
+		// The log is closed, so the next append fails
+		persistence.stop();
+
+		assertThrows(UncheckedIOException.class,
+				() -> service.addMovie(new Movie(null, "Heat", null, "Crime", 1995, 8.3)));
+		assertEquals(before, service.getAllMovies());
+		assertEquals(0, service.searchMovies("Heat", 10).size());
+
+		// Every later write is refused too
+		assertThrows(UncheckedIOException.class, () -> service.deleteMovie(1L));
+		assertEquals(before, service.getAllMovies());
+	}
+
+	@Test
+	void afterAFailureWritesAreRefusedWithoutTouchingTheLog() throws Exception {
+		MovieService first = new MovieService();
+		MoviePersistence persistence = open(first);
+		Movie original = first.getMovieById(1L);
+		Path segment = WriteAheadLog.segmentPath(directory, WriteAheadLog.segments(directory).get(0));
+		long logged = Files.size(segment);
+
+		// E.g. an fsync failed: the log may now lack records the store has
+		persistence.fail(new IOException("fsync failed"));
+		assertThrows(UncheckedIOException.class,
+				() -> first.updateMovie(1L, new Movie(null, "Changed", null, null, null, null)));
+		assertEquals(original.getTitle(), first.getMovieById(1L).getTitle());
+		assertEquals(logged, Files.size(segment));
+
+		MovieService second = new MovieService();
+		open(second);
+		assertEquals(original.getTitle(), second.getMovieById(1L).getTitle());
+	}
+
+}
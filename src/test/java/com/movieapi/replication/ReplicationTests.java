@@ -0,0 +1,172 @@
+package com.movieapi.replication;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movieapi.MovieApiApplication;
+import com.movieapi.controller.MovieController;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A leader and a follower on localhost; the follower starts after the
+ * leader has taken writes, so it catches up from a snapshot first
+ */
+class ReplicationTests {
+
+	private static final ObjectMapper JSON = new ObjectMapper();
+	private static final HttpClient CLIENT = HttpClient.newHttpClient();
+
+	private static String leader;
+	private static String follower;
+	private static ConfigurableApplicationContext leaderContext;
+	private static ConfigurableApplicationContext followerContext;
+
+	private static long createdBeforeFollower;
+
+	@BeforeAll
+	static void start() throws Exception {
+		leader = "http://localhost:" + freePort();
+		follower = "http://localhost:" + freePort();
+		// As arguments, which override application.properties
+		leaderContext = new SpringApplicationBuilder(MovieApiApplication.class).run(
+				"--server.port=" + URI.create(leader).getPort(),
+				"--movie.replication.role=leader",
+				"--movie.replication.heartbeat=200ms");
+
+		HttpResponse<String> created = send(leader, "/api/movies", "POST", movie("Before Follower", 2001), null);
+		createdBeforeFollower = JSON.readTree(created.body()).get("data").get("id").asLong();
+		assertEquals(200, send(leader, "/api/movies/1", "DELETE", null, null).statusCode());
+
+		followerContext = new SpringApplicationBuilder(MovieApiApplication.class).run(
+				"--server.port=" + URI.create(follower).getPort(),
+				"--movie.replication.role=follower",
+				"--movie.replication.leader=" + leader,
+				"--movie.replication.heartbeat=200ms",
+				"--movie.replication.max-read-wait=2s");
+	}
+
+	@AfterAll
+	static void stop() {
+		if (followerContext != null) {
+			followerContext.close();
+		}
+		leaderContext.close();
+	}
+
+	@Test
+	void followerServesTheLeadersCatalog() throws Exception {
+		// Snapshot catch-up: the write and the delete made before the follower started
+		HttpResponse<String> created = send(leader, "/api/movies", "POST", movie("After Follower", 2010), null);
+		assertEquals(201, created.statusCode());
+		String token = created.headers().firstValue(MovieController.CATALOG_VERSION).orElseThrow();
+		long id = JSON.readTree(created.body()).get("data").get("id").asLong();
+
+		// Read-your-writes: the follower waits until it has the write
+		HttpResponse<String> read = send(follower, "/api/movies/" + id, "GET", null, token);
+		assertEquals(200, read.statusCode(), read.body());
+		assertEquals("After Follower", JSON.readTree(read.body()).get("title").asText());
+		assertTrue(Long.parseLong(read.headers().firstValue(ReplicaFilter.REPLICATED_CATALOG_VERSION).orElseThrow())
+				>= Long.parseLong(token));
+		assertEquals(200, send(follower, "/api/movies/" + createdBeforeFollower, "GET", null, null).statusCode());
+		assertEquals(404, send(follower, "/api/movies/1", "GET", null, null).statusCode());
+
+		// Updates and deletes replicate in order
+		HttpResponse<String> updated = send(leader, "/api/movies/" + id, "PUT", movie("Renamed", 2011), null);
+		HttpResponse<String> deleted = send(leader, "/api/movies/2", "DELETE", null, null);
+		assertEquals(200, updated.statusCode());
+		assertEquals(200, deleted.statusCode());
+		token = deleted.headers().firstValue(MovieController.CATALOG_VERSION).orElseThrow();
+		assertEquals("Renamed", JSON.readTree(send(follower, "/api/movies/" + id, "GET", null, token).body())
+				.get("title").asText());
+		assertEquals(ids(send(leader, "/api/movies", "GET", null, null)),
+				ids(send(follower, "/api/movies", "GET", null, token)));
+		ReplicaFollower replica = followerContext.getBean(ReplicaFollower.class);
+		assertTrue(replica.awaitVersion(Long.parseLong(token), Duration.ofSeconds(2)));
+		assertEquals(0, replica.getLag());
+
+		// A version the leader has not reached is not waited for forever
+		HttpResponse<String> ahead = send(follower, "/api/movies", "GET", null,
+				Long.toString(Long.parseLong(token) + 1000));
+		assertEquals(503, ahead.statusCode());
+		assertEquals("1", ahead.headers().firstValue("Retry-After").orElseThrow());
+	}
+
+	@Test
+	void aTagReadFromTheFollowerMatchesOnTheLeader() throws Exception {
+		HttpResponse<String> created = send(leader, "/api/movies", "POST", movie("Tagged", 2012), null);
+		String token = created.headers().firstValue(MovieController.CATALOG_VERSION).orElseThrow();
+		long id = JSON.readTree(created.body()).get("data").get("id").asLong();
+		String path = "/api/movies/" + id;
+
+		// The follower has the leader's version of the movie, under the leader's epoch
+		String etag = send(follower, path, "GET", null, token).headers().firstValue("ETag").orElseThrow();
+		assertEquals(send(leader, path, "GET", null, null).headers().firstValue("ETag").orElseThrow(), etag);
+
+		HttpResponse<String> updated = send(leader, path, "PUT", movie("Retagged", 2012), null, etag);
+		assertEquals(200, updated.statusCode(), updated.body());
+		// The tag is stale now, wherever it came from
+		assertEquals(412, send(leader, path, "PUT", movie("Lost", 2012), null, etag).statusCode());
+		token = updated.headers().firstValue(MovieController.CATALOG_VERSION).orElseThrow();
+		assertEquals(updated.headers().firstValue("ETag").orElseThrow(),
+				send(follower, path, "GET", null, token).headers().firstValue("ETag").orElseThrow());
+	}
+
+	@Test
+	void followerRedirectsWritesToTheLeader() throws Exception {
+		HttpResponse<String> response = send(follower, "/api/movies/3?x=1", "PUT", movie("Nope", 2000), null);
+		assertEquals(307, response.statusCode());
+		assertEquals(leader + "/api/movies/3?x=1", response.headers().firstValue("Location").orElseThrow());
+	}
+
+	private static String movie(String title, int year) {
+		return "{\"title\":\"" + title + "\",\"genre\":\"Drama\",\"releaseYear\":" + year + ",\"rating\":7}";
+	}
+
+	private static HttpResponse<String> send(String node, String path, String method, String body,
+											 String minVersion) throws Exception {
+		return send(node, path, method, body, minVersion, null);
+	}
+
+	private static HttpResponse<String> send(String node, String path, String method, String body,
+											 String minVersion, String ifMatch) throws Exception {
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(node + path))
+				.header("Content-Type", "application/json")
+				.method(method, body != null ? HttpRequest.BodyPublishers.ofString(body) : HttpRequest.BodyPublishers.noBody());
+		if (minVersion != null) {
+			request.header(ReplicaFilter.MIN_CATALOG_VERSION, minVersion);
+		}
+		if (ifMatch != null) {
+			request.header("If-Match", ifMatch);
+		}
+		return CLIENT.send(request.build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	private static List<Long> ids(HttpResponse<String> response) throws IOException {
+		assertEquals(200, response.statusCode(), response.body());
+		List<Long> ids = new ArrayList<>();
+		JSON.readTree(response.body()).forEach(movie -> ids.add(movie.get("id").asLong()));
+		return ids;
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package com.movieapi.service;
+
+import com.movieapi.model.Movie;
+import com.movieapi.model.MovieChange;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChangeFeedTests {
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+	@Test
+	void resumesAfterALastSeenSequence() {
+		MovieService service = new MovieService();
+		ChangeFeed feed = service.getChangeFeed();
+		long start = feed.getLastSequence();
+		Flux<ChangeFeed.Event> live = feed.subscribe(null).take(2).cache();
+		live.subscribe();
+
+		service.updateMovie(1L, new Movie(null, "Shawshank", null, null, null, null));
+		service.deleteMovie(2L);
+
+		List<ChangeFeed.Event> events = live.collectList().block(TIMEOUT);
+		assertEquals(MovieChange.Type.UPDATED, events.get(0).change().getType());
+		assertEquals(MovieChange.Type.DELETED, events.get(1).change().getType());
+		assertEquals(events.get(0).sequence() + 1, events.get(1).sequence());
+
+		// The three seed movies were added before we subscribed
+		ChangeFeed.Event resumed = feed.subscribe(start - 1).blockFirst(TIMEOUT);
+		assertEquals(MovieChange.Type.CREATED, resumed.change().getType());
+		assertEquals(3L, resumed.change().getId());
+	}
+
+	@Test
+	void laggingOrUnknownPositionsGetAResync() {
+		ChangeFeed feed = new ChangeFeed(4);
+		long first = feed.getLastSequence() + 1;
+		for (long id = 1; id <= 10; id++) {
+			feed.append(first + id - 1, new MovieChange(MovieChange.Type.DELETED, id, null));
+		}
+		assertEquals(first + 6, feed.getOldestSequence());
+
+		List<ChangeFeed.Event> events = feed.subscribe(first).take(1).collectList().block(TIMEOUT);
+		assertTrue(events.get(0).isResync());
+		assertEquals(first + 9, events.get(0).sequence());
+
+		ChangeFeed.Event fromAnotherRun = feed.subscribe(first + 1000).blockFirst(TIMEOUT);
+		assertTrue(fromAnotherRun.isResync());
+	}
+
+	@Test
+	void skippedSequencesAreSteppedOver() {
+		ChangeFeed feed = new ChangeFeed(16);
+		long first = feed.getLastSequence() + 1;
+		feed.append(first, new MovieChange(MovieChange.Type.DELETED, 1, null));
+		feed.skip(first + 1);
+		assertEquals(first, feed.getLastSequence());
+		feed.append(first + 2, new MovieChange(MovieChange.Type.DELETED, 2, null));
+
+		List<ChangeFeed.Event> events = feed.subscribe(first - 1).take(2).collectList().block(TIMEOUT);
+		assertEquals(List.of(first, first + 2), events.stream().map(ChangeFeed.Event::sequence).toList());
+	}
+
+}
@@ -0,0 +1,62 @@
+package com.movieapi.service;
+
+import com.movieapi.model.Movie;
+import com.movieapi.model.MovieChange;
+import com.movieapi.model.SyncResponse;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChangeIndexTests {
+
+	@Test
+	void syncReturnsLatestStateAndTombstones() {
+		MovieService service = new MovieService();
+		SyncResponse bootstrap = service.getChangesSince(null, 100);
+		assertTrue(bootstrap.isResync());
+
+		service.updateMovie(1L, new Movie(null, "Shawshank", null, null, null, null));
+		service.updateMovie(1L, new Movie(null, "The Shawshank Redemption", null, null, null, null));
+		service.deleteMovie(2L);
+
+		SyncResponse delta = service.getChangesSince(bootstrap.getVersion(), 100);
+		assertFalse(delta.isResync());
+		assertEquals(2, delta.getChanges().size());
+		assertEquals("The Shawshank Redemption", delta.getChanges().get(0).getMovie().getTitle());
+		assertTrue(delta.getChanges().get(1).isDeleted());
+		assertNull(delta.getChanges().get(1).getMovie());
+
+		SyncResponse paged = service.getChangesSince(bootstrap.getVersion(), 1);
+		assertTrue(paged.isHasMore());
+		SyncResponse rest = service.getChangesSince(paged.getVersion(), 1);
+		assertEquals(2L, rest.getChanges().get(0).getId());
+		assertEquals(delta.getVersion(), rest.getVersion());
+
+		assertTrue(service.getChangesSince(delta.getVersion(), 100).getChanges().isEmpty());
+		assertTrue(service.getChangesSince(delta.getVersion() + 1, 100).isResync());
+	}
+
+	@Test
+	void compactedTombstonesForceAResync() {
+		ChangeIndex index = new ChangeIndex(0, 2, id -> null);
+		for (long id = 1; id <= 4; id++) {
+			Movie movie = new Movie(id, "Movie " + id, null, null, null, null);
+			movie.setVersion(1);
+			index.record(id, new MovieChange(MovieChange.Type.CREATED, id, movie));
+		}
+		for (long id = 1; id <= 3; id++) {
+			index.record(4 + id, new MovieChange(MovieChange.Type.DELETED, id, null));
+		}
+
+		// The first tombstone, at sequence 5, is gone
+		assertTrue(index.changesSince(4, 10).isResync());
+		SyncResponse delta = index.changesSince(5, 10);
+		assertFalse(delta.isResync());
+		assertEquals(2, delta.getChanges().size());
+		assertEquals(7, delta.getVersion());
+		assertEquals(3L, delta.getChanges().get(1).getId());
+	}
+}
@@ -0,0 +1,62 @@
+package com.movieapi.service;
+
+import com.movieapi.model.Movie;
+import com.movieapi.model.MovieFilter;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ColumnarMovieStoreTests {
+
+	@Test
+	void storesEveryField() {
+		ColumnarMovieStore store = new ColumnarMovieStore();
+		put(store, new Movie(70_000L, "Amélie", "Le fabuleux destin 🎬", "Romance", 2001, 8.3));
+		put(store, new Movie(5L, "Untitled", null, null, null, null));
+		put(store, new Movie(6L, "Gone", "", "Drama", 1888, 0.0));
+		store.compute(6L, (id, existing) -> null);
+
+		Movie amelie = store.get(70_000L);
+		assertEquals("Amélie", amelie.getTitle());
+		assertEquals("Le fabuleux destin 🎬", amelie.getDescription());
+		assertEquals("Romance", amelie.getGenre());
+		assertEquals(2001, amelie.getReleaseYear());
+		assertEquals(8.3, amelie.getRating());
+		assertEquals(1, amelie.getVersion());
+
+		Movie untitled = store.get(5L);
+		assertNull(untitled.getDescription());
+		assertNull(untitled.getGenre());
+		assertNull(untitled.getReleaseYear());
+		assertNull(untitled.getRating());
+
+		assertNull(store.get(6L));
+		assertNull(store.get(1L << 40));
+		assertEquals(2, store.size());
+		assertThrows(IllegalArgumentException.class, () -> put(store, new Movie(1L << 40, "Far", null, null, null, null)));
+	}
+
+	@Test
+	void serviceBehavesTheSameOnColumns() {
+		MovieService service = new MovieService(true);
+		Movie added = service.addMovie(new Movie(null, "Arrival", "Linguist meets heptapods", "Sci-Fi", 2016, 7.9));
+		service.updateMovie(1L, new Movie(null, "The Shawshank Redemption", null, "Drama", 1994, 9.3), 1);
+		service.deleteMovie(3L);
+
+		assertEquals(2, service.getMovieById(1L).getVersion());
+		assertEquals(List.of(1L, 2L, 4L), service.getAllMovies().stream().map(Movie::getId).toList());
+		assertEquals(List.of(2L, 4L), service.findMovies(new MovieFilter("sci-fi", null, null, null, null))
+				.stream().map(Movie::getId).toList());
+		assertEquals(added.getId(), service.searchMovies("heptapods", 10).get(0).getId());
+		assertEquals(3, service.getMovieCount());
+	}
+
+	private static void put(ColumnarMovieStore store, Movie movie) {
+		movie.setVersion(1);
+		store.compute(movie.getId(), (id, existing) -> movie);
+	}
+}
@@ -0,0 +1,68 @@
+package com.movieapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class LongTrieTests {
+
+	@Test
+	void matchesASortedMapAndKeepsOldVersions() {
+		Random random = new Random(42);
+		TreeMap<Long, Long> expected = new TreeMap<>();
+		LongTrie<Long> trie = LongTrie.empty();
+		for (int i = 0; i < 20_000; i++) {
+			// Mostly small keys, some far out so the trie has to grow
+			long key = random.nextInt(10) == 0 ? random.nextLong() & Long.MAX_VALUE : random.nextInt(5_000);
+			if (random.nextInt(3) == 0) {
+				expected.remove(key);
+				trie = trie.remove(key);
+			} else {
+				expected.put(key, (long) i);
+				trie = trie.put(key, (long) i);
+			}
+		}
+		assertEquals(expected.size(), trie.size());
+		assertEquals(new ArrayList<>(expected.entrySet()), entries(trie, 0));
+		long from = 2_500;
+		assertEquals(new ArrayList<>(expected.tailMap(from).entrySet()), entries(trie, from));
+
+		LongTrie<Long> before = trie;
+		long first = expected.firstKey();
+		LongTrie<Long> after = trie.remove(first).put(Long.MAX_VALUE, -1L);
+		assertEquals(expected.get(first), before.get(first));
+		assertNull(after.get(first));
+		assertEquals(-1L, after.get(Long.MAX_VALUE));
+		assertEquals(new ArrayList<>(expected.entrySet()), entries(before, 0));
+		assertSame(before, before.remove(-5));
+	}
+
+	@Test
+	void mergeWalksTheUnionInKeyOrder() {
+		LongTrie<String> odd = LongTrie.<String>empty().put(1, "a").put(5, "c").put(9, "e");
+		LongTrie<String> even = LongTrie.<String>empty().put(2, "b").put(6, "d");
+		LongTrie.Cursor<String> merged = LongTrie.merge(List.of(odd.cursor(2), even.cursor(2), LongTrie.<String>empty().cursor(0)));
+		List<String> entries = new ArrayList<>();
+		while (merged.next()) {
+			entries.add(merged.key() + merged.value());
+		}
+		assertEquals(List.of("2b", "5c", "6d", "9e"), entries);
+	}
+
+	private static List<Map.Entry<Long, Long>> entries(LongTrie<Long> trie, long from) {
+		List<Map.Entry<Long, Long>> entries = new ArrayList<>();
+		LongTrie.Cursor<Long> cursor = trie.cursor(from);
+		while (cursor.next()) {
+			entries.add(Map.entry(cursor.key(), cursor.value()));
+		}
+		return entries;
+	}
+}
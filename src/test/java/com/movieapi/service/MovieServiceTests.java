@@ -0,0 +1,360 @@
+package com.movieapi.service;
+
+import com.movieapi.exception.MovieNotFoundException;
+import com.movieapi.model.BulkItemResult;
+import com.movieapi.model.Movie;
+import com.movieapi.model.MovieChange;
+import com.movieapi.model.MovieFilter;
+import com.movieapi.model.PageResponse;
+import com.movieapi.model.StatsResponse;
+import com.movieapi.model.SyncResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MovieServiceTests {
+
+	private static Movie movie(String title, String genre, int year, double rating) {
+		return new Movie(null, title, title + " description", genre, year, rating);
+	}
+
+	@Test
+	void crudRoundTrip() {
+		MovieService service = new MovieService();
+		Movie added = service.addMovie(movie("Alien", "Sci-Fi", 1979, 8.5));
+
+		assertEquals(added, service.getMovieById(added.getId()));
+
+		service.updateMovie(added.getId(), movie("Aliens", "Sci-Fi", 1986, 8.4));
+		assertEquals("Aliens", service.getMovieById(added.getId()).getTitle());
+
+		service.deleteMovie(added.getId());
+		assertThrows(MovieNotFoundException.class, () -> service.getMovieById(added.getId()));
+		assertThrows(MovieNotFoundException.class, () -> service.deleteMovie(added.getId()));
+	}
+
+	@Test
+	void listingKeepsInsertionOrder() {
+		MovieService service = new MovieService();
+		service.addMovie(movie("Heat", "Crime", 1995, 8.3));
+		service.deleteMovie(2L);
+
+		assertEquals(List.of(1L, 3L, 4L), ids(service.getAllMovies()));
+	}
+
+	@Test
+	void filtersUseSecondaryIndexes() {
+		MovieService service = new MovieService();
+		service.addMovie(movie("Blade Runner", "Sci-Fi", 1982, 8.1));
+		service.addMovie(movie("Arrival", "sci-fi", 2016, 7.9));
+
+		assertEquals(List.of(2L, 4L, 5L), ids(service.findMovies(new MovieFilter("SCI-FI", null, null, null, null))));
+		assertEquals(List.of(1L, 4L), ids(service.findMovies(new MovieFilter(null, 1980, 2000, null, null))));
+		assertEquals(List.of(1L, 3L), ids(service.findMovies(new MovieFilter(null, null, null, 9.0, null))));
+		assertEquals(List.of(4L), ids(service.findMovies(new MovieFilter("sci-fi", null, 2000, 8.0, 9.0))));
+	}
+
+	@Test
+	void indexesFollowUpdatesAndDeletes() {
+		MovieService service = new MovieService();
+		service.updateMovie(2L, movie("Inception", "Thriller", 2010, 7.0));
+		service.deleteMovie(3L);
+
+		assertEquals(List.of(), ids(service.findMovies(new MovieFilter("Sci-Fi", null, null, null, null))));
+		assertEquals(List.of(2L), ids(service.findMovies(new MovieFilter("thriller", null, null, null, null))));
+		assertEquals(List.of(1L), ids(service.findMovies(new MovieFilter(null, null, null, 8.0, null))));
+		assertEquals(List.of(2L), ids(service.findMovies(new MovieFilter(null, 2000, null, null, null))));
+	}
+
+	@Test
+	void snapshotRowsLineUpAfterALaterDeleteInColumnMode() {
+		MovieService service = new MovieService(true);
+		CatalogSnapshot before = service.snapshot();
+		service.deleteMovie(2L);
+
+		// Every pass yields size() rows; the deleted movie keeps only its id
+		for (int pass = 0; pass < 2; pass++) {
+			List<Movie> rows = new ArrayList<>();
+			before.rows().forEach(rows::add);
+			assertEquals(before.size(), rows.size());
+			assertEquals(List.of(1L, 2L, 3L), ids(rows));
+			assertEquals(null, rows.get(1).getTitle());
+			assertEquals("The Dark Knight", rows.get(2).getTitle());
+		}
+	}
+
+	@Test
+	void snapshotsAreUnchangedByLaterWrites() {
+		MovieService service = new MovieService();
+		CatalogSnapshot before = service.snapshot();
+		service.updateMovie(2L, movie("Inception", "Thriller", 2010, 7.0));
+		service.deleteMovie(3L);
+		service.addMovie(movie("Arrival", "Sci-Fi", 2016, 7.9));
+
+		MovieFilter sciFi = new MovieFilter("sci-fi", null, null, null, null);
+		assertEquals(List.of(1L, 2L, 3L), ids(service.streamMovies(before, MovieFilter.NONE, null).toList()));
+		assertEquals("Inception", service.streamMovies(before, sciFi, null).toList().get(0).getTitle());
+		assertEquals(8.8, service.streamMovies(before, sciFi, null).toList().get(0).getRating());
+		assertEquals(List.of(3L), ids(service.streamMovies(before, MovieFilter.NONE, 2L).toList()));
+		assertEquals(List.of(4L), ids(service.findMovies(sciFi)));
+		assertEquals(List.of(2L), ids(service.findMovies(new MovieFilter(null, null, null, 7.0, 7.0))));
+
+		// The version is the change sequence, as in delta sync
+		assertEquals(service.getChangesSince(null, 1).getVersion(), service.getCatalogVersion());
+		assertTrue(before.getVersion() < service.getCatalogVersion());
+
+		// Old versions are only kept once a page with more to come needs them
+		assertEquals(service.getCatalogVersion(), service.snapshot(before.getVersion()).getVersion());
+		PageResponse<Movie> first = service.getMoviesPage(before, MovieFilter.NONE, null, 2);
+		assertEquals(before.getVersion(), first.getVersion());
+		CatalogSnapshot pinned = service.snapshot(first.getVersion());
+		assertEquals(before.getVersion(), pinned.getVersion());
+		assertEquals(List.of(3L), ids(service.getMoviesPage(pinned, MovieFilter.NONE, first.getNextCursor(), 2).getData()));
+	}
+
+	@Test
+	void statsFollowWritesWithoutScanning() {
+		MovieService service = new MovieService();
+		service.addMovie(movie("Alien", "Sci-Fi", 1979, 8.5));
+		service.updateMovie(2L, movie("Inception", "sci-fi ", 2010, 8.0));
+		service.deleteMovie(3L);
+
+		StatsResponse stats = service.getStats(List.of(0.0, 0.5, 1.0));
+		assertEquals(3, stats.getCount());
+		assertEquals(List.of("Sci-Fi", "Drama"), stats.getGenres().stream().map(StatsResponse.GenreStats::getGenre).toList());
+		assertEquals(8.25, stats.getGenres().get(0).getAverageRating());
+		assertEquals(List.of(1970, 1990, 2010), stats.getDecades().stream().map(StatsResponse.DecadeStats::getDecade).toList());
+
+		StatsResponse.RatingStats ratings = stats.getRatings();
+		assertEquals(8.6, ratings.getAverage());
+		assertEquals(List.of(8.0, 8.5, 9.3), ratings.getPercentiles().stream().map(StatsResponse.Percentile::getValue).toList());
+		assertEquals(20, ratings.getHistogram().size());
+		assertEquals(1, ratings.getHistogram().get(16).getCount());
+		assertEquals(1, ratings.getHistogram().get(18).getCount());
+
+		assertThrows(IllegalArgumentException.class, () -> service.getRatingStats(List.of(1.5)));
+	}
+
+	@Test
+	void searchRanksTitleMatchesFirstAndFollowsWrites() {
+		MovieService service = new MovieService();
+		Movie joker = service.addMovie(new Movie(null, "Joker", "A failed comedian in Gotham.", "Drama", 2019, 8.4));
+
+		// "Joker" is in the title of 4 and only the description of 3
+		assertEquals(List.of(joker.getId(), 3L), ids(service.searchMovies("JOKER", 10)));
+		assertEquals(List.of(joker.getId()), ids(service.searchMovies("joker", 1)));
+		assertEquals(List.of(), ids(service.searchMovies("nonexistent", 10)));
+
+		service.updateMovie(3L, movie("The Dark Knight", "Action", 2008, 9.0));
+		service.deleteMovie(joker.getId());
+		assertEquals(List.of(), ids(service.searchMovies("joker", 10)));
+		assertEquals(List.of(3L), ids(service.searchMovies("knight", 10)));
+	}
+
+	@Test
+	void concurrentWritersDoNotLoseUpdates() throws Exception {
+		MovieService service = new MovieService();
+		int threads = 8;
+		int perThread = 500;
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			futures.add(pool.submit(() -> {
+				for (int i = 0; i < perThread; i++) {
+					Movie added = service.addMovie(movie("Movie " + i, "Drama", 2000, 5.0));
+					service.updateMovie(added.getId(), movie("Updated " + i, "Drama", 2001, 6.0));
+					service.getAllMovies();
+					if (i % 2 == 0) {
+						service.deleteMovie(added.getId());
+					}
+				}
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+		int expected = 3 + threads * perThread / 2;
+		assertEquals(expected, service.getAllMovies().size());
+		service.getAllMovies().stream()
+				.filter(m -> m.getId() > 3)
+				.forEach(m -> assertTrue(m.getTitle().startsWith("Updated")));
+		assertEquals(expected - 3, service.findMovies(new MovieFilter(null, 2001, 2001, null, null)).size());
+	}
+
+	@Test
+	void aListenerThatThrowsAfterTheWriteDoesNotUndoIt() {
+		MovieService service = new MovieService();
+		List<MovieChange> seen = new ArrayList<>();
+		service.addChangeListener(new MovieChangeListener() {
+			@Override
+			public void onChange(MovieChange change) {
+				throw new IllegalStateException("listener failed");
+			}
+		});
+		service.addChangeListener(new MovieChangeListener() {
+			@Override
+			public void onChange(MovieChange change) {
+				seen.add(change);
+			}
+		});
+
+		Movie added = service.addMovie(movie("Alien", "Sci-Fi", 1979, 8.5));
+
+		assertEquals(added, service.getMovieById(added.getId()));
+		assertEquals(List.of(added.getId()), ids(service.searchMovies("alien", 10)));
+		assertEquals(4, service.getStats(null).getCount());
+		assertEquals(service.getChangeFeed().getLastSequence(), service.getCatalogVersion());
+		assertEquals(1, seen.size());
+	}
+
+	@Test
+	void aListenerCanRefuseAWriteBeforeAnythingChanges() {
+		MovieService service = new MovieService();
+		boolean[] refuse = {true};
+		service.addChangeListener(new MovieChangeListener() {
+			@Override
+			public void beforeChange(long sequence, MovieChange change) {
+				if (refuse[0]) {
+					throw new IllegalStateException("log unavailable");
+				}
+			}
+		});
+		long version = service.getCatalogVersion();
+
+		assertThrows(IllegalStateException.class, () -> service.addMovie(movie("Alien", "Sci-Fi", 1979, 8.5)));
+		assertThrows(IllegalStateException.class, () -> service.updateMovie(2L, movie("Tenet", "Sci-Fi", 2020, 7.3)));
+		assertThrows(IllegalStateException.class, () -> service.deleteMovie(3L));
+
+		assertEquals(3, service.getMovieCount());
+		assertEquals("Inception", service.getMovieById(2L).getTitle());
+		assertEquals(1, service.getMovieById(2L).getVersion());
+		assertEquals(List.of(), ids(service.searchMovies("alien", 10)));
+		assertEquals(List.of(2L), ids(service.searchMovies("inception", 10)));
+		assertEquals(3, service.getStats(null).getCount());
+		assertEquals(version, service.getCatalogVersion());
+		assertEquals(version, service.getChangeFeed().getLastSequence());
+		assertEquals(3, service.findMovies(MovieFilter.NONE).size());
+
+		// The numbers the refused writes took do not hold up later ones
+		refuse[0] = false;
+		Movie added = service.addMovie(movie("Alien", "Sci-Fi", 1979, 8.5));
+		assertTrue(service.getCatalogVersion() > version);
+		assertEquals(added.getId(), service.findMovies(MovieFilter.NONE).get(3).getId());
+	}
+
+	@Test
+	void aBatchThatFailsPartwayStillFinishesWhatItWrote() {
+		MovieService service = new MovieService();
+		int[] afterWrites = {0};
+		service.addChangeListener(new MovieChangeListener() {
+			@Override
+			public void beforeChange(long sequence, MovieChange change) {
+				if ("Refused".equals(change.getMovie().getTitle())) {
+					throw new IllegalStateException("log unavailable");
+				}
+			}
+
+			@Override
+			public void afterWrite() {
+				afterWrites[0]++;
+			}
+		});
+
+		assertThrows(IllegalStateException.class, () -> service.addMovies(List.of(
+				movie("Heat", "Crime", 1995, 8.3),
+				movie("Refused", "Crime", 1995, 8.3)), 0));
+		assertEquals(1, afterWrites[0]);
+		assertEquals(4, service.getMovieCount());
+
+		assertThrows(IllegalStateException.class, () -> service.importMovies(List.of(
+				new Movie(40L, "Ran", "Ran description", "Drama", 1985, 8.2),
+				new Movie(41L, "Refused", "Refused description", "Drama", 1985, 8.2)).iterator(), 100));
+		assertEquals(2, afterWrites[0]);
+		assertEquals("Ran", service.getMovieById(40L).getTitle());
+		// The imported id is reserved even though the import did not finish
+		assertTrue(service.addMovie(movie("Alien", "Sci-Fi", 1979, 8.5)).getId() > 40);
+	}
+
+	@Test
+	void bulkWritesReportEveryFailedRule() {
+		MovieService service = new MovieService();
+		List<BulkItemResult> results = service.addMovies(List.of(
+				movie("Heat", "Crime", 1995, 8.3),
+				new Movie(null, null, null, "Crime", 1700, 7.0),
+				movie("Ran", "Drama", 1985, 8.2)), 0);
+
+		assertTrue(results.get(0).isSuccess());
+		assertEquals(400, results.get(1).getStatus());
+		assertEquals("Title is required and cannot be empty; "
+				+ "Release year must be between 1888 (first movie ever made) and 2100", results.get(1).getError());
+		assertTrue(results.get(2).isSuccess());
+	}
+
+	@Test
+	void replicatedChangesKeepTheLeadersIds() {
+		MovieService service = new MovieService();
+		Movie copy = new Movie(10L, "Heat", "Heat description", "Crime", 1995, 8.3);
+		service.applyChanges(List.of(
+				new MovieChange(MovieChange.Type.CREATED, 10, copy),
+				new MovieChange(MovieChange.Type.DELETED, 2, null),
+				new MovieChange(MovieChange.Type.DELETED, 7, null)));
+
+		assertEquals(List.of(1L, 3L, 10L), ids(service.getAllMovies()));
+		assertEquals(11, service.getNextId());
+
+		// A snapshot replaces the catalog: missing movies go, the rest are upserted
+		Movie replaced = new Movie(3L, "Interstellar", "Space", "Sci-Fi", 2014, 8.7);
+		Movie added = new Movie(20L, "Arrival", "Language", "Sci-Fi", 2016, 7.9);
+		assertEquals(2, service.replaceCatalog(List.of(replaced, added).iterator(), 25));
+		assertEquals(List.of(3L, 20L), ids(service.getAllMovies()));
+		assertEquals("Space", service.getMovieById(3L).getDescription());
+		assertEquals(25, service.getNextId());
+	}
+
+	@Test
+	void loadingRecoveredMoviesNeverNumbersBackwards() {
+		MovieService service = new MovieService();
+		long handedOut = service.getCatalogVersion();
+		// Persisted numbers can be below this run's: a crashed run may have
+		// published changes after the last one that reached the disk
+		long persisted = handedOut - 2;
+		Movie heat = new Movie(7L, "Heat", null, "Crime", 1995, 8.3);
+		heat.setVersion(4);
+		TreeMap<Long, MovieChange> logged = new TreeMap<>();
+		logged.put(persisted, new MovieChange(MovieChange.Type.UPDATED, 7, heat));
+		service.loadMovies(List.of(heat), 8, persisted - 1, logged, persisted);
+
+		assertTrue(service.getCatalogVersion() > handedOut);
+		assertEquals(List.of(7L), ids(service.getAllMovies()));
+		assertEquals(4, service.getMovieById(7L).getVersion());
+		assertEquals(1, service.searchMovies("Heat", 10).size());
+		// Only the logged change is listed, and only positions that were persisted are served
+		SyncResponse sync = service.getChangesSince(persisted - 1, 10);
+		assertFalse(sync.isResync());
+		assertEquals(List.of(7L), sync.getChanges().stream().map(SyncResponse.Change::getId).toList());
+		assertEquals(0, service.getChangesSince(persisted, 10).getChanges().size());
+		assertTrue(service.getChangesSince(persisted + 1, 10).isResync());
+		assertTrue(service.getChangesSince(persisted - 2, 10).isResync());
+	}
+
+	private static List<Long> ids(List<Movie> movies) {
+		List<Long> ids = new ArrayList<>();
+		movies.forEach(m -> ids.add(m.getId()));
+		return ids;
+	}
+
+}